@@ -0,0 +1,6 @@
+package com.greenwich.flowerplus.common.enums;
+
+public enum DeliverySlotBookingStatus {
+    ACTIVE,   // Đang chiếm chỗ trong khung giờ
+    RELEASED  // Đơn hủy, đã trả chỗ
+}
@@ -24,9 +24,14 @@ public enum ErrorCode {
     METHOD_NOT_ALLOWED(HttpStatus.METHOD_NOT_ALLOWED, "SYS_006", "Method not allowed"),
     RATE_LIMIT_EXCEEDED(HttpStatus.TOO_MANY_REQUESTS, "SYS_007", "Rate limit exceeded"),
     RESOURCE_NOT_FOUND(HttpStatus.NOT_FOUND, "SYS_404", "Resource not found"), // Fallback for general 404
+    IDEMPOTENCY_KEY_INVALID(HttpStatus.BAD_REQUEST, "IDEMPOTENCY_001", "Idempotency-Key must be 1-64 characters"),
+    IDEMPOTENCY_KEY_REUSED(HttpStatus.UNPROCESSABLE_ENTITY, "IDEMPOTENCY_002", "Idempotency-Key was already used for a different request"),
+    IDEMPOTENCY_REQUEST_IN_PROGRESS(HttpStatus.CONFLICT, "IDEMPOTENCY_003", "A request with this Idempotency-Key is still being processed"),
     INVALID_FILE(HttpStatus.BAD_REQUEST, "FILE_001", "Invalid file" ),
     INVALID_FILE_TYPE(HttpStatus.BAD_REQUEST, "FILE_002", "Invalid file type"),
     FILE_DELETE_FAILED(HttpStatus.INTERNAL_SERVER_ERROR, "FILE_003" , "File delete failed" ),
+    FILE_UPLOAD_TIMEOUT(HttpStatus.GATEWAY_TIMEOUT, "FILE_004", "File upload timed out"),
+    FILE_NOT_FOUND(HttpStatus.NOT_FOUND, "FILE_005", "File not found"),
     // ========================================================================
     // 2. AUTHENTICATION & SECURITY (Login & Security) - Prefix: AUTH
     // ========================================================================
@@ -116,6 +121,7 @@ public enum ErrorCode {
     PRODUCT_EMPTY_CONTENT(HttpStatus.BAD_REQUEST, "PRODUCT_014", "Product empty content fields is not allowed"),
     PRODUCT_INVALID_PRICE(HttpStatus.BAD_REQUEST, "PRODUCT_014", "Product price must be positive"),
     PRODUCT_ORIGINAL_PRICE_LESS_THAN_BASE(HttpStatus.BAD_REQUEST, "PRODUCT_015", "Original price cannot be less than base price"),
+    PRODUCT_PRICE_BELOW_COST(HttpStatus.BAD_REQUEST, "PRODUCT_016", "Base price cannot be less than cost price"),
 
     // --- Product Assets ---
     PRODUCT_ASSET_NOT_FOUND(HttpStatus.NOT_FOUND, "ASSET_001", "Product asset not found"),
@@ -130,8 +136,15 @@ public enum ErrorCode {
     PRODUCT_MUST_HAVE_CATEGORY(HttpStatus.BAD_REQUEST, "PROD_CAT_003", "Product must have at least one category"),
     PRODUCT_CATEGORY_NOT_FOUND(HttpStatus.NOT_FOUND, "PROD_CAT_004", "Product category association not found"),
 
+    // --- Product Import ---
+    IMPORT_JOB_NOT_FOUND(HttpStatus.NOT_FOUND, "IMPORT_001", "Import job not found"),
+    IMPORT_JOB_NOT_RESUMABLE(HttpStatus.CONFLICT, "IMPORT_002", "Import job is running or already completed"),
+    IMPORT_FILE_MISSING(HttpStatus.GONE, "IMPORT_003", "Import file no longer exists, please upload it again"),
+
     // --- MATERIAL ----
     MATERIAL_NOT_FOUND(HttpStatus.NOT_FOUND, "MATERIAL_001", "Material not found"),
+    RECIPE_DUPLICATE_MATERIAL(HttpStatus.BAD_REQUEST, "RECIPE_001", "Recipe contains the same material more than once"),
+    RECIPE_INVALID_QUANTITY(HttpStatus.BAD_REQUEST, "RECIPE_002", "Recipe quantity must be greater than 0"),
 
     // --- CURRENCY ---
     UNSUPPORTED_CURRENCY(HttpStatus.BAD_REQUEST, "CURRENCY_001", "Unsupported currency"),
@@ -174,6 +187,18 @@ public enum ErrorCode {
     // ----- ORDER --------
     ORDER_NOT_FOUND(HttpStatus.NOT_FOUND, "ORDER_001", "Order not found"),
     ORDER_PAID(HttpStatus.BAD_REQUEST, "ORDER_002", "Order paid"),
+    ORDER_PRODUCT_UNAVAILABLE(HttpStatus.CONFLICT, "ORDER_003", "Product is not available for sale"),
+    ORDER_INVALID_STATUS_TRANSITION(HttpStatus.CONFLICT, "ORDER_004", "Order status transition not allowed"),
+    ORDER_IDEMPOTENCY_KEY_REUSED(HttpStatus.CONFLICT, "ORDER_005", "Idempotency key was already used for a different order"),
+    // ----- DELIVERY SLOT ------
+    DELIVERY_SLOT_NOT_FOUND(HttpStatus.NOT_FOUND, "DELIVERY_SLOT_001", "Delivery slot not found"),
+    DELIVERY_SLOT_FULL(HttpStatus.CONFLICT, "DELIVERY_SLOT_002", "Delivery slot is fully booked"),
+    DELIVERY_SLOT_UNAVAILABLE(HttpStatus.BAD_REQUEST, "DELIVERY_SLOT_003", "Delivery slot cannot be booked for this date"),
+    // ----- CART ------
+    CART_LINE_LIMIT_EXCEEDED(HttpStatus.BAD_REQUEST, "CART_007", "Maximum 50 products per cart"),
+    CART_PRODUCT_UNAVAILABLE(HttpStatus.CONFLICT, "CART_008", "Product is not available for sale"),
+    // ----- SALES REPORT ------
+    SALES_INVALID_REPORT_RANGE(HttpStatus.BAD_REQUEST, "SALES_001", "Report range must be at most 366 days"),
     // ----- PAYMENT ------
     PAYMENT_METHOD_NOT_SUPPORTED(HttpStatus.BAD_REQUEST, "PAYMENT_METHOD_001" , "Payment method not supported" ),
     
@@ -185,13 +210,10 @@ public enum ErrorCode {
     INVENTORY_RESERVE_FAILED(HttpStatus.CONFLICT, "INVENTORY_005", "Inventory reserve failed"),
     INVENTORY_CONFIRM_FAILED(HttpStatus.CONFLICT, "INVENTORY_006", "Inventory confirm failed"),
     INVENTORY_RELEASE_FAILED(HttpStatus.CONFLICT, "INVENTORY_007", "Inventory release failed"),
-<<<<<<< Updated upstream
-    
-    UNCATEGORIZED_EXCEPTION(HttpStatus.INTERNAL_SERVER_ERROR,"PAYMENT_ERROR_002" , "Uncategorized exception");
-=======
     INVALID_TRANSACTION_TYPE(HttpStatus.BAD_REQUEST, "INVENTORY_008", "Invalid transaction type "),
+    INVENTORY_INVALID_RANGE(HttpStatus.BAD_REQUEST, "INVENTORY_009", "Ledger range must be at most 366 days"),
+    INVENTORY_INVALID_REPORT_RANGE(HttpStatus.BAD_REQUEST, "INVENTORY_010", "Report range must be at most 36 months"),
     UNCATEGORIZED_EXCEPTION(HttpStatus.INTERNAL_SERVER_ERROR,"PAYMENT_ERROR_002" , "Uncategorized exception"),;
->>>>>>> Stashed changes
 
 
     // ... (rest of simple constructor)
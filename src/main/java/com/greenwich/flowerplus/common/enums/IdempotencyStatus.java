@@ -0,0 +1,6 @@
+package com.greenwich.flowerplus.common.enums;
+
+public enum IdempotencyStatus {
+    IN_PROGRESS, // Request đầu tiên đang chạy, các lần retry phải chờ
+    COMPLETED    // Đã lưu response, retry được trả lại response này
+}
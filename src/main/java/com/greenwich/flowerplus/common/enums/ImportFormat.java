@@ -0,0 +1,33 @@
+package com.greenwich.flowerplus.common.enums;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+public enum ImportFormat {
+
+    CSV("csv"),
+    NDJSON("ndjson", "jsonl");
+
+    // Phần tử đầu tiên là đuôi dùng cho file spool trên đĩa
+    private final List<String> extensions;
+
+    ImportFormat(String... extensions) {
+        this.extensions = List.of(extensions);
+    }
+
+    public String getExtension() {
+        return extensions.getFirst();
+    }
+
+    /**
+     * @return format matching the file extension, null when the extension is not supported
+     */
+    public static ImportFormat fromExtension(String extension) {
+        String normalized = extension.toLowerCase(Locale.ROOT);
+        return Arrays.stream(values())
+                .filter(format -> format.extensions.contains(normalized))
+                .findFirst()
+                .orElse(null);
+    }
+}
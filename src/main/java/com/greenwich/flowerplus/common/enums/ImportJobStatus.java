@@ -0,0 +1,8 @@
+package com.greenwich.flowerplus.common.enums;
+
+public enum ImportJobStatus {
+    PENDING,    // File đã upload, chờ xử lý
+    RUNNING,    // Đang import
+    COMPLETED,  // Xong (có thể vẫn có dòng lỗi)
+    FAILED      // Dừng giữa chừng, có thể resume từ checkpoint
+}
@@ -0,0 +1,6 @@
+package com.greenwich.flowerplus.common.enums;
+
+public enum LowStockAlertType {
+    LOW,        // Tồn khả dụng vừa xuống <= reorder level
+    RECOVERED   // Đã nhập thêm / trả hàng, tồn khả dụng > reorder level
+}
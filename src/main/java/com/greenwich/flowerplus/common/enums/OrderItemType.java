@@ -0,0 +1,6 @@
+package com.greenwich.flowerplus.common.enums;
+
+public enum OrderItemType {
+    PRODUCT,  // Sản phẩm có sẵn trong catalog (product_id bắt buộc)
+    CUSTOM    // Bó hoa tự thiết kế (custom_config bắt buộc)
+}
@@ -0,0 +1,10 @@
+package com.greenwich.flowerplus.common.enums;
+
+public enum OrderStatus {
+    PENDING,     // Vừa đặt, đang giữ hàng (reservation)
+    CONFIRMED,   // Shop đã xác nhận, hàng đã xuất kho
+    PROCESSING,  // Đang cắm hoa / chuẩn bị
+    SHIPPING,    // Đang giao
+    COMPLETED,   // Giao thành công
+    CANCELLED    // Đã hủy (hàng giữ được trả lại)
+}
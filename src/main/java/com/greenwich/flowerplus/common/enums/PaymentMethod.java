@@ -0,0 +1,7 @@
+package com.greenwich.flowerplus.common.enums;
+
+public enum PaymentMethod {
+    COD,            // Thanh toán khi nhận hàng
+    BANK_TRANSFER,  // Chuyển khoản
+    VNPAY
+}
@@ -0,0 +1,7 @@
+package com.greenwich.flowerplus.common.enums;
+
+public enum PaymentStatus {
+    UNPAID,
+    PAID,
+    REFUNDED
+}
@@ -0,0 +1,7 @@
+package com.greenwich.flowerplus.common.enums;
+
+public enum ReservationStatus {
+    RESERVED,   // Đang giữ hàng (reserved_quantity đã cộng)
+    COMMITTED,  // Đã xuất kho (quantity đã trừ)
+    RELEASED    // Đã trả lại (hủy đơn / hết hạn)
+}
@@ -0,0 +1,7 @@
+package com.greenwich.flowerplus.common.enums;
+
+public enum SalesRollupEvent {
+    RECOGNIZED, // Đơn được tính doanh thu (thanh toán hoặc giao xong, lần đầu)
+    REVERSED,   // Đơn đã tính doanh thu bị hủy -> trừ lại đúng ngày đã cộng
+    CANCELLED   // Đơn bị hủy (đếm số đơn hủy theo ngày hủy)
+}
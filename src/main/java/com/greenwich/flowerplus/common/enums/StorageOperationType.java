@@ -0,0 +1,6 @@
+package com.greenwich.flowerplus.common.enums;
+
+public enum StorageOperationType {
+    CONFIRM, // Gỡ tag "temporary": ảnh đã được sản phẩm dùng, job dọn rác không được xoá
+    DELETE   // Xoá file trên provider
+}
@@ -0,0 +1,76 @@
+package com.greenwich.flowerplus.common.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+/**
+ * Detects the image type from the first bytes of a file (magic numbers), the Content-Type sent by the
+ * client is not trusted. Only the header is read, never the whole file.
+ */
+public class ImageTypeUtils {
+
+    private ImageTypeUtils() {
+        // Utility class
+    }
+
+    // Longest signature we look at (ISO-BMFF "ftyp" box brand ends at byte 12)
+    private static final int HEADER_LENGTH = 12;
+
+    private static final byte[] JPEG = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF};
+    private static final byte[] PNG = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+
+    /**
+     * @return MIME type of the image ("image/png"...), empty when the header is not a supported image
+     */
+    public static Optional<String> detect(InputStream input) throws IOException {
+        byte[] header = input.readNBytes(HEADER_LENGTH);
+        return detect(header);
+    }
+
+    public static Optional<String> detect(byte[] header) {
+        if (startsWith(header, JPEG)) {
+            return Optional.of("image/jpeg");
+        }
+        if (startsWith(header, PNG)) {
+            return Optional.of("image/png");
+        }
+        if (ascii(header, 0, 6).equals("GIF87a") || ascii(header, 0, 6).equals("GIF89a")) {
+            return Optional.of("image/gif");
+        }
+        if (ascii(header, 0, 4).equals("RIFF") && ascii(header, 8, 4).equals("WEBP")) {
+            return Optional.of("image/webp");
+        }
+        // ISO-BMFF: size(4) "ftyp" brand(4)
+        if (ascii(header, 4, 4).equals("ftyp")) {
+            String brand = ascii(header, 8, 4);
+            if (brand.equals("avif") || brand.equals("avis")) {
+                return Optional.of("image/avif");
+            }
+            if (brand.equals("heic") || brand.equals("heix") || brand.equals("mif1") || brand.equals("msf1")) {
+                return Optional.of("image/heic");
+            }
+        }
+        return Optional.empty();
+    }
+
+    private static boolean startsWith(byte[] data, byte[] prefix) {
+        if (data.length < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (data[i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String ascii(byte[] data, int offset, int length) {
+        if (data.length < offset + length) {
+            return "";
+        }
+        return new String(data, offset, length, StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,84 @@
+package com.greenwich.flowerplus.common.utils;
+
+import com.greenwich.flowerplus.common.enums.ErrorCode;
+import com.greenwich.flowerplus.common.exception.AppException;
+import org.springframework.util.StringUtils;
+
+import java.math.BigDecimal;
+
+/**
+ * Input validation rules for product fields, shared by the single-product API
+ * (ProductServiceImpl) and the bulk import/bulk update pipelines.
+ * <p>
+ * Every method throws {@link AppException} on the first violated rule.
+ */
+public final class ProductValidationUtils {
+
+    public static final BigDecimal MAX_PRICE = new BigDecimal("999999999999.99");
+
+    private ProductValidationUtils() {
+        // Utility class - prevent instantiation
+    }
+
+    public static void validateName(String name) {
+        if (!StringUtils.hasText(name)) {
+            return; // Allow null for partial updates
+        }
+
+        if (name.isBlank() || name.contains("''") || name.contains("\"'\"")) {
+            throw new AppException(ErrorCode.PRODUCT_EMPTY_CONTENT);
+        }
+
+        var result = TextValidationUtils.validateName(name);
+        if (!result.isValid()) {
+            if (result.errorMessage().contains("inappropriate")) {
+                throw new AppException(ErrorCode.PRODUCT_NAME_CONTAINS_BAD_WORDS, result.errorMessage());
+            }
+            throw new AppException(ErrorCode.PRODUCT_INVALID_NAME_FORMAT, result.errorMessage());
+        }
+    }
+
+    public static void validateDescription(String description) {
+        if (!StringUtils.hasText(description)) {
+            return; // Allow null for partial updates
+        }
+
+        if (description.isBlank() || description.contains("''") || description.contains("\"'\"")) {
+            throw new AppException(ErrorCode.PRODUCT_EMPTY_CONTENT);
+        }
+
+        var result = TextValidationUtils.validateDescription(description);
+        if (!result.isValid()) {
+            if (result.errorMessage().contains("inappropriate")) {
+                throw new AppException(ErrorCode.PRODUCT_DESCRIPTION_CONTAINS_BAD_WORDS, result.errorMessage());
+            }
+            throw new AppException(ErrorCode.PRODUCT_INVALID_DESCRIPTION_FORMAT, result.errorMessage());
+        }
+    }
+
+    public static void validatePrice(BigDecimal basePrice, BigDecimal originalPrice) {
+        if (basePrice != null) {
+            if (basePrice.compareTo(BigDecimal.ZERO) <= 0) {
+                throw new AppException(ErrorCode.PRODUCT_INVALID_PRICE);
+            }
+            if (basePrice.compareTo(MAX_PRICE) > 0) {
+                throw new AppException(ErrorCode.INVALID_PRICE); // Using existing general price error
+            }
+        }
+
+        if (originalPrice != null) {
+            if (originalPrice.compareTo(BigDecimal.ZERO) <= 0) {
+                throw new AppException(ErrorCode.PRODUCT_INVALID_PRICE);
+            }
+            if (originalPrice.compareTo(MAX_PRICE) > 0) {
+                throw new AppException(ErrorCode.INVALID_PRICE);
+            }
+        }
+
+        if (originalPrice != null
+                && basePrice != null
+                && originalPrice.compareTo(basePrice) < 0) {
+            throw new AppException(ErrorCode.PRODUCT_ORIGINAL_PRICE_LESS_THAN_BASE);
+        }
+    }
+}
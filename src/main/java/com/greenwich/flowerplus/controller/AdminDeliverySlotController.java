@@ -0,0 +1,43 @@
+package com.greenwich.flowerplus.controller;
+
+import com.greenwich.flowerplus.common.ApiResult;
+import com.greenwich.flowerplus.dto.request.DeliverySlotCapacityRequest;
+import com.greenwich.flowerplus.service.DeliverySlotService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@Slf4j
+@Validated
+@RequiredArgsConstructor
+@RequestMapping("/api/v1/admin/delivery-slots")
+@Tag(name = "Admin: Delivery Slot", description = "API cấu hình số đơn tối đa của khung giờ giao hàng")
+public class AdminDeliverySlotController {
+
+    private final DeliverySlotService deliverySlotService;
+
+    @Operation(summary = "API đổi sức chứa khung giờ giao hàng", description = """
+        Endpoint này đổi số bó hoa tối đa của một khung giờ [role owner, admin]
+        
+        **Lưu ý:**
+        - Có `date`: chỉ áp dụng cho ngày đó (ngày lễ thêm người cắm hoa)
+        - Không có `date`: sức chứa mặc định, áp dụng cho mọi ngày không cấu hình riêng
+        - Đơn đã đặt không bị ảnh hưởng; giảm dưới số đã đặt -> khung giờ hết chỗ
+        """)
+    @PreAuthorize("hasAnyAuthority('ROLE_SHOP_OWNER', 'ROLE_ADMIN')")
+    @PutMapping("/{slotCode}/capacity")
+    public ResponseEntity<ApiResult<Void>> updateCapacity(
+            @PathVariable String slotCode,
+            @Valid @RequestBody DeliverySlotCapacityRequest request) {
+        log.info("Admin: delivery slot {} capacity -> {} ({})", slotCode, request.capacity(), request.date());
+        deliverySlotService.updateCapacity(slotCode, request.date(), request.capacity());
+        return ResponseEntity.ok(ApiResult.success(null, "Delivery slot capacity updated"));
+    }
+}
@@ -0,0 +1,64 @@
+package com.greenwich.flowerplus.controller;
+
+import com.greenwich.flowerplus.common.ApiResult;
+import com.greenwich.flowerplus.dto.request.UpdateOrderStatusRequest;
+import com.greenwich.flowerplus.dto.response.OrderResponse;
+import com.greenwich.flowerplus.service.OrderFulfillmentService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@Slf4j
+@Validated
+@RequiredArgsConstructor
+@RequestMapping("/api/v1/admin/orders")
+@Tag(name = "Admin: Order", description = "API xử lý đơn hàng (xác nhận, giao hàng, hủy, thanh toán)")
+public class AdminOrderController {
+
+    private final OrderFulfillmentService orderFulfillmentService;
+
+    @Operation(summary = "API chuyển trạng thái đơn hàng", description = """
+        Endpoint này dành cho xử lý đơn [role staff, owner, admin]
+        
+        **Luồng:**
+        - `PENDING` -> `CONFIRMED`: xuất kho nguyên liệu đã giữ
+        - `CONFIRMED` -> `PROCESSING` -> `SHIPPING` -> `COMPLETED`
+        - `CANCELLED` khi chưa giao: đơn PENDING được trả lại hàng đã giữ
+        
+        **Lưu ý:**
+        - Đơn COD được tính là đã thanh toán khi COMPLETED
+        - Hủy đơn đã thanh toán -> payment status vẫn PAID (cần hoàn tiền), doanh thu bị trừ lại đúng ngày đã tính
+        - Gửi lại cùng trạng thái hiện tại -> không thay đổi gì
+        """)
+    @PreAuthorize("hasAnyAuthority('ROLE_SHOP_OWNER', 'ROLE_SHOP_STAFF', 'ROLE_ADMIN')")
+    @PatchMapping("/{orderId}/status")
+    public ResponseEntity<ApiResult<OrderResponse>> updateStatus(
+            @PathVariable Long orderId,
+            @Valid @RequestBody UpdateOrderStatusRequest request) {
+        log.info("Admin: moving order {} to {}", orderId, request.status());
+        OrderResponse order = orderFulfillmentService.updateStatus(orderId, request.status());
+        return ResponseEntity.ok(ApiResult.success(order, "Order status updated"));
+    }
+
+    @Operation(summary = "API ghi nhận đơn hàng đã thanh toán", description = """
+        Endpoint này xác nhận đã nhận tiền (chuyển khoản, VNPAY) [role staff, owner, admin]
+        
+        **Lưu ý:**
+        - Đơn đã thanh toán -> lỗi ORDER_002, đơn đã hủy -> lỗi ORDER_004
+        - Doanh thu được tính vào ngày thanh toán
+        """)
+    @PreAuthorize("hasAnyAuthority('ROLE_SHOP_OWNER', 'ROLE_SHOP_STAFF', 'ROLE_ADMIN')")
+    @PostMapping("/{orderId}/payment")
+    public ResponseEntity<ApiResult<OrderResponse>> markPaid(@PathVariable Long orderId) {
+        log.info("Admin: marking order {} as paid", orderId);
+        OrderResponse order = orderFulfillmentService.markPaid(orderId);
+        return ResponseEntity.ok(ApiResult.success(order, "Order marked as paid"));
+    }
+}
@@ -1,12 +1,24 @@
 package com.greenwich.flowerplus.controller;
 
 import com.greenwich.flowerplus.common.ApiResult;
+import com.greenwich.flowerplus.common.enums.ExportFormat;
+import com.greenwich.flowerplus.common.enums.ImportFormat;
+import com.greenwich.flowerplus.dto.request.BulkProductCategoryRequest;
+import com.greenwich.flowerplus.dto.request.BulkProductPriceRequest;
+import com.greenwich.flowerplus.dto.request.BulkProductRecipeRequest;
+import com.greenwich.flowerplus.dto.request.BulkProductStatusRequest;
 import com.greenwich.flowerplus.dto.request.CreateGeneralInfoProductRequest;
 import com.greenwich.flowerplus.dto.request.ProductAssetRequest;
 import com.greenwich.flowerplus.dto.request.ProductCategoryRequest;
 import com.greenwich.flowerplus.dto.request.ProductSearchRequest;
 import com.greenwich.flowerplus.dto.request.UpdateProductInfoRequest;
+import com.greenwich.flowerplus.dto.response.BulkOperationResponse;
+import com.greenwich.flowerplus.dto.response.ProductImportErrorResponse;
+import com.greenwich.flowerplus.dto.response.ProductImportJobResponse;
 import com.greenwich.flowerplus.dto.response.ProductResponseAdmin;
+import com.greenwich.flowerplus.service.ProductBulkService;
+import com.greenwich.flowerplus.service.ProductImportService;
+import com.greenwich.flowerplus.service.ProductRecipeService;
 import com.greenwich.flowerplus.service.ProductSearchService;
 import com.greenwich.flowerplus.service.ProductService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -15,11 +27,16 @@ import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -33,6 +50,9 @@ public class AdminProductController {
 
     private final ProductService productService;
     private final ProductSearchService productSearchService;
+    private final ProductBulkService productBulkService;
+    private final ProductImportService productImportService;
+    private final ProductRecipeService productRecipeService;
 
     // ============================================================================
     // SEARCH & RETRIEVE
@@ -66,6 +86,32 @@ public class AdminProductController {
         ));
     }
 
+    @Operation(summary = "Export toàn bộ catalog (CSV/NDJSON)", description = """
+        Endpoint này dành cho staff export catalog để review giá [role staff, owner, admin]
+        
+        **Lưu ý:**
+        - Dùng chung filter với search admin (keyword, category, giá, status, sort), bỏ qua page/size
+        - format: CSV (mặc định) hoặc NDJSON
+        - Dữ liệu được stream trực tiếp từ DB, không giới hạn số dòng
+        """)
+    @PreAuthorize("hasAnyAuthority('ROLE_SHOP_OWNER', 'ROLE_SHOP_STAFF', 'ROLE_ADMIN')")
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportProducts(
+            @ModelAttribute ProductSearchRequest request,
+            @RequestParam(defaultValue = "CSV") ExportFormat format) {
+        log.info("Admin export - format: {}, keyword: {}, status: {}", format, request.getKeyword(), request.getStatus());
+
+        StreamingResponseBody body = out -> productSearchService.exportAdmin(request, format, out);
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(format.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("products." + format.getExtension())
+                        .build()
+                        .toString())
+                .body(body);
+    }
+
     @Operation(summary = "API lấy full information product", description = """
         Endpoint này dành cho việc lấy full thông tin sản phẩm gồm categories, assets, tạo bởi ai, ngày giờ tạo
         
@@ -90,6 +136,7 @@ public class AdminProductController {
         - Tạo product chỉ bao gồm field cơ bản gồm tên, description, basePrice (selling price), category id
         - STATUS luôn tạo ra với mặc định giá trị là DRAFT
         - Tên sản phẩm sẽ được validate: không chứa từ ngữ không phù hợp, ký tự đặc biệt
+        - Nên gửi header Idempotency-Key (1-64 ký tự, mới cho mỗi lần tạo): gửi lại cùng key -> trả lại response cũ, không tạo trùng
         """)
     @PreAuthorize("hasAnyAuthority('ROLE_SHOP_OWNER', 'ROLE_SHOP_STAFF', 'ROLE_ADMIN')")
     @PostMapping("/draft")
@@ -181,6 +228,159 @@ public class AdminProductController {
         return ResponseEntity.ok(ApiResult.success(productResponse, "Product categories updated successfully"));
     }
 
+    // ============================================================================
+    // BULK OPERATIONS (set-based, per-id report)
+    // ============================================================================
+
+    @Operation(summary = "API đổi trạng thái nhiều sản phẩm cùng lúc", description = """
+        Endpoint này dành cho đổi status hàng loạt (mở bán theo mùa, Tết...) [role staff, owner, admin]
+        
+        **Lưu ý:**
+        - STATUS gồm : ACTIVE, DRAFT, INACTIVE
+        - ACTIVE yêu cầu: có thumbnail, ít nhất 1 category, giá > 0 (giống activate 1 sản phẩm)
+        - Sản phẩm không thỏa điều kiện sẽ bị bỏ qua và trả về lỗi riêng trong `results`
+        - Tối đa 5000 sản phẩm / request
+        """)
+    @PreAuthorize("hasAnyAuthority('ROLE_SHOP_OWNER', 'ROLE_SHOP_STAFF', 'ROLE_ADMIN')")
+    @PatchMapping("/bulk/status")
+    public ResponseEntity<ApiResult<BulkOperationResponse>> bulkUpdateStatus(
+            @Valid @RequestBody BulkProductStatusRequest request) {
+        log.info("Received bulk status request for {} products -> {}", request.productIds().size(), request.productStatus());
+        BulkOperationResponse response = productBulkService.updateStatus(request);
+        return ResponseEntity.ok(ApiResult.success(response, "Bulk status update completed"));
+    }
+
+    @Operation(summary = "API điều chỉnh giá bán nhiều sản phẩm cùng lúc", description = """
+        Endpoint này dành cho tăng/giảm giá hàng loạt (khuyến mãi) [role staff, owner, admin]
+        
+        **Adjustment type:**
+        - `PERCENTAGE`: value = -20 nghĩa là giảm 20%
+        - `AMOUNT`: cộng thêm value (VND) vào giá hiện tại, số âm để giảm
+        
+        **Business Rules (áp dụng cho từng sản phẩm):**
+        - Giá mới > 0 và không nhỏ hơn giá vốn (cost price)
+        - Giá mới không lớn hơn giá gốc (original price)
+        """)
+    @PreAuthorize("hasAnyAuthority('ROLE_SHOP_OWNER', 'ROLE_SHOP_STAFF', 'ROLE_ADMIN')")
+    @PatchMapping("/bulk/price")
+    public ResponseEntity<ApiResult<BulkOperationResponse>> bulkAdjustPrice(
+            @Valid @RequestBody BulkProductPriceRequest request) {
+        log.info("Received bulk price request for {} products: {} {}",
+                request.productIds().size(), request.adjustmentType(), request.value());
+        BulkOperationResponse response = productBulkService.adjustPrice(request);
+        return ResponseEntity.ok(ApiResult.success(response, "Bulk price update completed"));
+    }
+
+    @Operation(summary = "API thêm/xóa categories cho nhiều sản phẩm cùng lúc", description = """
+        Endpoint này dành cho gán/bỏ category hàng loạt [role staff, owner, admin]
+        
+        **Operations:**
+        - `ADD`: Thêm categories (đã có thì bỏ qua)
+        - `REMOVE`: Xóa categories (phải còn ít nhất 1)
+        
+        **Business Rules:**
+        - Maximum 5 categories per product
+        - Category phải active mới được gán
+        """)
+    @PreAuthorize("hasAnyAuthority('ROLE_SHOP_OWNER', 'ROLE_SHOP_STAFF', 'ROLE_ADMIN')")
+    @PatchMapping("/bulk/categories")
+    public ResponseEntity<ApiResult<BulkOperationResponse>> bulkUpdateCategories(
+            @Valid @RequestBody BulkProductCategoryRequest request) {
+        log.info("Received bulk category request for {} products, operation: {}",
+                request.productIds().size(), request.operation());
+        BulkOperationResponse response = productBulkService.updateCategories(request);
+        return ResponseEntity.ok(ApiResult.success(response, "Bulk category update completed"));
+    }
+
+    @Operation(summary = "API cập nhật công thức (recipe) cho nhiều sản phẩm cùng lúc", description = """
+        Endpoint này dành cho thay thế toàn bộ công thức của nhiều sản phẩm [role owner, admin]
+        
+        **Lưu ý:**
+        - Mỗi item gồm productId + danh sách recipes (materialId, quantityNeeded), giống API PUT recipes của 1 sản phẩm
+        - recipes rỗng = xóa hết công thức
+        - Cost price được tính lại theo công thức mới
+        - Item lỗi (không tìm thấy product/material, trùng material, số lượng <= 0) bị bỏ qua và trả về trong `results`
+        - Tối đa 500 sản phẩm / request
+        """)
+    @PreAuthorize("hasAnyAuthority('ROLE_SHOP_OWNER', 'ROLE_ADMIN')")
+    @PutMapping("/bulk/recipes")
+    public ResponseEntity<ApiResult<BulkOperationResponse>> bulkUpdateRecipes(
+            @Valid @RequestBody BulkProductRecipeRequest request) {
+        log.info("Received bulk recipe request for {} products", request.items().size());
+        BulkOperationResponse response = productRecipeService.bulkUpdateRecipes(request);
+        return ResponseEntity.ok(ApiResult.success(response, "Bulk recipe update completed"));
+    }
+
+    // ============================================================================
+    // BULK IMPORT (background job)
+    // ============================================================================
+
+    @Operation(summary = "API import sản phẩm hàng loạt từ file CSV/NDJSON", description = """
+        Endpoint này dành cho import catalog lớn (hàng chục nghìn dòng) [role staff, owner, admin]
+        
+        **Định dạng file:**
+        - CSV có dòng header, hoặc NDJSON (mỗi dòng 1 object)
+        - Cột: name, description, careInstruction, basePrice, originalPrice, category (id, slug hoặc tên)
+        - format không truyền thì nhận diện theo đuôi file (.csv, .ndjson, .jsonl)
+        
+        **Lưu ý:**
+        - Trả về 202 + job id ngay, file được xử lý nền theo từng batch
+        - Sản phẩm được tạo với STATUS = DRAFT (giống tạo 1 sản phẩm)
+        - Dòng lỗi (validate, trùng slug) bị bỏ qua và ghi lại, xem bằng API errors
+        """)
+    @PreAuthorize("hasAnyAuthority('ROLE_SHOP_OWNER', 'ROLE_SHOP_STAFF', 'ROLE_ADMIN')")
+    @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ApiResult<ProductImportJobResponse>> importProducts(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(required = false) ImportFormat format) {
+        log.info("Received product import request: {} ({} bytes)", file.getOriginalFilename(), file.getSize());
+        ProductImportJobResponse response = productImportService.startImport(file, format);
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(ApiResult.success(response, "Import job started"));
+    }
+
+    @Operation(summary = "API xem tiến độ import", description = """
+        Endpoint này trả về trạng thái job và số dòng đã xử lý / import / lỗi [role staff, owner, admin]
+        """)
+    @PreAuthorize("hasAnyAuthority('ROLE_SHOP_OWNER', 'ROLE_SHOP_STAFF', 'ROLE_ADMIN')")
+    @GetMapping("/import/{jobId}")
+    public ResponseEntity<ApiResult<ProductImportJobResponse>> getImportJob(@PathVariable Long jobId) {
+        return ResponseEntity.ok(ApiResult.success(productImportService.getJob(jobId), "Import job retrieved successfully"));
+    }
+
+    @Operation(summary = "API chạy tiếp job import bị lỗi", description = """
+        Endpoint này chạy lại job FAILED (hoặc RUNNING bị treo > 10 phút) từ checkpoint cuối [role staff, owner, admin]
+        
+        **Lưu ý:**
+        - Các dòng đã commit trước đó không bị import lại
+        """)
+    @PreAuthorize("hasAnyAuthority('ROLE_SHOP_OWNER', 'ROLE_SHOP_STAFF', 'ROLE_ADMIN')")
+    @PostMapping("/import/{jobId}/resume")
+    public ResponseEntity<ApiResult<ProductImportJobResponse>> resumeImportJob(@PathVariable Long jobId) {
+        log.info("Received request to resume import job {}", jobId);
+        ProductImportJobResponse response = productImportService.resume(jobId);
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(ApiResult.success(response, "Import job resumed"));
+    }
+
+    @Operation(summary = "API xem các dòng lỗi của job import", description = """
+        Endpoint này trả về danh sách dòng lỗi theo số dòng trong file (có phân trang) [role staff, owner, admin]
+        """)
+    @PreAuthorize("hasAnyAuthority('ROLE_SHOP_OWNER', 'ROLE_SHOP_STAFF', 'ROLE_ADMIN')")
+    @GetMapping("/import/{jobId}/errors")
+    public ResponseEntity<ApiResult<List<ProductImportErrorResponse>>> getImportErrors(
+            @PathVariable Long jobId,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size) {
+        Page<ProductImportErrorResponse> errors = productImportService.getErrors(jobId, page, size);
+        return ResponseEntity.ok(ApiResult.success(
+                errors.getContent(),
+                errors.getNumber(),
+                errors.getSize(),
+                errors.getTotalElements()
+        ));
+    }
+
     // ============================================================================
     // DELETE
     // ============================================================================
@@ -0,0 +1,77 @@
+package com.greenwich.flowerplus.controller;
+
+import com.greenwich.flowerplus.common.ApiResult;
+import com.greenwich.flowerplus.dto.response.CategorySalesResponse;
+import com.greenwich.flowerplus.dto.response.DailySalesResponse;
+import com.greenwich.flowerplus.dto.response.ProductSalesResponse;
+import com.greenwich.flowerplus.service.SalesRollupService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@RestController
+@Slf4j
+@Validated
+@RequiredArgsConstructor
+@RequestMapping("/api/v1/admin/sales")
+@Tag(name = "Admin: Sales", description = "API báo cáo doanh thu (theo ngày, sản phẩm, danh mục)")
+public class AdminSalesController {
+
+    private final SalesRollupService salesRollupService;
+
+    @Operation(summary = "API doanh thu theo ngày", description = """
+        Endpoint này trả về doanh thu, số đơn, số sản phẩm bán và số đơn hủy theo ngày [role owner, admin]
+        
+        **Lưu ý:**
+        - Ngày theo giờ cửa hàng (yyyy-MM-dd), mặc định 30 ngày gần nhất, tối đa 366 ngày
+        - Đơn được tính vào ngày thanh toán hoặc giao xong (ngày nào đến trước)
+        - Doanh thu = tổng tiền đơn sau giảm giá
+        - Ngày không có đơn không có trong danh sách
+        """)
+    @PreAuthorize("hasAnyAuthority('ROLE_SHOP_OWNER', 'ROLE_ADMIN')")
+    @GetMapping("/daily")
+    public ResponseEntity<ApiResult<List<DailySalesResponse>>> getDailySales(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return ResponseEntity.ok(ApiResult.success(salesRollupService.getDailySales(from, to)));
+    }
+
+    @Operation(summary = "API sản phẩm bán chạy", description = """
+        Endpoint này trả về sản phẩm theo doanh thu giảm dần trong khoảng ngày [role owner, admin]
+        
+        **Lưu ý:**
+        - Doanh thu sản phẩm = thành tiền các dòng đơn (trước giảm giá cấp đơn)
+        - limit tối đa 200
+        """)
+    @PreAuthorize("hasAnyAuthority('ROLE_SHOP_OWNER', 'ROLE_ADMIN')")
+    @GetMapping("/products")
+    public ResponseEntity<ApiResult<List<ProductSalesResponse>>> getProductSales(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(ApiResult.success(salesRollupService.getProductSales(from, to, limit)));
+    }
+
+    @Operation(summary = "API doanh thu theo danh mục", description = """
+        Endpoint này trả về doanh thu theo danh mục trong khoảng ngày [role owner, admin]
+        
+        **Lưu ý:**
+        - Sản phẩm thuộc nhiều danh mục được tính vào từng danh mục -> tổng các danh mục có thể lớn hơn tổng doanh thu
+        """)
+    @PreAuthorize("hasAnyAuthority('ROLE_SHOP_OWNER', 'ROLE_ADMIN')")
+    @GetMapping("/categories")
+    public ResponseEntity<ApiResult<List<CategorySalesResponse>>> getCategorySales(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return ResponseEntity.ok(ApiResult.success(salesRollupService.getCategorySales(from, to)));
+    }
+}
@@ -0,0 +1,40 @@
+package com.greenwich.flowerplus.controller;
+
+import com.greenwich.flowerplus.common.ApiResult;
+import com.greenwich.flowerplus.dto.response.StorageOperationStatsResponse;
+import com.greenwich.flowerplus.infrastructure.storage.cloudinary.CloudinaryOperationBatcher;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@ConditionalOnProperty(prefix = "app.storage", name = "provider", havingValue = "cloudinary", matchIfMissing = true)
+@RequiredArgsConstructor
+@RequestMapping("/api/v1/admin/storage")
+@Tag(name = "Admin: Storage", description = "API theo dõi hàng đợi thao tác với Cloudinary")
+public class AdminStorageController {
+
+    private final CloudinaryOperationBatcher operationBatcher;
+
+    @Operation(summary = "API xem hàng đợi confirm/xoá ảnh", description = """
+        Endpoint này trả về trạng thái hàng đợi gỡ tag temporary / xoá ảnh trên Cloudinary [role owner, admin]
+
+        **Lưu ý:**
+        - queueDepth: số thao tác đang chờ trong bộ nhớ của instance này
+        - pendingOperations / retryingOperations: số dòng còn trong bảng storage_operations (mọi instance) / đang retry
+        - batchesSent, operationsSent, averageBatchSize, maxBatchSize: tính từ lúc instance khởi động
+        - retryingOperations tăng mãi -> Cloudinary đang lỗi, ảnh chưa confirm vẫn được job dọn rác giữ lại
+        - deadOperations: số dòng đã lỗi quá max-attempts lần, không retry nữa (xem last_error trong storage_operations)
+        """)
+    @PreAuthorize("hasAnyAuthority('ROLE_SHOP_OWNER', 'ROLE_ADMIN')")
+    @GetMapping("/operations/stats")
+    public ResponseEntity<ApiResult<StorageOperationStatsResponse>> getOperationStats() {
+        return ResponseEntity.ok(ApiResult.success(operationBatcher.stats()));
+    }
+}
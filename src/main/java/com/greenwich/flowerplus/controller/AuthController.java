@@ -9,6 +9,7 @@ import com.greenwich.flowerplus.dto.request.RoleRequest;
 import com.greenwich.flowerplus.dto.response.AuthResponse;
 import com.greenwich.flowerplus.dto.response.RoleResponse;
 import com.greenwich.flowerplus.service.AuthService;
+import com.greenwich.flowerplus.service.CartService;
 import com.greenwich.flowerplus.service.RoleService;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
@@ -44,6 +45,7 @@ public class AuthController {
 
     private final AuthService authService;
     private final RoleService roleService;
+    private final CartService cartService;
     public static final String REFRESH_TOKEN_COOKIE_NAME = "refresh_token";
 
     /**
@@ -53,10 +55,12 @@ public class AuthController {
     @PostMapping("/register")
     public ResponseEntity<ApiResult<AuthResponse>> register(
             @Valid @RequestBody RegisterRequest request,
+            HttpServletRequest httpRequest,
             HttpServletResponse response) {
 
         AuthResponse authResult = authService.register(request);
         setRefreshTokenCookie(response, authResult.refreshToken());
+        mergeGuestCart(httpRequest, response, authResult.userId());
         
         return ResponseEntity.status(HttpStatus.CREATED)
             .body(ApiResult.success(authResult, "Registration completed successfully!"));
@@ -69,11 +73,13 @@ public class AuthController {
     @PostMapping("/login")
     public ResponseEntity<ApiResult<AuthResponse>> login(
             @Valid @RequestBody LoginRequest request,
+            HttpServletRequest httpRequest,
             HttpServletResponse response) {
 
         log.info("Login attempt for user: {}", request.getEmail());
         AuthResponse authResult = authService.login(request);
         setRefreshTokenCookie(response, authResult.refreshToken());
+        mergeGuestCart(httpRequest, response, authResult.userId());
         
         return ResponseEntity.ok(ApiResult.success(authResult, "Successfully logged in."));
     }
@@ -143,6 +149,32 @@ public class AuthController {
         response.setHeader(HttpHeaders.SET_COOKIE, cookie.toString());
     }
 
+    /**
+     * Move the guest cart (cart_id cookie) into the account's cart and drop the cookie.
+     * A failed merge never fails the login: the cart endpoints retry while the cookie is still there.
+     */
+    private void mergeGuestCart(HttpServletRequest request, HttpServletResponse response, Long userId) {
+        String guestCartId = CookieUtils.getCookieValue(request, CartController.GUEST_CART_COOKIE_NAME);
+        if (guestCartId == null || userId == null) {
+            return;
+        }
+        try {
+            cartService.mergeGuestCart(guestCartId, userId);
+        } catch (RuntimeException e) {
+            log.warn("Could not merge guest cart into cart of user {}: {}", userId, e.getMessage());
+            return;
+        }
+        ResponseCookie cleared = ResponseCookie.from(CartController.GUEST_CART_COOKIE_NAME, "")
+            .httpOnly(true)
+            .secure(false)
+            .path("/")
+            .maxAge(0)
+            .sameSite("Lax")
+            .build();
+        // addHeader: the refresh token cookie is already set on this response
+        response.addHeader(HttpHeaders.SET_COOKIE, cleared.toString());
+    }
+
     // ========================================================================
     // ROLE MANAGEMENT (SHOP_OWNER Only)
     // ========================================================================
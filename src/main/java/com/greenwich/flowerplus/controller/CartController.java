@@ -0,0 +1,173 @@
+package com.greenwich.flowerplus.controller;
+
+import com.greenwich.flowerplus.common.ApiResult;
+import com.greenwich.flowerplus.common.utils.CookieUtils;
+import com.greenwich.flowerplus.dto.request.CartItemRequest;
+import com.greenwich.flowerplus.dto.request.UpdateCartItemRequest;
+import com.greenwich.flowerplus.dto.response.CartResponse;
+import com.greenwich.flowerplus.infrastructure.security.SecurityUserDetails;
+import com.greenwich.flowerplus.service.CartService;
+import com.greenwich.flowerplus.service.CartService.CartOwner;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.Valid;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.Duration;
+
+@RestController
+@Slf4j
+@Validated
+@RequestMapping("/api/v1/carts")
+@Tag(name = "Cart", description = "API giỏ hàng (khách vãng lai và khách đã đăng nhập)")
+public class CartController {
+
+    public static final String GUEST_CART_COOKIE_NAME = "cart_id";
+
+    private final CartService cartService;
+    private final Duration guestCookieMaxAge;
+
+    public CartController(CartService cartService,
+                          @Value("${app.cart.guest-ttl-days:7}") int guestTtlDays) {
+        this.cartService = cartService;
+        this.guestCookieMaxAge = Duration.ofDays(guestTtlDays);
+    }
+
+    @Operation(summary = "API xem giỏ hàng", description = """
+        Endpoint này trả về giỏ hàng hiện tại kèm tên, giá, ảnh và tồn kho của sản phẩm [public]
+
+        **Lưu ý:**
+        - Đã đăng nhập -> giỏ của tài khoản, chưa đăng nhập -> giỏ theo cookie cart_id
+        - Đăng nhập mà vẫn còn cookie cart_id -> giỏ khách được gộp vào giỏ tài khoản, cookie bị xoá
+        - available = false: sản phẩm đã ẩn/xoá hoặc hết hàng, vẫn nằm trong giỏ nhưng không tính vào subTotal
+        - Giá/tồn kho có thể trễ vài giây, giá khi đặt hàng mới là giá cuối cùng
+        """)
+    @GetMapping
+    public ResponseEntity<ApiResult<CartResponse>> getCart(
+            @AuthenticationPrincipal SecurityUserDetails principal,
+            HttpServletRequest request,
+            HttpServletResponse response) {
+        return ResponseEntity.ok(ApiResult.success(cartService.getCart(resolveOwner(principal, request, response, false))));
+    }
+
+    @Operation(summary = "API thêm sản phẩm vào giỏ", description = """
+        Endpoint này cộng thêm quantity vào dòng sản phẩm trong giỏ (tạo dòng mới nếu chưa có) [public]
+
+        **Lưu ý:**
+        - Chưa có giỏ -> tạo giỏ khách mới và set cookie cart_id
+        - Tối đa 50 sản phẩm khác nhau, mỗi sản phẩm tối đa 100 (vượt quá -> giữ ở 100)
+        - Chỉ thêm được sản phẩm đang bán (ACTIVE)
+        """)
+    @PostMapping("/items")
+    public ResponseEntity<ApiResult<CartResponse>> addItem(
+            @AuthenticationPrincipal SecurityUserDetails principal,
+            @Valid @RequestBody CartItemRequest body,
+            HttpServletRequest request,
+            HttpServletResponse response) {
+        CartOwner owner = resolveOwner(principal, request, response, true);
+        return ResponseEntity.ok(ApiResult.success(
+                cartService.addItem(owner, body.productId(), body.quantity()), "Added to cart"));
+    }
+
+    @Operation(summary = "API đổi số lượng sản phẩm trong giỏ", description = """
+        Endpoint này đặt lại số lượng của một sản phẩm đã có trong giỏ [public]
+
+        **Lưu ý:**
+        - quantity = 0 -> xoá sản phẩm khỏi giỏ
+        - Sản phẩm chưa có trong giỏ -> 404 (dùng POST /items để thêm)
+        """)
+    @PutMapping("/items/{productId}")
+    public ResponseEntity<ApiResult<CartResponse>> updateItem(
+            @AuthenticationPrincipal SecurityUserDetails principal,
+            @PathVariable Long productId,
+            @Valid @RequestBody UpdateCartItemRequest body,
+            HttpServletRequest request,
+            HttpServletResponse response) {
+        CartOwner owner = resolveOwner(principal, request, response, false);
+        return ResponseEntity.ok(ApiResult.success(cartService.updateItem(owner, productId, body.quantity())));
+    }
+
+    @Operation(summary = "API xoá sản phẩm khỏi giỏ", description = """
+        Endpoint này xoá một sản phẩm khỏi giỏ [public]
+        """)
+    @DeleteMapping("/items/{productId}")
+    public ResponseEntity<ApiResult<CartResponse>> removeItem(
+            @AuthenticationPrincipal SecurityUserDetails principal,
+            @PathVariable Long productId,
+            HttpServletRequest request,
+            HttpServletResponse response) {
+        CartOwner owner = resolveOwner(principal, request, response, false);
+        return ResponseEntity.ok(ApiResult.success(cartService.removeItem(owner, productId)));
+    }
+
+    @Operation(summary = "API xoá toàn bộ giỏ hàng", description = """
+        Endpoint này xoá tất cả sản phẩm trong giỏ [public]
+        """)
+    @DeleteMapping
+    public ResponseEntity<ApiResult<Void>> clearCart(
+            @AuthenticationPrincipal SecurityUserDetails principal,
+            HttpServletRequest request,
+            HttpServletResponse response) {
+        cartService.clearCart(resolveOwner(principal, request, response, false));
+        return ResponseEntity.ok(ApiResult.success(null, "Cart cleared"));
+    }
+
+    // ========================================================================
+    // HELPERS
+    // ========================================================================
+
+    /**
+     * Logged-in user -> user cart (a leftover guest cart is merged first), otherwise the guest cart of the cookie.
+     * Without a valid cookie: a new guest cart id is issued when {@code create}, else an empty owner.
+     */
+    private CartOwner resolveOwner(SecurityUserDetails principal, HttpServletRequest request,
+                                   HttpServletResponse response, boolean create) {
+        String guestCartId = CookieUtils.getCookieValue(request, GUEST_CART_COOKIE_NAME);
+        boolean validGuestCart = cartService.isValidGuestCartId(guestCartId);
+
+        if (principal != null) {
+            Long userId = principal.getUser().getId();
+            if (guestCartId != null) {
+                if (validGuestCart) {
+                    cartService.mergeGuestCart(guestCartId, userId);
+                }
+                setGuestCartCookie(response, "", Duration.ZERO);
+            }
+            return CartOwner.user(userId);
+        }
+
+        if (validGuestCart) {
+            if (create) {
+                // Writes extend the cart TTL in Redis, keep the cookie alive as long
+                setGuestCartCookie(response, guestCartId, guestCookieMaxAge);
+            }
+            return CartOwner.guest(guestCartId);
+        }
+        if (!create) {
+            return CartOwner.guest(null);
+        }
+        String newGuestCartId = cartService.newGuestCartId();
+        setGuestCartCookie(response, newGuestCartId, guestCookieMaxAge);
+        return CartOwner.guest(newGuestCartId);
+    }
+
+    private void setGuestCartCookie(HttpServletResponse response, String value, Duration maxAge) {
+        ResponseCookie cookie = ResponseCookie.from(GUEST_CART_COOKIE_NAME, value)
+            .httpOnly(true)
+            .secure(false) // Set to true in production with HTTPS
+            .path("/")
+            .maxAge(maxAge)
+            .sameSite("Lax") // Sent when the customer arrives from a link (ads, Zalo), unlike the refresh token
+            .build();
+        response.addHeader(HttpHeaders.SET_COOKIE, cookie.toString());
+    }
+}
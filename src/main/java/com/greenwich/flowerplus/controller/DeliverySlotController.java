@@ -0,0 +1,40 @@
+package com.greenwich.flowerplus.controller;
+
+import com.greenwich.flowerplus.common.ApiResult;
+import com.greenwich.flowerplus.dto.response.DeliverySlotAvailabilityResponse;
+import com.greenwich.flowerplus.service.DeliverySlotService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@Slf4j
+@Validated
+@RequiredArgsConstructor
+@RequestMapping("/api/v1/delivery-slots")
+@Tag(name = "Delivery Slot", description = "API khung giờ giao hàng còn nhận đơn")
+public class DeliverySlotController {
+
+    private final DeliverySlotService deliverySlotService;
+
+    @Operation(summary = "API xem khung giờ giao hàng còn trống", description = """
+        Endpoint này trả về các khung giờ giao theo ngày, từ hôm nay [public]
+        
+        **Lưu ý:**
+        - remaining = số bó hoa còn nhận được trong khung giờ
+        - Dữ liệu có thể trễ vài giây, chỗ chỉ được giữ khi đặt hàng (POST /orders với deliveryDate + deliveryTimeSlot = code)
+        - Khung giờ hôm nay đã bắt đầu -> available = false
+        - days tối đa bằng số ngày cho phép đặt trước (mặc định 14)
+        """)
+    @GetMapping
+    public ResponseEntity<ApiResult<List<DeliverySlotAvailabilityResponse>>> getAvailability(
+            @RequestParam(defaultValue = "7") int days) {
+        return ResponseEntity.ok(ApiResult.success(deliverySlotService.getAvailability(days)));
+    }
+}
@@ -2,6 +2,7 @@ package com.greenwich.flowerplus.controller;
 
 
 import com.greenwich.flowerplus.common.ApiResult;
+import com.greenwich.flowerplus.dto.response.FileUploadResponse;
 import com.greenwich.flowerplus.infrastructure.storage.FileStorageService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.MediaType;
@@ -31,14 +32,15 @@ public class FileController {
     }
 
     @PostMapping(value = "/upload-multiple", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
-    public ResponseEntity<ApiResult<List<String>>> uploadMultiple(
+    public ResponseEntity<ApiResult<List<FileUploadResponse>>> uploadMultiple(
             @RequestParam("files") List<MultipartFile> files
     ) {
-        // 2. Gọi Service xử lý (trả về List URL)
-        List<String> urls = fileStorageService.uploadMultipleFiles(files);
+        // 2. Upload song song, mỗi file 1 kết quả (cùng thứ tự), file lỗi không làm hỏng các file khác
+        List<FileUploadResponse> results = fileStorageService.uploadFiles(files);
 
         // 3. Trả về
-        return ResponseEntity.ok(ApiResult.success(urls));
+        long uploaded = results.stream().filter(FileUploadResponse::success).count();
+        return ResponseEntity.ok(ApiResult.success(results, uploaded + "/" + results.size() + " file(s) uploaded"));
     }
 
 }
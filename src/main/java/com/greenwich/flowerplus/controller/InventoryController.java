@@ -0,0 +1,142 @@
+package com.greenwich.flowerplus.controller;
+
+import com.greenwich.flowerplus.common.ApiResult;
+import com.greenwich.flowerplus.dto.request.InventoryMovementRequest;
+import com.greenwich.flowerplus.dto.response.InventoryTransactionResponse;
+import com.greenwich.flowerplus.dto.response.LowStockResponse;
+import com.greenwich.flowerplus.dto.response.MonthlyStockMovementResponse;
+import com.greenwich.flowerplus.dto.response.StockBalanceResponse;
+import com.greenwich.flowerplus.service.InventoryLedgerService;
+import com.greenwich.flowerplus.service.InventoryRollupService;
+import com.greenwich.flowerplus.service.LowStockService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Instant;
+import java.time.YearMonth;
+import java.util.List;
+
+@RestController
+@Slf4j
+@Validated
+@RequiredArgsConstructor
+@RequestMapping("/api/v1/admin/inventory")
+@Tag(name = "Admin: Inventory", description = "API sổ kho nguyên liệu (nhập, hủy, kiểm kê, tồn kho theo thời điểm)")
+public class InventoryController {
+
+    private final InventoryLedgerService inventoryLedgerService;
+    private final LowStockService lowStockService;
+    private final InventoryRollupService inventoryRollupService;
+
+    @Operation(summary = "API ghi nhận nhập/xuất hủy/kiểm kê nguyên liệu", description = """
+        Endpoint này dành cho ghi sổ kho [role staff, owner, admin]
+        
+        **Type:**
+        - `IMPORT`: nhập hàng, quantity > 0
+        - `DAMAGED`: hàng hư/hủy, quantity > 0 (sẽ trừ kho)
+        - `AUDIT`: điều chỉnh sau kiểm kê, quantity có dấu (thực tế - hệ thống)
+        
+        **Lưu ý:**
+        - Sổ kho chỉ ghi thêm, không sửa/xóa. Sai thì ghi thêm 1 dòng AUDIT
+        - Tất cả item thành công hoặc không item nào được ghi
+        - Không được trừ xuống dưới số lượng đang giữ cho đơn hàng (reserved)
+        """)
+    @PreAuthorize("hasAnyAuthority('ROLE_SHOP_OWNER', 'ROLE_SHOP_STAFF', 'ROLE_ADMIN')")
+    @PostMapping("/movements")
+    public ResponseEntity<ApiResult<Integer>> recordMovements(@Valid @RequestBody InventoryMovementRequest request) {
+        log.info("Received {} inventory movement(s), reference {}", request.items().size(), request.referenceCode());
+        int written = inventoryLedgerService.recordMovements(request);
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .body(ApiResult.success(written, "Inventory movements recorded"));
+    }
+
+    @Operation(summary = "API xem tồn kho của nguyên liệu tại 1 thời điểm", description = """
+        Endpoint này trả về tồn kho = snapshot gần nhất + giao dịch sau snapshot [role staff, owner, admin]
+        
+        **Lưu ý:**
+        - asOf (ISO-8601) không truyền = hiện tại, khi đó trả thêm quantity/reserved hiện tại
+        """)
+    @PreAuthorize("hasAnyAuthority('ROLE_SHOP_OWNER', 'ROLE_SHOP_STAFF', 'ROLE_ADMIN')")
+    @GetMapping("/materials/{materialId}/balance")
+    public ResponseEntity<ApiResult<StockBalanceResponse>> getBalance(
+            @PathVariable Long materialId,
+            @RequestParam(required = false) Instant asOf) {
+        return ResponseEntity.ok(ApiResult.success(inventoryLedgerService.getBalance(materialId, asOf)));
+    }
+
+    @Operation(summary = "API xem sổ kho của nguyên liệu", description = """
+        Endpoint này trả về các giao dịch kho mới nhất trước [role staff, owner, admin]
+        
+        **Lưu ý:**
+        - Khoảng thời gian [from, to) tối đa 366 ngày, mặc định 30 ngày gần nhất
+        - Trang tiếp theo: truyền beforeId = id của dòng cuối cùng trang trước
+        """)
+    @PreAuthorize("hasAnyAuthority('ROLE_SHOP_OWNER', 'ROLE_SHOP_STAFF', 'ROLE_ADMIN')")
+    @GetMapping("/materials/{materialId}/ledger")
+    public ResponseEntity<ApiResult<List<InventoryTransactionResponse>>> getLedger(
+            @PathVariable Long materialId,
+            @RequestParam(required = false) Instant from,
+            @RequestParam(required = false) Instant to,
+            @RequestParam(required = false) Long beforeId,
+            @RequestParam(defaultValue = "100") int size) {
+        return ResponseEntity.ok(ApiResult.success(
+                inventoryLedgerService.getLedger(materialId, from, to, beforeId, size)));
+    }
+
+    @Operation(summary = "API báo cáo nhập/xuất kho theo tháng", description = """
+        Endpoint này trả về tổng nhập, dùng, hủy, điều chỉnh của từng nguyên liệu theo tháng [role staff, owner, admin]
+        
+        **Lưu ý:**
+        - from/to dạng `yyyy-MM`, mặc định 12 tháng gần nhất, tối đa 36 tháng
+        - materialId không truyền = tất cả nguyên liệu
+        - Đọc từ bảng tổng hợp theo tháng, số liệu tháng hiện tại cập nhật mỗi giờ
+        """)
+    @PreAuthorize("hasAnyAuthority('ROLE_SHOP_OWNER', 'ROLE_SHOP_STAFF', 'ROLE_ADMIN')")
+    @GetMapping("/reports/monthly")
+    public ResponseEntity<ApiResult<List<MonthlyStockMovementResponse>>> getMonthlyMovements(
+            @RequestParam(required = false) Long materialId,
+            @RequestParam(required = false) YearMonth from,
+            @RequestParam(required = false) YearMonth to) {
+        return ResponseEntity.ok(ApiResult.success(inventoryRollupService.getMonthlyMovements(materialId, from, to)));
+    }
+
+    @Operation(summary = "API xem nguyên liệu sắp hết hàng", description = """
+        Endpoint này trả về nguyên liệu có tồn khả dụng (quantity - reserved) <= reorder level [role staff, owner, admin]
+        
+        **Lưu ý:**
+        - Sắp xếp theo mức thiếu hụt (thiếu nhiều nhất trước), tối đa 500 dòng
+        """)
+    @PreAuthorize("hasAnyAuthority('ROLE_SHOP_OWNER', 'ROLE_SHOP_STAFF', 'ROLE_ADMIN')")
+    @GetMapping("/low-stock")
+    public ResponseEntity<ApiResult<List<LowStockResponse>>> getLowStock(
+            @RequestParam(defaultValue = "100") int limit) {
+        return ResponseEntity.ok(ApiResult.success(lowStockService.getLowStock(limit)));
+    }
+
+    @Operation(summary = "API nhận cảnh báo sắp hết hàng theo thời gian thực (SSE)", description = """
+        Endpoint này mở stream Server-Sent Events, event name `low-stock` [role staff, owner, admin]
+        
+        **Type:**
+        - `LOW`: tồn khả dụng vừa xuống <= reorder level
+        - `RECOVERED`: đã đủ hàng trở lại
+        
+        **Lưu ý:**
+        - Cảnh báo được gom trong vài giây, chỉ gửi khi trạng thái thực sự thay đổi
+        - Mất kết nối thì gọi lại GET /low-stock để lấy trạng thái hiện tại
+        """)
+    @PreAuthorize("hasAnyAuthority('ROLE_SHOP_OWNER', 'ROLE_SHOP_STAFF', 'ROLE_ADMIN')")
+    @GetMapping(value = "/low-stock/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamLowStockAlerts() {
+        return lowStockService.subscribe();
+    }
+}
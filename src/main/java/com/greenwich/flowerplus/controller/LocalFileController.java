@@ -0,0 +1,95 @@
+package com.greenwich.flowerplus.controller;
+
+import com.greenwich.flowerplus.common.enums.ErrorCode;
+import com.greenwich.flowerplus.common.exception.AppException;
+import com.greenwich.flowerplus.infrastructure.storage.local.LocalFileStorageServiceImpl;
+import com.greenwich.flowerplus.infrastructure.storage.local.LocalFileStorageServiceImpl.StoredObject;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serves files of the local storage provider. Names are content hashes, so a response never changes:
+ * strong ETag = hash, cached for a year as immutable.
+ * <p>
+ * Whole files go out through Tomcat sendfile (FileChannel.transferTo from the page cache to the socket, the
+ * bytes never pass through the JVM); Range requests are answered by Spring from the {@link Resource} (206).
+ */
+@RestController
+@ConditionalOnProperty(prefix = "app.storage", name = "provider", havingValue = "local")
+@RequiredArgsConstructor
+@RequestMapping("/api/v1/files/content")
+@Tag(name = "File", description = "API file ảnh (local storage)")
+public class LocalFileController {
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private static final CacheControl IMMUTABLE = CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable();
+
+    private final LocalFileStorageServiceImpl localFileStorageService;
+
+    @Operation(summary = "API tải file ảnh", description = """
+        Endpoint này trả về nội dung ảnh đã upload (URL do POST /files trả về) [public]
+
+        **Lưu ý:**
+        - Chỉ dùng khi app.storage.provider = local
+        - Hỗ trợ Range (206) và If-None-Match (304), ETag = SHA-256 của nội dung
+        - Cache-Control: public, max-age=31536000, immutable (nội dung của 1 URL không bao giờ đổi)
+        """)
+    @GetMapping("/{name:.+}")
+    public ResponseEntity<Resource> getFile(@PathVariable String name,
+                                            HttpServletRequest request,
+                                            HttpServletResponse response) throws IOException {
+        StoredObject stored = localFileStorageService.find(name)
+                .orElseThrow(() -> new AppException(ErrorCode.FILE_NOT_FOUND));
+        String etag = "\"" + stored.hash() + "\"";
+
+        // If-None-Match khớp -> 304 đã được ghi sẵn
+        if (new ServletWebRequest(request, response).checkNotModified(etag)) {
+            return null;
+        }
+
+        long size = Files.size(stored.path());
+        boolean sendfile = Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT));
+        if (sendfile && request.getHeader(HttpHeaders.RANGE) == null) {
+            response.setContentType(stored.contentType());
+            response.setContentLengthLong(size);
+            response.setHeader(HttpHeaders.ETAG, etag);
+            response.setHeader(HttpHeaders.CACHE_CONTROL, IMMUTABLE.getHeaderValue());
+            response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+            request.setAttribute(SENDFILE_FILENAME, stored.path().toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, 0L);
+            request.setAttribute(SENDFILE_END, size);
+            // Body is written by Tomcat after the handler returns: nothing more for Spring to write
+            return null;
+        }
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(stored.contentType()))
+                .eTag(etag)
+                .cacheControl(IMMUTABLE)
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                .body(new FileSystemResource(stored.path()));
+    }
+}
@@ -3,8 +3,10 @@ package com.greenwich.flowerplus.controller;
 import com.greenwich.flowerplus.common.ApiResult;
 import com.greenwich.flowerplus.dto.request.MaterialRequest;
 import com.greenwich.flowerplus.dto.request.MaterialSearchRequest;
+import com.greenwich.flowerplus.dto.response.CostRecomputeResponse;
 import com.greenwich.flowerplus.dto.response.MaterialResponse;
 import com.greenwich.flowerplus.service.MaterialService;
+import com.greenwich.flowerplus.service.ProductCostService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
@@ -28,6 +30,7 @@ import java.util.List;
 public class MaterialController {
 
     private final MaterialService materialService;
+    private final ProductCostService productCostService;
 
     @Operation(summary = "Search materials with pagination and filtering")
     @PreAuthorize("hasAnyAuthority('ROLE_SHOP_OWNER', 'ROLE_SHOP_STAFF', 'ROLE_ADMIN')")
@@ -88,5 +91,14 @@ public class MaterialController {
         return ResponseEntity.status(HttpStatus.NO_CONTENT)
                 .body(ApiResult.success(null, "Material deleted successfully"));
     }
-}
 
+    @Operation(summary = "Recompute product cost prices from recipes and report drift (dryRun = report only)")
+    @PreAuthorize("hasAnyAuthority('ROLE_SHOP_OWNER', 'ROLE_ADMIN')")
+    @PostMapping("/cost-recompute")
+    public ResponseEntity<ApiResult<CostRecomputeResponse>> recomputeProductCosts(
+            @RequestParam(defaultValue = "true") boolean dryRun) {
+        log.info("Recomputing product cost prices, dryRun={}", dryRun);
+        CostRecomputeResponse response = productCostService.recomputeAll(dryRun);
+        return ResponseEntity.ok(ApiResult.success(response, "Product cost recompute completed"));
+    }
+}
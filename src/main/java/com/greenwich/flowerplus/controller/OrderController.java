@@ -0,0 +1,84 @@
+package com.greenwich.flowerplus.controller;
+
+import com.greenwich.flowerplus.common.ApiResult;
+import com.greenwich.flowerplus.dto.request.PlaceOrderRequest;
+import com.greenwich.flowerplus.dto.response.OrderResponse;
+import com.greenwich.flowerplus.dto.response.OrderSummaryResponse;
+import com.greenwich.flowerplus.infrastructure.security.SecurityUserDetails;
+import com.greenwich.flowerplus.service.OrderService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@Slf4j
+@Validated
+@RequiredArgsConstructor
+@RequestMapping("/api/v1/orders")
+@Tag(name = "Order", description = "API đặt hàng và xem đơn hàng của khách")
+public class OrderController {
+
+    private final OrderService orderService;
+
+    @Operation(summary = "API đặt hàng (checkout)", description = """
+        Endpoint này tạo đơn hàng từ các dòng giỏ hàng [đã đăng nhập]
+        
+        **Header:**
+        - `Idempotency-Key` (bắt buộc, tối đa 64 ký tự): client tự sinh (UUID) cho mỗi lần bấm đặt hàng
+        
+        **Lưu ý:**
+        - Giá lấy từ sản phẩm tại thời điểm đặt, không nhận giá từ client
+        - Giữ hàng (nguyên liệu theo recipe) cho tất cả sản phẩm hoặc không tạo đơn
+        - Gửi lại cùng Idempotency-Key (mạng lỗi, bấm 2 lần) -> trả về đơn đã tạo, không tạo đơn mới
+        """)
+    @PostMapping
+    public ResponseEntity<ApiResult<OrderResponse>> placeOrder(
+            @AuthenticationPrincipal SecurityUserDetails principal,
+            @RequestHeader("Idempotency-Key") @NotBlank @Size(max = 64) String idempotencyKey,
+            @Valid @RequestBody PlaceOrderRequest request) {
+        Long userId = principal.getUser().getId();
+        log.info("User {} placing order with {} line(s)", userId, request.items().size());
+        OrderResponse order = orderService.placeOrder(userId, idempotencyKey, request);
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .body(ApiResult.success(order, "Order placed successfully"));
+    }
+
+    @Operation(summary = "API xem lịch sử đơn hàng của tôi", description = """
+        Endpoint này trả về danh sách đơn hàng rút gọn, mới nhất trước [đã đăng nhập]
+        
+        **Lưu ý:**
+        - Mỗi dòng gồm mã đơn, trạng thái, tổng tiền, số sản phẩm, tên + ảnh sản phẩm đầu tiên
+        - Trang tiếp theo: truyền beforeId = id của đơn cuối cùng trang trước
+        - size tối đa 50
+        - Chi tiết sản phẩm và địa chỉ giao hàng xem ở GET /orders/{orderId}
+        """)
+    @GetMapping
+    public ResponseEntity<ApiResult<List<OrderSummaryResponse>>> getOrderHistory(
+            @AuthenticationPrincipal SecurityUserDetails principal,
+            @RequestParam(required = false) Long beforeId,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(ApiResult.success(
+                orderService.getOrderHistory(principal.getUser().getId(), beforeId, size)));
+    }
+
+    @Operation(summary = "API xem chi tiết đơn hàng", description = """
+        Endpoint này trả về đơn hàng của chính người dùng đang đăng nhập [đã đăng nhập]
+        """)
+    @GetMapping("/{orderId}")
+    public ResponseEntity<ApiResult<OrderResponse>> getOrder(
+            @AuthenticationPrincipal SecurityUserDetails principal,
+            @PathVariable Long orderId) {
+        return ResponseEntity.ok(ApiResult.success(orderService.getOrder(principal.getUser().getId(), orderId)));
+    }
+}
@@ -0,0 +1,38 @@
+package com.greenwich.flowerplus.dto.request;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+
+import java.util.List;
+
+/**
+ * Request DTO to add/remove the same categories on many products at once.
+ */
+public record BulkProductCategoryRequest(
+
+        @Schema(description = "Product IDs to update", example = "[\"792254090050729589\", \"792254090050729590\"]")
+        @NotEmpty(message = "Product IDs cannot be empty")
+        List<Long> productIds,
+
+        @Schema(description = "Operation type: ADD, REMOVE", example = "ADD")
+        @NotNull(message = "Operation type is required")
+        BulkCategoryOperation operation,
+
+        @Schema(description = "Category IDs to add/remove", example = "[\"792254090050729601\"]")
+        @NotEmpty(message = "Category IDs cannot be empty")
+        List<Long> categoryIds
+) {
+
+    public enum BulkCategoryOperation {
+        /**
+         * Link categories to every product (already linked ones are skipped)
+         */
+        ADD,
+
+        /**
+         * Unlink categories from every product (product must keep at least 1 category)
+         */
+        REMOVE
+    }
+}
@@ -0,0 +1,42 @@
+package com.greenwich.flowerplus.dto.request;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Request DTO to adjust the selling price of many products at once.
+ * <p>
+ * PERCENTAGE: value = -20 means 20% off, value = 10 means +10%.
+ * AMOUNT: value is added to the current selling price (negative to decrease).
+ */
+public record BulkProductPriceRequest(
+
+        @Schema(description = "Product IDs to update", example = "[\"792254090050729589\", \"792254090050729590\"]")
+        @NotEmpty(message = "Product IDs cannot be empty")
+        List<Long> productIds,
+
+        @Schema(description = "Adjustment type: PERCENTAGE, AMOUNT", example = "PERCENTAGE")
+        @NotNull(message = "Adjustment type is required")
+        PriceAdjustmentType adjustmentType,
+
+        @Schema(description = "Adjustment value (percent or VND amount, may be negative)", example = "-15")
+        @NotNull(message = "Adjustment value is required")
+        BigDecimal value
+) {
+
+    public enum PriceAdjustmentType {
+        /**
+         * new price = price * (100 + value) / 100
+         */
+        PERCENTAGE,
+
+        /**
+         * new price = price + value
+         */
+        AMOUNT
+    }
+}
@@ -0,0 +1,35 @@
+package com.greenwich.flowerplus.dto.request;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+/**
+ * Request DTO to replace the recipe of many products at once (each product has its own recipe).
+ */
+public record BulkProductRecipeRequest(
+
+        @Schema(description = "One entry per product, max 500")
+        @NotEmpty(message = "Items cannot be empty")
+        @Size(max = 500, message = "Maximum 500 products per request")
+        List<@Valid Item> items
+) {
+
+    public record Item(
+
+            @Schema(description = "Product ID", example = "792254090050729589")
+            @JsonFormat(shape = JsonFormat.Shape.STRING)
+            @NotNull(message = "Product ID is required")
+            Long productId,
+
+            @Schema(description = "Full recipe of the product (replaces the current one), empty = remove all")
+            @NotNull(message = "Recipes cannot be null")
+            List<ProductRecipeRequest> recipes
+    ) {
+    }
+}
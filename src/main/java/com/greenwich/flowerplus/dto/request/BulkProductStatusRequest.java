@@ -0,0 +1,23 @@
+package com.greenwich.flowerplus.dto.request;
+
+import com.greenwich.flowerplus.common.enums.ProductStatus;
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+
+import java.util.List;
+
+/**
+ * Request DTO to change the status of many products at once.
+ */
+public record BulkProductStatusRequest(
+
+        @Schema(description = "Product IDs to update", example = "[\"792254090050729589\", \"792254090050729590\"]")
+        @NotEmpty(message = "Product IDs cannot be empty")
+        List<Long> productIds,
+
+        @Schema(description = "Target status: ACTIVE, DRAFT, INACTIVE", example = "ACTIVE")
+        @NotNull(message = "Product status is required")
+        ProductStatus productStatus
+) {
+}
@@ -0,0 +1,20 @@
+package com.greenwich.flowerplus.dto.request;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+
+public record CartItemRequest(
+
+        @Schema(description = "Product id", example = "612345678901234567")
+        @NotNull(message = "Product id is required")
+        Long productId,
+
+        @Schema(description = "Quantity to add (added to what is already in the cart)", example = "1")
+        @NotNull(message = "Quantity is required")
+        @Min(value = 1, message = "Quantity must be at least 1")
+        @Max(value = 100, message = "Quantity must be at most 100")
+        Integer quantity
+) {
+}
@@ -0,0 +1,21 @@
+package com.greenwich.flowerplus.dto.request;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+
+import java.time.LocalDate;
+
+public record DeliverySlotCapacityRequest(
+
+        @Schema(description = "Only this date (peak day). Empty = default capacity of the slot", example = "2026-02-14")
+        LocalDate date,
+
+        @Schema(description = "Bouquets per day", example = "60")
+        @NotNull(message = "Capacity is required")
+        @Min(value = 0, message = "Capacity must be at least 0")
+        @Max(value = 10000, message = "Capacity must be at most 10000")
+        Integer capacity
+) {
+}
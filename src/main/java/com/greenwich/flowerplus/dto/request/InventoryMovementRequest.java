@@ -0,0 +1,44 @@
+package com.greenwich.flowerplus.dto.request;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.greenwich.flowerplus.common.enums.TransactionType;
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+/**
+ * Request DTO to record stock movements (goods received, damaged, stock count adjustments).
+ * USAGE is not accepted here: it is written when an order reservation is committed.
+ */
+public record InventoryMovementRequest(
+
+        @Schema(description = "Reference of the movement (delivery note, audit code...)", example = "PN-2026-0214")
+        @Size(max = 255, message = "Reference code must be at most 255 characters")
+        String referenceCode,
+
+        @NotEmpty(message = "Items cannot be empty")
+        @Size(max = 1000, message = "Maximum 1000 items per request")
+        List<@Valid Item> items
+) {
+
+    public record Item(
+
+            @Schema(description = "Material ID", example = "792254090050729589")
+            @JsonFormat(shape = JsonFormat.Shape.STRING)
+            @NotNull(message = "Material ID is required")
+            Long materialId,
+
+            @Schema(description = "IMPORT, DAMAGED, AUDIT", example = "IMPORT")
+            @NotNull(message = "Transaction type is required")
+            TransactionType type,
+
+            @Schema(description = "IMPORT/DAMAGED: quantity > 0. AUDIT: signed adjustment (counted - system)", example = "100")
+            @NotNull(message = "Quantity is required")
+            Integer quantity
+    ) {
+    }
+}
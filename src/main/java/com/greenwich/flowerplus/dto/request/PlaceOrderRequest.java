@@ -0,0 +1,93 @@
+package com.greenwich.flowerplus.dto.request;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.greenwich.flowerplus.common.enums.PaymentMethod;
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.FutureOrPresent;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Request DTO to place an order (checkout). Prices are never taken from the client:
+ * every line is priced from the current product price.
+ */
+public record PlaceOrderRequest(
+
+        @Schema(description = "Cart lines, max 50")
+        @NotEmpty(message = "Items cannot be empty")
+        @Size(max = 50, message = "Maximum 50 items per order")
+        List<@Valid Item> items,
+
+        @NotNull(message = "Shipping address is required")
+        @Valid
+        ShippingAddress shippingAddress,
+
+        @Schema(description = "COD, BANK_TRANSFER, VNPAY", example = "COD")
+        @NotNull(message = "Payment method is required")
+        PaymentMethod paymentMethod,
+
+        @Schema(description = "Delivery date", example = "2026-02-14")
+        @FutureOrPresent(message = "Delivery date cannot be in the past")
+        LocalDate deliveryDate,
+
+        @Schema(description = "Delivery slot code (GET /delivery-slots), required with deliveryDate", example = "MORNING")
+        @Size(max = 20, message = "Delivery time slot must be at most 20 characters")
+        String deliveryTimeSlot,
+
+        @Size(max = 1000, message = "Note must be at most 1000 characters")
+        String customerNote
+) {
+
+    public record Item(
+
+            @Schema(description = "Product ID", example = "792254090050729589")
+            @JsonFormat(shape = JsonFormat.Shape.STRING)
+            @NotNull(message = "Product ID is required")
+            Long productId,
+
+            @Schema(description = "Quantity", example = "2")
+            @NotNull(message = "Quantity is required")
+            @Min(value = 1, message = "Quantity must be at least 1")
+            @Max(value = 100, message = "Quantity must be at most 100")
+            Integer quantity
+    ) {
+    }
+
+    public record ShippingAddress(
+
+            @NotBlank(message = "Recipient name is required")
+            @Size(max = 255)
+            String recipientName,
+
+            @NotBlank(message = "Phone number is required")
+            @Size(max = 15)
+            String phoneNumber,
+
+            @NotBlank(message = "Province code is required")
+            String provinceCode,
+
+            @NotBlank(message = "Province name is required")
+            String provinceName,
+
+            @NotBlank(message = "Ward code is required")
+            String wardCode,
+
+            @NotBlank(message = "Ward name is required")
+            String wardName,
+
+            String districtName,
+
+            @NotBlank(message = "Detail address is required")
+            @Size(max = 255)
+            String detailAddress
+    ) {
+    }
+}
@@ -0,0 +1,16 @@
+package com.greenwich.flowerplus.dto.request;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+
+public record UpdateCartItemRequest(
+
+        @Schema(description = "New quantity, 0 removes the product from the cart", example = "2")
+        @NotNull(message = "Quantity is required")
+        @Min(value = 0, message = "Quantity must be at least 0")
+        @Max(value = 100, message = "Quantity must be at most 100")
+        Integer quantity
+) {
+}
@@ -0,0 +1,9 @@
+package com.greenwich.flowerplus.dto.request;
+
+import com.greenwich.flowerplus.common.enums.OrderStatus;
+import jakarta.validation.constraints.NotNull;
+
+public record UpdateOrderStatusRequest(
+        @NotNull OrderStatus status
+) {
+}
@@ -10,6 +10,7 @@ public record AuditorResponse(
 
         @JsonFormat(shape = JsonFormat.Shape.STRING)
         Long id,
-        String avatarUrl
+        String avatarUrl,
+        String fullName
 ) {
 }
@@ -1,5 +1,6 @@
 package com.greenwich.flowerplus.dto.response;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Builder;
 
@@ -11,5 +12,7 @@ import lombok.Builder;
 @JsonInclude(JsonInclude.Include.NON_NULL)
 public record AuthResponse(
         String accessToken,
-        String refreshToken
+        String refreshToken,
+        // Not serialized: lets the controller attach the guest cart to the account after login/register
+        @JsonIgnore Long userId
 ) {}
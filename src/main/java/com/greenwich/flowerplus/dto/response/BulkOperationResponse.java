@@ -0,0 +1,40 @@
+package com.greenwich.flowerplus.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+/**
+ * Result report of a bulk product operation: totals + one entry per requested product ID.
+ */
+public record BulkOperationResponse(
+        int requested,
+        int succeeded,
+        int failed,
+        List<ItemResult> results
+) {
+
+    public static BulkOperationResponse of(List<ItemResult> results) {
+        int succeeded = (int) results.stream().filter(ItemResult::success).count();
+        return new BulkOperationResponse(results.size(), succeeded, results.size() - succeeded, results);
+    }
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record ItemResult(
+            @JsonFormat(shape = JsonFormat.Shape.STRING)
+            Long productId,
+            boolean success,
+            String errorCode,
+            String message
+    ) {
+
+        public static ItemResult ok(Long productId) {
+            return new ItemResult(productId, true, null, null);
+        }
+
+        public static ItemResult fail(Long productId, String errorCode, String message) {
+            return new ItemResult(productId, false, errorCode, message);
+        }
+    }
+}
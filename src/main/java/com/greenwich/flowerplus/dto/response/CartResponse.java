@@ -0,0 +1,35 @@
+package com.greenwich.flowerplus.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.Builder;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Cart with product data hydrated at read time (prices and stock may be a few seconds old,
+ * checkout prices the order again). subTotal only counts available items.
+ */
+@Builder
+public record CartResponse(
+        List<Item> items,
+        int totalQuantity,
+        BigDecimal subTotal
+) {
+
+    @Builder
+    public record Item(
+            @JsonFormat(shape = JsonFormat.Shape.STRING)
+            Long productId,
+            String name,
+            String slug,
+            String thumbnail,
+            BigDecimal unitPrice,
+            int quantity,
+            BigDecimal lineTotal,
+            int availableStock,
+            // false = product removed, hidden or out of stock: kept in the cart but not orderable
+            boolean available
+    ) {
+    }
+}
@@ -0,0 +1,21 @@
+package com.greenwich.flowerplus.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.Builder;
+
+import java.math.BigDecimal;
+
+/**
+ * Sales of a category over a date range, read from sales_daily_categories.
+ * {@code orderCount} sums daily counts: an order is counted once per category and day.
+ */
+@Builder
+public record CategorySalesResponse(
+        @JsonFormat(shape = JsonFormat.Shape.STRING)
+        Long categoryId,
+        String categoryName,
+        long orderCount,
+        long unitsSold,
+        BigDecimal revenue
+) {
+}
@@ -0,0 +1,20 @@
+package com.greenwich.flowerplus.dto.response;
+
+import lombok.Builder;
+
+import java.math.BigDecimal;
+
+/**
+ * Result of a full cost price recompute: how many products were checked, how many had a
+ * stale cost_price (drift) and whether the fix was verified (remainingDrift = 0).
+ */
+@Builder
+public record CostRecomputeResponse(
+        boolean dryRun,
+        long checkedProducts,
+        long driftedProducts,
+        BigDecimal maxDrift,
+        long fixedProducts,
+        long remainingDrift
+) {
+}
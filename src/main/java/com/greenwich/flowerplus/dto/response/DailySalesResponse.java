@@ -0,0 +1,19 @@
+package com.greenwich.flowerplus.dto.response;
+
+import lombok.Builder;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Sales of one shop-local day, read from sales_daily. Revenue is after order discounts.
+ */
+@Builder
+public record DailySalesResponse(
+        LocalDate date,
+        long orderCount,
+        long unitsSold,
+        BigDecimal revenue,
+        long cancelledCount
+) {
+}
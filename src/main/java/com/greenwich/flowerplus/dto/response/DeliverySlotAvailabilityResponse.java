@@ -0,0 +1,30 @@
+package com.greenwich.flowerplus.dto.response;
+
+import lombok.Builder;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+/**
+ * Delivery slots of one day with their remaining capacity (bouquets). The grid is cached for a few
+ * seconds, the reservation at checkout is what actually decides.
+ */
+@Builder
+public record DeliverySlotAvailabilityResponse(
+        LocalDate date,
+        List<Slot> slots
+) {
+
+    @Builder
+    public record Slot(
+            String code,
+            String label,
+            LocalTime startTime,
+            LocalTime endTime,
+            int capacity,
+            int remaining,
+            boolean available
+    ) {
+    }
+}
@@ -0,0 +1,20 @@
+package com.greenwich.flowerplus.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Builder;
+
+/**
+ * Outcome of one file of a multi-file upload, in the order the files were sent
+ */
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record FileUploadResponse(
+        int index,
+        String fileName,
+        boolean success,
+        String url,
+        // Only when success = false
+        String errorCode,
+        String message
+) {
+}
@@ -0,0 +1,18 @@
+package com.greenwich.flowerplus.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.greenwich.flowerplus.common.enums.TransactionType;
+
+import java.time.Instant;
+
+public record InventoryTransactionResponse(
+        @JsonFormat(shape = JsonFormat.Shape.STRING)
+        Long id,
+        @JsonFormat(shape = JsonFormat.Shape.STRING)
+        Long materialId,
+        int changeAmount,
+        TransactionType type,
+        String referenceCode,
+        Instant createdAt
+) {
+}
@@ -0,0 +1,22 @@
+package com.greenwich.flowerplus.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.greenwich.flowerplus.common.enums.LowStockAlertType;
+import lombok.Builder;
+
+import java.time.Instant;
+
+/**
+ * One threshold crossing of a material, pushed to the admin SSE stream
+ */
+@Builder
+public record LowStockAlertResponse(
+        LowStockAlertType type,
+        @JsonFormat(shape = JsonFormat.Shape.STRING)
+        Long materialId,
+        String materialName,
+        int availableQuantity,
+        Integer reorderLevel,
+        Instant detectedAt
+) {
+}
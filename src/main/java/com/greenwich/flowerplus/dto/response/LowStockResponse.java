@@ -0,0 +1,23 @@
+package com.greenwich.flowerplus.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.Builder;
+
+import java.time.Instant;
+
+/**
+ * Material currently at or below its reorder level
+ */
+@Builder
+public record LowStockResponse(
+        @JsonFormat(shape = JsonFormat.Shape.STRING)
+        Long materialId,
+        String materialName,
+        String unit,
+        int quantity,
+        int reservedQuantity,
+        int availableQuantity,
+        Integer reorderLevel,
+        Instant lowStockSince
+) {
+}
@@ -0,0 +1,27 @@
+package com.greenwich.flowerplus.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.Builder;
+
+import java.time.YearMonth;
+
+/**
+ * Stock movement of a material in one month, read from inventory_monthly_rollups.
+ * Outbound amounts are positive, {@code netChange} is signed.
+ */
+@Builder
+public record MonthlyStockMovementResponse(
+        @JsonFormat(shape = JsonFormat.Shape.STRING)
+        Long materialId,
+        String materialName,
+        YearMonth month,
+        long imported,
+        long used,
+        long damaged,
+        long adjusted,
+        long inbound,
+        long outbound,
+        long netChange,
+        long entryCount
+) {
+}
@@ -0,0 +1,21 @@
+package com.greenwich.flowerplus.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.greenwich.flowerplus.common.enums.OrderItemType;
+import lombok.Builder;
+
+import java.math.BigDecimal;
+
+@Builder
+public record OrderItemResponse(
+        @JsonFormat(shape = JsonFormat.Shape.STRING)
+        Long id,
+        @JsonFormat(shape = JsonFormat.Shape.STRING)
+        Long productId,
+        String productName,
+        OrderItemType itemType,
+        int quantity,
+        BigDecimal unitPrice,
+        BigDecimal subTotal
+) {
+}
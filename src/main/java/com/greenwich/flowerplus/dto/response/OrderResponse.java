@@ -0,0 +1,31 @@
+package com.greenwich.flowerplus.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.greenwich.flowerplus.common.enums.OrderStatus;
+import com.greenwich.flowerplus.common.enums.PaymentMethod;
+import com.greenwich.flowerplus.common.enums.PaymentStatus;
+import com.greenwich.flowerplus.dto.snapshot.ShippingAddressSnapshot;
+import lombok.Builder;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+
+@Builder
+public record OrderResponse(
+        @JsonFormat(shape = JsonFormat.Shape.STRING)
+        Long id,
+        String orderCode,
+        OrderStatus status,
+        PaymentStatus paymentStatus,
+        PaymentMethod paymentMethod,
+        BigDecimal totalAmount,
+        BigDecimal discountAmount,
+        ShippingAddressSnapshot shippingAddress,
+        Instant deliveryDate,
+        String deliveryTimeSlot,
+        String customerNote,
+        List<OrderItemResponse> items,
+        Instant createdAt
+) {
+}
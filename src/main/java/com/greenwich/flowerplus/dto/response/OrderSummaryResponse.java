@@ -0,0 +1,27 @@
+package com.greenwich.flowerplus.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.greenwich.flowerplus.common.enums.OrderStatus;
+import com.greenwich.flowerplus.common.enums.PaymentStatus;
+import lombok.Builder;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * One row of "My orders". Items and shipping address are only loaded by the order detail.
+ */
+@Builder
+public record OrderSummaryResponse(
+        @JsonFormat(shape = JsonFormat.Shape.STRING)
+        Long id,
+        String orderCode,
+        OrderStatus status,
+        PaymentStatus paymentStatus,
+        BigDecimal totalAmount,
+        int itemCount,
+        String firstItemName,
+        String firstItemThumbnail,
+        Instant createdAt
+) {
+}
@@ -0,0 +1,8 @@
+package com.greenwich.flowerplus.dto.response;
+
+public record ProductImportErrorResponse(
+        long rowNumber,
+        String errorCode,
+        String message
+) {
+}
@@ -0,0 +1,25 @@
+package com.greenwich.flowerplus.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.greenwich.flowerplus.common.enums.ImportFormat;
+import com.greenwich.flowerplus.common.enums.ImportJobStatus;
+import lombok.Builder;
+
+import java.time.Instant;
+
+@Builder
+public record ProductImportJobResponse(
+        @JsonFormat(shape = JsonFormat.Shape.STRING)
+        Long id,
+        String fileName,
+        ImportFormat format,
+        ImportJobStatus status,
+        long checkpointRow,
+        long processedRows,
+        long importedRows,
+        long failedRows,
+        Instant startedAt,
+        Instant finishedAt,
+        String errorMessage
+) {
+}
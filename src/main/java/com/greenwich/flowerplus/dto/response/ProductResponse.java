@@ -53,6 +53,7 @@ public record ProductResponse(
         // Stock info
         Integer preparedQuantity,
         boolean isMakeToOrder,
+        Integer buildableQuantity,
         boolean inStock,
         
         // Rating
@@ -38,6 +38,8 @@ public class ProductResponseAdmin {
     private Integer preparedQuantity;
     private boolean inStock;
     private boolean isMakeToOrder;
+    // Số bó làm được từ tồn kho nguyên liệu (null = chưa có recipe)
+    private Integer buildableQuantity;
 
     // Danh sách assets (ảnh/video) của sản phẩm
     private List<AssetResponse> assets;
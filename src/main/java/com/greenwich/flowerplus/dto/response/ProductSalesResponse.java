@@ -0,0 +1,20 @@
+package com.greenwich.flowerplus.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.Builder;
+
+import java.math.BigDecimal;
+
+/**
+ * Sales of a product over a date range, read from sales_daily_products. Revenue is before order discounts.
+ */
+@Builder
+public record ProductSalesResponse(
+        @JsonFormat(shape = JsonFormat.Shape.STRING)
+        Long productId,
+        String productName,
+        long orderCount,
+        long unitsSold,
+        BigDecimal revenue
+) {
+}
@@ -0,0 +1,24 @@
+package com.greenwich.flowerplus.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.Builder;
+
+import java.time.Instant;
+
+/**
+ * Stock of a material as of a point in time, derived from the nearest snapshot + ledger entries after it.
+ * {@code currentQuantity} / {@code reservedQuantity} come from material_stocks (only for "now").
+ */
+@Builder
+public record StockBalanceResponse(
+        @JsonFormat(shape = JsonFormat.Shape.STRING)
+        Long materialId,
+        Instant asOf,
+        int balance,
+        Instant snapshotAt,
+        int snapshotBalance,
+        int deltaSinceSnapshot,
+        Integer currentQuantity,
+        Integer reservedQuantity
+) {
+}
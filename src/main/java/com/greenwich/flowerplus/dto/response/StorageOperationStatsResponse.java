@@ -0,0 +1,23 @@
+package com.greenwich.flowerplus.dto.response;
+
+import lombok.Builder;
+
+/**
+ * State of the storage operation batcher on this instance: what is waiting (in memory / in the outbox table)
+ * and how well calls are being merged (operations per provider call) since startup.
+ */
+@Builder
+public record StorageOperationStatsResponse(
+        int queueDepth,
+        int queueCapacity,
+        long pendingOperations,
+        long retryingOperations,
+        long deadOperations,
+        long batchesSent,
+        long operationsSent,
+        long failedBatches,
+        int lastBatchSize,
+        int maxBatchSize,
+        double averageBatchSize
+) {
+}
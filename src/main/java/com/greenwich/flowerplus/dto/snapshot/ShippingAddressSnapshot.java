@@ -0,0 +1,17 @@
+package com.greenwich.flowerplus.dto.snapshot;
+
+/**
+ * Shipping address copied into orders.shipping_address (JSONB) at checkout,
+ * later edits of the customer's address book do not change past orders.
+ */
+public record ShippingAddressSnapshot(
+        String recipientName,
+        String phoneNumber,
+        String provinceCode,
+        String provinceName,
+        String wardCode,
+        String wardName,
+        String districtName,
+        String detailAddress
+) {
+}
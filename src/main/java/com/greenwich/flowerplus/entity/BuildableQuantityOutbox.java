@@ -0,0 +1,30 @@
+package com.greenwich.flowerplus.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * Material or product whose buildable quantity needs a refresh. Outbox of BuildableQuantityServiceImpl,
+ * written with JDBC only.
+ */
+@Entity
+@Table(name = "buildable_quantity_outbox", indexes = {
+        @Index(name = "idx_buildable_quantity_outbox_queued_at", columnList = "queued_at")
+})
+@Getter @Setter
+@NoArgsConstructor @AllArgsConstructor
+@Builder
+public class BuildableQuantityOutbox {
+
+    @EmbeddedId
+    private BuildableQuantityOutboxId id;
+
+    // Tăng mỗi lần có thay đổi mới, chỉ xóa row nếu không có thay đổi mới trong lúc xử lý
+    @Column(name = "change_seq", nullable = false)
+    private long changeSeq;
+
+    @Column(name = "queued_at", nullable = false)
+    private Instant queuedAt;
+}
@@ -0,0 +1,22 @@
+package com.greenwich.flowerplus.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.*;
+
+import java.io.Serializable;
+
+@Embeddable
+@Getter
+@Setter
+@NoArgsConstructor @AllArgsConstructor
+@EqualsAndHashCode
+public class BuildableQuantityOutboxId implements Serializable {
+
+    // MATERIAL | PRODUCT
+    @Column(name = "target_type", length = 10)
+    private String targetType;
+
+    @Column(name = "target_id")
+    private Long targetId;
+}
@@ -2,6 +2,7 @@ package com.greenwich.flowerplus.entity;
 
 
 import com.greenwich.flowerplus.common.constant.CommonConfig;
+import com.greenwich.flowerplus.common.utils.TsidUtils;
 import jakarta.persistence.*;
 import lombok.*;
 
@@ -14,8 +15,8 @@ import lombok.*;
 @Table(name = "contact_addresses")
 public class ContactAddress extends BaseSoftDeleteEntity<Long> {
 
+    // TSID gán sẵn ở PrePersist (không dùng IDENTITY) để Hibernate batch được INSERT
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
     @Override
@@ -23,6 +24,13 @@ public class ContactAddress extends BaseSoftDeleteEntity<Long> {
         return id;
     }
 
+    @Override
+    protected void onPrePersist() {
+        if (this.id == null) {
+            this.id = TsidUtils.nextId();
+        }
+    }
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "profile_id", nullable = false)
     private UserProfile userProfile;
@@ -0,0 +1,45 @@
+package com.greenwich.flowerplus.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalTime;
+
+/**
+ * Delivery time slot offered at checkout. {@code capacity} is the default number of bouquets per day,
+ * a date can override it with {@link DeliverySlotCapacity}.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "delivery_slots", uniqueConstraints = {
+        @UniqueConstraint(name = "uq_delivery_slots_code", columnNames = "code")
+})
+public class DeliverySlot extends BaseTsidEntity {
+
+    // Lưu vào orders.delivery_time_slot
+    @Column(nullable = false, length = 20)
+    private String code;
+
+    @Column(nullable = false, length = 50)
+    private String label;
+
+    @Column(name = "start_time", nullable = false)
+    private LocalTime startTime;
+
+    @Column(name = "end_time", nullable = false)
+    private LocalTime endTime;
+
+    @Column(nullable = false)
+    private int capacity;
+
+    @Builder.Default
+    @Column(nullable = false)
+    private boolean active = true;
+
+    @Column(name = "sort_order", nullable = false)
+    private int sortOrder;
+}
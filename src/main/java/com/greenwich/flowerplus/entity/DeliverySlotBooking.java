@@ -0,0 +1,45 @@
+package com.greenwich.flowerplus.entity;
+
+import com.greenwich.flowerplus.common.enums.DeliverySlotBookingStatus;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * Units of a slot taken by one order. Source of truth the Redis counters are rebuilt from.
+ */
+@Entity
+@Table(name = "delivery_slot_bookings", indexes = {
+        @Index(name = "idx_delivery_slot_bookings_active", columnList = "delivery_date, slot_code")
+})
+@Getter @Setter
+@NoArgsConstructor @AllArgsConstructor
+@Builder
+public class DeliverySlotBooking {
+
+    @Id
+    @Column(name = "order_id")
+    private Long orderId;
+
+    @Column(name = "delivery_date", nullable = false)
+    private LocalDate deliveryDate;
+
+    @Column(name = "slot_code", nullable = false, length = 20)
+    private String slotCode;
+
+    // Số bó hoa của đơn
+    @Column(nullable = false)
+    private int units;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private DeliverySlotBookingStatus status;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    @Column(name = "released_at")
+    private Instant releasedAt;
+}
@@ -0,0 +1,29 @@
+package com.greenwich.flowerplus.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * Capacity of a slot on one date, overrides {@link DeliverySlot#getCapacity()} (peak days)
+ */
+@Entity
+@Table(name = "delivery_slot_capacities")
+@Getter @Setter
+@NoArgsConstructor @AllArgsConstructor
+@Builder
+public class DeliverySlotCapacity {
+
+    @EmbeddedId
+    private DeliverySlotCapacityId id;
+
+    @Column(nullable = false)
+    private int capacity;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+
+    @Column(name = "updated_by")
+    private String updatedBy;
+}
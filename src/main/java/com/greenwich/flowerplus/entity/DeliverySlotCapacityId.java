@@ -0,0 +1,22 @@
+package com.greenwich.flowerplus.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+@Embeddable
+@Getter
+@Setter
+@NoArgsConstructor @AllArgsConstructor
+@EqualsAndHashCode
+public class DeliverySlotCapacityId implements Serializable {
+
+    @Column(name = "delivery_date")
+    private LocalDate deliveryDate;
+
+    @Column(name = "slot_code", length = 20)
+    private String slotCode;
+}
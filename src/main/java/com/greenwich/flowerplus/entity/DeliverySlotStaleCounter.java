@@ -0,0 +1,25 @@
+package com.greenwich.flowerplus.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * Slot/date whose Redis counter missed an update, skipped by checkout until rebuilt.
+ * Written with set-based JDBC by DeliverySlotServiceImpl, the entity mainly documents the schema.
+ */
+@Entity
+@Table(name = "delivery_slot_stale_counters")
+@Getter @Setter
+@NoArgsConstructor @AllArgsConstructor
+@Builder
+public class DeliverySlotStaleCounter {
+
+    // Same (delivery_date, slot_code) key as delivery_slot_capacities
+    @EmbeddedId
+    private DeliverySlotCapacityId id;
+
+    @Column(name = "marked_at", nullable = false)
+    private Instant markedAt;
+}
@@ -0,0 +1,46 @@
+package com.greenwich.flowerplus.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * Net stock movement of a material in one month for one movement type, maintained by InventoryRollupJob.
+ * Once the month's ledger partition is dropped ({@code compacted}), this row is the only record of the month.
+ */
+@Entity
+@Table(name = "inventory_monthly_rollups", indexes = {
+        @Index(name = "idx_inventory_rollups_month", columnList = "month")
+})
+@Getter @Setter
+@NoArgsConstructor @AllArgsConstructor
+@Builder
+public class InventoryMonthlyRollup {
+
+    @EmbeddedId
+    private InventoryMonthlyRollupId id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @MapsId("materialId")
+    @JoinColumn(name = "material_id")
+    private Material material;
+
+    @Column(nullable = false)
+    private long inbound;
+
+    @Column(nullable = false)
+    private long outbound;
+
+    @Column(name = "net_change", nullable = false)
+    private long netChange;
+
+    @Column(name = "entry_count", nullable = false)
+    private long entryCount;
+
+    @Column(nullable = false)
+    private boolean compacted;
+
+    @Column(name = "rolled_at", nullable = false)
+    private Instant rolledAt;
+}
@@ -0,0 +1,30 @@
+package com.greenwich.flowerplus.entity;
+
+import com.greenwich.flowerplus.common.enums.TransactionType;
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+@Embeddable
+@Getter
+@Setter
+@NoArgsConstructor @AllArgsConstructor
+@EqualsAndHashCode
+public class InventoryMonthlyRollupId implements Serializable {
+
+    @Column(name = "material_id")
+    private Long materialId;
+
+    // Ngày đầu tháng (UTC)
+    @Column(name = "month")
+    private LocalDate month;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "type", length = 20)
+    private TransactionType type;
+}
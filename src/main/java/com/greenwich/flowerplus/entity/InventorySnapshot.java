@@ -0,0 +1,29 @@
+package com.greenwich.flowerplus.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.Immutable;
+
+/**
+ * Stock balance of a material at {@code snapshotAt}, rolled forward daily by InventorySnapshotJob.
+ * Stock as of any time = nearest snapshot + ledger entries after it (no full history replay).
+ */
+@Entity
+@Immutable
+@Table(name = "inventory_snapshots")
+@Getter @Setter
+@NoArgsConstructor @AllArgsConstructor
+@Builder
+public class InventorySnapshot extends BaseCreatedEntity {
+
+    @EmbeddedId
+    private InventorySnapshotId id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @MapsId("materialId")
+    @JoinColumn(name = "material_id")
+    private Material material;
+
+    @Column(nullable = false)
+    private int balance;
+}
@@ -0,0 +1,22 @@
+package com.greenwich.flowerplus.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+@Embeddable
+@Getter
+@Setter
+@NoArgsConstructor @AllArgsConstructor
+@EqualsAndHashCode
+public class InventorySnapshotId implements Serializable {
+
+    @Column(name = "material_id")
+    private Long materialId;
+
+    @Column(name = "snapshot_at")
+    private Instant snapshotAt;
+}
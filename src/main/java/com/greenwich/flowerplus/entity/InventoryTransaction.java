@@ -3,6 +3,7 @@ package com.greenwich.flowerplus.entity;
 import com.greenwich.flowerplus.common.enums.TransactionType;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Immutable;
 
 @Getter
 @Setter
@@ -10,7 +11,10 @@ import lombok.*;
 @AllArgsConstructor
 @Builder
 @Entity
-@Table(name = "inventory_transactions")
+@Immutable // Append-only ledger: corrections are new AUDIT entries
+@Table(name = "inventory_transactions", indexes = {
+        @Index(name = "idx_inventory_tx_material_created", columnList = "material_id, created_at, id")
+})
 public class InventoryTransaction extends BaseTsidEntity {
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -3,6 +3,7 @@ package com.greenwich.flowerplus.entity;
 import com.greenwich.flowerplus.common.enums.MaterialType;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.SQLDelete;
 import org.hibernate.annotations.SQLRestriction;
 
@@ -38,6 +39,12 @@ public class Material extends BaseTsidSoftDeleteEntity {
     @Column(length = 20)
     private MaterialType type;
 
+    // Hai admin sửa cùng lúc -> request sau bị từ chối thay vì ghi đè giá vốn
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
+
     @OneToOne(mappedBy = "material", cascade = CascadeType.ALL)
     private MaterialStock materialStock;
 }
@@ -3,6 +3,7 @@ package com.greenwich.flowerplus.entity;
 import jakarta.persistence.*;
 import lombok.*;
 
+import java.time.Instant;
 
 @Getter
 @Setter
@@ -32,6 +33,10 @@ public class MaterialStock extends BaseTsidEntity {
     @Builder.Default
     private Integer reorderLevel = 10;
 
+    // Thời điểm tồn khả dụng xuống <= reorderLevel, null = đủ hàng. Do LowStockService cập nhật bằng SQL
+    @Column(name = "low_stock_since", insertable = false, updatable = false)
+    private Instant lowStockSince;
+
     public int getAvailableStock() {
         return this.quantity - this.reservedQuantity;
     }
@@ -0,0 +1,97 @@
+package com.greenwich.flowerplus.entity;
+
+import com.greenwich.flowerplus.common.enums.OrderStatus;
+import com.greenwich.flowerplus.common.enums.PaymentMethod;
+import com.greenwich.flowerplus.common.enums.PaymentStatus;
+import com.greenwich.flowerplus.dto.snapshot.ShippingAddressSnapshot;
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Customer order. Written by OrderServiceImpl with set-based SQL at checkout (order + items in one
+ * transaction), the entity is used to read orders back.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "orders", uniqueConstraints = {
+        @UniqueConstraint(name = "uq_orders_order_code", columnNames = "order_code"),
+        @UniqueConstraint(name = "uq_orders_user_idempotency_key", columnNames = {"user_id", "idempotency_key"})
+}, indexes = {
+        @Index(name = "idx_orders_user_created", columnList = "user_id, created_at, id")
+})
+public class Order extends BaseTsidSoftDeleteEntity {
+
+    // Chỉ lưu id, không cần load UserAccount khi đọc đơn
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    // "ORD-" + Base62(id): duy nhất vì id là TSID, không cần query kiểm tra trùng
+    @Column(name = "order_code", nullable = false, length = 20)
+    private String orderCode;
+
+    // Client gửi lại cùng key (retry) -> trả về đơn đã tạo, không tạo đơn mới
+    @Column(name = "idempotency_key", length = 64)
+    private String idempotencyKey;
+
+    // SHA-256 của request tạo đơn: retry cùng key nhưng khác nội dung -> ORDER_005
+    @Column(name = "request_fingerprint", length = 64)
+    private String requestFingerprint;
+
+    @Column(name = "total_amount", nullable = false, precision = 15, scale = 2)
+    private BigDecimal totalAmount;
+
+    @Column(name = "discount_amount", precision = 15, scale = 2)
+    private BigDecimal discountAmount;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 30)
+    private OrderStatus status;
+
+    @Column(name = "delivery_status", length = 30)
+    private String deliveryStatus;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "payment_status", length = 20)
+    private PaymentStatus paymentStatus;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "payment_method", length = 30)
+    private PaymentMethod paymentMethod;
+
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "shipping_address", columnDefinition = "jsonb", nullable = false)
+    private ShippingAddressSnapshot shippingAddress;
+
+    @Column(name = "delivery_date")
+    private Instant deliveryDate;
+
+    @Column(name = "delivery_time_slot", length = 50)
+    private String deliveryTimeSlot;
+
+    @Column(name = "customer_note", columnDefinition = "TEXT")
+    private String customerNote;
+
+    @Column(name = "paid_at")
+    private Instant paidAt;
+
+    @Column(name = "completed_at")
+    private Instant completedAt;
+
+    @Column(name = "cancelled_at")
+    private Instant cancelledAt;
+
+    @Builder.Default
+    @OneToMany(mappedBy = "order", cascade = CascadeType.ALL, orphanRemoval = true)
+    private List<OrderItem> items = new ArrayList<>();
+}
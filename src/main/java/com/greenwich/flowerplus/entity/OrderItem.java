@@ -0,0 +1,54 @@
+package com.greenwich.flowerplus.entity;
+
+import com.greenwich.flowerplus.common.enums.OrderItemType;
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "order_items", indexes = {
+        @Index(name = "idx_order_items_order_id_id", columnList = "order_id, id")
+})
+public class OrderItem extends BaseTsidSoftDeleteEntity {
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "order_id", nullable = false)
+    private Order order;
+
+    // NULL nếu là bó hoa custom
+    @Column(name = "product_id")
+    private Long productId;
+
+    // Tên sản phẩm lúc đặt hàng (sản phẩm đổi tên sau này không ảnh hưởng đơn cũ)
+    @Column(name = "product_name")
+    private String productName;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "item_type", nullable = false, length = 20)
+    private OrderItemType itemType;
+
+    @Column(nullable = false)
+    private int quantity;
+
+    @Column(name = "unit_price", nullable = false, precision = 15, scale = 2)
+    private BigDecimal unitPrice;
+
+    @Column(name = "unit_cost", precision = 15, scale = 2)
+    private BigDecimal unitCost;
+
+    @Column(name = "sub_total", nullable = false, precision = 15, scale = 2)
+    private BigDecimal subTotal;
+
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "custom_config", columnDefinition = "jsonb")
+    private Map<String, Object> customConfig;
+}
@@ -0,0 +1,44 @@
+package com.greenwich.flowerplus.entity;
+
+import com.greenwich.flowerplus.common.enums.ReservationStatus;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * One reserved line of ready-made stock (products.prepared_quantity) for a product without recipe.
+ * Written with set-based JDBC by StockReservationServiceImpl, the entity mainly documents the schema.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "prepared_stock_reservations",
+        uniqueConstraints = {
+                @UniqueConstraint(name = "uq_prepared_stock_reservation_reference_product", columnNames = {"reference_code", "product_id"})
+        },
+        indexes = {
+                @Index(name = "idx_prepared_stock_reservation_expiry", columnList = "expires_at")
+        })
+public class PreparedStockReservation extends BaseTsidEntity {
+
+    @Column(name = "reference_code", nullable = false, length = 50)
+    private String referenceCode;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "product_id", nullable = false)
+    private Product product;
+
+    @Column(nullable = false)
+    private int quantity;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private ReservationStatus status;
+
+    @Column(name = "expires_at")
+    private Instant expiresAt;
+}
@@ -54,6 +54,11 @@ public class Product extends BaseTsidSoftDeleteEntity {
     @Column(name = "is_make_to_order")
     private boolean isMakeToOrder;
 
+    // Số bó làm được ngay từ tồn kho nguyên liệu = MIN(available / quantityNeeded) theo recipe.
+    // Do BuildableQuantityService cập nhật bằng SQL, NULL = chưa có recipe (không giới hạn)
+    @Column(name = "buildable_quantity", insertable = false, updatable = false)
+    private Integer buildableQuantity;
+
     @Column(name = "selling_price", nullable = false, precision = 15, scale = 2)
     private BigDecimal basePrice;
 
@@ -199,4 +204,20 @@ public class Product extends BaseTsidSoftDeleteEntity {
         }
         this.costPrice = newCost;
     }
+
+    /**
+     * Có thể bán ngay: còn hàng làm sẵn, hoặc làm theo đơn và đủ nguyên liệu cho ít nhất 1 bó
+     */
+    public boolean isInStock() {
+        return preparedQuantity > 0
+                || (isMakeToOrder && (buildableQuantity == null || buildableQuantity > 0));
+    }
+
+    /**
+     * Số lượng hiển thị cho storefront: hàng làm sẵn + số bó làm được (nếu làm theo đơn)
+     */
+    public int getAvailableStock() {
+        int buildable = isMakeToOrder && buildableQuantity != null ? buildableQuantity : 0;
+        return preparedQuantity + buildable;
+    }
 }
@@ -1,6 +1,7 @@
 package com.greenwich.flowerplus.entity;
 
 import com.greenwich.flowerplus.common.enums.AssetType;
+import com.greenwich.flowerplus.common.utils.TsidUtils;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
@@ -15,8 +16,8 @@ import java.util.Map;
 @Setter
 public class ProductAsset extends BaseSoftDeleteEntity<Long> {
 
+    // TSID gán sẵn ở PrePersist (không dùng IDENTITY) để Hibernate batch được INSERT
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
     @Column(nullable = false)
@@ -42,4 +43,11 @@ public class ProductAsset extends BaseSoftDeleteEntity<Long> {
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "product_id")
     private Product product;
+
+    @Override
+    protected void onPrePersist() {
+        if (this.id == null) {
+            this.id = TsidUtils.nextId();
+        }
+    }
 }
\ No newline at end of file
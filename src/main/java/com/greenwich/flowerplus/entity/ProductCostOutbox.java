@@ -0,0 +1,30 @@
+package com.greenwich.flowerplus.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * Material whose products need a cost price recompute. Outbox of ProductCostServiceImpl, written with JDBC only.
+ */
+@Entity
+@Table(name = "product_cost_outbox", indexes = {
+        @Index(name = "idx_product_cost_outbox_queued_at", columnList = "queued_at")
+})
+@Getter @Setter
+@NoArgsConstructor @AllArgsConstructor
+@Builder
+public class ProductCostOutbox {
+
+    @Id
+    @Column(name = "material_id")
+    private Long materialId;
+
+    // Tăng mỗi lần material đổi giá, chỉ xóa row nếu không có thay đổi mới trong lúc xử lý
+    @Column(name = "change_seq", nullable = false)
+    private long changeSeq;
+
+    @Column(name = "queued_at", nullable = false)
+    private Instant queuedAt;
+}
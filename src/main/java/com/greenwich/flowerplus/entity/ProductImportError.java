@@ -0,0 +1,25 @@
+package com.greenwich.flowerplus.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * One rejected row of an import job. Written and read with plain SQL by the import
+ * processor, mapped so the schema is complete when Hibernate generates it.
+ */
+@Entity
+@Table(name = "product_import_errors")
+@Getter @Setter
+@NoArgsConstructor @AllArgsConstructor
+@Builder
+public class ProductImportError {
+
+    @EmbeddedId
+    private ProductImportRowId id;
+
+    @Column(name = "error_code", length = 50)
+    private String errorCode;
+
+    @Column(name = "message", nullable = false, length = 1000)
+    private String message;
+}
@@ -0,0 +1,59 @@
+package com.greenwich.flowerplus.entity;
+
+import com.greenwich.flowerplus.common.enums.ImportFormat;
+import com.greenwich.flowerplus.common.enums.ImportJobStatus;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * Bulk product import job: progress counters + checkpoint used to resume after a failure/restart.
+ * Per-row errors live in product_import_errors (written in batches by JDBC).
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "product_import_jobs")
+public class ProductImportJob extends BaseTsidEntity {
+
+    @Column(name = "file_name")
+    private String fileName;
+
+    // CSV / NDJSON, same layouts as the catalog export
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private ImportFormat format;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private ImportJobStatus status;
+
+    @Column(name = "checkpoint_row", nullable = false)
+    @Builder.Default
+    private long checkpointRow = 0;
+
+    @Column(name = "processed_rows", nullable = false)
+    @Builder.Default
+    private long processedRows = 0;
+
+    @Column(name = "imported_rows", nullable = false)
+    @Builder.Default
+    private long importedRows = 0;
+
+    @Column(name = "failed_rows", nullable = false)
+    @Builder.Default
+    private long failedRows = 0;
+
+    @Column(name = "started_at")
+    private Instant startedAt;
+
+    @Column(name = "finished_at")
+    private Instant finishedAt;
+
+    @Column(name = "error_message", columnDefinition = "TEXT")
+    private String errorMessage;
+}
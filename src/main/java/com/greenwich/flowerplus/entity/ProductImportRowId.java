@@ -0,0 +1,21 @@
+package com.greenwich.flowerplus.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.*;
+
+import java.io.Serializable;
+
+@Embeddable
+@Getter
+@Setter
+@NoArgsConstructor @AllArgsConstructor
+@EqualsAndHashCode
+public class ProductImportRowId implements Serializable {
+
+    @Column(name = "job_id")
+    private Long jobId;
+
+    @Column(name = "row_number")
+    private Long rowNumber;
+}
@@ -0,0 +1,48 @@
+package com.greenwich.flowerplus.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+
+/**
+ * Validated row of the batch being merged (UNLOGGED table in V13). Only used through
+ * plain SQL by the import processor, mapped so the schema is complete when Hibernate generates it.
+ */
+@Entity
+@Table(name = "product_import_staging")
+@Getter @Setter
+@NoArgsConstructor @AllArgsConstructor
+@Builder
+public class ProductImportStaging {
+
+    @EmbeddedId
+    private ProductImportRowId id;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(name = "product_category_id", nullable = false)
+    private Long productCategoryId;
+
+    @Column(name = "category_id", nullable = false)
+    private Long categoryId;
+
+    @Column(name = "name", nullable = false, length = 200)
+    private String name;
+
+    @Column(name = "slug", nullable = false, length = 250)
+    private String slug;
+
+    @Column(name = "description", columnDefinition = "TEXT")
+    private String description;
+
+    @Column(name = "care_instruction", columnDefinition = "TEXT")
+    private String careInstruction;
+
+    @Column(name = "selling_price", nullable = false, precision = 15, scale = 2)
+    private BigDecimal sellingPrice;
+
+    @Column(name = "original_price", nullable = false, precision = 15, scale = 2)
+    private BigDecimal originalPrice;
+}
@@ -0,0 +1,38 @@
+package com.greenwich.flowerplus.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * Sales of one shop-local day, maintained by SalesRollupService (deltas per order event + nightly reconcile).
+ */
+@Entity
+@Table(name = "sales_daily")
+@Getter @Setter
+@NoArgsConstructor @AllArgsConstructor
+@Builder
+public class SalesDaily {
+
+    @Id
+    @Column(name = "sales_date")
+    private LocalDate salesDate;
+
+    @Column(name = "order_count", nullable = false)
+    private long orderCount;
+
+    @Column(name = "units_sold", nullable = false)
+    private long unitsSold;
+
+    @Column(nullable = false, precision = 17, scale = 2)
+    private BigDecimal revenue;
+
+    @Column(name = "cancelled_count", nullable = false)
+    private long cancelledCount;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+}
@@ -0,0 +1,34 @@
+package com.greenwich.flowerplus.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Sales of one category in one shop-local day. A product in several categories counts in each of them,
+ * so category rows do not add up to {@link SalesDaily}.
+ */
+@Entity
+@Table(name = "sales_daily_categories")
+@Getter @Setter
+@NoArgsConstructor @AllArgsConstructor
+@Builder
+public class SalesDailyCategory {
+
+    @EmbeddedId
+    private SalesDailyCategoryId id;
+
+    @Column(name = "order_count", nullable = false)
+    private long orderCount;
+
+    @Column(name = "units_sold", nullable = false)
+    private long unitsSold;
+
+    @Column(nullable = false, precision = 17, scale = 2)
+    private BigDecimal revenue;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+}
@@ -0,0 +1,23 @@
+package com.greenwich.flowerplus.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+@Embeddable
+@Getter
+@Setter
+@NoArgsConstructor @AllArgsConstructor
+@EqualsAndHashCode
+public class SalesDailyCategoryId implements Serializable {
+
+    // Ngày theo giờ cửa hàng
+    @Column(name = "sales_date")
+    private LocalDate salesDate;
+
+    @Column(name = "category_id")
+    private Long categoryId;
+}
@@ -0,0 +1,33 @@
+package com.greenwich.flowerplus.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Sales of one product in one shop-local day. Revenue is the sum of item sub totals (before order discount).
+ */
+@Entity
+@Table(name = "sales_daily_products")
+@Getter @Setter
+@NoArgsConstructor @AllArgsConstructor
+@Builder
+public class SalesDailyProduct {
+
+    @EmbeddedId
+    private SalesDailyProductId id;
+
+    @Column(name = "order_count", nullable = false)
+    private long orderCount;
+
+    @Column(name = "units_sold", nullable = false)
+    private long unitsSold;
+
+    @Column(nullable = false, precision = 17, scale = 2)
+    private BigDecimal revenue;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+}
@@ -0,0 +1,29 @@
+package com.greenwich.flowerplus.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * Marker of a sales delta already applied for an order: the primary key makes each
+ * (order, event) delta apply at most once.
+ */
+@Entity
+@Table(name = "sales_rollup_entries")
+@Getter @Setter
+@NoArgsConstructor @AllArgsConstructor
+@Builder
+public class SalesRollupEntry {
+
+    @EmbeddedId
+    private SalesRollupEntryId id;
+
+    // Ngày (giờ cửa hàng) mà delta được cộng/trừ vào
+    @Column(name = "sales_date", nullable = false)
+    private LocalDate salesDate;
+
+    @Column(name = "applied_at", nullable = false)
+    private Instant appliedAt;
+}
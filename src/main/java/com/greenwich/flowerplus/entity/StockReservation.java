@@ -0,0 +1,44 @@
+package com.greenwich.flowerplus.entity;
+
+import com.greenwich.flowerplus.common.enums.ReservationStatus;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * One reserved material line of a reference (order code, cart checkout...).
+ * Written with set-based JDBC by StockReservationServiceImpl, the entity mainly documents the schema.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "stock_reservations",
+        uniqueConstraints = {
+                @UniqueConstraint(name = "uq_stock_reservation_reference_material", columnNames = {"reference_code", "material_id"})
+        },
+        indexes = {
+                @Index(name = "idx_stock_reservation_expiry", columnList = "expires_at")
+        })
+public class StockReservation extends BaseTsidEntity {
+
+    @Column(name = "reference_code", nullable = false, length = 50)
+    private String referenceCode;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "material_id", nullable = false)
+    private Material material;
+
+    @Column(nullable = false)
+    private int quantity;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private ReservationStatus status;
+
+    @Column(name = "expires_at")
+    private Instant expiresAt;
+}
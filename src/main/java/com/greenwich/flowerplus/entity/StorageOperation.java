@@ -0,0 +1,48 @@
+package com.greenwich.flowerplus.entity;
+
+import com.greenwich.flowerplus.common.enums.StorageOperationType;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * Storage provider call waiting to be sent. Outbox of CloudinaryOperationBatcher, written with JDBC only.
+ */
+@Entity
+@Table(name = "storage_operations", indexes = {
+        @Index(name = "idx_storage_operations_next_attempt_at", columnList = "next_attempt_at"),
+        @Index(name = "idx_storage_operations_public_id", columnList = "public_id")
+})
+@Getter @Setter
+@NoArgsConstructor @AllArgsConstructor
+@Builder
+public class StorageOperation {
+
+    // TSID gán lúc insert
+    @Id
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private StorageOperationType operation;
+
+    @Column(name = "public_id", nullable = false, length = 500)
+    private String publicId;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private Instant nextAttemptAt;
+
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+
+    // Set after max-attempts failures: dead letter, never claimed again
+    @Column(name = "dead_at")
+    private Instant deadAt;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+}
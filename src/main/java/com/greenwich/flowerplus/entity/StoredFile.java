@@ -0,0 +1,41 @@
+package com.greenwich.flowerplus.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * One stored file content per storage provider, with the number of product assets using its URL.
+ * Written with JDBC only (DeduplicatingFileStorageService), mapped so the test schema has the table.
+ */
+@Entity
+@Table(name = "stored_files", uniqueConstraints = {
+        @UniqueConstraint(name = "uq_stored_files_url", columnNames = "url")
+})
+@Getter @Setter
+@NoArgsConstructor @AllArgsConstructor
+@Builder
+public class StoredFile {
+
+    @EmbeddedId
+    private StoredFileId id;
+
+    @Column(nullable = false, length = 500)
+    private String url;
+
+    @Column(name = "size_bytes", nullable = false)
+    private long sizeBytes;
+
+    @Column(name = "ref_count", nullable = false)
+    private int refCount;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    @Column(name = "confirmed_at")
+    private Instant confirmedAt;
+
+    @Column(name = "last_used_at", nullable = false)
+    private Instant lastUsedAt;
+}
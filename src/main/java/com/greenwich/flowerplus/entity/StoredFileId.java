@@ -0,0 +1,21 @@
+package com.greenwich.flowerplus.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.*;
+
+import java.io.Serializable;
+
+@Embeddable
+@Getter
+@Setter
+@NoArgsConstructor @AllArgsConstructor
+@EqualsAndHashCode
+public class StoredFileId implements Serializable {
+
+    @Column(name = "provider", length = 20)
+    private String provider;
+
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+}
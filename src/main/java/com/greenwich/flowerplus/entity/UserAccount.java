@@ -3,6 +3,7 @@ package com.greenwich.flowerplus.entity;
 import com.greenwich.flowerplus.common.constant.CommonConfig;
 import com.greenwich.flowerplus.common.enums.IdentityProvider;
 import com.greenwich.flowerplus.common.enums.UserStatus;
+import com.greenwich.flowerplus.entity.listener.AuditorCacheListener;
 import jakarta.persistence.*;
 import lombok.*;
 
@@ -19,6 +20,7 @@ import java.util.Set;
 @Builder
 @Entity
 @Table(name = "users")
+@EntityListeners(AuditorCacheListener.class)
 public class UserAccount extends BaseTsidSoftDeleteEntity {
 
     @Column(name = "username", nullable = false, unique = true)
@@ -2,6 +2,7 @@ package com.greenwich.flowerplus.entity;
 
 import com.greenwich.flowerplus.common.constant.CommonConfig;
 import com.greenwich.flowerplus.common.enums.Gender;
+import com.greenwich.flowerplus.entity.listener.AuditorCacheListener;
 import jakarta.persistence.*;
 import lombok.*;
 
@@ -17,6 +18,7 @@ import java.time.LocalDate;
 @Builder
 @Entity
 @Table(name = "user_profiles")
+@EntityListeners(AuditorCacheListener.class)
 public class UserProfile extends BaseSoftDeleteEntity<Long> {
 
     @Id
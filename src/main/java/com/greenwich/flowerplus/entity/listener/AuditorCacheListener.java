@@ -0,0 +1,42 @@
+package com.greenwich.flowerplus.entity.listener;
+
+import com.greenwich.flowerplus.entity.UserAccount;
+import com.greenwich.flowerplus.entity.UserProfile;
+import com.greenwich.flowerplus.mapper.AuditorMapper;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+/**
+ * Evicts cached auditor info when a user account or profile changes
+ * (username, email, full name, avatar...), and drops the "not found" stub
+ * that may have been cached for the id / username before the account was created.
+ * <p>
+ * Hibernate resolves this listener through Spring, AuditorMapper is looked up lazily
+ * to avoid a cycle with the EntityManagerFactory during startup.
+ */
+@Component
+public class AuditorCacheListener {
+
+    private final ObjectProvider<AuditorMapper> auditorMapper;
+
+    public AuditorCacheListener(ObjectProvider<AuditorMapper> auditorMapper) {
+        this.auditorMapper = auditorMapper;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onUserChanged(Object entity) {
+        switch (entity) {
+            case UserAccount account ->
+                    auditorMapper.ifAvailable(mapper -> mapper.evict(account.getId(), account.getUsername()));
+            case UserProfile profile ->
+                    auditorMapper.ifAvailable(mapper -> mapper.evict(profile.getUserId()));
+            default -> {
+            }
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package com.greenwich.flowerplus.infrastructure.idempotency;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.greenwich.flowerplus.common.ApiResult;
+import com.greenwich.flowerplus.common.enums.ErrorCode;
+import com.greenwich.flowerplus.common.utils.CookieUtils;
+import com.greenwich.flowerplus.controller.CartController;
+import com.greenwich.flowerplus.infrastructure.security.SecurityUserDetails;
+import com.greenwich.flowerplus.service.CartService;
+import com.greenwich.flowerplus.service.IdempotencyService;
+import com.greenwich.flowerplus.service.IdempotencyService.Claim;
+import com.greenwich.flowerplus.service.IdempotencyService.StoredResponse;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.Part;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * Idempotency-Key for mutating requests (POST, PUT, PATCH, DELETE carrying the header).
+ * <p>
+ * 1. Key is scoped to the caller ("u:{userId}:", or "g:{cartId}:" for a guest with a cart cookie) and bound
+ *    to a fingerprint of method, path, query and body: the same key with a different request is rejected (422).
+ *    Anonymous requests without a guest cart are not deduplicated: nothing tells two such callers apart,
+ *    one could be replayed the other's response
+ * 2. First request claims the key and runs; status, content type and body are stored (24h by default)
+ * 3. Repeats get the stored response back (header Idempotent-Replayed: true) without reaching the controller.
+ *    A repeat arriving while the first is still running waits for it (up to wait-timeout, then 409)
+ * <p>
+ * 5xx, 408 and 429 responses are not stored: the client may retry them with the same key. Response headers
+ * (cookies, Location) are not replayed. Runs after Spring Security, so the caller is already known.
+ */
+@Component
+@Slf4j
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 64;
+    private static final Set<String> MUTATING_METHODS = Set.of("POST", "PUT", "PATCH", "DELETE");
+    private static final Set<Integer> NOT_STORED_STATUSES = Set.of(408, 429);
+
+    // Responses carry tokens: never kept in Redis/Postgres
+    private static final List<String> EXCLUDED_PATH_PREFIXES = List.of("/api/v1/auth/");
+
+    private static final Duration MIN_BACKOFF = Duration.ofMillis(25);
+    private static final Duration MAX_BACKOFF = Duration.ofMillis(250);
+
+    private final IdempotencyService idempotencyService;
+    private final CartService cartService;
+    private final ObjectMapper objectMapper;
+    private final Duration waitTimeout;
+    private final int maxStoredBytes;
+
+    public IdempotencyFilter(IdempotencyService idempotencyService,
+                             CartService cartService,
+                             ObjectMapper objectMapper,
+                             @Value("${app.idempotency.wait-timeout-ms:10000}") long waitTimeoutMs,
+                             @Value("${app.idempotency.max-stored-bytes:262144}") int maxStoredBytes) {
+        this.idempotencyService = idempotencyService;
+        this.cartService = cartService;
+        this.objectMapper = objectMapper;
+        this.waitTimeout = Duration.ofMillis(waitTimeoutMs);
+        this.maxStoredBytes = maxStoredBytes;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!MUTATING_METHODS.contains(request.getMethod()) || request.getHeader(IDEMPOTENCY_KEY_HEADER) == null) {
+            return true;
+        }
+        String path = request.getRequestURI();
+        return EXCLUDED_PATH_PREFIXES.stream().anyMatch(path::startsWith);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+
+        String idempotencyKey = request.getHeader(IDEMPOTENCY_KEY_HEADER).trim();
+        if (idempotencyKey.isEmpty() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            writeError(response, ErrorCode.IDEMPOTENCY_KEY_INVALID);
+            return;
+        }
+        String scope = callerScope(request);
+        if (scope == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        HttpServletRequest requestToUse = request;
+        MessageDigest digest = sha256();
+        digest.update((request.getMethod() + " " + request.getRequestURI() + "?"
+                + (request.getQueryString() == null ? "" : request.getQueryString()) + "\n")
+                .getBytes(StandardCharsets.UTF_8));
+        if (isMultipart(request)) {
+            digestParts(request, digest);
+        } else if (isForm(request)) {
+            digestParameters(request, digest);
+        } else {
+            byte[] body = StreamUtils.copyToByteArray(request.getInputStream());
+            digest.update(body);
+            requestToUse = new CachedBodyRequestWrapper(request, body);
+        }
+        String fingerprint = HexFormat.of().formatHex(digest.digest());
+        String key = scope + idempotencyKey;
+
+        long deadline = System.nanoTime() + waitTimeout.toNanos();
+        Duration backoff = MIN_BACKOFF;
+        while (true) {
+            Claim claim = idempotencyService.claim(key, fingerprint);
+            switch (claim.result()) {
+                case ACQUIRED -> {
+                    execute(requestToUse, response, filterChain, key, claim);
+                    return;
+                }
+                case COMPLETED -> {
+                    log.info("Replaying stored response for idempotency key {}", key);
+                    replay(response, claim.storedResponse());
+                    return;
+                }
+                case MISMATCH -> {
+                    writeError(response, ErrorCode.IDEMPOTENCY_KEY_REUSED);
+                    return;
+                }
+                case IN_PROGRESS -> {
+                    if (System.nanoTime() >= deadline) {
+                        writeError(response, ErrorCode.IDEMPOTENCY_REQUEST_IN_PROGRESS);
+                        return;
+                    }
+                    // Wait for the first execution instead of running the request a second time
+                    try {
+                        Thread.sleep(backoff);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        writeError(response, ErrorCode.IDEMPOTENCY_REQUEST_IN_PROGRESS);
+                        return;
+                    }
+                    backoff = backoff.multipliedBy(2);
+                    if (backoff.compareTo(MAX_BACKOFF) > 0) {
+                        backoff = MAX_BACKOFF;
+                    }
+                }
+            }
+        }
+    }
+
+    // ========================================================================
+    // HELPERS
+    // ========================================================================
+
+    private void execute(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain,
+                         String key, Claim claim) throws ServletException, IOException {
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        try {
+            filterChain.doFilter(request, wrapper);
+        } catch (ServletException | IOException | RuntimeException e) {
+            idempotencyService.release(key, claim);
+            throw e;
+        }
+
+        try {
+            int status = wrapper.getStatus();
+            byte[] body = wrapper.getContentAsByteArray();
+            if (request.isAsyncStarted() || status >= 500 || NOT_STORED_STATUSES.contains(status)
+                    || body.length > maxStoredBytes) {
+                idempotencyService.release(key, claim);
+            } else {
+                idempotencyService.complete(key, claim, new StoredResponse(status, wrapper.getContentType(), body));
+            }
+        } finally {
+            wrapper.copyBodyToResponse();
+        }
+    }
+
+    private void replay(HttpServletResponse response, StoredResponse stored) throws IOException {
+        response.setStatus(stored.status());
+        if (stored.contentType() != null) {
+            response.setContentType(stored.contentType());
+        }
+        response.setHeader(REPLAYED_HEADER, "true");
+        response.setContentLength(stored.body().length);
+        response.getOutputStream().write(stored.body());
+    }
+
+    private void writeError(HttpServletResponse response, ErrorCode errorCode) throws IOException {
+        response.setStatus(errorCode.getHttpStatus().value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+
+        String traceId = UUID.randomUUID().toString();
+        ApiResult<?> errorResponse = ApiResult.error(errorCode.getCode(), errorCode.getMessage(), traceId);
+
+        response.getWriter().write(objectMapper.writeValueAsString(errorResponse));
+    }
+
+    // null = anonymous caller that cannot be told apart from other anonymous callers
+    private String callerScope(HttpServletRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof SecurityUserDetails principal) {
+            return "u:" + principal.getUser().getId() + ":";
+        }
+        String guestCartId = CookieUtils.getCookieValue(request, CartController.GUEST_CART_COOKIE_NAME);
+        if (cartService.isValidGuestCartId(guestCartId)) {
+            return "g:" + guestCartId + ":";
+        }
+        return null;
+    }
+
+    // Files are identified by field, name and size: hashing their content would read every upload twice
+    private void digestParts(HttpServletRequest request, MessageDigest digest) throws IOException, ServletException {
+        Map<String, String> parts = new TreeMap<>();
+        for (Part part : request.getParts()) {
+            String value = part.getSubmittedFileName() != null
+                    ? part.getSubmittedFileName() + ":" + part.getSize()
+                    : new String(part.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+            parts.merge(part.getName(), value, (a, b) -> a + "," + b);
+        }
+        digest.update(parts.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void digestParameters(HttpServletRequest request, MessageDigest digest) {
+        Map<String, List<String>> parameters = new TreeMap<>();
+        request.getParameterMap().forEach((name, values) -> parameters.put(name, List.of(values)));
+        digest.update(parameters.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static boolean isMultipart(HttpServletRequest request) {
+        String contentType = request.getContentType();
+        return contentType != null && contentType.toLowerCase().startsWith("multipart/");
+    }
+
+    private static boolean isForm(HttpServletRequest request) {
+        String contentType = request.getContentType();
+        return contentType != null
+                && contentType.toLowerCase().startsWith(MediaType.APPLICATION_FORM_URLENCODED_VALUE);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.greenwich.flowerplus.infrastructure.scheduler;
+
+import com.greenwich.flowerplus.service.BuildableQuantityService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import net.javacrumbs.shedlock.spring.annotation.SchedulerLock;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class BuildableQuantityRebuildJob {
+
+    private final BuildableQuantityService buildableQuantityService;
+
+    // Chạy lúc 2h30 sáng mỗi ngày: tính lại số bó làm được, sửa lệch do dữ liệu sửa ngoài service (SQL tay, import)
+    @Scheduled(cron = "0 30 2 * * *")
+    @SchedulerLock(name = "BuildableQuantityRebuildJob_rebuild",
+            lockAtLeastFor = "1m", lockAtMostFor = "30m")
+    public void rebuildBuildableQuantities() {
+        int changed = buildableQuantityService.rebuildAll();
+
+        if (changed > 0) {
+            log.warn("⚠️ Buildable quantity lệch ở {} sản phẩm, đã cập nhật lại.", changed);
+        } else {
+            log.info("✅ Buildable quantity khớp cho toàn bộ sản phẩm.");
+        }
+    }
+}
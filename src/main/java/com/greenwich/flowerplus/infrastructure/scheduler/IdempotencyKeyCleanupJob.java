@@ -0,0 +1,25 @@
+package com.greenwich.flowerplus.infrastructure.scheduler;
+
+import com.greenwich.flowerplus.service.IdempotencyService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import net.javacrumbs.shedlock.spring.annotation.SchedulerLock;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class IdempotencyKeyCleanupJob {
+
+    private final IdempotencyService idempotencyService;
+
+    // 1h15 sáng: xoá idempotency key hết hạn trong bảng dự phòng (key trên Redis tự hết hạn)
+    @Scheduled(cron = "0 15 1 * * *")
+    @SchedulerLock(name = "IdempotencyKeyCleanupJob_purgeExpired",
+            lockAtLeastFor = "1m", lockAtMostFor = "10m")
+    public void purgeExpiredKeys() {
+        int deleted = idempotencyService.purgeExpired();
+        log.info("🧹 Đã xoá {} idempotency key hết hạn.", deleted);
+    }
+}
@@ -0,0 +1,53 @@
+package com.greenwich.flowerplus.infrastructure.scheduler;
+
+import com.greenwich.flowerplus.service.InventoryRollupService;
+import lombok.extern.slf4j.Slf4j;
+import net.javacrumbs.shedlock.spring.annotation.SchedulerLock;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+
+@Component
+@Slf4j
+public class InventoryRollupJob {
+
+    private final InventoryRollupService inventoryRollupService;
+    private final int partitionsAhead;
+    private final int retentionMonths;
+
+    public InventoryRollupJob(InventoryRollupService inventoryRollupService,
+                              @Value("${app.inventory-ledger.partitions-ahead:3}") int partitionsAhead,
+                              @Value("${app.inventory-ledger.retention-months:24}") int retentionMonths) {
+        this.inventoryRollupService = inventoryRollupService;
+        this.partitionsAhead = partitionsAhead;
+        this.retentionMonths = retentionMonths;
+    }
+
+    // Phút thứ 5 mỗi giờ: tạo trước partition các tháng tới + cập nhật tổng hợp tháng trước và tháng này
+    @Scheduled(cron = "0 5 * * * *", zone = "UTC")
+    @SchedulerLock(name = "InventoryRollupJob_refresh",
+            lockAtLeastFor = "1m", lockAtMostFor = "20m")
+    public void refreshRollups() {
+        inventoryRollupService.ensurePartitions(partitionsAhead);
+
+        YearMonth current = YearMonth.now(ZoneOffset.UTC);
+        int written = inventoryRollupService.refreshRollups(current.minusMonths(1), current);
+        log.info("📊 Đã cập nhật {} dòng tổng hợp kho theo tháng.", written);
+    }
+
+    // Chạy lúc 3h sáng mỗi ngày: gộp các tháng quá hạn lưu trữ vào bảng tổng hợp rồi xóa partition
+    @Scheduled(cron = "0 0 3 * * *", zone = "UTC")
+    @SchedulerLock(name = "InventoryRollupJob_compact",
+            lockAtLeastFor = "1m", lockAtMostFor = "1h")
+    public void compactOldPartitions() {
+        YearMonth cutoff = YearMonth.now(ZoneOffset.UTC).minusMonths(retentionMonths);
+        int dropped = inventoryRollupService.compactBefore(cutoff);
+
+        if (dropped > 0) {
+            log.info("🗜️ Đã gộp {} partition sổ kho trước {} vào bảng tổng hợp.", dropped, cutoff);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.greenwich.flowerplus.infrastructure.scheduler;
+
+import com.greenwich.flowerplus.service.InventoryLedgerService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import net.javacrumbs.shedlock.spring.annotation.SchedulerLock;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class InventorySnapshotJob {
+
+    private final InventoryLedgerService inventoryLedgerService;
+
+    // Chạy lúc 0h10 mỗi ngày: chốt tồn kho lúc 0h (UTC), trễ 10 phút để các giao dịch cuối ngày commit xong
+    @Scheduled(cron = "0 10 0 * * *", zone = "UTC")
+    @SchedulerLock(name = "InventorySnapshotJob_rollForward",
+            lockAtLeastFor = "1m", lockAtMostFor = "30m")
+    public void rollForward() {
+        Instant cutoff = LocalDate.now(ZoneOffset.UTC).atStartOfDay(ZoneOffset.UTC).toInstant();
+        int created = inventoryLedgerService.rollSnapshots(cutoff);
+
+        long drift = inventoryLedgerService.countBalanceDrift();
+        if (drift > 0) {
+            log.warn("⚠️ {} material có quantity lệch với sổ kho (snapshot + giao dịch)", drift);
+        }
+        log.info("📦 Đã chốt {} snapshot tồn kho tại {}.", created, cutoff);
+    }
+}
@@ -0,0 +1,28 @@
+package com.greenwich.flowerplus.infrastructure.scheduler;
+
+import com.greenwich.flowerplus.service.LowStockService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import net.javacrumbs.shedlock.spring.annotation.SchedulerLock;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class LowStockReconcileJob {
+
+    private final LowStockService lowStockService;
+
+    // Mỗi 15 phút: bắt các lần vượt ngưỡng bị sót (restart trước khi flush, sửa kho trực tiếp bằng SQL)
+    @Scheduled(fixedDelay = 900_000, initialDelay = 60_000)
+    @SchedulerLock(name = "LowStockReconcileJob_reconcile",
+            lockAtLeastFor = "1m", lockAtMostFor = "10m")
+    public void reconcileLowStock() {
+        int published = lowStockService.reconcile();
+
+        if (published > 0) {
+            log.warn("⚠️ Low stock: {} cảnh báo bị sót đã được gửi lại.", published);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.greenwich.flowerplus.infrastructure.scheduler;
+
+import com.greenwich.flowerplus.dto.response.CostRecomputeResponse;
+import com.greenwich.flowerplus.service.ProductCostService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import net.javacrumbs.shedlock.spring.annotation.SchedulerLock;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ProductCostReconcileJob {
+
+    private final ProductCostService productCostService;
+
+    // Chạy lúc 2h sáng mỗi ngày: tính lại toàn bộ cost price, sửa lệch do recipe/material sửa ngoài luồng outbox
+    @Scheduled(cron = "0 0 2 * * *")
+    @SchedulerLock(name = "ProductCostReconcileJob_recompute",
+            lockAtLeastFor = "1m", lockAtMostFor = "30m")
+    public void reconcileCostPrices() {
+        CostRecomputeResponse result = productCostService.recomputeAll(false);
+
+        if (result.driftedProducts() > 0) {
+            log.warn("⚠️ Cost price drift: {}/{} sản phẩm lệch (max {}), đã sửa {}",
+                    result.driftedProducts(), result.checkedProducts(), result.maxDrift(), result.fixedProducts());
+        } else {
+            log.info("✅ Cost price khớp cho {} sản phẩm.", result.checkedProducts());
+        }
+    }
+}
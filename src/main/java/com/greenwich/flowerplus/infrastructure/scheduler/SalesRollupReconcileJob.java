@@ -0,0 +1,38 @@
+package com.greenwich.flowerplus.infrastructure.scheduler;
+
+import com.greenwich.flowerplus.service.SalesRollupService;
+import lombok.extern.slf4j.Slf4j;
+import net.javacrumbs.shedlock.spring.annotation.SchedulerLock;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+
+@Component
+@Slf4j
+public class SalesRollupReconcileJob {
+
+    private final SalesRollupService salesRollupService;
+    private final ZoneId zone;
+    private final int reconcileDays;
+
+    public SalesRollupReconcileJob(SalesRollupService salesRollupService,
+                                   @Value("${app.sales-rollup.zone:Asia/Ho_Chi_Minh}") String zone,
+                                   @Value("${app.sales-rollup.reconcile-days:7}") int reconcileDays) {
+        this.salesRollupService = salesRollupService;
+        this.zone = ZoneId.of(zone);
+        this.reconcileDays = reconcileDays;
+    }
+
+    // 1h30 sáng giờ cửa hàng: tính lại doanh thu các ngày gần đây từ đơn hàng (sửa lệch do sửa tay, lỗi giữa chừng)
+    @Scheduled(cron = "0 30 1 * * *", zone = "${app.sales-rollup.zone:Asia/Ho_Chi_Minh}")
+    @SchedulerLock(name = "SalesRollupReconcileJob_reconcile",
+            lockAtLeastFor = "1m", lockAtMostFor = "30m")
+    public void reconcileSalesRollups() {
+        LocalDate today = LocalDate.now(zone);
+        int written = salesRollupService.reconcile(today.minusDays(reconcileDays), today);
+        log.info("💰 Đã đối soát doanh thu {} ngày gần nhất ({} dòng tổng hợp).", reconcileDays, written);
+    }
+}
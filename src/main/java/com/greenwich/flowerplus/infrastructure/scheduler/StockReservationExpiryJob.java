@@ -0,0 +1,48 @@
+package com.greenwich.flowerplus.infrastructure.scheduler;
+
+import com.greenwich.flowerplus.service.OrderFulfillmentService;
+import com.greenwich.flowerplus.service.StockReservationService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import net.javacrumbs.shedlock.spring.annotation.SchedulerLock;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class StockReservationExpiryJob {
+
+    private static final int BATCH_SIZE = 200;
+
+    private final StockReservationService stockReservationService;
+    private final OrderFulfillmentService orderFulfillmentService;
+
+    // Mỗi phút: trả lại hàng đang giữ cho các đơn không xác nhận kịp (đơn PENDING bị hủy)
+    @Scheduled(fixedDelay = 60_000)
+    @SchedulerLock(name = "StockReservationExpiryJob_releaseExpired",
+            lockAtLeastFor = "10s", lockAtMostFor = "5m")
+    public void releaseExpired() {
+        List<String> references = stockReservationService.findExpiredReferences(BATCH_SIZE);
+        if (references.isEmpty()) {
+            return;
+        }
+
+        int released = 0;
+        for (String reference : references) {
+            try {
+                // Mỗi reference 1 transaction riêng, lỗi 1 cái không chặn cái khác.
+                // Đơn PENDING quá hạn bị hủy hẳn, nếu chỉ trả hàng thì đơn vẫn chiếm khung giờ và không CONFIRMED được nữa
+                if (!orderFulfillmentService.cancelExpired(reference)) {
+                    stockReservationService.release(reference);
+                }
+                released++;
+            } catch (Exception e) {
+                log.warn("Không thể release reservation {}: {}", reference, e.getMessage());
+            }
+        }
+        log.info("🔓 Đã release {}/{} reservation hết hạn.", released, references.size());
+    }
+}
@@ -0,0 +1,25 @@
+package com.greenwich.flowerplus.infrastructure.scheduler;
+
+import com.greenwich.flowerplus.infrastructure.storage.DeduplicatingFileStorageService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import net.javacrumbs.shedlock.spring.annotation.SchedulerLock;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class StoredFileCleanupJob {
+
+    private final DeduplicatingFileStorageService deduplicatingFileStorageService;
+
+    // 3h30 sáng (sau job dọn ảnh temporary của provider): xoá file không còn sản phẩm nào dùng quá thời gian chờ
+    @Scheduled(cron = "0 30 3 * * *")
+    @SchedulerLock(name = "StoredFileCleanupJob_purgeUnreferenced",
+            lockAtLeastFor = "1m", lockAtMostFor = "30m")
+    public void purgeUnreferencedFiles() {
+        int deleted = deduplicatingFileStorageService.purgeUnreferenced();
+        log.info("🧹 Đã xoá {} file ảnh không còn được sản phẩm nào dùng.", deleted);
+    }
+}
@@ -1,6 +1,7 @@
 package com.greenwich.flowerplus.infrastructure.security;
 
 import com.greenwich.flowerplus.service.TokenService;
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Bean;
@@ -44,7 +45,9 @@ public class SecurityConfig {
             "/api/v1/locations/**",
             "/api/v1/products",       // Search/List Public
             "/api/v1/products/{id}",  // Detail Public
-            "/api/v1/categories/**"
+            "/api/v1/categories/**",
+            "/api/v1/delivery-slots",  // Slot availability shown before login
+            "/api/v1/files/content/**" // Images of the local storage provider
     };
 
     protected static final String[] WHITE_LIST = {
@@ -61,6 +64,8 @@ public class SecurityConfig {
                     // Public APIs
                     auth.requestMatchers(PUBLIC_LIST).permitAll();
                     auth.requestMatchers(WHITE_LIST).permitAll();
+                    // Async dispatch of SSE streams: request was already authorized before the stream opened
+                    auth.dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll();
                     auth.requestMatchers("/api/v1/carts/**").permitAll(); // Cart might be public or guest
                     
                     // Logout requires auth
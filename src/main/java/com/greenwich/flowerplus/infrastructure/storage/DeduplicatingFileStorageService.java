@@ -0,0 +1,484 @@
+package com.greenwich.flowerplus.infrastructure.storage;
+
+import com.greenwich.flowerplus.common.enums.ErrorCode;
+import com.greenwich.flowerplus.common.exception.AppException;
+import com.greenwich.flowerplus.dto.response.FileUploadResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Upload dedup in front of the storage provider (the bean everyone gets as FileStorageService).
+ * <p>
+ * 1. Upload: SHA-256 of the content is looked up in stored_files. A confirmed file with the same content
+ *    short-circuits to its URL (no upload, no new asset); otherwise the provider uploads and the URL is recorded.
+ *    Multipart parts are hashed from their spooled copy on this server, a stream is hashed while it is spooled
+ *    to disk: the hash is known before anything goes over the network
+ * 2. ref_count = product assets using the URL: confirmFiles +1, releaseFiles -1, in the caller's transaction
+ * 3. Files at ref_count 0 are deleted by StoredFileCleanupJob after a grace period; deleteFile() refuses to
+ *    delete a file that products still reference
+ * <p>
+ * A file uploaded but never confirmed is not reused: the provider may still purge it as temporary. Two uploads
+ * of the same new content racing past the lookup both reach the provider; the one recorded first wins and the
+ * other gets its URL back (its own copy is deleted), so every URL handed out is tracked.
+ * Bookkeeping failures never fail an upload (the file is uploaded, just not deduplicated).
+ */
+@Service
+@Primary
+@Slf4j
+public class DeduplicatingFileStorageService implements FileStorageService {
+
+    private static final int PURGE_BATCH_SIZE = 500;
+
+    private final FileStorageService storageProvider;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final String provider;
+    private final Duration unreferencedGrace;
+
+    public DeduplicatingFileStorageService(@Qualifier(PROVIDER_BEAN) FileStorageService storageProvider,
+                                           NamedParameterJdbcTemplate jdbcTemplate,
+                                           @Value("${app.storage.provider:cloudinary}") String provider,
+                                           @Value("${app.storage.dedup.unreferenced-grace-hours:24}") long unreferencedGraceHours) {
+        this.storageProvider = storageProvider;
+        this.jdbcTemplate = jdbcTemplate;
+        this.provider = provider;
+        this.unreferencedGrace = Duration.ofHours(unreferencedGraceHours);
+    }
+
+    // ============================================================================
+    // SQL
+    // ============================================================================
+
+    // Hit only on files some product confirmed; touching last_used_at restarts the grace period of a file at 0
+    private static final String FIND_REUSABLE_SQL = """
+            UPDATE stored_files
+            SET last_used_at = NOW()
+            WHERE provider = :provider
+              AND content_hash = :hash
+              AND confirmed_at IS NOT NULL
+            RETURNING url
+            """;
+
+    // Returns the URL the uploader must use. A recent unconfirmed row = concurrent upload of the same content:
+    // its URL is kept. An older one may already be purged by the provider as temporary: replaced by this upload.
+    // No row returned = confirmed meanwhile, reusable
+    private static final String RECORD_UPLOAD_SQL = """
+            INSERT INTO stored_files (provider, content_hash, url, size_bytes, ref_count, created_at, last_used_at)
+            VALUES (:provider, :hash, :url, :size, 0, NOW(), NOW())
+            ON CONFLICT (provider, content_hash) DO UPDATE
+            SET url          = CASE WHEN stored_files.created_at < NOW() - INTERVAL '1 hour'
+                                    THEN EXCLUDED.url ELSE stored_files.url END,
+                size_bytes   = EXCLUDED.size_bytes,
+                created_at   = CASE WHEN stored_files.created_at < NOW() - INTERVAL '1 hour'
+                                    THEN EXCLUDED.created_at ELSE stored_files.created_at END,
+                last_used_at = EXCLUDED.last_used_at
+            WHERE stored_files.confirmed_at IS NULL
+            RETURNING url
+            """;
+
+    private static final String CONFIRM_SQL = """
+            UPDATE stored_files
+            SET ref_count    = ref_count + 1,
+                confirmed_at = COALESCE(confirmed_at, NOW()),
+                last_used_at = NOW()
+            WHERE url = :url
+            """;
+
+    private static final String RELEASE_SQL = """
+            UPDATE stored_files
+            SET ref_count    = ref_count - 1,
+                last_used_at = NOW()
+            WHERE url = :url
+              AND ref_count > 0
+            """;
+
+    private static final String FIND_REF_COUNT_SQL = """
+            SELECT f.ref_count
+            FROM stored_files f
+            WHERE f.url = :url
+            """;
+
+    private static final String DELETE_UNREFERENCED_BY_URL_SQL = """
+            DELETE FROM stored_files
+            WHERE url = :url
+              AND ref_count = 0
+            """;
+
+    private static final String FIND_UNREFERENCED_SQL = """
+            SELECT f.content_hash, f.url
+            FROM stored_files f
+            WHERE f.provider = :provider
+              AND f.ref_count = 0
+              AND f.last_used_at < :cutoff
+            ORDER BY f.last_used_at
+            LIMIT :limit
+            """;
+
+    // Re-checked on delete: a confirm or an upload hit since the SELECT keeps the file
+    private static final String DELETE_UNREFERENCED_SQL = """
+            DELETE FROM stored_files
+            WHERE provider = :provider
+              AND content_hash = :hash
+              AND ref_count = 0
+              AND last_used_at < :cutoff
+            """;
+
+    // ============================================================================
+    // UPLOAD
+    // ============================================================================
+
+    @Override
+    public String uploadFile(MultipartFile file) {
+        Fingerprint fingerprint = fingerprint(file);
+        if (fingerprint != null) {
+            Optional<String> existing = findReusable(fingerprint);
+            if (existing.isPresent()) {
+                return existing.get();
+            }
+        }
+
+        return recordUpload(fingerprint, storageProvider.uploadFile(file));
+    }
+
+    @Override
+    public String uploadFile(InputStream content, String fileName) {
+        Path temp = null;
+        try {
+            temp = Files.createTempFile("flowerplus-dedup-", null);
+            MessageDigest digest = sha256();
+            try (InputStream input = new DigestInputStream(content, digest)) {
+                Files.copy(input, temp, StandardCopyOption.REPLACE_EXISTING);
+            }
+            Fingerprint fingerprint = new Fingerprint(hex(digest), Files.size(temp));
+
+            Optional<String> existing = findReusable(fingerprint);
+            if (existing.isPresent()) {
+                return existing.get();
+            }
+            String url;
+            try (InputStream spooled = Files.newInputStream(temp)) {
+                url = storageProvider.uploadFile(spooled, fileName);
+            }
+            return recordUpload(fingerprint, url);
+        } catch (IOException e) {
+            log.error("Upload of {} failed", fileName, e);
+            throw new AppException(ErrorCode.FILE_UPLOAD_FAILED, "Lỗi upload ảnh rồi bạn ơi!");
+        } finally {
+            deleteTempFile(temp);
+        }
+    }
+
+    /**
+     * All or nothing like the provider: reused files are not part of the rollback (other products use them)
+     */
+    @Override
+    public List<String> uploadMultipleFiles(List<MultipartFile> files) {
+        Batch batch = partition(files);
+        if (!batch.failures().isEmpty()) {
+            throw batch.failures().get(Collections.min(batch.failures().keySet()));
+        }
+
+        List<String> uploadedUrls = storageProvider.uploadMultipleFiles(batch.uploads());
+        String[] recordedUrls = new String[uploadedUrls.size()];
+        for (int u = 0; u < uploadedUrls.size(); u++) {
+            recordedUrls[u] = recordUpload(batch.uploadFingerprints().get(u), uploadedUrls.get(u));
+        }
+        String[] urls = batch.reused().clone();
+        for (int i = 0; i < urls.length; i++) {
+            if (urls[i] == null) {
+                urls[i] = recordedUrls[batch.uploadOf()[i]];
+            }
+        }
+        return Arrays.asList(urls);
+    }
+
+    @Override
+    public List<FileUploadResponse> uploadFiles(List<MultipartFile> files) {
+        Batch batch = partition(files);
+        List<FileUploadResponse> uploaded = batch.uploads().isEmpty()
+                ? List.of()
+                : storageProvider.uploadFiles(batch.uploads());
+        String[] recordedUrls = new String[uploaded.size()];
+        for (int u = 0; u < uploaded.size(); u++) {
+            if (uploaded.get(u).success()) {
+                recordedUrls[u] = recordUpload(batch.uploadFingerprints().get(u), uploaded.get(u).url());
+            }
+        }
+
+        List<FileUploadResponse> results = new ArrayList<>(files.size());
+        for (int i = 0; i < files.size(); i++) {
+            FileUploadResponse.FileUploadResponseBuilder result = FileUploadResponse.builder()
+                    .index(i)
+                    .fileName(files.get(i).getOriginalFilename());
+            AppException failure = batch.failures().get(i);
+            if (failure != null) {
+                result.success(false).errorCode(failure.getErrorCode()).message(failure.getMessage());
+            } else if (batch.reused()[i] != null) {
+                result.success(true).url(batch.reused()[i]);
+            } else {
+                // Same content sent twice in one request shares one provider result
+                FileUploadResponse upload = uploaded.get(batch.uploadOf()[i]);
+                result.success(upload.success()).url(recordedUrls[batch.uploadOf()[i]])
+                        .errorCode(upload.errorCode()).message(upload.message());
+            }
+            results.add(result.build());
+        }
+        return results;
+    }
+
+    // ============================================================================
+    // REFERENCES / DELETE
+    // ============================================================================
+
+    @Override
+    public void confirmFiles(List<String> fileUrls) {
+        if (fileUrls == null || fileUrls.isEmpty()) return;
+
+        // Joins the caller's transaction: a rolled back product save does not count
+        updateRefCounts(CONFIRM_SQL, fileUrls);
+        storageProvider.confirmFiles(fileUrls);
+    }
+
+    @Override
+    public void releaseFiles(List<String> fileUrls) {
+        if (fileUrls == null || fileUrls.isEmpty()) return;
+
+        // Nothing is deleted here: StoredFileCleanupJob deletes files still at 0 after the grace period
+        updateRefCounts(RELEASE_SQL, fileUrls);
+        storageProvider.releaseFiles(fileUrls);
+    }
+
+    @Override
+    public void deleteFile(String fileUrl) {
+        List<Integer> refCounts = jdbcTemplate.queryForList(FIND_REF_COUNT_SQL,
+                new MapSqlParameterSource("url", fileUrl), Integer.class);
+        if (!refCounts.isEmpty()) {
+            if (jdbcTemplate.update(DELETE_UNREFERENCED_BY_URL_SQL, new MapSqlParameterSource("url", fileUrl)) == 0) {
+                log.info("File {} still used by {} product asset(s), not deleted", fileUrl, refCounts.getFirst());
+                return;
+            }
+        }
+        storageProvider.deleteFile(fileUrl);
+    }
+
+    @Override
+    public Path saveImportFile(Long jobId, MultipartFile file) {
+        return storageProvider.saveImportFile(jobId, file);
+    }
+
+    /**
+     * Delete files no product has referenced for the grace period (row first, then the file: an upload hit
+     * after the row is gone uploads again instead of getting a deleted URL)
+     *
+     * @return number of files deleted
+     */
+    public int purgeUnreferenced() {
+        Instant cutoff = Instant.now().minus(unreferencedGrace);
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("provider", provider)
+                .addValue("cutoff", Timestamp.from(cutoff))
+                .addValue("limit", PURGE_BATCH_SIZE);
+
+        int deleted = 0;
+        List<Map<String, Object>> candidates;
+        do {
+            candidates = jdbcTemplate.queryForList(FIND_UNREFERENCED_SQL, params);
+            for (Map<String, Object> candidate : candidates) {
+                String hash = (String) candidate.get("content_hash");
+                String url = (String) candidate.get("url");
+                if (jdbcTemplate.update(DELETE_UNREFERENCED_SQL, new MapSqlParameterSource(params.getValues())
+                        .addValue("hash", hash)) == 0) {
+                    continue;
+                }
+                try {
+                    storageProvider.deleteFile(url);
+                    deleted++;
+                } catch (AppException e) {
+                    // Row is gone: the file is no longer tracked, only the provider's own cleanup can catch it
+                    log.warn("Could not delete unreferenced file {}: {}", url, e.getMessage());
+                }
+            }
+        } while (candidates.size() == PURGE_BATCH_SIZE);
+        return deleted;
+    }
+
+    // ============================================================================
+    // HELPERS
+    // ============================================================================
+
+    private record Fingerprint(String hash, long size) {
+    }
+
+    /**
+     * One multi-file request split into reused files and files the provider must upload.
+     *
+     * @param reused             URL per request index when the content is already stored
+     * @param uploads            distinct files to upload (first file of each content)
+     * @param uploadFingerprints same order as uploads (null when it could not be hashed)
+     * @param uploadOf           request index -> position in uploads
+     * @param failures           request index -> error before any upload (unreadable file)
+     */
+    private record Batch(String[] reused, List<MultipartFile> uploads, List<Fingerprint> uploadFingerprints,
+                         int[] uploadOf, Map<Integer, AppException> failures) {
+    }
+
+    private Batch partition(List<MultipartFile> files) {
+        String[] reused = new String[files.size()];
+        int[] uploadOf = new int[files.size()];
+        List<MultipartFile> uploads = new ArrayList<>();
+        List<Fingerprint> uploadFingerprints = new ArrayList<>();
+        Map<String, Integer> uploadByHash = new HashMap<>();
+        Map<Integer, AppException> failures = new HashMap<>();
+
+        for (int i = 0; i < files.size(); i++) {
+            MultipartFile file = files.get(i);
+            Fingerprint fingerprint;
+            try {
+                fingerprint = fingerprint(file);
+            } catch (AppException e) {
+                failures.put(i, e);
+                continue;
+            }
+
+            if (fingerprint != null) {
+                Optional<String> existing = findReusable(fingerprint);
+                if (existing.isPresent()) {
+                    reused[i] = existing.get();
+                    continue;
+                }
+                Integer sameContent = uploadByHash.get(fingerprint.hash());
+                if (sameContent != null) {
+                    uploadOf[i] = sameContent;
+                    continue;
+                }
+                uploadByHash.put(fingerprint.hash(), uploads.size());
+            }
+            uploadOf[i] = uploads.size();
+            uploads.add(file);
+            uploadFingerprints.add(fingerprint);
+        }
+        return new Batch(reused, uploads, uploadFingerprints, uploadOf, failures);
+    }
+
+    // Null for an empty file: the provider rejects it with its usual error
+    private Fingerprint fingerprint(MultipartFile file) {
+        if (file == null || file.isEmpty()) {
+            return null;
+        }
+        MessageDigest digest = sha256();
+        try (InputStream input = new DigestInputStream(file.getInputStream(), digest)) {
+            input.transferTo(OutputStream.nullOutputStream());
+        } catch (IOException e) {
+            throw new AppException(ErrorCode.INVALID_FILE, "File không hợp lệ");
+        }
+        return new Fingerprint(hex(digest), file.getSize());
+    }
+
+    private Optional<String> findReusable(Fingerprint fingerprint) {
+        try {
+            List<String> urls = jdbcTemplate.queryForList(FIND_REUSABLE_SQL, new MapSqlParameterSource()
+                    .addValue("provider", provider)
+                    .addValue("hash", fingerprint.hash()), String.class);
+            if (!urls.isEmpty()) {
+                log.info("Upload deduplicated: content {} already stored at {}", fingerprint.hash(), urls.getFirst());
+                return Optional.of(urls.getFirst());
+            }
+        } catch (DataAccessException e) {
+            log.warn("Upload dedup lookup failed, uploading: {}", e.getMessage());
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * @return URL the caller hands out: its own upload, or the file of the same content recorded first
+     *         (the caller's copy is then deleted, nothing would ever reference or purge it)
+     */
+    private String recordUpload(Fingerprint fingerprint, String url) {
+        if (fingerprint == null || url == null) {
+            return url;
+        }
+        String recorded;
+        try {
+            List<String> urls = jdbcTemplate.queryForList(RECORD_UPLOAD_SQL, new MapSqlParameterSource()
+                    .addValue("provider", provider)
+                    .addValue("hash", fingerprint.hash())
+                    .addValue("url", url)
+                    .addValue("size", fingerprint.size()), String.class);
+            recorded = urls.isEmpty() ? findReusable(fingerprint).orElse(url) : urls.getFirst();
+        } catch (DataAccessException e) {
+            log.warn("Could not record uploaded file {} for dedup: {}", url, e.getMessage());
+            return url;
+        }
+
+        if (!recorded.equals(url)) {
+            log.info("Content {} uploaded concurrently, using {} and deleting duplicate {}", fingerprint.hash(), recorded, url);
+            try {
+                storageProvider.deleteFile(url);
+            } catch (RuntimeException e) {
+                // Still temporary at the provider: its own cleanup removes it
+                log.warn("Could not delete duplicate upload {}: {}", url, e.getMessage());
+            }
+        }
+        return recorded;
+    }
+
+    // Sorted: concurrent product saves touching the same files lock the rows in the same order.
+    // URLs not in stored_files (uploaded before dedup, other provider) match no row and are left alone
+    private void updateRefCounts(String sql, List<String> fileUrls) {
+        MapSqlParameterSource[] updates = fileUrls.stream()
+                .sorted()
+                .map(url -> new MapSqlParameterSource("url", url))
+                .toArray(MapSqlParameterSource[]::new);
+        jdbcTemplate.batchUpdate(sql, updates);
+    }
+
+    private void deleteTempFile(Path temp) {
+        if (temp == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(temp);
+        } catch (IOException e) {
+            log.warn("Could not delete temp upload file {}: {}", temp, e.getMessage());
+        }
+    }
+
+    private static String hex(MessageDigest digest) {
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
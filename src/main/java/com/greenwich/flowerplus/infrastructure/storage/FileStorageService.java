@@ -1,12 +1,19 @@
 package com.greenwich.flowerplus.infrastructure.storage;
 
+import com.greenwich.flowerplus.dto.response.FileUploadResponse;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.InputStream;
 import java.nio.file.Path;
 import java.util.List;
 
 public interface FileStorageService {
 
+    /**
+     *  Bean name of the storage provider (Cloudinary or local), the one DeduplicatingFileStorageService wraps
+     * */
+    String PROVIDER_BEAN = "storageProvider";
+
     /**
      *  Upload file and return the url
      * */
@@ -14,6 +21,13 @@ public interface FileStorageService {
         return file.getOriginalFilename();
     }
 
+    /**
+     *  Upload from a stream (import, remote image...) without holding the whole file in memory
+     * */
+    default String uploadFile(InputStream content, String fileName) {
+        return fileName;
+    }
+
     /**
      *  Delete file by URL
      * */
@@ -26,12 +40,25 @@ public interface FileStorageService {
         return List.of();
     }
 
+    /**
+     *  Upload multiple files, one result per file (same order): a failed file does not fail the others
+     * */
+    default List<FileUploadResponse> uploadFiles(List<MultipartFile> files) {
+        return List.of();
+    }
+
     /**
      * 👇 MỚI: Hàm xác nhận file chính thức (gỡ tag "temporary")
      * ProductService sẽ gọi hàm này sau khi save DB thành công.
      */
     default void confirmFiles(List<String> fileUrls) {}
 
+    /**
+     *  Ngược lại với confirmFiles: ProductService gọi khi asset bị gỡ khỏi sản phẩm (mỗi URL 1 lần / asset).
+     *  File chỉ bị xoá khi không còn sản phẩm nào dùng
+     * */
+    default void releaseFiles(List<String> fileUrls) {}
+
     default Path saveImportFile(Long jobId, MultipartFile file) {
         return null;
     }
@@ -5,21 +5,26 @@ import com.cloudinary.api.ApiResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.cloudinary.json.JSONObject;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 @Component
 @Slf4j
+@ConditionalOnProperty(prefix = "app.storage", name = "provider", havingValue = "cloudinary", matchIfMissing = true)
 public class CloudinaryCleanupJob {
 
     private final CloudinaryClient cloudinaryClient;
+    private final CloudinaryOperationBatcher operationBatcher;
 
-    public CloudinaryCleanupJob(CloudinaryClient cloudinaryClient) {
+    public CloudinaryCleanupJob(CloudinaryClient cloudinaryClient, CloudinaryOperationBatcher operationBatcher) {
         this.cloudinaryClient = cloudinaryClient;
+        this.operationBatcher = operationBatcher;
     }
 
     @Scheduled(cron = "0 0 3 * * ?")
@@ -33,6 +38,13 @@ public class CloudinaryCleanupJob {
             // 2. Parse kết quả để lấy danh sách public_id
             List<String> publicIds = extractPublicIds(result);
 
+            // Ảnh đã được sản phẩm dùng nhưng lệnh gỡ tag chưa tới Cloudinary (đang chờ lô / retry): giữ lại
+            Set<String> pendingConfirmations = operationBatcher.pendingConfirmations(publicIds);
+            if (!pendingConfirmations.isEmpty()) {
+                log.info("⏳ Giữ lại {} ảnh đang chờ confirm.", pendingConfirmations.size());
+                publicIds.removeAll(pendingConfirmations);
+            }
+
             // 3. Gọi lệnh xóa nếu có ảnh rác
             if (!publicIds.isEmpty()) {
                 cloudinaryClient.deleteResources(publicIds);
@@ -3,11 +3,15 @@ package com.greenwich.flowerplus.infrastructure.storage.cloudinary;
 import com.cloudinary.Search;
 import com.cloudinary.api.ApiResponse;
 
+import java.io.File;
 import java.util.List;
 import java.util.Map;
 
 public interface CloudinaryClient {
     Map<String, Object> upload(byte[] bytes, Map<String, Object> options);
+
+    // Streams the file from disk, nothing is buffered in the heap
+    Map<String, Object> upload(File file, Map<String, Object> options);
     void delete(String publicId);
 
     void deleteResources(List<String> publicIds);
@@ -6,13 +6,16 @@ import com.cloudinary.utils.ObjectUtils;
 
 import com.greenwich.flowerplus.common.enums.ErrorCode;
 import com.greenwich.flowerplus.common.exception.AppException;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
 
+import java.io.File;
 import java.util.List;
 import java.util.Map;
 
 @Component
+@ConditionalOnProperty(prefix = "app.storage", name = "provider", havingValue = "cloudinary", matchIfMissing = true)
 public class CloudinaryClientImpl implements CloudinaryClient {
 
     private final Cloudinary cloudinary;
@@ -30,6 +33,15 @@ public class CloudinaryClientImpl implements CloudinaryClient {
         }
     }
 
+    @Override
+    public Map<String, Object> upload(File file, Map<String, Object> options) {
+        try {
+            return cloudinary.uploader().upload(file, options);
+        } catch (Exception e) {
+            throw new AppException(ErrorCode.INTERNAL_ERROR, "Cloudinary upload failed: " + e);
+        }
+    }
+
     @Override
     public void delete(String publicId) {
         try {
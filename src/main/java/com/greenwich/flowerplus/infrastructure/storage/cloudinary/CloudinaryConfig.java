@@ -2,6 +2,7 @@ package com.greenwich.flowerplus.infrastructure.storage.cloudinary;
 
 import com.cloudinary.Cloudinary;
 import lombok.Getter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
 import java.util.HashMap;
@@ -9,6 +10,7 @@ import java.util.Map;
 
 @Getter
 @Component
+@ConditionalOnProperty(prefix = "app.storage", name = "provider", havingValue = "cloudinary", matchIfMissing = true)
 public class CloudinaryConfig {
 
     private final Cloudinary cloudinary;
@@ -0,0 +1,410 @@
+package com.greenwich.flowerplus.infrastructure.storage.cloudinary;
+
+import com.greenwich.flowerplus.common.enums.StorageOperationType;
+import com.greenwich.flowerplus.common.utils.TsidUtils;
+import com.greenwich.flowerplus.dto.response.StorageOperationStatsResponse;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Merges tag removals (confirm) and deletions from many transactions into few Cloudinary calls.
+ * <p>
+ * 1. confirm()/delete() insert one storage_operations row per public id in the caller's transaction (a rolled
+ *    back product save sends nothing), after commit the operations go to a bounded in-memory queue
+ * 2. A single worker drains the queue: a batch is sent when it is full or {@code flush-interval} after its
+ *    first operation, split per call type at Cloudinary's limits (remove_tag 1000 ids, delete_resources 100).
+ *    Rows are deleted once the call succeeded
+ * 3. A failed call leaves its rows for a retry after base * 2^attempts seconds (capped at max). After
+ *    {@code max-attempts} failures a row is dead-lettered: dead_at is set, it stays with its last_error and is
+ *    never claimed again. Rows not in any queue (retries, restart, queue was full, crashed instance after its
+ *    lease) are claimed by {@link #recoverPending} with FOR UPDATE SKIP LOCKED, so several instances never take
+ *    the same row
+ * <p>
+ * Both calls are idempotent: an operation sent twice (lease ran out while it was still queued) does no harm.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.storage", name = "provider", havingValue = "cloudinary", matchIfMissing = true)
+@Slf4j
+public class CloudinaryOperationBatcher {
+
+    // Cloudinary API limits per call
+    static final int CONFIRM_BATCH_LIMIT = 1000;
+    static final int DELETE_BATCH_LIMIT = 100;
+
+    private static final String TEMPORARY_TAG = "temporary";
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    // 2^20 * base is past any sensible max: keeps POWER() and the interval small whatever attempts holds
+    private static final int MAX_BACKOFF_EXPONENT = 20;
+
+    // Row held in memory by this instance is not claimed by others before this
+    private static final Duration LEASE = Duration.ofMinutes(5);
+
+    private final CloudinaryClient cloudinaryClient;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final BlockingQueue<PendingOperation> queue;
+    private final int queueCapacity;
+    private final Duration flushInterval;
+    private final long retryBaseSeconds;
+    private final long retryMaxSeconds;
+    private final int maxAttempts;
+
+    private volatile boolean running;
+    private Thread worker;
+
+    // Metrics since startup (GET /api/v1/admin/storage/operations/stats)
+    private final AtomicLong batchesSent = new AtomicLong();
+    private final AtomicLong operationsSent = new AtomicLong();
+    private final AtomicLong failedBatches = new AtomicLong();
+    private final AtomicInteger lastBatchSize = new AtomicInteger();
+    private final AtomicInteger maxBatchSize = new AtomicInteger();
+
+    public CloudinaryOperationBatcher(CloudinaryClient cloudinaryClient,
+                                      NamedParameterJdbcTemplate jdbcTemplate,
+                                      @Value("${app.storage.batch.queue-capacity:10000}") int queueCapacity,
+                                      @Value("${app.storage.batch.flush-interval-ms:500}") long flushIntervalMs,
+                                      @Value("${app.storage.batch.retry-base-seconds:5}") long retryBaseSeconds,
+                                      @Value("${app.storage.batch.retry-max-seconds:3600}") long retryMaxSeconds,
+                                      @Value("${app.storage.batch.max-attempts:12}") int maxAttempts) {
+        this.cloudinaryClient = cloudinaryClient;
+        this.jdbcTemplate = jdbcTemplate;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.queueCapacity = queueCapacity;
+        this.flushInterval = Duration.ofMillis(flushIntervalMs);
+        this.retryBaseSeconds = retryBaseSeconds;
+        this.retryMaxSeconds = retryMaxSeconds;
+        this.maxAttempts = maxAttempts;
+    }
+
+    @PostConstruct
+    void start() {
+        running = true;
+        worker = Thread.ofPlatform().name("cloudinary-operations").daemon().start(this::drainLoop);
+    }
+
+    // Operations still queued keep their rows: the next start (or another instance) sends them after the lease
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        worker.interrupt();
+        worker.join(Duration.ofSeconds(5));
+    }
+
+    private record PendingOperation(long id, StorageOperationType type, String publicId) {
+    }
+
+    // ============================================================================
+    // SQL
+    // ============================================================================
+
+    private static final String INSERT_SQL = """
+            INSERT INTO storage_operations (id, operation, public_id, attempts, next_attempt_at, created_at)
+            VALUES (:id, :operation, :publicId, 0, NOW() + :leaseSeconds * INTERVAL '1 second', NOW())
+            """;
+
+    private static final String DELETE_DONE_SQL = """
+            DELETE FROM storage_operations
+            WHERE id IN (:ids)
+            """;
+
+    // Old attempts value on the right-hand side: first retry after base, then 2x, 4x... capped at max.
+    // The max-attempts-th failure sets dead_at (dead letter); returns the public ids that just went dead
+    private static final String RESCHEDULE_SQL = """
+            WITH failed AS (
+                UPDATE storage_operations
+                SET attempts        = attempts + 1,
+                    next_attempt_at = NOW() + LEAST(:baseSeconds * POWER(2, LEAST(attempts, :maxExponent)), :maxSeconds)
+                                              * INTERVAL '1 second',
+                    dead_at         = CASE WHEN attempts + 1 >= :maxAttempts THEN NOW() END,
+                    last_error      = :error
+                WHERE id IN (:ids)
+                RETURNING public_id, dead_at
+            )
+            SELECT DISTINCT public_id
+            FROM failed
+            WHERE dead_at IS NOT NULL
+            """;
+
+    private static final String CLAIM_DUE_SQL = """
+            UPDATE storage_operations
+            SET next_attempt_at = NOW() + :leaseSeconds * INTERVAL '1 second'
+            WHERE id IN (
+                SELECT o.id
+                FROM storage_operations o
+                WHERE o.next_attempt_at <= NOW()
+                  AND o.dead_at IS NULL
+                ORDER BY o.next_attempt_at
+                LIMIT :limit
+                FOR UPDATE SKIP LOCKED
+            )
+            RETURNING id, operation, public_id
+            """;
+
+    // Dead confirmations included: the file is used by a product even if the tag could not be removed
+    private static final String FIND_PENDING_CONFIRMATIONS_SQL = """
+            SELECT DISTINCT o.public_id
+            FROM storage_operations o
+            WHERE o.operation = 'CONFIRM'
+              AND o.public_id IN (:publicIds)
+            """;
+
+    private static final String STATS_SQL = """
+            SELECT COUNT(*) FILTER (WHERE o.dead_at IS NULL)                    AS pending,
+                   COUNT(*) FILTER (WHERE o.dead_at IS NULL AND o.attempts > 0) AS retrying,
+                   COUNT(*) FILTER (WHERE o.dead_at IS NOT NULL)                AS dead
+            FROM storage_operations o
+            """;
+
+    // ============================================================================
+    // ENQUEUE
+    // ============================================================================
+
+    /**
+     * Remove the "temporary" tag (CloudinaryCleanupJob must keep these files)
+     */
+    public void confirm(List<String> publicIds) {
+        enqueue(StorageOperationType.CONFIRM, publicIds);
+    }
+
+    public void delete(List<String> publicIds) {
+        enqueue(StorageOperationType.DELETE, publicIds);
+    }
+
+    private void enqueue(StorageOperationType type, List<String> publicIds) {
+        if (publicIds == null || publicIds.isEmpty()) {
+            return;
+        }
+        List<PendingOperation> operations = publicIds.stream()
+                .distinct()
+                .map(publicId -> new PendingOperation(TsidUtils.nextId(), type, publicId))
+                .toList();
+
+        MapSqlParameterSource[] rows = operations.stream()
+                .map(operation -> new MapSqlParameterSource()
+                        .addValue("id", operation.id())
+                        .addValue("operation", operation.type().name())
+                        .addValue("publicId", operation.publicId())
+                        .addValue("leaseSeconds", LEASE.toSeconds()))
+                .toArray(MapSqlParameterSource[]::new);
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+
+        afterCommit(() -> offerAll(operations));
+    }
+
+    private void offerAll(List<PendingOperation> operations) {
+        int dropped = 0;
+        for (PendingOperation operation : operations) {
+            if (!queue.offer(operation)) {
+                dropped++;
+            }
+        }
+        if (dropped > 0) {
+            // Not lost: the rows are picked up by recoverPending once their lease runs out
+            log.warn("Storage operation queue full, {} operation(s) left to the outbox", dropped);
+        }
+    }
+
+    // ============================================================================
+    // WORKER
+    // ============================================================================
+
+    private void drainLoop() {
+        List<PendingOperation> batch = new ArrayList<>(CONFIRM_BATCH_LIMIT);
+        while (running) {
+            try {
+                PendingOperation first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+
+                // Flush on size (full batch) or time (flush interval after the first operation)
+                long deadline = System.nanoTime() + flushInterval.toNanos();
+                while (batch.size() < CONFIRM_BATCH_LIMIT) {
+                    queue.drainTo(batch, CONFIRM_BATCH_LIMIT - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= CONFIRM_BATCH_LIMIT || remaining <= 0) {
+                        break;
+                    }
+                    PendingOperation next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                send(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                // Database down: rows stay leased and come back through recoverPending
+                log.error("Storage operation batch of {} failed", batch.size(), e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void send(List<PendingOperation> batch) {
+        // type -> publicId -> row ids: the same file confirmed by several transactions is sent once
+        Map<StorageOperationType, Map<String, List<Long>>> grouped = new EnumMap<>(StorageOperationType.class);
+        for (PendingOperation operation : batch) {
+            grouped.computeIfAbsent(operation.type(), type -> new LinkedHashMap<>())
+                    .computeIfAbsent(operation.publicId(), publicId -> new ArrayList<>())
+                    .add(operation.id());
+        }
+
+        // Confirms first: removing the tag of a file deleted in the same batch is harmless
+        sendInChunks(grouped.get(StorageOperationType.CONFIRM), CONFIRM_BATCH_LIMIT,
+                publicIds -> cloudinaryClient.removeTag(TEMPORARY_TAG, publicIds));
+        sendInChunks(grouped.get(StorageOperationType.DELETE), DELETE_BATCH_LIMIT,
+                cloudinaryClient::deleteResources);
+    }
+
+    private void sendInChunks(Map<String, List<Long>> operations, int limit, Consumer<List<String>> call) {
+        if (operations == null) {
+            return;
+        }
+        List<String> publicIds = new ArrayList<>(operations.keySet());
+        for (int from = 0; from < publicIds.size(); from += limit) {
+            List<String> chunk = publicIds.subList(from, Math.min(from + limit, publicIds.size()));
+            List<Long> ids = chunk.stream()
+                    .flatMap(publicId -> operations.get(publicId).stream())
+                    .toList();
+            try {
+                call.accept(chunk);
+            } catch (RuntimeException e) {
+                failedBatches.incrementAndGet();
+                log.warn("Cloudinary call for {} file(s) failed, retrying later: {}", chunk.size(), e.getMessage());
+                reschedule(ids, e.getMessage());
+                continue;
+            }
+            jdbcTemplate.update(DELETE_DONE_SQL, new MapSqlParameterSource("ids", ids));
+            recordBatch(chunk.size());
+        }
+    }
+
+    private void reschedule(List<Long> ids, String error) {
+        String lastError = error == null || error.length() <= MAX_ERROR_LENGTH
+                ? error
+                : error.substring(0, MAX_ERROR_LENGTH);
+        List<String> dead = jdbcTemplate.queryForList(RESCHEDULE_SQL, new MapSqlParameterSource()
+                .addValue("ids", ids)
+                .addValue("baseSeconds", retryBaseSeconds)
+                .addValue("maxSeconds", retryMaxSeconds)
+                .addValue("maxExponent", MAX_BACKOFF_EXPONENT)
+                .addValue("maxAttempts", maxAttempts)
+                .addValue("error", lastError), String.class);
+        if (!dead.isEmpty()) {
+            log.error("Gave up on {} storage operation(s) after {} attempts, left in storage_operations: {}",
+                    dead.size(), maxAttempts, dead);
+        }
+    }
+
+    private void recordBatch(int size) {
+        batchesSent.incrementAndGet();
+        operationsSent.addAndGet(size);
+        lastBatchSize.set(size);
+        maxBatchSize.accumulateAndGet(size, Math::max);
+        log.debug("Cloudinary batch of {} file(s) sent, {} still queued", size, queue.size());
+    }
+
+    // ============================================================================
+    // RECOVERY / QUERIES
+    // ============================================================================
+
+    /**
+     * Requeue outbox rows that are due: retries whose backoff is over, and rows no queue holds any more
+     * (restart, queue was full, instance crashed). Only as many as fit in the queue are claimed.
+     */
+    @Scheduled(fixedDelayString = "${app.storage.batch.recovery-interval-ms:30000}")
+    public void recoverPending() {
+        int room = Math.min(queue.remainingCapacity(), CONFIRM_BATCH_LIMIT);
+        if (room == 0) {
+            return;
+        }
+        List<PendingOperation> due = jdbcTemplate.query(CLAIM_DUE_SQL, new MapSqlParameterSource()
+                        .addValue("limit", room)
+                        .addValue("leaseSeconds", LEASE.toSeconds()),
+                (rs, rowNum) -> new PendingOperation(
+                        rs.getLong("id"),
+                        StorageOperationType.valueOf(rs.getString("operation")),
+                        rs.getString("public_id")));
+        if (!due.isEmpty()) {
+            log.info("Requeued {} pending storage operation(s)", due.size());
+            offerAll(due);
+        }
+    }
+
+    /**
+     * @return the given public ids whose confirmation has not reached Cloudinary yet (still tagged "temporary")
+     */
+    public Set<String> pendingConfirmations(Collection<String> publicIds) {
+        if (publicIds == null || publicIds.isEmpty()) {
+            return Set.of();
+        }
+        return new HashSet<>(jdbcTemplate.queryForList(FIND_PENDING_CONFIRMATIONS_SQL,
+                new MapSqlParameterSource("publicIds", publicIds), String.class));
+    }
+
+    public StorageOperationStatsResponse stats() {
+        Map<String, Object> outbox = jdbcTemplate.queryForMap(STATS_SQL, new MapSqlParameterSource());
+        long batches = batchesSent.get();
+        long operations = operationsSent.get();
+        return StorageOperationStatsResponse.builder()
+                .queueDepth(queue.size())
+                .queueCapacity(queueCapacity)
+                .pendingOperations(((Number) outbox.get("pending")).longValue())
+                .retryingOperations(((Number) outbox.get("retrying")).longValue())
+                .deadOperations(((Number) outbox.get("dead")).longValue())
+                .batchesSent(batches)
+                .operationsSent(operations)
+                .failedBatches(failedBatches.get())
+                .lastBatchSize(lastBatchSize.get())
+                .maxBatchSize(maxBatchSize.get())
+                .averageBatchSize(batches == 0 ? 0 : (double) operations / batches)
+                .build();
+    }
+
+    // ============================================================================
+    // HELPERS
+    // ============================================================================
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -3,12 +3,14 @@ package com.greenwich.flowerplus.infrastructure.storage.cloudinary;
 
 import lombok.Getter;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 
 @Component
 @ConfigurationProperties(prefix = "cloudinary")
 @Getter
+@ConditionalOnProperty(prefix = "app.storage", name = "provider", havingValue = "cloudinary", matchIfMissing = true)
 public class CloudinaryProperties {
     @Value("${cloudinary.cloudName}")
     private String cloudName;
@@ -4,65 +4,119 @@ import com.cloudinary.utils.ObjectUtils;
 
 import com.greenwich.flowerplus.common.enums.ErrorCode;
 import com.greenwich.flowerplus.common.exception.AppException;
+import com.greenwich.flowerplus.common.utils.ImageTypeUtils;
+import com.greenwich.flowerplus.dto.response.FileUploadResponse;
 import com.greenwich.flowerplus.infrastructure.storage.FileStorageService;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
-@Service
+/**
+ * Multi-file uploads run concurrently on virtual threads (the calls are blocking HTTP, a virtual thread per
+ * file costs nothing while it waits). Concurrency is capped by a semaphore shared by all requests, so a burst
+ * of uploads cannot exceed Cloudinary's rate limit; each file has its own timeout, counted from the moment it
+ * gets a permit. A file that completes after its request gave up is deleted again, anything missed is still
+ * tagged "temporary" and removed by CloudinaryCleanupJob.
+ * <p>
+ * Files are sent from disk (multipart part copied on the request thread, or a spooled stream), never as a
+ * byte[] of the whole file, and the image type is checked from the first bytes only. Upload threads never
+ * touch the multipart parts: the container deletes them when the request ends.
+ * <p>
+ * Confirm (tag removal) and delete go through {@link CloudinaryOperationBatcher}: recorded in the caller's
+ * transaction, merged with other requests into a few API calls, retried until Cloudinary accepts them.
+ */
+@Service(FileStorageService.PROVIDER_BEAN)
 @Slf4j
+@ConditionalOnProperty(prefix = "app.storage", name = "provider", havingValue = "cloudinary", matchIfMissing = true)
 public class CloudinaryStorageServiceImpl implements FileStorageService {
 
     private final CloudinaryClient cloudinaryClient;
+    private final CloudinaryOperationBatcher operationBatcher;
+    private final Semaphore uploadPermits;
+    private final Duration uploadTimeout;
+    private final ExecutorService uploadExecutor = Executors.newVirtualThreadPerTaskExecutor();
 
-    public CloudinaryStorageServiceImpl(CloudinaryClient cloudinaryClient) {
+    public CloudinaryStorageServiceImpl(CloudinaryClient cloudinaryClient,
+                                        CloudinaryOperationBatcher operationBatcher,
+                                        @Value("${app.storage.upload.max-concurrency:4}") int maxConcurrency,
+                                        @Value("${app.storage.upload.timeout-seconds:30}") long timeoutSeconds) {
         this.cloudinaryClient = cloudinaryClient;
+        this.operationBatcher = operationBatcher;
+        this.uploadPermits = new Semaphore(maxConcurrency, true);
+        this.uploadTimeout = Duration.ofSeconds(timeoutSeconds);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        uploadExecutor.shutdownNow();
     }
 
     @Override
     public String uploadFile(MultipartFile file) {
         validateFile(file);
-
+        Path temp = spool(file);
         try {
-            Map<String, Object> options = ObjectUtils.asMap(
-                    "folder", "flowerplus-product-images",
-                    "resource_type", "auto",
-                    "tags", "temporary" // <--- QUAN TRỌNG: Đánh dấu là rác trước
-            );
-
-            Map<String, Object> uploadResult =
-                    cloudinaryClient.upload(file.getBytes(), options);
+            return uploadFromDisk(temp).secureUrl();
+        } finally {
+            deleteTempFile(temp);
+        }
+    }
 
-            Object secureUrl = uploadResult.get("secure_url");
-            if (secureUrl == null) {
-                throw new AppException(
-                        ErrorCode.FILE_UPLOAD_FAILED,
-                        "Không nhận được URL từ Cloudinary"
-                );
-            }
+    @Override
+    public String uploadFile(InputStream content, String fileName) {
+        Path temp = null;
+        try (InputStream input = new BufferedInputStream(content)) {
+            input.mark(64);
+            requireImage(input);
+            input.reset();
 
-            return secureUrl.toString();
-        } catch (AppException e) {
-            throw e;
-        } catch (Exception e) {
-            log.error("Upload failed", e);
+            temp = Files.createTempFile("flowerplus-upload-", null);
+            Files.copy(input, temp, StandardCopyOption.REPLACE_EXISTING);
+            return uploadFromDisk(temp).secureUrl();
+        } catch (IOException e) {
+            log.error("Upload of {} failed", fileName, e);
             throw new AppException(
                     ErrorCode.FILE_UPLOAD_FAILED,
                     "Lỗi upload ảnh rồi bạn ơi!"
             );
+        } finally {
+            deleteTempFile(temp);
         }
     }
 
+    /**
+     * Queued: the file is deleted with the next batch (or a later retry), not before this call returns
+     */
     @Override
     public void deleteFile(String fileUrl) {
         try {
             String publicId = extractPublicId(fileUrl);
-            cloudinaryClient.delete(publicId);
+            operationBatcher.delete(List.of(publicId));
         } catch (AppException e) {
             throw e;
         } catch (Exception e) {
@@ -74,67 +128,305 @@ public class CloudinaryStorageServiceImpl implements FileStorageService {
         }
     }
 
+    /**
+     * All or nothing: if one file fails, the files already uploaded are deleted and the error is thrown
+     */
     @Override
     public List<String> uploadMultipleFiles(List<MultipartFile> files) {
-        List<String> urls = new ArrayList<>();
-        for (MultipartFile file : files) {
-            validateFile(file);
-            try {
-                Map<String, Object> options = ObjectUtils.asMap(
-                        "folder", "flowerplus-product-images",
-                        "resource_type", "auto",
-                        "tags", "temporary"
-                );
+        files.forEach(this::validateFile);
 
-                Map<String, Object> uploadResult =
-                        cloudinaryClient.upload(file.getBytes(), options);
+        List<UploadTask> tasks = submitAll(files);
+        List<String> urls = new ArrayList<>(tasks.size());
+        try {
+            for (UploadTask task : tasks) {
+                urls.add(await(task).secureUrl());
+            }
+            return urls;
+        } catch (AppException e) {
+            abandon(tasks);
+            throw e;
+        } catch (CancellationException e) {
+            abandon(tasks);
+            throw new AppException(ErrorCode.FILE_UPLOAD_FAILED, "Upload bị huỷ");
+        }
+    }
 
-                Object secureUrl = uploadResult.get("secure_url");
-                if (secureUrl == null) {
-                    throw new AppException(
-                            ErrorCode.FILE_UPLOAD_FAILED,
-                            "Không nhận được URL từ Cloudinary"
-                    );
+    /**
+     * Partial success: every file gets its own result (same order as the request), failed files do not
+     * undo the others
+     */
+    @Override
+    public List<FileUploadResponse> uploadFiles(List<MultipartFile> files) {
+        List<UploadTask> tasks = submitAll(files);
+        List<FileUploadResponse> results = new ArrayList<>(tasks.size());
+        try {
+            for (int i = 0; i < tasks.size(); i++) {
+                MultipartFile file = files.get(i);
+                FileUploadResponse.FileUploadResponseBuilder result = FileUploadResponse.builder()
+                        .index(i)
+                        .fileName(file.getOriginalFilename());
+                try {
+                    result.success(true).url(await(tasks.get(i)).secureUrl());
+                } catch (AppException e) {
+                    result.success(false).errorCode(e.getErrorCode()).message(e.getMessage());
                 }
-
-                urls.add(secureUrl.toString());
-            } catch (AppException e) {
-                throw e;
-            } catch (Exception e) {
-                log.error("Upload failed", e);
-                throw new AppException(
-                        ErrorCode.FILE_UPLOAD_FAILED,
-                        "Lỗi upload ảnh rồi bạn ơi!"
-                );
+                results.add(result.build());
             }
+            return results;
+        } catch (CancellationException e) {
+            // Request aborted (thread interrupted): nothing of this request is kept
+            abandon(tasks);
+            throw new AppException(ErrorCode.FILE_UPLOAD_FAILED, "Upload bị huỷ");
         }
-
-        return urls;
     }
 
     @Override
     public void confirmFiles(List<String> fileUrls) {
         if (fileUrls == null || fileUrls.isEmpty()) return;
 
-        // Chạy Async để không block luồng chính của ProductService
-        CompletableFuture.runAsync(() -> {
+        // 1. Chuyển list URL thành list Public ID (URL không phải của Cloudinary thì bỏ qua)
+        List<String> publicIds = new ArrayList<>(fileUrls.size());
+        for (String fileUrl : fileUrls) {
+            try {
+                publicIds.add(extractPublicId(fileUrl));
+            } catch (AppException e) {
+                log.warn("❌ Bỏ qua URL ảnh không hợp lệ khi confirm: {}", fileUrl);
+            }
+        }
+
+        // 2. Ghi vào outbox trong transaction của ProductService, gỡ tag theo lô sau khi commit
+        operationBatcher.confirm(publicIds);
+        log.info("✅ Đã xếp hàng confirm {} ảnh (gỡ tag temporary).", publicIds.size());
+    }
+
+    // ============================================================================
+    // CONCURRENT UPLOAD
+    // ============================================================================
+
+    private record UploadedFile(String secureUrl, String publicId) {
+    }
+
+    /**
+     * One file of a request. The worker publishes its result before checking {@code abandoned}, abandon()
+     * sets {@code abandoned} before taking the result: whichever comes second deletes the file, exactly once.
+     * {@code started} is claimed once, by the worker or by abandon(): the claimer deletes the spooled copy.
+     */
+    private static final class UploadTask {
+        private final AtomicBoolean abandoned = new AtomicBoolean();
+        private final AtomicBoolean started = new AtomicBoolean();
+        private final AtomicReference<UploadedFile> uploaded = new AtomicReference<>();
+        private Path spooled;
+        private Future<UploadedFile> future;
+    }
+
+    // Parts are copied here, on the request thread: the container may clean them up once the request ends,
+    // the workers only read the copies
+    private List<UploadTask> submitAll(List<MultipartFile> files) {
+        List<UploadTask> tasks = new ArrayList<>(files.size());
+        for (MultipartFile file : files) {
+            UploadTask task = new UploadTask();
+            try {
+                validateFile(file);
+                task.spooled = spool(file);
+                task.future = submit(task, file.getOriginalFilename());
+            } catch (AppException e) {
+                task.future = CompletableFuture.failedFuture(e);
+            }
+            tasks.add(task);
+        }
+        return tasks;
+    }
+
+    private Future<UploadedFile> submit(UploadTask task, String fileName) {
+        try {
+            return uploadExecutor.submit(() -> runTask(task, fileName));
+        } catch (RuntimeException e) {
+            deleteTempFile(task.spooled);
+            throw e;
+        }
+    }
+
+    private UploadedFile runTask(UploadTask task, String fileName) {
+        if (!task.started.compareAndSet(false, true)) {
+            throw new CancellationException("Upload abandoned");
+        }
+        UploadedFile uploaded = uploadWithPermit(task.spooled, fileName);
+        task.uploaded.set(uploaded);
+        if (task.abandoned.get()) {
+            deleteAbandoned(task);
+        }
+        return uploaded;
+    }
+
+    // Runs on a virtual thread: waits for a permit, then uploads with the per-file timeout.
+    // The spooled copy is deleted once the upload really ends
+    private UploadedFile uploadWithPermit(Path spooled, String fileName) {
+        CompletableFuture<UploadedFile> upload = null;
+        try {
+            boolean acquired;
+            try {
+                acquired = uploadPermits.tryAcquire(uploadTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CancellationException("Upload cancelled");
+            }
+            if (!acquired) {
+                throw new AppException(ErrorCode.FILE_UPLOAD_TIMEOUT);
+            }
+
+            // Inner future so the timeout applies to the upload itself, not to the wait for a permit.
+            // The permit is held until the upload really ends: a timed-out upload still running keeps counting
+            // towards max-concurrency
             try {
-                // 1. Chuyển list URL thành list Public ID
-                List<String> publicIds = fileUrls.stream()
-                        .map(this::extractPublicId) // Tái sử dụng hàm extractPublicId ở dưới
-                        .toList();
-
-                // 2. Gọi client để gỡ tag
-                cloudinaryClient.removeTag("temporary", publicIds);
-
-                log.info("✅ Đã confirm {} ảnh (gỡ tag temporary).", publicIds.size());
-            } catch (Exception e) {
-                log.error("❌ Lỗi khi confirm ảnh: {}", e.getMessage());
-                // Không throw exception ra ngoài vì đây là tác vụ phụ (background task)
+                upload = CompletableFuture.supplyAsync(() -> uploadFromDisk(spooled), uploadExecutor);
+            } catch (RuntimeException e) {
+                uploadPermits.release();
+                throw e;
+            }
+            upload.whenComplete((uploaded, error) -> {
+                uploadPermits.release();
+                deleteTempFile(spooled);
+            });
+        } finally {
+            if (upload == null) {
+                deleteTempFile(spooled);
+            }
+        }
+
+        try {
+            return upload.get(uploadTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            log.warn("Upload of {} timed out after {}s", fileName, uploadTimeout.toSeconds());
+            deleteWhenDone(upload);
+            throw new AppException(ErrorCode.FILE_UPLOAD_TIMEOUT);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            deleteWhenDone(upload);
+            throw new CancellationException("Upload cancelled");
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException re ? re : new AppException(ErrorCode.FILE_UPLOAD_FAILED);
+        }
+    }
+
+    // Request thread: AppException = this file failed; CancellationException = the request is being aborted
+    private UploadedFile await(UploadTask task) {
+        try {
+            return task.future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Upload request aborted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof AppException appException) {
+                throw appException;
+            }
+            log.error("Upload failed", e.getCause());
+            throw new AppException(ErrorCode.FILE_UPLOAD_FAILED, "Lỗi upload ảnh rồi bạn ơi!");
+        }
+    }
+
+    // Interrupt what is still running and delete what was (or will be) uploaded
+    private void abandon(List<UploadTask> tasks) {
+        for (UploadTask task : tasks) {
+            task.abandoned.set(true);
+            task.future.cancel(true);
+            if (task.started.compareAndSet(false, true)) {
+                // Never reached a worker: nothing uploaded, only the spooled copy to remove
+                deleteTempFile(task.spooled);
+            }
+            deleteAbandoned(task);
+        }
+    }
+
+    private void deleteAbandoned(UploadTask task) {
+        UploadedFile uploaded = task.uploaded.getAndSet(null);
+        if (uploaded != null) {
+            deleteQuietly(uploaded);
+        }
+    }
+
+    // Upload that outlived its timeout: delete it once Cloudinary answers
+    private void deleteWhenDone(CompletableFuture<UploadedFile> upload) {
+        upload.thenAccept(this::deleteQuietly);
+    }
+
+    private void deleteQuietly(UploadedFile uploaded) {
+        try {
+            cloudinaryClient.delete(uploaded.publicId());
+            log.info("Deleted abandoned upload {}", uploaded.publicId());
+        } catch (Exception e) {
+            // Still tagged "temporary": CloudinaryCleanupJob removes it
+            log.warn("Could not delete abandoned upload {}: {}", uploaded.publicId(), e.getMessage());
+        }
+    }
+
+    // Part above spring.servlet.multipart.file-size-threshold is already a temp file: transferTo moves it,
+    // the bytes never go through the heap (small parts are written out from memory).
+    // Request thread only: the part belongs to the request, the caller deletes the copy
+    private Path spool(MultipartFile file) {
+        Path temp = null;
+        try {
+            temp = Files.createTempFile("flowerplus-upload-", null);
+            file.transferTo(temp.toFile());
+            return temp;
+        } catch (IOException e) {
+            deleteTempFile(temp);
+            log.error("Upload failed", e);
+            throw new AppException(
+                    ErrorCode.FILE_UPLOAD_FAILED,
+                    "Lỗi upload ảnh rồi bạn ơi!"
+            );
+        }
+    }
+
+    private UploadedFile uploadFromDisk(Path path) {
+        try {
+            Map<String, Object> options = ObjectUtils.asMap(
+                    "folder", "flowerplus-product-images",
+                    "resource_type", "auto",
+                    "tags", "temporary", // <--- QUAN TRỌNG: Đánh dấu là rác trước
+                    "timeout", (int) uploadTimeout.toSeconds() // HTTP timeout của chính request upload
+            );
+
+            Map<String, Object> uploadResult =
+                    cloudinaryClient.upload(path.toFile(), options);
+
+            Object secureUrl = uploadResult.get("secure_url");
+            if (secureUrl == null) {
+                throw new AppException(
+                        ErrorCode.FILE_UPLOAD_FAILED,
+                        "Không nhận được URL từ Cloudinary"
+                );
             }
-        });
+
+            Object publicId = uploadResult.get("public_id");
+            return new UploadedFile(secureUrl.toString(),
+                    publicId != null ? publicId.toString() : extractPublicId(secureUrl.toString()));
+        } catch (AppException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("Upload failed", e);
+            throw new AppException(
+                    ErrorCode.FILE_UPLOAD_FAILED,
+                    "Lỗi upload ảnh rồi bạn ơi!"
+            );
+        }
+    }
+
+    private void deleteTempFile(Path temp) {
+        if (temp == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(temp);
+        } catch (IOException e) {
+            log.warn("Could not delete temp upload file {}: {}", temp, e.getMessage());
+        }
     }
 
+    // ============================================================================
+    // HELPERS
+    // ============================================================================
+
     private void validateFile(MultipartFile file) {
         if (file == null || file.isEmpty()) {
             throw new AppException(
@@ -143,8 +435,19 @@ public class CloudinaryStorageServiceImpl implements FileStorageService {
             );
         }
 
-        if (file.getContentType() == null ||
-                !file.getContentType().startsWith("image/")) {
+        // Đọc vài byte đầu (magic number), không tin Content-Type client gửi lên
+        try (InputStream input = file.getInputStream()) {
+            requireImage(input);
+        } catch (IOException e) {
+            throw new AppException(
+                    ErrorCode.INVALID_FILE,
+                    "File không hợp lệ"
+            );
+        }
+    }
+
+    private void requireImage(InputStream input) throws IOException {
+        if (ImageTypeUtils.detect(input).isEmpty()) {
             throw new AppException(
                     ErrorCode.INVALID_FILE_TYPE,
                     "Chỉ cho phép upload ảnh"
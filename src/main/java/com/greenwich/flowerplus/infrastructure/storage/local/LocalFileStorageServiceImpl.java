@@ -0,0 +1,394 @@
+package com.greenwich.flowerplus.infrastructure.storage.local;
+
+import com.greenwich.flowerplus.common.enums.ErrorCode;
+import com.greenwich.flowerplus.common.exception.AppException;
+import com.greenwich.flowerplus.common.utils.ImageTypeUtils;
+import com.greenwich.flowerplus.dto.response.FileUploadResponse;
+import com.greenwich.flowerplus.infrastructure.storage.FileStorageService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+
+/**
+ * Files on the local disk (on-prem deployments, tests), enabled with {@code app.storage.provider=local}.
+ * <p>
+ * 1. Content-addressed: a file is stored once as {@code objects/ab/cd/{sha256}.{ext}}, the same image uploaded
+ *    twice gets the same URL. The hash is computed while the upload is copied to {@code staging/}, then the
+ *    file is moved into place atomically: readers never see a half-written object
+ * 2. Same lifecycle as Cloudinary's "temporary" tag: a new upload gets a marker {@code temporary/{name}},
+ *    confirmFiles() removes it, {@link LocalStorageCleanupJob} deletes objects whose marker is older than
+ *    the retention. Uploading content that is already confirmed does not mark it temporary again
+ * 3. Served by LocalFileController under {@code public-base-url}/{name}
+ * <p>
+ * Identical images share one object: deleteFile() removes it for every asset that points to it (callers go
+ * through DeduplicatingFileStorageService, which only deletes objects no product references).
+ * Marker and object changes of one hash run under a lock, so a cleanup cannot delete a file that an upload
+ * just reused (one instance per storage directory).
+ */
+@Service(FileStorageService.PROVIDER_BEAN)
+@ConditionalOnProperty(prefix = "app.storage", name = "provider", havingValue = "local")
+@Slf4j
+public class LocalFileStorageServiceImpl implements FileStorageService {
+
+    private static final Pattern OBJECT_NAME = Pattern.compile("[0-9a-f]{64}\\.[a-z0-9]+");
+    private static final int LOCK_STRIPES = 64;
+
+    private static final Map<String, String> EXTENSIONS = Map.of(
+            "image/jpeg", "jpg",
+            "image/png", "png",
+            "image/gif", "gif",
+            "image/webp", "webp",
+            "image/avif", "avif",
+            "image/heic", "heic"
+    );
+
+    private final Path objectsDir;
+    private final Path temporaryDir;
+    private final Path stagingDir;
+    private final String publicBaseUrl;
+    private final Duration temporaryRetention;
+    private final ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+
+    public LocalFileStorageServiceImpl(
+            @Value("${app.storage.local.root-dir:./storage}") String rootDir,
+            @Value("${app.storage.local.public-base-url:${app.base-url:http://localhost:8080}/api/v1/files/content}") String publicBaseUrl,
+            @Value("${app.storage.local.temporary-retention-hours:24}") long temporaryRetentionHours) {
+        Path root = Path.of(rootDir).toAbsolutePath().normalize();
+        this.objectsDir = root.resolve("objects");
+        this.temporaryDir = root.resolve("temporary");
+        this.stagingDir = root.resolve("staging");
+        this.publicBaseUrl = publicBaseUrl.endsWith("/")
+                ? publicBaseUrl.substring(0, publicBaseUrl.length() - 1)
+                : publicBaseUrl;
+        this.temporaryRetention = Duration.ofHours(temporaryRetentionHours);
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+
+        try {
+            Files.createDirectories(objectsDir);
+            Files.createDirectories(temporaryDir);
+            Files.createDirectories(stagingDir);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create local storage directories under " + root, e);
+        }
+        log.info("Local file storage at {}, served from {}", root, this.publicBaseUrl);
+    }
+
+    /**
+     * Stored object behind a public name, for LocalFileController
+     */
+    public record StoredObject(String name, String hash, Path path, String contentType) {
+    }
+
+    @Override
+    public String uploadFile(MultipartFile file) {
+        return store(file);
+    }
+
+    @Override
+    public String uploadFile(InputStream content, String fileName) {
+        try (InputStream input = content) {
+            return store(input);
+        } catch (IOException e) {
+            log.error("Upload of {} failed", fileName, e);
+            throw new AppException(ErrorCode.FILE_UPLOAD_FAILED, "Lỗi upload ảnh rồi bạn ơi!");
+        }
+    }
+
+    @Override
+    public void deleteFile(String fileUrl) {
+        String name = extractName(fileUrl);
+        String hash = hashOf(name);
+        ReentrantLock lock = lockFor(hash);
+        lock.lock();
+        try {
+            Files.deleteIfExists(objectPath(name));
+            Files.deleteIfExists(temporaryDir.resolve(name));
+        } catch (IOException e) {
+            log.error("Delete of {} failed", name, e);
+            throw new AppException(ErrorCode.FILE_DELETE_FAILED, "Không thể xóa ảnh");
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * All or nothing for the caller: if one file fails, the error is thrown and no URL is returned.
+     * The files already stored are not deleted: content-addressed, a concurrent upload of the same image
+     * may have been handed the same URL. They keep their temporary marker and LocalStorageCleanupJob
+     * removes them after the retention unless someone confirms them. Files are stored one after the other.
+     */
+    @Override
+    public List<String> uploadMultipleFiles(List<MultipartFile> files) {
+        List<String> urls = new ArrayList<>(files.size());
+        for (MultipartFile file : files) {
+            urls.add(store(file));
+        }
+        return urls;
+    }
+
+    @Override
+    public List<FileUploadResponse> uploadFiles(List<MultipartFile> files) {
+        List<FileUploadResponse> results = new ArrayList<>(files.size());
+        for (int i = 0; i < files.size(); i++) {
+            MultipartFile file = files.get(i);
+            FileUploadResponse.FileUploadResponseBuilder result = FileUploadResponse.builder()
+                    .index(i)
+                    .fileName(file.getOriginalFilename());
+            try {
+                result.success(true).url(store(file));
+            } catch (AppException e) {
+                result.success(false).errorCode(e.getErrorCode()).message(e.getMessage());
+            }
+            results.add(result.build());
+        }
+        return results;
+    }
+
+    @Override
+    public void confirmFiles(List<String> fileUrls) {
+        if (fileUrls == null || fileUrls.isEmpty()) return;
+
+        int confirmed = 0;
+        for (String fileUrl : fileUrls) {
+            Optional<String> name = nameOf(fileUrl);
+            if (name.isEmpty()) {
+                // Ảnh của provider khác (dữ liệu cũ trên Cloudinary...), không phải việc của local storage
+                log.debug("Skip confirming foreign file URL {}", fileUrl);
+                continue;
+            }
+            ReentrantLock lock = lockFor(hashOf(name.get()));
+            lock.lock();
+            try {
+                if (Files.deleteIfExists(temporaryDir.resolve(name.get()))) {
+                    confirmed++;
+                }
+            } catch (IOException e) {
+                // Không throw: ảnh vẫn còn marker, job dọn dẹp sẽ xoá nếu không ai confirm lại
+                log.error("❌ Lỗi khi confirm ảnh {}: {}", name.get(), e.getMessage());
+            } finally {
+                lock.unlock();
+            }
+        }
+        log.info("✅ Đã confirm {} ảnh (gỡ marker temporary).", confirmed);
+    }
+
+    // ============================================================================
+    // SERVING / CLEANUP
+    // ============================================================================
+
+    /**
+     * @param name public name ({sha256}.{ext}), anything else (path traversal...) is not found
+     */
+    public Optional<StoredObject> find(String name) {
+        if (name == null || !OBJECT_NAME.matcher(name).matches()) {
+            return Optional.empty();
+        }
+        String extension = name.substring(name.indexOf('.') + 1);
+        String contentType = EXTENSIONS.entrySet().stream()
+                .filter(entry -> entry.getValue().equals(extension))
+                .map(Map.Entry::getKey)
+                .findFirst()
+                .orElse(null);
+        Path path = objectPath(name);
+        if (contentType == null || !Files.isRegularFile(path)) {
+            return Optional.empty();
+        }
+        return Optional.of(new StoredObject(name, hashOf(name), path, contentType));
+    }
+
+    /**
+     * Delete objects still marked temporary after the retention, and staging files left by crashed uploads
+     *
+     * @return number of objects deleted
+     */
+    public int purgeTemporary() {
+        Instant cutoff = Instant.now().minus(temporaryRetention);
+        int deleted = 0;
+
+        try (DirectoryStream<Path> markers = Files.newDirectoryStream(temporaryDir)) {
+            for (Path marker : markers) {
+                String name = marker.getFileName().toString();
+                if (!OBJECT_NAME.matcher(name).matches()) {
+                    continue;
+                }
+                ReentrantLock lock = lockFor(hashOf(name));
+                lock.lock();
+                try {
+                    // Check again under the lock: an upload may just have reused (touched) it
+                    if (isOlderThan(marker, cutoff)) {
+                        Files.deleteIfExists(objectPath(name));
+                        Files.deleteIfExists(marker);
+                        deleted++;
+                    }
+                } catch (IOException e) {
+                    log.warn("Could not delete temporary file {}: {}", name, e.getMessage());
+                } finally {
+                    lock.unlock();
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        try (DirectoryStream<Path> staged = Files.newDirectoryStream(stagingDir)) {
+            for (Path file : staged) {
+                if (isOlderThan(file, cutoff)) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Could not clean staging directory {}: {}", stagingDir, e.getMessage());
+        }
+        return deleted;
+    }
+
+    // ============================================================================
+    // STORE
+    // ============================================================================
+
+    private String store(MultipartFile file) {
+        if (file == null || file.isEmpty()) {
+            throw new AppException(ErrorCode.INVALID_FILE, "File không hợp lệ");
+        }
+        // Part above file-size-threshold is read from its temp file, never loaded into the heap
+        try (InputStream input = file.getInputStream()) {
+            return store(input);
+        } catch (IOException e) {
+            log.error("Upload of {} failed", file.getOriginalFilename(), e);
+            throw new AppException(ErrorCode.FILE_UPLOAD_FAILED, "Lỗi upload ảnh rồi bạn ơi!");
+        }
+    }
+
+    private String store(InputStream content) throws IOException {
+        BufferedInputStream input = new BufferedInputStream(content);
+        // Đọc vài byte đầu (magic number), không tin Content-Type/tên file client gửi lên
+        input.mark(64);
+        String contentType = ImageTypeUtils.detect(input).orElseThrow(() -> new AppException(
+                ErrorCode.INVALID_FILE_TYPE,
+                "Chỉ cho phép upload ảnh"
+        ));
+        input.reset();
+
+        MessageDigest digest = sha256();
+        Path staged = Files.createTempFile(stagingDir, "upload-", ".part");
+        try {
+            // One pass: the hash is computed while the bytes are written to staging
+            Files.copy(new DigestInputStream(input, digest), staged, StandardCopyOption.REPLACE_EXISTING);
+            String hash = HexFormat.of().formatHex(digest.digest());
+            String name = hash + "." + EXTENSIONS.get(contentType);
+
+            boolean created = publish(staged, name, hash);
+            log.info("Stored {} ({})", name, created ? "new" : "deduplicated");
+            return publicBaseUrl + "/" + name;
+        } finally {
+            Files.deleteIfExists(staged);
+        }
+    }
+
+    // Moves the staged file into place, or reuses the object already stored with the same content
+    private boolean publish(Path staged, String name, String hash) throws IOException {
+        Path target = objectPath(name);
+        Path marker = temporaryDir.resolve(name);
+
+        ReentrantLock lock = lockFor(hash);
+        lock.lock();
+        try {
+            if (Files.exists(target)) {
+                // Still temporary: restart its retention. No marker = already confirmed, keep it that way
+                if (Files.exists(marker)) {
+                    Files.setLastModifiedTime(marker, FileTime.from(Instant.now()));
+                }
+                return false;
+            }
+
+            Files.createDirectories(target.getParent());
+            try {
+                Files.move(staged, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                // Storage root on a filesystem without atomic rename: plain move, the lock still guards it
+                Files.move(staged, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            // Marker after the object: a crash in between leaves a confirmed-looking orphan, never a dangling marker
+            Files.createFile(marker);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // ============================================================================
+    // HELPERS
+    // ============================================================================
+
+    // objects/ab/cd/{hash}.{ext}: two levels of fan-out keep directories small
+    private Path objectPath(String name) {
+        return objectsDir.resolve(name.substring(0, 2)).resolve(name.substring(2, 4)).resolve(name);
+    }
+
+    private Optional<String> nameOf(String fileUrl) {
+        if (fileUrl == null || !fileUrl.startsWith(publicBaseUrl + "/")) {
+            return Optional.empty();
+        }
+        String name = fileUrl.substring(publicBaseUrl.length() + 1);
+        return OBJECT_NAME.matcher(name).matches() ? Optional.of(name) : Optional.empty();
+    }
+
+    private String extractName(String fileUrl) {
+        return nameOf(fileUrl).orElseThrow(() -> new AppException(
+                ErrorCode.INVALID_FILE,
+                "URL ảnh không hợp lệ"
+        ));
+    }
+
+    private static String hashOf(String name) {
+        return name.substring(0, name.indexOf('.'));
+    }
+
+    private ReentrantLock lockFor(String hash) {
+        return locks[Math.floorMod(hash.hashCode(), LOCK_STRIPES)];
+    }
+
+    private static boolean isOlderThan(Path path, Instant cutoff) throws IOException {
+        try {
+            return Files.getLastModifiedTime(path).toInstant().isBefore(cutoff);
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.greenwich.flowerplus.infrastructure.storage.local;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConditionalOnProperty(prefix = "app.storage", name = "provider", havingValue = "local")
+@RequiredArgsConstructor
+@Slf4j
+public class LocalStorageCleanupJob {
+
+    private final LocalFileStorageServiceImpl localFileStorageService;
+
+    // 3h sáng như CloudinaryCleanupJob: xoá ảnh upload lên mà không được confirm (quá retention)
+    @Scheduled(cron = "0 0 3 * * ?")
+    public void deleteOrphanedImages() {
+        log.info("🧹 Bắt đầu quét dọn ảnh rác trong local storage...");
+        try {
+            int deleted = localFileStorageService.purgeTemporary();
+            if (deleted > 0) {
+                log.info("✅ Đã dọn dẹp {} ảnh rác thành công.", deleted);
+            } else {
+                log.info("✨ Không tìm thấy ảnh rác nào.");
+            }
+        } catch (Exception e) {
+            log.error("❌ Lỗi khi chạy job dọn dẹp local storage", e);
+        }
+    }
+}
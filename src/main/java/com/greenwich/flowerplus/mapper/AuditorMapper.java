@@ -1,38 +1,67 @@
 package com.greenwich.flowerplus.mapper;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.greenwich.flowerplus.dto.response.AuditorResponse;
-import com.greenwich.flowerplus.entity.UserAccount;
+import com.greenwich.flowerplus.entity.BaseAuditEntity;
 import com.greenwich.flowerplus.repository.UserAccountRepository;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
 
+import java.time.Duration;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import org.mapstruct.Named;
 
 /**
  * AuditorMapper - Maps user IDs to AuditorResponse with caching
- * 
+ *
  * This component handles the enrichment of auditor data (createdBy, updatedBy)
  * with actual user information from the database.
- * 
- * Uses batch loading and caching to avoid N+1 query issues.
+ *
+ * Resolved auditors live in a bounded, TTL'd in-memory cache shared by every
+ * mapper/service that shows "created by / updated by" (product, category, material, role).
+ * List endpoints should call {@link #preload} with the whole page first so the
+ * per-row {@link #map} calls are cache hits instead of one query per row (N+1).
+ * A user can be cached under several keys (id and username), {@code keysByUser}
+ * tracks them so {@link #evict} only touches that user's entries.
  */
 @Component
-@RequiredArgsConstructor
 @Slf4j
 public class AuditorMapper {
 
+    private static final String SYSTEM_AUDITOR = "SYSTEM";
+
     private final UserAccountRepository userAccountRepository;
+    private final Cache<String, AuditorResponse> cache;
+    private final Map<Long, Set<String>> keysByUser = new ConcurrentHashMap<>();
+
+    public AuditorMapper(UserAccountRepository userAccountRepository,
+                         @Value("${app.auditor-cache.max-size:10000}") long maxSize,
+                         @Value("${app.auditor-cache.ttl-minutes:10}") long ttlMinutes) {
+        this.userAccountRepository = userAccountRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+                // Chạy đồng bộ khi entry hết hạn / bị đẩy ra -> index không giữ key chết
+                .<String, AuditorResponse>evictionListener((key, auditor, cause) -> unindex(key, auditor))
+                .build();
+    }
 
     /**
      * Maps a user ID string or username to AuditorResponse
-     * 
+     *
      * @param identifier The user ID or username as string (stored in createdBy/updatedBy)
-     * @return AuditorResponse with user details, or null if not found
+     * @return AuditorResponse with user details, or null if identifier is empty
      */
     @Named("mapAuditor")
     public AuditorResponse map(String identifier) {
@@ -40,72 +69,159 @@ public class AuditorMapper {
             return null;
         }
 
-        String trimmed = identifier.trim();
+        String key = identifier.trim();
+        return cache.get(key, k -> index(k, batchLoadAuditors(Set.of(k)).get(k)));
+    }
+
+    /**
+     * Resolve all auditors of a page in one go (cache first, then one batch query for the misses).
+     *
+     * @param identifiers user IDs / usernames as stored in createdBy/updatedBy
+     * @return Map of identifier -> AuditorResponse for every non-blank identifier
+     */
+    public Map<String, AuditorResponse> preload(Collection<String> identifiers) {
+        Map<String, AuditorResponse> result = new HashMap<>();
+        Set<String> missing = new HashSet<>();
 
-        // 0. Handle SYSTEM user
-        if ("SYSTEM".equalsIgnoreCase(trimmed)) {
-            return AuditorResponse.builder()
-                    .id(0L)
-                    .username("SYSTEM")
-                    .email("system@flowerplus.com")
-                    .build();
+        for (String identifier : identifiers) {
+            if (!StringUtils.hasText(identifier)) {
+                continue;
+            }
+            String key = identifier.trim();
+            AuditorResponse cached = cache.getIfPresent(key);
+            if (cached != null) {
+                result.put(key, cached);
+            } else {
+                missing.add(key);
+            }
         }
-        
-        // 1. Try parsing as ID (Long)
-        try {
-            Long userId = Long.parseLong(trimmed);
-            return userAccountRepository.findById(userId)
-                    .map(this::toAuditorResponse)
-                    .orElse(AuditorResponse.builder().id(userId).build());
-        } catch (NumberFormatException e) {
-            // 2. Not a number, try as username
-            log.debug("Auditor identifier is not a number, trying as username: {}", trimmed);
-            return userAccountRepository.findByUsername(trimmed)
-                    .map(this::toAuditorResponse)
-                    .orElse(AuditorResponse.builder().username(trimmed).build());
+
+        if (!missing.isEmpty()) {
+            Map<String, AuditorResponse> loaded = batchLoadAuditors(missing);
+            loaded.forEach(this::index);
+            cache.putAll(loaded);
+            result.putAll(loaded);
+        }
+
+        return result;
+    }
+
+    /**
+     * Convenience overload: collect createdBy/updatedBy of audited entities and preload them.
+     */
+    public Map<String, AuditorResponse> preloadFor(Collection<? extends BaseAuditEntity<?>> entities) {
+        Set<String> identifiers = entities.stream()
+                .filter(Objects::nonNull)
+                .flatMap(e -> Stream.of(e.getCreatedBy(), e.getUpdatedBy()))
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        return preload(identifiers);
+    }
+
+    /**
+     * Drop every cached entry of a user (called when the account or profile changes).
+     */
+    public void evict(Long userId) {
+        evict(userId, null);
+    }
+
+    /**
+     * Drop every cached entry of a user, including a "not found" stub cached under
+     * the raw id / username before the account existed (called on create).
+     */
+    public void evict(Long userId, String username) {
+        if (userId != null) {
+            Set<String> keys = keysByUser.remove(userId);
+            if (keys != null) {
+                cache.invalidateAll(keys);
+            }
+            cache.invalidate(String.valueOf(userId));
+        }
+        if (StringUtils.hasText(username)) {
+            cache.invalidate(username.trim());
         }
     }
 
     /**
-     * Batch load auditors to avoid N+1 queries
-     * 
-     * @param userIds Set of user ID strings
-     * @return Map of userId -> AuditorResponse
+     * Batch load auditors to avoid N+1 queries.
+     * Numeric identifiers are resolved by ID, the rest by username (legacy rows).
+     *
+     * @param identifiers Set of trimmed user ID strings / usernames
+     * @return Map of identifier -> AuditorResponse (unknown users fall back to a stub)
      */
-    public Map<String, AuditorResponse> batchLoadAuditors(Set<String> userIds) {
+    public Map<String, AuditorResponse> batchLoadAuditors(Set<String> identifiers) {
         Map<String, AuditorResponse> result = new HashMap<>();
+        Set<Long> ids = new HashSet<>();
+        Set<String> usernames = new HashSet<>();
+
+        for (String identifier : identifiers) {
+            if (SYSTEM_AUDITOR.equalsIgnoreCase(identifier)) {
+                result.put(identifier, systemAuditor());
+                continue;
+            }
+            Long id = parseId(identifier);
+            if (id != null) {
+                ids.add(id);
+            } else {
+                usernames.add(identifier);
+            }
+        }
 
-        Set<Long> parsedIds = userIds.stream()
-                .filter(StringUtils::hasText)
-                .map(id -> {
-                    try {
-                        return Long.parseLong(id.trim());
-                    } catch (NumberFormatException e) {
-                        return null;
-                    }
-                })
-                .filter(id -> id != null)
-                .collect(java.util.stream.Collectors.toSet());
-
-        if (parsedIds.isEmpty()) {
-            return result;
+        if (!ids.isEmpty()) {
+            userAccountRepository.findAuditorsByIdIn(ids)
+                    .forEach(auditor -> result.put(String.valueOf(auditor.id()), auditor));
+        }
+        if (!usernames.isEmpty()) {
+            log.debug("Resolving {} auditor(s) by username", usernames.size());
+            userAccountRepository.findAuditorsByUsernameIn(usernames)
+                    .forEach(auditor -> result.put(auditor.username(), auditor));
         }
 
-        userAccountRepository.findAllById(parsedIds)
-                .forEach(user -> result.put(
-                        String.valueOf(user.getId()), 
-                        toAuditorResponse(user)
-                ));
+        // Not found -> keep the raw identifier so the UI still shows something
+        for (String identifier : identifiers) {
+            result.computeIfAbsent(identifier, this::fallbackAuditor);
+        }
 
         return result;
     }
 
-    private AuditorResponse toAuditorResponse(UserAccount user) {
+    private AuditorResponse index(String key, AuditorResponse auditor) {
+        if (auditor != null && auditor.id() != null) {
+            keysByUser.computeIfAbsent(auditor.id(), id -> ConcurrentHashMap.newKeySet()).add(key);
+        }
+        return auditor;
+    }
+
+    private void unindex(String key, AuditorResponse auditor) {
+        if (key == null || auditor == null || auditor.id() == null) {
+            return;
+        }
+        keysByUser.computeIfPresent(auditor.id(), (id, keys) -> {
+            keys.remove(key);
+            return keys.isEmpty() ? null : keys;
+        });
+    }
+
+    private AuditorResponse systemAuditor() {
         return AuditorResponse.builder()
-                .id(user.getId())
-                .username(user.getUsername())
-                .email(user.getEmail())
-                .avatarUrl(null) // TODO: Add avatar URL from UserProfile if needed
+                .id(0L)
+                .username(SYSTEM_AUDITOR)
+                .email("system@flowerplus.com")
                 .build();
     }
+
+    private AuditorResponse fallbackAuditor(String identifier) {
+        Long id = parseId(identifier);
+        return id != null
+                ? AuditorResponse.builder().id(id).build()
+                : AuditorResponse.builder().username(identifier).build();
+    }
+
+    private Long parseId(String identifier) {
+        try {
+            return Long.parseLong(identifier);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
 }
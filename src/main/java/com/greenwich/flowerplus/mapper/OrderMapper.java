@@ -0,0 +1,20 @@
+package com.greenwich.flowerplus.mapper;
+
+import com.greenwich.flowerplus.dto.request.PlaceOrderRequest;
+import com.greenwich.flowerplus.dto.response.OrderItemResponse;
+import com.greenwich.flowerplus.dto.response.OrderResponse;
+import com.greenwich.flowerplus.dto.snapshot.ShippingAddressSnapshot;
+import com.greenwich.flowerplus.entity.Order;
+import com.greenwich.flowerplus.entity.OrderItem;
+import org.mapstruct.Mapper;
+import org.mapstruct.ReportingPolicy;
+
+@Mapper(componentModel = "spring", unmappedTargetPolicy = ReportingPolicy.IGNORE)
+public interface OrderMapper {
+
+    OrderResponse toResponse(Order order);
+
+    OrderItemResponse toItemResponse(OrderItem item);
+
+    ShippingAddressSnapshot toSnapshot(PlaceOrderRequest.ShippingAddress address);
+}
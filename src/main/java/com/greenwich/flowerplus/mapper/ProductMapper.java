@@ -37,7 +37,7 @@ public interface ProductMapper {
     @Mapping(target = "length", source = "shippingInfo.length")
     @Mapping(target = "width", source = "shippingInfo.width")
     @Mapping(target = "height", source = "shippingInfo.height")
-    @Mapping(target = "inStock", expression = "java(product.getPreparedQuantity() > 0 || product.isMakeToOrder())")
+    @Mapping(target = "inStock", expression = "java(product.isInStock())")
     @Mapping(target = "isMakeToOrder", source = "makeToOrder")
     ProductResponse toProductResponse(Product product);
 
@@ -49,8 +49,8 @@ public interface ProductMapper {
     @Mapping(target = "price", source = "basePrice")
     @Mapping(target = "categoryName", source = "productCategories", qualifiedByName = "mapFirstCategoryName")
     @Mapping(target = "categories", source = "productCategories", qualifiedByName = "mapAllCategorySnapshots")
-    @Mapping(target = "availableStock", source = "preparedQuantity")
-    @Mapping(target = "inStock", expression = "java(product.getPreparedQuantity() > 0 || product.isMakeToOrder())")
+    @Mapping(target = "availableStock", expression = "java(product.getAvailableStock())")
+    @Mapping(target = "inStock", expression = "java(product.isInStock())")
     @Mapping(target = "averageRating", source = "averageRating")
     @Mapping(target = "reviewCount", source = "reviewCount")
     ProductListingDto toListingDto(Product product);
@@ -68,7 +68,7 @@ public interface ProductMapper {
     @Mapping(target = "length", source = "shippingInfo.length")
     @Mapping(target = "width", source = "shippingInfo.width")
     @Mapping(target = "height", source = "shippingInfo.height")
-    @Mapping(target = "inStock", expression = "java(product.getPreparedQuantity() > 0 || product.isMakeToOrder())")
+    @Mapping(target = "inStock", expression = "java(product.isInStock())")
     @Mapping(target = "isMakeToOrder", source = "makeToOrder")
     ProductResponseAdmin toAdminDto(Product product);
 
@@ -0,0 +1,25 @@
+package com.greenwich.flowerplus.repository;
+
+import com.greenwich.flowerplus.entity.Order;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface OrderRepository extends JpaRepository<Order, Long> {
+
+    @Query("SELECT o FROM Order o LEFT JOIN FETCH o.items WHERE o.id = :id")
+    Optional<Order> findWithItemsById(@Param("id") Long id);
+
+    @Query("SELECT o FROM Order o LEFT JOIN FETCH o.items WHERE o.id = :id AND o.userId = :userId")
+    Optional<Order> findWithItemsByIdAndUserId(@Param("id") Long id, @Param("userId") Long userId);
+
+    /**
+     * Order created by an earlier attempt with the same idempotency key
+     */
+    @Query("SELECT o FROM Order o LEFT JOIN FETCH o.items WHERE o.userId = :userId AND o.idempotencyKey = :key")
+    Optional<Order> findWithItemsByUserIdAndIdempotencyKey(@Param("userId") Long userId, @Param("key") String key);
+}
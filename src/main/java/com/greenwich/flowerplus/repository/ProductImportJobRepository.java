@@ -0,0 +1,34 @@
+package com.greenwich.flowerplus.repository;
+
+import com.greenwich.flowerplus.entity.ProductImportJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+
+@Repository
+public interface ProductImportJobRepository extends JpaRepository<ProductImportJob, Long> {
+
+    /**
+     * Move the checkpoint and counters after a batch is merged (same transaction as the merge).
+     */
+    @Modifying
+    @Query("""
+            UPDATE ProductImportJob j
+            SET j.checkpointRow = :checkpointRow,
+                j.processedRows = j.processedRows + :processed,
+                j.importedRows = j.importedRows + :imported,
+                j.failedRows = j.failedRows + :failed,
+                j.updatedAt = :now
+            WHERE j.id = :id
+            """)
+    int advanceCheckpoint(@Param("id") Long id,
+                          @Param("checkpointRow") long checkpointRow,
+                          @Param("processed") long processed,
+                          @Param("imported") long imported,
+                          @Param("failed") long failed,
+                          @Param("now") Instant now);
+}
@@ -3,9 +3,33 @@ package com.greenwich.flowerplus.repository;
 import com.greenwich.flowerplus.entity.Product;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+
 @Repository
 public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product> {
     boolean existsBySlug(String slug);
+
+    /**
+     * Products + their recipe lines in one query (bulk recipe update).
+     */
+    @Query("SELECT DISTINCT p FROM Product p LEFT JOIN FETCH p.productRecipes WHERE p.id IN :ids")
+    List<Product> findAllWithRecipesByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Same UPDATE as @SQLDelete, without the cascade of repository.delete(): assets, categories and recipes
+     * are kept with the deleted product. 0 = not found or already deleted.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = """
+            UPDATE products
+            SET deleted_at = NOW(), slug = CONCAT(slug, '-deleted-', id)
+            WHERE id = :id AND deleted_at IS NULL
+            """, nativeQuery = true)
+    int softDeleteById(@Param("id") Long id);
 }
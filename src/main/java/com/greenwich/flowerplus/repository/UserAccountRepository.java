@@ -1,11 +1,14 @@
 package com.greenwich.flowerplus.repository;
 
+import com.greenwich.flowerplus.dto.response.AuditorResponse;
 import com.greenwich.flowerplus.entity.UserAccount;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -21,4 +24,24 @@ public interface UserAccountRepository extends JpaRepository<UserAccount, Long>
     Optional<UserAccount> findByIdentifier(@Param("identifier") String identifier);
 
     Optional<UserAccount> findByEmail(String email);
+
+    /**
+     * Auditor projection (account + profile) for a batch of user IDs in one query.
+     */
+    @Query("""
+            SELECT new com.greenwich.flowerplus.dto.response.AuditorResponse(u.username, u.email, u.id, p.avatarUrl, p.fullName)
+            FROM UserAccount u LEFT JOIN UserProfile p ON p.userId = u.id
+            WHERE u.id IN :ids
+            """)
+    List<AuditorResponse> findAuditorsByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Same projection for legacy audit columns that stored the username instead of the user ID.
+     */
+    @Query("""
+            SELECT new com.greenwich.flowerplus.dto.response.AuditorResponse(u.username, u.email, u.id, p.avatarUrl, p.fullName)
+            FROM UserAccount u LEFT JOIN UserProfile p ON p.userId = u.id
+            WHERE u.username IN :usernames
+            """)
+    List<AuditorResponse> findAuditorsByUsernameIn(@Param("usernames") Collection<String> usernames);
 }
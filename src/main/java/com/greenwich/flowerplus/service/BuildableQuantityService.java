@@ -0,0 +1,38 @@
+package com.greenwich.flowerplus.service;
+
+import java.util.Collection;
+
+/**
+ * BuildableQuantityService - Single Responsibility: keep products.buildable_quantity in sync with material stock
+ *
+ * buildable_quantity = MIN((quantity - reserved_quantity) / quantity_needed) over the product's recipe,
+ * NULL when the product has no recipe. Stored on the product row so listing/detail read it without joins.
+ * Stock and recipe changes only queue ids in a durable outbox, affected products are refreshed in batches.
+ */
+public interface BuildableQuantityService {
+
+    /**
+     * Queue materials whose available stock changed, in the caller's transaction. Products using them
+     * (reverse index on product_recipes.material_id) are refreshed by the next flush.
+     */
+    void onMaterialsChanged(Collection<Long> materialIds);
+
+    /**
+     * Queue products whose recipe changed, in the caller's transaction; refreshed by the next flush
+     */
+    void onProductsChanged(Collection<Long> productIds);
+
+    /**
+     * Refresh every product queued so far
+     *
+     * @return number of products whose buildable quantity changed
+     */
+    int flushPendingChanges();
+
+    /**
+     * Recompute buildable quantity of every product (repairs drift from changes made outside the services)
+     *
+     * @return number of products whose buildable quantity changed
+     */
+    int rebuildAll();
+}
@@ -0,0 +1,68 @@
+package com.greenwich.flowerplus.service;
+
+import com.greenwich.flowerplus.dto.response.CartResponse;
+
+/**
+ * CartService - Single Responsibility: shopping carts of guests and logged-in customers
+ *
+ * Carts live in Redis only (one hash per cart, productId -> quantity, expiring after inactivity).
+ * Product name, price, thumbnail and stock are added at read time from a short-lived local cache;
+ * Postgres is only queried, in one batch, for products missing from that cache.
+ */
+public interface CartService {
+
+    /**
+     * Whose cart: the logged-in user, otherwise the guest cart id kept in a cookie
+     */
+    record CartOwner(Long userId, String guestCartId) {
+
+        public static CartOwner user(Long userId) {
+            return new CartOwner(userId, null);
+        }
+
+        public static CartOwner guest(String guestCartId) {
+            return new CartOwner(null, guestCartId);
+        }
+
+        /**
+         * Guest without cart cookie: reads see an empty cart, nothing to update or delete
+         */
+        public boolean hasCart() {
+            return userId != null || guestCartId != null;
+        }
+    }
+
+    /**
+     * New random guest cart id (value of the guest cart cookie)
+     */
+    String newGuestCartId();
+
+    /**
+     * Only ids issued by {@link #newGuestCartId()} are accepted, anything else is ignored
+     */
+    boolean isValidGuestCartId(String guestCartId);
+
+    CartResponse getCart(CartOwner owner);
+
+    /**
+     * Add quantity to the product's line (created if missing), capped at the per-line maximum
+     */
+    CartResponse addItem(CartOwner owner, Long productId, int quantity);
+
+    /**
+     * Replace the quantity of a product already in the cart, 0 removes it
+     */
+    CartResponse updateItem(CartOwner owner, Long productId, int quantity);
+
+    CartResponse removeItem(CartOwner owner, Long productId);
+
+    void clearCart(CartOwner owner);
+
+    /**
+     * Move the guest cart into the user's cart (quantities of the same product are added up) and delete it.
+     * No-op when the guest cart does not exist.
+     *
+     * @return number of products merged
+     */
+    int mergeGuestCart(String guestCartId, Long userId);
+}
@@ -0,0 +1,50 @@
+package com.greenwich.flowerplus.service;
+
+import com.greenwich.flowerplus.dto.response.DeliverySlotAvailabilityResponse;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * DeliverySlotService - Single Responsibility: limit how many bouquets each delivery slot accepts per day
+ *
+ * Remaining capacity per (date, slot) is an atomic Redis counter decremented by a Lua guard, so checkout
+ * reserves a slot in O(1) without locking a shared row. Bookings are recorded per order in Postgres;
+ * counters are rebuilt from them when missing, and Postgres takes over when Redis is unreachable
+ * or a counter is stale.
+ */
+public interface DeliverySlotService {
+
+    /**
+     * Take {@code units} bouquets of the slot for the order, in the checkout transaction
+     * (a rollback gives the units back)
+     *
+     * @throws com.greenwich.flowerplus.common.exception.AppException DELIVERY_SLOT_NOT_FOUND, DELIVERY_SLOT_FULL,
+     *                                                                DELIVERY_SLOT_UNAVAILABLE
+     */
+    void reserve(Long orderId, LocalDate deliveryDate, String slotCode, int units);
+
+    /**
+     * Give the order's slot back (order cancelled). No-op when the order has no active booking.
+     */
+    void release(Long orderId);
+
+    /**
+     * Remaining capacity of every active slot for today and the next {@code days - 1} days
+     */
+    List<DeliverySlotAvailabilityResponse> getAvailability(int days);
+
+    /**
+     * Change the capacity of a slot: for one date when {@code date} is set, otherwise the default of every
+     * date without its own capacity. Counters of the booking window are adjusted by the difference.
+     */
+    void updateCapacity(String slotCode, LocalDate date, int capacity);
+
+    /**
+     * Rebuild from bookings the Redis counters marked stale (Postgres fallback, Redis down on release),
+     * checkout goes back to the counter once its marker is gone
+     *
+     * @return number of counters rebuilt
+     */
+    int resyncStaleCounters();
+}
@@ -0,0 +1,52 @@
+package com.greenwich.flowerplus.service;
+
+/**
+ * IdempotencyService - Single Responsibility: remember the outcome of requests sent with an Idempotency-Key
+ *
+ * The first request with a key claims it, runs, and stores its response; repeats get the stored response
+ * back instead of running again. Stored in Redis, in Postgres (idempotency_keys) while Redis is unreachable.
+ */
+public interface IdempotencyService {
+
+    enum ClaimResult {
+        ACQUIRED,    // Caller runs the request, then calls complete() or release()
+        IN_PROGRESS, // First request still running: wait and claim again
+        COMPLETED,   // Replay storedResponse
+        MISMATCH     // Same key, different request
+    }
+
+    record StoredResponse(int status, String contentType, byte[] body) {
+    }
+
+    /**
+     * @param ownerToken only set when ACQUIRED, proves the claim on complete/release
+     * @param fallback   claim was made in Postgres (complete/release go to the same store)
+     */
+    record Claim(ClaimResult result, String ownerToken, boolean fallback, StoredResponse storedResponse) {
+    }
+
+    /**
+     * Claim the key for this request, or report what the request that owns it did
+     *
+     * @param key         caller-scoped key ("u:{userId}:{Idempotency-Key}")
+     * @param fingerprint hash of the request, a repeat must send the same request
+     */
+    Claim claim(String key, String fingerprint);
+
+    /**
+     * Store the response of the claimed request for replay until the key expires
+     */
+    void complete(String key, Claim claim, StoredResponse response);
+
+    /**
+     * Forget the claim without storing anything (server error, response not replayable): a retry runs again
+     */
+    void release(String key, Claim claim);
+
+    /**
+     * Delete expired Postgres fallback rows (Redis entries expire on their own)
+     *
+     * @return number of rows deleted
+     */
+    int purgeExpired();
+}
@@ -0,0 +1,47 @@
+package com.greenwich.flowerplus.service;
+
+import com.greenwich.flowerplus.dto.request.InventoryMovementRequest;
+import com.greenwich.flowerplus.dto.response.InventoryTransactionResponse;
+import com.greenwich.flowerplus.dto.response.StockBalanceResponse;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * InventoryLedgerService - Single Responsibility: stock movements and balances from the ledger
+ *
+ * Every movement is an append-only inventory_transactions entry written in the same transaction
+ * as material_stocks.quantity. Historical balances are read from the nearest daily snapshot plus
+ * the entries after it, never by replaying the whole history.
+ */
+public interface InventoryLedgerService {
+
+    /**
+     * Record IMPORT / DAMAGED / AUDIT movements (all or nothing)
+     *
+     * @return number of ledger entries written
+     */
+    int recordMovements(InventoryMovementRequest request);
+
+    /**
+     * @param asOf null = now
+     */
+    StockBalanceResponse getBalance(Long materialId, Instant asOf);
+
+    /**
+     * Ledger entries of a material in [from, to), newest first, keyset paginated by {@code beforeId}
+     */
+    List<InventoryTransactionResponse> getLedger(Long materialId, Instant from, Instant to, Long beforeId, int size);
+
+    /**
+     * Create the snapshot of every material at {@code cutoff} from the previous snapshot + entries in between
+     *
+     * @return number of snapshots created
+     */
+    int rollSnapshots(Instant cutoff);
+
+    /**
+     * Materials whose material_stocks.quantity differs from the ledger-derived balance
+     */
+    long countBalanceDrift();
+}
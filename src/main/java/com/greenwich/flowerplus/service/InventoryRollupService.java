@@ -0,0 +1,44 @@
+package com.greenwich.flowerplus.service;
+
+import com.greenwich.flowerplus.dto.response.MonthlyStockMovementResponse;
+
+import java.time.YearMonth;
+import java.util.List;
+
+/**
+ * InventoryRollupService - Single Responsibility: ledger partitions and monthly movement rollups
+ *
+ * inventory_transactions is range partitioned by month. Each month is summarised into
+ * inventory_monthly_rollups, months older than the retention are compacted: final rollup, then the
+ * partition is dropped. Point-in-time balances inside a compacted month fall back to daily snapshot precision.
+ */
+public interface InventoryRollupService {
+
+    /**
+     * Create the monthly partitions from the current month up to {@code monthsAhead} months ahead
+     *
+     * @return number of partitions created
+     */
+    int ensurePartitions(int monthsAhead);
+
+    /**
+     * Recompute the rollups of every month in [from, to] from the ledger (compacted months are left untouched)
+     *
+     * @return number of rollup rows written
+     */
+    int refreshRollups(YearMonth from, YearMonth to);
+
+    /**
+     * Roll up and drop every ledger partition of a month before {@code cutoff}
+     *
+     * @return number of partitions dropped
+     */
+    int compactBefore(YearMonth cutoff);
+
+    /**
+     * Stock movement per material per month in [from, to]
+     *
+     * @param materialId null = every material
+     */
+    List<MonthlyStockMovementResponse> getMonthlyMovements(Long materialId, YearMonth from, YearMonth to);
+}
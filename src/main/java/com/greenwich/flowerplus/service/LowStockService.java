@@ -0,0 +1,46 @@
+package com.greenwich.flowerplus.service;
+
+import com.greenwich.flowerplus.dto.response.LowStockResponse;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * LowStockService - Single Responsibility: detect materials crossing their reorder level and alert admins
+ *
+ * Low = quantity - reserved_quantity <= reorder_level. Crossings are detected on stock mutations
+ * (only the touched materials are checked), debounced for a short window and pushed over SSE
+ * to the admins connected to any instance.
+ */
+public interface LowStockService {
+
+    /**
+     * Mark materials whose stock changed, checked after the current transaction commits
+     */
+    void onMaterialsChanged(Collection<Long> materialIds);
+
+    /**
+     * Check every queued material now and publish the crossings
+     *
+     * @return number of alerts published
+     */
+    int flushPendingChanges();
+
+    /**
+     * Check every material (catches crossings missed on restart or by direct SQL edits)
+     *
+     * @return number of alerts published
+     */
+    int reconcile();
+
+    /**
+     * Materials currently at or below reorder level, most critical first
+     */
+    List<LowStockResponse> getLowStock(int limit);
+
+    /**
+     * Subscribe to low-stock alerts, whichever instance detected them
+     */
+    SseEmitter subscribe();
+}
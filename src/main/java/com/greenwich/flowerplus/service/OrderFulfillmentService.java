@@ -0,0 +1,38 @@
+package com.greenwich.flowerplus.service;
+
+import com.greenwich.flowerplus.common.enums.OrderStatus;
+import com.greenwich.flowerplus.dto.response.OrderResponse;
+
+/**
+ * OrderFulfillmentService - Single Responsibility: move orders through their lifecycle after checkout
+ *
+ * Each transition is one conditional UPDATE on the expected current status (no row lock held between
+ * requests). Stock reservations, delivery slots and sales rollups are updated in the same transaction.
+ */
+public interface OrderFulfillmentService {
+
+    /**
+     * Move the order to {@code target}:
+     * PENDING -> CONFIRMED -> (PROCESSING) -> SHIPPING -> COMPLETED, CANCELLED before shipping.
+     * CONFIRMED commits the stock reservation, CANCELLED from PENDING releases it (and always frees the
+     * delivery slot), COMPLETED marks a COD order paid.
+     *
+     * @throws com.greenwich.flowerplus.common.exception.AppException ORDER_NOT_FOUND, ORDER_INVALID_STATUS_TRANSITION
+     */
+    OrderResponse updateStatus(Long orderId, OrderStatus target);
+
+    /**
+     * Record the payment of an unpaid, not cancelled order
+     *
+     * @throws com.greenwich.flowerplus.common.exception.AppException ORDER_NOT_FOUND, ORDER_PAID, ORDER_INVALID_STATUS_TRANSITION
+     */
+    OrderResponse markPaid(Long orderId);
+
+    /**
+     * Cancel the PENDING order whose stock reservation expired (stock and delivery slot are freed together)
+     *
+     * @param orderCode reference code of the expired reservation
+     * @return false if the reference is not a PENDING order, the caller then only releases the stock
+     */
+    boolean cancelExpired(String orderCode);
+}
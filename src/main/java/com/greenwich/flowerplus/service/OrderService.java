@@ -0,0 +1,35 @@
+package com.greenwich.flowerplus.service;
+
+import com.greenwich.flowerplus.dto.request.PlaceOrderRequest;
+import com.greenwich.flowerplus.dto.response.OrderResponse;
+import com.greenwich.flowerplus.dto.response.OrderSummaryResponse;
+
+import java.util.List;
+
+/**
+ * OrderService - Single Responsibility: checkout and order reads for customers
+ *
+ * Checkout is one short transaction: products priced from one query, stock reserved with conditional
+ * UPDATEs (reference = order code), order + items inserted with one statement each.
+ */
+public interface OrderService {
+
+    /**
+     * Place an order. Retrying with the same {@code idempotencyKey} and the same request returns the order
+     * of the first attempt.
+     *
+     * @throws com.greenwich.flowerplus.common.exception.AppException INVENTORY_INSUFFICIENT_STOCK, ORDER_PRODUCT_UNAVAILABLE,
+     *                                                                ORDER_IDEMPOTENCY_KEY_REUSED if the key was used for a different request
+     */
+    OrderResponse placeOrder(Long userId, String idempotencyKey, PlaceOrderRequest request);
+
+    /**
+     * Full order with items and shipping address (detail view)
+     */
+    OrderResponse getOrder(Long userId, Long orderId);
+
+    /**
+     * Orders of a customer, newest first, keyset paginated: next page = {@code beforeId} of the last row
+     */
+    List<OrderSummaryResponse> getOrderHistory(Long userId, Long beforeId, int size);
+}
@@ -0,0 +1,32 @@
+package com.greenwich.flowerplus.service;
+
+import com.greenwich.flowerplus.dto.request.BulkProductCategoryRequest;
+import com.greenwich.flowerplus.dto.request.BulkProductPriceRequest;
+import com.greenwich.flowerplus.dto.request.BulkProductStatusRequest;
+import com.greenwich.flowerplus.dto.response.BulkOperationResponse;
+
+/**
+ * ProductBulkService - Single Responsibility: set-based operations on many products
+ *
+ * Unlike ProductService, products are NOT loaded as aggregates. Every operation runs as
+ * chunked UPDATE / INSERT ... SELECT statements, with the domain rules of {@code Product}
+ * expressed as SQL predicates. Rows that do not satisfy a rule are skipped and reported
+ * per product ID instead of failing the whole request.
+ */
+public interface ProductBulkService {
+
+    /**
+     * Same rules as {@code Product.activate()} / {@code toDraft()} / {@code deactivate()}
+     */
+    BulkOperationResponse updateStatus(BulkProductStatusRequest request);
+
+    /**
+     * Same rules as {@code Product.updateBasePrice()} (positive, >= cost price) and original price >= base price
+     */
+    BulkOperationResponse adjustPrice(BulkProductPriceRequest request);
+
+    /**
+     * Same rules as {@code Product.addCategory()} / {@code removeCategory()} (max 5, at least 1)
+     */
+    BulkOperationResponse updateCategories(BulkProductCategoryRequest request);
+}
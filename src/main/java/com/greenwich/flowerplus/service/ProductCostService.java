@@ -0,0 +1,35 @@
+package com.greenwich.flowerplus.service;
+
+import com.greenwich.flowerplus.dto.response.CostRecomputeResponse;
+
+import java.math.BigDecimal;
+
+/**
+ * ProductCostService - Single Responsibility: keep products.cost_price in sync with material costs
+ *
+ * cost_price = SUM(material.cost_price * recipe.quantity_needed) over the product's recipe.
+ * Material edits are queued in a durable outbox and the affected products recomputed shortly after,
+ * a full recompute is available to verify and repair drift.
+ */
+public interface ProductCostService {
+
+    /**
+     * Queue the cost change of a material in the caller's transaction (nothing is queued if it rolls back),
+     * repeated changes of the same material before the next flush are merged into one entry.
+     */
+    void onMaterialCostChanged(Long materialId, BigDecimal oldCost, BigDecimal newCost);
+
+    /**
+     * Recompute the products of the queued materials now
+     *
+     * @return number of products updated
+     */
+    int flushPendingChanges();
+
+    /**
+     * Recompute cost_price of every product from its recipe
+     *
+     * @param dryRun only report drift, do not update
+     */
+    CostRecomputeResponse recomputeAll(boolean dryRun);
+}
@@ -0,0 +1,31 @@
+package com.greenwich.flowerplus.service;
+
+import com.greenwich.flowerplus.common.enums.ImportFormat;
+import com.greenwich.flowerplus.dto.response.ProductImportErrorResponse;
+import com.greenwich.flowerplus.dto.response.ProductImportJobResponse;
+import org.springframework.data.domain.Page;
+import org.springframework.web.multipart.MultipartFile;
+
+/**
+ * ProductImportService - Single Responsibility: bulk product import jobs
+ *
+ * The uploaded file is spooled to disk and processed in the background (streamed, validated in
+ * parallel, merged in batches). Each batch commits its checkpoint, so a failed job can be resumed
+ * without re-importing rows.
+ */
+public interface ProductImportService {
+
+    /**
+     * @param format CSV / NDJSON, null = detect from the file extension
+     */
+    ProductImportJobResponse startImport(MultipartFile file, ImportFormat format);
+
+    /**
+     * Restart a FAILED (or stalled RUNNING) job from its last checkpoint
+     */
+    ProductImportJobResponse resume(Long jobId);
+
+    ProductImportJobResponse getJob(Long jobId);
+
+    Page<ProductImportErrorResponse> getErrors(Long jobId, int page, int size);
+}
@@ -1,6 +1,8 @@
 package com.greenwich.flowerplus.service;
 
+import com.greenwich.flowerplus.dto.request.BulkProductRecipeRequest;
 import com.greenwich.flowerplus.dto.request.ProductRecipeRequest;
+import com.greenwich.flowerplus.dto.response.BulkOperationResponse;
 import com.greenwich.flowerplus.dto.response.ProductRecipeResponse;
 
 import java.util.List;
@@ -9,5 +11,10 @@ public interface ProductRecipeService {
 
     void updateProductRecipes(Long productId, List<ProductRecipeRequest> requests);
 
+    /**
+     * Replace the recipe of many products in one transaction, invalid items are skipped and reported
+     */
+    BulkOperationResponse bulkUpdateRecipes(BulkProductRecipeRequest request);
+
     List<ProductRecipeResponse> getRecipesByProductId(Long productId);
 }
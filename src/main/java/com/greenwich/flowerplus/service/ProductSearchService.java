@@ -1,10 +1,14 @@
 package com.greenwich.flowerplus.service;
 
+import com.greenwich.flowerplus.common.enums.ExportFormat;
 import com.greenwich.flowerplus.dto.request.ProductSearchRequest;
 import com.greenwich.flowerplus.dto.response.ProductListingDto;
 import com.greenwich.flowerplus.dto.response.ProductResponseAdmin;
 import org.springframework.data.domain.Page;
 
+import java.io.IOException;
+import java.io.OutputStream;
+
 public interface ProductSearchService {
     /**
      * Public search - forces ACTIVE status only
@@ -17,4 +21,10 @@ public interface ProductSearchService {
      * If no filters provided, returns all products with pagination
      */
     Page<ProductResponseAdmin> searchAdmin(ProductSearchRequest req);
+
+    /**
+     * Admin export - same filters/sort as searchAdmin but no pagination.
+     * Rows are streamed from a DB cursor straight into {@code out}, no entity is loaded.
+     */
+    void exportAdmin(ProductSearchRequest req, ExportFormat format, OutputStream out) throws IOException;
 }
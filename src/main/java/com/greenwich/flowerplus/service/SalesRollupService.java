@@ -0,0 +1,52 @@
+package com.greenwich.flowerplus.service;
+
+import com.greenwich.flowerplus.dto.response.CategorySalesResponse;
+import com.greenwich.flowerplus.dto.response.DailySalesResponse;
+import com.greenwich.flowerplus.dto.response.ProductSalesResponse;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * SalesRollupService - Single Responsibility: keep the sales rollups behind the admin dashboard
+ *
+ * An order is counted once, on the shop-local day it was first paid or completed, and taken back out of
+ * that day if it is cancelled later. Deltas are applied in the transaction that changes the order, each
+ * (order, event) at most once. Dashboard queries read the rollup tables only, never orders.
+ */
+public interface SalesRollupService {
+
+    /**
+     * Order was paid or completed: add it to the day of LEAST(paid_at, completed_at).
+     * No-op when the order was already counted. Call in the transaction that set the timestamp.
+     */
+    void onOrderRecognized(Long orderId);
+
+    /**
+     * Order was cancelled: count the cancellation on its cancel day and, if the order had been counted,
+     * subtract it from the day it was counted on. Call in the transaction that set cancelled_at.
+     */
+    void onOrderCancelled(Long orderId);
+
+    /**
+     * Recompute the days [from, to] from orders and replace their rollup rows (repairs drift)
+     *
+     * @return number of rollup rows written
+     */
+    int reconcile(LocalDate from, LocalDate to);
+
+    /**
+     * One row per day that has sales or cancellations, oldest first
+     */
+    List<DailySalesResponse> getDailySales(LocalDate from, LocalDate to);
+
+    /**
+     * Best selling products of the range by revenue
+     */
+    List<ProductSalesResponse> getProductSales(LocalDate from, LocalDate to, int limit);
+
+    /**
+     * Sales per category over the range, by revenue
+     */
+    List<CategorySalesResponse> getCategorySales(LocalDate from, LocalDate to);
+}
@@ -0,0 +1,52 @@
+package com.greenwich.flowerplus.service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * StockReservationService - Single Responsibility: hold material stock for an order without overselling
+ *
+ * Every operation is a short transaction of conditional UPDATEs on material_stocks
+ * (no SELECT ... FOR UPDATE, no lock kept between requests). All operations are idempotent per reference code.
+ */
+public interface StockReservationService {
+
+    /**
+     * Reserve every material or nothing
+     *
+     * @param referenceCode      order code / checkout id, unique per reservation
+     * @param materialQuantities materialId -> quantity
+     * @throws com.greenwich.flowerplus.common.exception.AppException INVENTORY_INSUFFICIENT_STOCK if one material is short
+     */
+    void reserve(String referenceCode, Map<Long, Integer> materialQuantities);
+
+    /**
+     * Expand the recipes of the products (productId -> quantity) into materials and reserve them.
+     * Products without recipe are ready-made and reserved from their prepared_quantity instead.
+     *
+     * @param ttl how long the stock is held before the expiry job gives it back
+     * @throws com.greenwich.flowerplus.common.exception.AppException INVENTORY_INSUFFICIENT_STOCK if a material or prepared product is short
+     */
+    void reserveForProducts(String referenceCode, Map<Long, Integer> productQuantities, Duration ttl);
+
+    /**
+     * Reserved stock leaves the warehouse: quantity and reserved_quantity both decrease, USAGE transactions are written
+     */
+    void commit(String referenceCode);
+
+    /**
+     * Give the reserved stock back (order cancelled, reservation expired), prepared products included
+     */
+    void release(String referenceCode);
+
+    /**
+     * Whether any line (in any status) was ever recorded for this reference
+     */
+    boolean hasReservation(String referenceCode);
+
+    /**
+     * References whose RESERVED lines are past their expiry time
+     */
+    List<String> findExpiredReferences(int limit);
+}
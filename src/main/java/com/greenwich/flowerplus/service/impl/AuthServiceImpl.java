@@ -88,6 +88,7 @@ public class AuthServiceImpl implements AuthService {
             return AuthResponse.builder()
                 .accessToken(accessToken)
                 .refreshToken(refreshToken)
+                .userId(user.getId())
                 .build();
 
         } catch (DisabledException e) {
@@ -167,6 +168,7 @@ public class AuthServiceImpl implements AuthService {
         return AuthResponse.builder()
             .accessToken(accessToken)
             .refreshToken(refreshToken)
+            .userId(user.getId())
             .build();
     }
 
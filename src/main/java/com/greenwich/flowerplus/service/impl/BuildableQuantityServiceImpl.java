@@ -0,0 +1,184 @@
+package com.greenwich.flowerplus.service.impl;
+
+import com.greenwich.flowerplus.service.BuildableQuantityService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Incremental buildable quantity index.
+ * <p>
+ * 1. Stock writers (reservation, commit/release, inventory movements) and recipe edits queue the ids in
+ *    buildable_quantity_outbox, in the SAME transaction as the change (rolled back change = nothing queued)
+ * 2. Every flush interval queued materials are mapped to products through idx_product_recipes_material
+ *    (material -> products reverse index), only those products are recomputed
+ * 3. The recompute is one set-based UPDATE per chunk, rows whose value did not change are not written
+ * 4. Outbox rows are deleted once every chunk succeeded, unless a newer change arrived meanwhile
+ * <p>
+ * The value is absolute (not a delta), so refreshing a product twice (retry, two instances flushing)
+ * is harmless, and a restart only delays the refresh instead of losing it.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BuildableQuantityServiceImpl implements BuildableQuantityService {
+
+    private static final int CHUNK_SIZE = 5000;
+    // Outbox rows claimed per flush, the rest waits for the next one
+    private static final int CLAIM_LIMIT = 5000;
+
+    private static final String MATERIAL = "MATERIAL";
+    private static final String PRODUCT = "PRODUCT";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    // ============================================================================
+    // SQL
+    // ============================================================================
+
+    // Sorted: concurrent writers lock the outbox rows in the same order
+    private static final String ENQUEUE_SQL = """
+            INSERT INTO buildable_quantity_outbox (target_type, target_id, change_seq, queued_at)
+            SELECT :targetType, v.id, 1, NOW()
+            FROM (VALUES :ids) AS v(id)
+            ORDER BY v.id
+            ON CONFLICT (target_type, target_id) DO UPDATE
+            SET change_seq = buildable_quantity_outbox.change_seq + 1,
+                queued_at = EXCLUDED.queued_at
+            """;
+
+    private static final String CLAIM_SQL = """
+            SELECT target_type, target_id, change_seq
+            FROM buildable_quantity_outbox
+            ORDER BY queued_at
+            LIMIT :limit
+            """;
+
+    // A change queued while the products were refreshed has a new change_seq -> row kept for the next flush
+    private static final String DELETE_CLAIMED_SQL = """
+            DELETE FROM buildable_quantity_outbox o
+            USING (VALUES :claimed) AS c(target_type, target_id, change_seq)
+            WHERE o.target_type = c.target_type
+              AND o.target_id = c.target_id
+              AND o.change_seq = c.change_seq
+            """;
+
+    private static final String FIND_AFFECTED_PRODUCTS_SQL = """
+            SELECT DISTINCT r.product_id
+            FROM product_recipes r
+            WHERE r.material_id IN (:materialIds)
+            """;
+
+    // %s = product id set. Missing stock row = 0 available, no recipe -> MIN() = NULL
+    private static final String REFRESH_SQL = """
+            UPDATE products p
+            SET buildable_quantity = c.qty
+            FROM (
+                SELECT t.id AS product_id,
+                       (SELECT MIN(GREATEST(COALESCE(ms.quantity - ms.reserved_quantity, 0), 0) / r.quantity_needed)
+                        FROM product_recipes r
+                        LEFT JOIN material_stocks ms ON ms.id = r.material_id
+                        WHERE r.product_id = t.id) AS qty
+                FROM (%s) t(id)
+            ) c
+            WHERE p.id = c.product_id
+              AND p.buildable_quantity IS DISTINCT FROM c.qty
+            """;
+
+    private static final String CHUNK_TARGET = "SELECT id FROM products WHERE id IN (:productIds)";
+    private static final String ALL_TARGET = "SELECT id FROM products";
+
+    // ============================================================================
+    // INCREMENTAL REFRESH
+    // ============================================================================
+
+    @Override
+    public void onMaterialsChanged(Collection<Long> materialIds) {
+        enqueue(MATERIAL, materialIds);
+    }
+
+    @Override
+    public void onProductsChanged(Collection<Long> productIds) {
+        enqueue(PRODUCT, productIds);
+    }
+
+    private void enqueue(String targetType, Collection<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return;
+        }
+        // Distinct: ON CONFLICT DO UPDATE cannot touch the same row twice in one statement
+        List<Object[]> rows = new TreeSet<>(ids).stream().map(id -> new Object[]{id}).toList();
+        jdbcTemplate.update(ENQUEUE_SQL, new MapSqlParameterSource()
+                .addValue("targetType", targetType)
+                .addValue("ids", rows));
+    }
+
+    private record Claimed(String targetType, long targetId, long changeSeq) {
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${app.buildable-quantity.flush-interval-ms:1000}")
+    public int flushPendingChanges() {
+        List<Claimed> claimed = jdbcTemplate.query(CLAIM_SQL, new MapSqlParameterSource("limit", CLAIM_LIMIT),
+                (rs, i) -> new Claimed(rs.getString("target_type"), rs.getLong("target_id"), rs.getLong("change_seq")));
+        if (claimed.isEmpty()) {
+            return 0;
+        }
+
+        Set<Long> materialIds = new TreeSet<>();
+        Set<Long> productIds = new TreeSet<>();
+        for (Claimed row : claimed) {
+            (MATERIAL.equals(row.targetType()) ? materialIds : productIds).add(row.targetId());
+        }
+        if (!materialIds.isEmpty()) {
+            productIds.addAll(jdbcTemplate.queryForList(FIND_AFFECTED_PRODUCTS_SQL,
+                    new MapSqlParameterSource("materialIds", materialIds), Long.class));
+        }
+
+        long start = System.currentTimeMillis();
+        List<Long> ids = new ArrayList<>(productIds);
+        int updated = 0;
+        for (int i = 0; i < ids.size(); i += CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(i, Math.min(i + CHUNK_SIZE, ids.size()));
+            try {
+                updated += jdbcTemplate.update(REFRESH_SQL.formatted(CHUNK_TARGET),
+                        new MapSqlParameterSource("productIds", chunk));
+            } catch (Exception e) {
+                // Absolute value -> outbox giữ nguyên, lần flush sau chạy lại an toàn
+                log.warn("Buildable quantity refresh failed for {} product(s), retried on the next flush: {}",
+                        chunk.size(), e.getMessage());
+                return updated;
+            }
+        }
+
+        jdbcTemplate.update(DELETE_CLAIMED_SQL, new MapSqlParameterSource("claimed", claimed.stream()
+                .map(row -> new Object[]{row.targetType(), row.targetId(), row.changeSeq()})
+                .toList()));
+
+        log.debug("Buildable quantity: {} material(s), {} product(s) queued -> {} checked, {} changed in {} ms",
+                materialIds.size(), claimed.size() - materialIds.size(), ids.size(), updated,
+                System.currentTimeMillis() - start);
+        return updated;
+    }
+
+    // ============================================================================
+    // FULL REBUILD
+    // ============================================================================
+
+    @Override
+    public int rebuildAll() {
+        long start = System.currentTimeMillis();
+        int updated = jdbcTemplate.update(REFRESH_SQL.formatted(ALL_TARGET), new MapSqlParameterSource());
+        log.info("Buildable quantity rebuild: {} product(s) changed in {} ms", updated, System.currentTimeMillis() - start);
+        return updated;
+    }
+}
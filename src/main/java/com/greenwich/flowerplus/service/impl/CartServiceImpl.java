@@ -0,0 +1,371 @@
+package com.greenwich.flowerplus.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.greenwich.flowerplus.common.enums.ErrorCode;
+import com.greenwich.flowerplus.common.enums.ProductStatus;
+import com.greenwich.flowerplus.common.exception.AppException;
+import com.greenwich.flowerplus.dto.response.CartResponse;
+import com.greenwich.flowerplus.service.CartService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Carts as Redis hashes: {@code cart:user:{userId}} / {@code cart:guest:{uuid}}, field = productId,
+ * value = quantity. Every write refreshes the TTL, so a cart expires after a period without changes.
+ * <p>
+ * Writes that depend on the current content (add, line limit, merge) run as Lua scripts: two tabs adding
+ * the same product cannot lose an increment. Reads hydrate the lines through a Caffeine cache keyed by
+ * product id; the misses of one cart are loaded with a single query, deleted products are cached too.
+ */
+@Service
+@Slf4j
+public class CartServiceImpl implements CartService {
+
+    private static final String USER_CART_PREFIX = "cart:user:";
+    private static final String GUEST_CART_PREFIX = "cart:guest:";
+
+    private static final long LINE_LIMIT_REACHED = -1;
+    private static final long ITEM_MISSING = -2;
+
+    // ARGV: productId, quantity, maxLines, maxQuantity, ttlSeconds -> new quantity, -1 = line limit reached
+    private static final RedisScript<Long> ADD_SCRIPT = new DefaultRedisScript<>("""
+            local current = tonumber(redis.call('HGET', KEYS[1], ARGV[1]) or '0')
+            if current == 0 and redis.call('HLEN', KEYS[1]) >= tonumber(ARGV[3]) then
+                return -1
+            end
+            local quantity = math.min(current + tonumber(ARGV[2]), tonumber(ARGV[4]))
+            redis.call('HSET', KEYS[1], ARGV[1], quantity)
+            redis.call('EXPIRE', KEYS[1], ARGV[5])
+            return quantity
+            """, Long.class);
+
+    // ARGV: productId, quantity, ttlSeconds -> quantity, -2 = product not in the cart
+    private static final RedisScript<Long> UPDATE_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('HEXISTS', KEYS[1], ARGV[1]) == 0 then
+                return -2
+            end
+            if tonumber(ARGV[2]) == 0 then
+                redis.call('HDEL', KEYS[1], ARGV[1])
+            else
+                redis.call('HSET', KEYS[1], ARGV[1], ARGV[2])
+            end
+            redis.call('EXPIRE', KEYS[1], ARGV[3])
+            return tonumber(ARGV[2])
+            """, Long.class);
+
+    // KEYS: guest cart, user cart. ARGV: maxLines, maxQuantity, ttlSeconds -> products merged
+    // Lines beyond the user's line limit are dropped with the guest cart
+    private static final RedisScript<Long> MERGE_SCRIPT = new DefaultRedisScript<>("""
+            local guest = redis.call('HGETALL', KEYS[1])
+            if #guest == 0 then
+                return 0
+            end
+            local lines = redis.call('HLEN', KEYS[2])
+            local merged = 0
+            for i = 1, #guest, 2 do
+                local current = tonumber(redis.call('HGET', KEYS[2], guest[i]) or '0')
+                if current > 0 or lines < tonumber(ARGV[1]) then
+                    if current == 0 then
+                        lines = lines + 1
+                    end
+                    redis.call('HSET', KEYS[2], guest[i], math.min(current + tonumber(guest[i + 1]), tonumber(ARGV[2])))
+                    merged = merged + 1
+                end
+            end
+            redis.call('DEL', KEYS[1])
+            redis.call('EXPIRE', KEYS[2], ARGV[3])
+            return merged
+            """, Long.class);
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final StringRedisTemplate redisTemplate;
+    private final Duration guestTtl;
+    private final Duration userTtl;
+    private final int maxLines;
+    private final int maxQuantity;
+
+    // Product data shown in carts, a few seconds old at most (price/stock changes show up after the TTL)
+    private final Cache<Long, CartProduct> productCache;
+
+    public CartServiceImpl(NamedParameterJdbcTemplate jdbcTemplate,
+                           StringRedisTemplate redisTemplate,
+                           @Value("${app.cart.guest-ttl-days:7}") int guestTtlDays,
+                           @Value("${app.cart.user-ttl-days:30}") int userTtlDays,
+                           @Value("${app.cart.max-lines:50}") int maxLines,
+                           @Value("${app.cart.max-quantity:100}") int maxQuantity,
+                           @Value("${app.cart.product-cache-seconds:30}") long productCacheSeconds,
+                           @Value("${app.cart.product-cache-size:10000}") long productCacheSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.redisTemplate = redisTemplate;
+        this.guestTtl = Duration.ofDays(guestTtlDays);
+        this.userTtl = Duration.ofDays(userTtlDays);
+        this.maxLines = maxLines;
+        this.maxQuantity = maxQuantity;
+        this.productCache = Caffeine.newBuilder()
+                .maximumSize(productCacheSize)
+                .expireAfterWrite(Duration.ofSeconds(productCacheSeconds))
+                .build();
+    }
+
+    // ============================================================================
+    // SQL
+    // ============================================================================
+
+    // Cache misses of one cart in one round trip (pk lookup + idx_product_assets_thumbnail)
+    private static final String CART_PRODUCTS_SQL = """
+            SELECT p.id, p.name, p.slug, p.selling_price, p.status,
+                   p.prepared_quantity, p.is_make_to_order, p.buildable_quantity,
+                   COALESCE(p.thumbnail,
+                            (SELECT a.url FROM product_assets a
+                             WHERE a.product_id = p.id AND a.is_thumbnail AND a.deleted_at IS NULL
+                             LIMIT 1)) AS thumbnail
+            FROM products p
+            WHERE p.id IN (:ids)
+              AND p.deleted_at IS NULL
+            """;
+
+    // ============================================================================
+    // CART
+    // ============================================================================
+
+    @Override
+    public String newGuestCartId() {
+        return UUID.randomUUID().toString();
+    }
+
+    @Override
+    public boolean isValidGuestCartId(String guestCartId) {
+        if (guestCartId == null || guestCartId.length() != 36) {
+            return false;
+        }
+        try {
+            UUID.fromString(guestCartId);
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public CartResponse getCart(CartOwner owner) {
+        if (!owner.hasCart()) {
+            return toResponse(Map.of());
+        }
+        return toResponse(readLines(cartKey(owner)));
+    }
+
+    @Override
+    public CartResponse addItem(CartOwner owner, Long productId, int quantity) {
+        CartProduct product = hydrate(Set.of(productId)).get(productId);
+        if (product == null || product.deleted()) {
+            throw new AppException(ErrorCode.PRODUCT_NOT_FOUND);
+        }
+        if (product.status() != ProductStatus.ACTIVE) {
+            throw new AppException(ErrorCode.CART_PRODUCT_UNAVAILABLE);
+        }
+
+        String key = cartKey(owner);
+        Long result = redisTemplate.execute(ADD_SCRIPT, List.of(key),
+                productId.toString(), String.valueOf(quantity), String.valueOf(maxLines),
+                String.valueOf(maxQuantity), String.valueOf(ttlOf(owner).toSeconds()));
+        if (result != null && result == LINE_LIMIT_REACHED) {
+            throw new AppException(ErrorCode.CART_LINE_LIMIT_EXCEEDED);
+        }
+        return toResponse(readLines(key));
+    }
+
+    @Override
+    public CartResponse updateItem(CartOwner owner, Long productId, int quantity) {
+        if (!owner.hasCart()) {
+            throw new AppException(ErrorCode.CART_ITEM_NOT_FOUND);
+        }
+        String key = cartKey(owner);
+        Long result = redisTemplate.execute(UPDATE_SCRIPT, List.of(key),
+                productId.toString(), String.valueOf(Math.min(quantity, maxQuantity)),
+                String.valueOf(ttlOf(owner).toSeconds()));
+        if (result != null && result == ITEM_MISSING) {
+            throw new AppException(ErrorCode.CART_ITEM_NOT_FOUND);
+        }
+        return toResponse(readLines(key));
+    }
+
+    @Override
+    public CartResponse removeItem(CartOwner owner, Long productId) {
+        if (!owner.hasCart()) {
+            return toResponse(Map.of());
+        }
+        String key = cartKey(owner);
+        redisTemplate.opsForHash().delete(key, productId.toString());
+        return toResponse(readLines(key));
+    }
+
+    @Override
+    public void clearCart(CartOwner owner) {
+        if (!owner.hasCart()) {
+            return;
+        }
+        redisTemplate.delete(cartKey(owner));
+    }
+
+    @Override
+    public int mergeGuestCart(String guestCartId, Long userId) {
+        if (!isValidGuestCartId(guestCartId)) {
+            return 0;
+        }
+        Long merged = redisTemplate.execute(MERGE_SCRIPT,
+                List.of(GUEST_CART_PREFIX + guestCartId, USER_CART_PREFIX + userId),
+                String.valueOf(maxLines), String.valueOf(maxQuantity), String.valueOf(userTtl.toSeconds()));
+        int count = merged == null ? 0 : merged.intValue();
+        if (count > 0) {
+            log.info("Merged {} guest cart product(s) into cart of user {}", count, userId);
+        }
+        return count;
+    }
+
+    // ============================================================================
+    // HELPERS
+    // ============================================================================
+
+    private String cartKey(CartOwner owner) {
+        if (owner.userId() != null) {
+            return USER_CART_PREFIX + owner.userId();
+        }
+        if (!isValidGuestCartId(owner.guestCartId())) {
+            throw new AppException(ErrorCode.INVALID_REQUEST);
+        }
+        return GUEST_CART_PREFIX + owner.guestCartId();
+    }
+
+    private Duration ttlOf(CartOwner owner) {
+        return owner.userId() != null ? userTtl : guestTtl;
+    }
+
+    // productId -> quantity; fields that are not product ids (manual edits) are skipped
+    private Map<Long, Integer> readLines(String key) {
+        Map<Object, Object> entries = redisTemplate.opsForHash().entries(key);
+        Map<Long, Integer> lines = new HashMap<>();
+        entries.forEach((field, value) -> {
+            try {
+                lines.put(Long.valueOf(field.toString()), Integer.valueOf(value.toString()));
+            } catch (NumberFormatException e) {
+                log.warn("Skipping invalid cart line {}={} in {}", field, value, key);
+            }
+        });
+        return lines;
+    }
+
+    private CartResponse toResponse(Map<Long, Integer> lines) {
+        if (lines.isEmpty()) {
+            return CartResponse.builder().items(List.of()).totalQuantity(0).subTotal(BigDecimal.ZERO).build();
+        }
+
+        Map<Long, CartProduct> products = hydrate(lines.keySet());
+        List<CartResponse.Item> items = new ArrayList<>(lines.size());
+        int totalQuantity = 0;
+        BigDecimal subTotal = BigDecimal.ZERO;
+
+        for (Map.Entry<Long, Integer> line : lines.entrySet()) {
+            CartProduct product = products.getOrDefault(line.getKey(), CartProduct.missing(line.getKey()));
+            int quantity = line.getValue();
+            boolean available = product.isOrderable();
+            BigDecimal lineTotal = product.price() != null
+                    ? product.price().multiply(BigDecimal.valueOf(quantity))
+                    : BigDecimal.ZERO;
+
+            items.add(CartResponse.Item.builder()
+                    .productId(line.getKey())
+                    .name(product.name())
+                    .slug(product.slug())
+                    .thumbnail(product.thumbnail())
+                    .unitPrice(product.price())
+                    .quantity(quantity)
+                    .lineTotal(lineTotal)
+                    .availableStock(product.availableStock())
+                    .available(available)
+                    .build());
+
+            if (available) {
+                totalQuantity += quantity;
+                subTotal = subTotal.add(lineTotal);
+            }
+        }
+
+        // Hash has no order: available first, then by name
+        items.sort(Comparator.comparing((CartResponse.Item i) -> !i.available())
+                .thenComparing(CartResponse.Item::name, Comparator.nullsLast(Comparator.naturalOrder())));
+
+        return CartResponse.builder().items(items).totalQuantity(totalQuantity).subTotal(subTotal).build();
+    }
+
+    // Caffeine calls the loader once with every missing id
+    private Map<Long, CartProduct> hydrate(Set<Long> productIds) {
+        return productCache.getAll(productIds, this::loadProducts);
+    }
+
+    private Map<Long, CartProduct> loadProducts(Set<? extends Long> productIds) {
+        Map<Long, CartProduct> loaded = new HashMap<>();
+        jdbcTemplate.query(CART_PRODUCTS_SQL, new MapSqlParameterSource("ids", productIds),
+                rs -> {
+                    CartProduct product = mapProduct(rs);
+                    loaded.put(product.id(), product);
+                });
+        // Deleted / unknown ids are cached as missing, so an old cart does not query them on every read
+        for (Long productId : productIds) {
+            loaded.putIfAbsent(productId, CartProduct.missing(productId));
+        }
+        log.debug("Loaded {} cart product(s) from database", productIds.size());
+        return loaded;
+    }
+
+    private CartProduct mapProduct(ResultSet rs) throws SQLException {
+        int prepared = rs.getInt("prepared_quantity");
+        boolean makeToOrder = rs.getBoolean("is_make_to_order");
+        Integer buildable = rs.getObject("buildable_quantity", Integer.class);
+
+        // Same rules as Product.isInStock() / Product.getAvailableStock()
+        boolean inStock = prepared > 0 || (makeToOrder && (buildable == null || buildable > 0));
+        int availableStock = prepared + (makeToOrder && buildable != null ? buildable : 0);
+
+        return new CartProduct(
+                rs.getLong("id"),
+                rs.getString("name"),
+                rs.getString("slug"),
+                rs.getString("thumbnail"),
+                rs.getBigDecimal("selling_price"),
+                ProductStatus.valueOf(rs.getString("status")),
+                availableStock,
+                inStock,
+                false);
+    }
+
+    private record CartProduct(Long id, String name, String slug, String thumbnail, BigDecimal price,
+                               ProductStatus status, int availableStock, boolean inStock, boolean deleted) {
+
+        static CartProduct missing(Long id) {
+            return new CartProduct(id, null, null, null, null, null, 0, false, true);
+        }
+
+        boolean isOrderable() {
+            return !deleted && status == ProductStatus.ACTIVE && inStock;
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.greenwich.flowerplus.service.impl;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.greenwich.flowerplus.common.enums.ExportFormat;
+import jakarta.persistence.Tuple;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Writes exported catalog rows to the response stream, one row at a time.
+ * <p>
+ * Nothing is kept after a row is written, so memory stays flat whatever the row count is.
+ * Column order = tuple order = {@code columns}.
+ */
+abstract class CatalogExportWriter {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    protected final List<String> columns;
+
+    protected CatalogExportWriter(List<String> columns) {
+        this.columns = columns;
+    }
+
+    static CatalogExportWriter create(ExportFormat format, OutputStream out, List<String> columns) throws IOException {
+        return switch (format) {
+            case CSV -> new Csv(out, columns);
+            case NDJSON -> new Ndjson(out, columns);
+        };
+    }
+
+    abstract void writeHeader() throws IOException;
+
+    abstract void writeRow(Tuple row) throws IOException;
+
+    abstract void flush() throws IOException;
+
+    // ============================================================================
+    // CSV (RFC 4180, UTF-8 with BOM so Excel shows Vietnamese correctly)
+    // ============================================================================
+
+    private static final class Csv extends CatalogExportWriter {
+
+        private final Writer writer;
+
+        private Csv(OutputStream out, List<String> columns) {
+            super(columns);
+            this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+        }
+
+        @Override
+        void writeHeader() throws IOException {
+            writer.write('\uFEFF');
+            writer.write(String.join(",", columns));
+            writer.write("\r\n");
+        }
+
+        @Override
+        void writeRow(Tuple row) throws IOException {
+            for (int i = 0; i < columns.size(); i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                writer.write(escape(row.get(i)));
+            }
+            writer.write("\r\n");
+        }
+
+        @Override
+        void flush() throws IOException {
+            writer.flush();
+        }
+
+        private static String escape(Object value) {
+            if (value == null) {
+                return "";
+            }
+            String text = switch (value) {
+                case BigDecimal decimal -> decimal.toPlainString();
+                case Enum<?> constant -> constant.name();
+                // Chặn CSV injection khi staff mở file bằng Excel (tên sản phẩm bắt đầu bằng = + - @)
+                case String s when !s.isEmpty() && "=+-@\t\r".indexOf(s.charAt(0)) >= 0 -> "'" + s;
+                default -> value.toString();
+            };
+            boolean needsQuote = text.indexOf(',') >= 0 || text.indexOf('"') >= 0
+                    || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0;
+            return needsQuote ? '"' + text.replace("\"", "\"\"") + '"' : text;
+        }
+    }
+
+    // ============================================================================
+    // NDJSON (one JSON object per line)
+    // ============================================================================
+
+    private static final class Ndjson extends CatalogExportWriter {
+
+        private final JsonGenerator generator;
+
+        private Ndjson(OutputStream out, List<String> columns) throws IOException {
+            super(columns);
+            this.generator = JSON_FACTORY.createGenerator(out);
+            // The servlet container owns the response stream
+            this.generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        }
+
+        @Override
+        void writeHeader() {
+            // NDJSON has no header line
+        }
+
+        @Override
+        void writeRow(Tuple row) throws IOException {
+            generator.writeStartObject();
+            for (int i = 0; i < columns.size(); i++) {
+                generator.writeFieldName(columns.get(i));
+                writeValue(columns.get(i), row.get(i));
+            }
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        void flush() throws IOException {
+            generator.flush();
+        }
+
+        private void writeValue(String column, Object value) throws IOException {
+            switch (value) {
+                case null -> generator.writeNull();
+                // IDs are TSIDs, serialized as string like everywhere else in the API (JS number precision)
+                case Long id when "id".equals(column) -> generator.writeString(id.toString());
+                case BigDecimal decimal -> generator.writeNumber(decimal);
+                case Long number -> generator.writeNumber(number);
+                case Integer number -> generator.writeNumber(number);
+                case Double number -> generator.writeNumber(number);
+                case Boolean flag -> generator.writeBoolean(flag);
+                case Instant instant -> generator.writeString(instant.toString());
+                case Enum<?> constant -> generator.writeString(constant.name());
+                default -> generator.writeString(value.toString());
+            }
+        }
+    }
+}
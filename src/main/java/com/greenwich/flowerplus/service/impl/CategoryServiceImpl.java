@@ -7,6 +7,7 @@ import com.greenwich.flowerplus.dto.request.CategoryRequest;
 import com.greenwich.flowerplus.dto.response.CategoryPublicResponse;
 import com.greenwich.flowerplus.dto.response.CategoryResponse;
 import com.greenwich.flowerplus.entity.Category;
+import com.greenwich.flowerplus.mapper.AuditorMapper;
 import com.greenwich.flowerplus.mapper.CategoryMapper;
 import com.greenwich.flowerplus.repository.CategoryRepository;
 import com.greenwich.flowerplus.service.CategoryService;
@@ -25,6 +26,7 @@ public class CategoryServiceImpl implements CategoryService {
 
     private final CategoryRepository categoryRepository;
     private final CategoryMapper categoryMapper;
+    private final AuditorMapper auditorMapper;
 
     @Override
     @Transactional(rollbackFor = Exception.class)
@@ -106,6 +108,8 @@ public class CategoryServiceImpl implements CategoryService {
     @Transactional(readOnly = true)
     public List<CategoryResponse> getAllCategories() {
         List<Category> categories = categoryRepository.findByDeletedAtIsNullOrderByNameAsc();
+        // Children are part of the same list, so one preload covers the whole tree
+        auditorMapper.preloadFor(categories);
         return categoryMapper.toResponseList(categories);
     }
 
@@ -0,0 +1,628 @@
+package com.greenwich.flowerplus.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.greenwich.flowerplus.common.enums.ErrorCode;
+import com.greenwich.flowerplus.common.exception.AppException;
+import com.greenwich.flowerplus.dto.response.DeliverySlotAvailabilityResponse;
+import com.greenwich.flowerplus.service.DeliverySlotService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Slot capacity as Redis counters guarded by Lua.
+ * <p>
+ * 1. Counter {@code delivery-slot:remaining:{date}:{slot}} = capacity - booked units. The reserve script
+ *    checks and decrements in one atomic step: no row lock, no read-modify-write race between instances
+ * 2. Every booking holds a per-slot transaction advisory lock: shared when the counter took it, exclusive
+ *    for the writers that bypass the counter. A missing counter (first booking of the day, Redis restart)
+ *    is rebuilt from delivery_slot_bookings under the exclusive lock, so no counted booking is in flight
+ * 3. Redis unreachable: the booking is checked against delivery_slot_bookings under the exclusive lock and
+ *    the slot/date is marked stale in delivery_slot_stale_counters, in the same transaction. The marker is
+ *    shared by all instances: checkout re-reads it under the shared lock and books a stale slot through
+ *    Postgres, serialized per slot. resyncStaleCounters rebuilds the counter under the exclusive lock
+ * <p>
+ * Units decremented by a checkout that rolls back are given back after completion. A checkout that
+ * decremented a counter just before it is rebuilt is not seen by the rebuild (bounded overbooking while
+ * a counter comes back).
+ */
+@Service
+@Slf4j
+public class DeliverySlotServiceImpl implements DeliverySlotService {
+
+    private static final String COUNTER_PREFIX = "delivery-slot:remaining:";
+    private static final long COUNTER_MISSING = -2;
+
+    // -2 = counter missing, -1 = not enough capacity, otherwise remaining after the decrement
+    private static final RedisScript<Long> RESERVE_SCRIPT = new DefaultRedisScript<>("""
+            local remaining = redis.call('GET', KEYS[1])
+            if not remaining then
+                return -2
+            end
+            local units = tonumber(ARGV[1])
+            if tonumber(remaining) < units then
+                return -1
+            end
+            return redis.call('DECRBY', KEYS[1], units)
+            """, Long.class);
+
+    // Only an existing counter is adjusted: a missing one is rebuilt from bookings on next use
+    private static final RedisScript<Long> ADJUST_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('EXISTS', KEYS[1]) == 1 then
+                return redis.call('INCRBY', KEYS[1], ARGV[1])
+            end
+            return -2
+            """, Long.class);
+
+    private static final int RESYNC_BATCH = 100;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final StringRedisTemplate redisTemplate;
+    private final AuditorAware<String> auditorProvider;
+    // Stale markers written after the checkout/release transaction completed, and one rebuild per counter
+    private final TransactionTemplate requiresNew;
+    private final ZoneId zone;
+    private final int daysAhead;
+
+    // Grid per "today" (shop time), a few seconds old at most
+    private final Cache<LocalDate, List<DeliverySlotAvailabilityResponse>> gridCache;
+
+    public DeliverySlotServiceImpl(NamedParameterJdbcTemplate jdbcTemplate,
+                                   StringRedisTemplate redisTemplate,
+                                   AuditorAware<String> auditorProvider,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${app.delivery-slot.zone:Asia/Ho_Chi_Minh}") String zone,
+                                   @Value("${app.delivery-slot.days-ahead:14}") int daysAhead,
+                                   @Value("${app.delivery-slot.grid-cache-ms:2000}") long gridCacheMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.redisTemplate = redisTemplate;
+        this.auditorProvider = auditorProvider;
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.zone = ZoneId.of(zone);
+        this.daysAhead = daysAhead;
+        this.gridCache = Caffeine.newBuilder()
+                .maximumSize(4)
+                .expireAfterWrite(Duration.ofMillis(gridCacheMs))
+                .build();
+    }
+
+    // ============================================================================
+    // SQL
+    // ============================================================================
+
+    private static final String SLOT_SQL = """
+            SELECT s.code, s.label, s.start_time, s.end_time, s.capacity, s.active
+            FROM delivery_slots s
+            WHERE s.code = :slotCode
+            """;
+
+    private static final String ACTIVE_SLOTS_SQL = """
+            SELECT s.code, s.label, s.start_time, s.end_time, s.capacity, s.active
+            FROM delivery_slots s
+            WHERE s.active
+            ORDER BY s.sort_order, s.code
+            """;
+
+    private static final String CAPACITY_OVERRIDES_SQL = """
+            SELECT c.delivery_date, c.slot_code, c.capacity
+            FROM delivery_slot_capacities c
+            WHERE c.delivery_date BETWEEN :from AND :to
+            """;
+
+    // Index-only on idx_delivery_slot_bookings_active
+    private static final String BOOKED_UNITS_SQL = """
+            SELECT b.delivery_date, b.slot_code, SUM(b.units) AS units
+            FROM delivery_slot_bookings b
+            WHERE b.status = 'ACTIVE'
+              AND b.delivery_date BETWEEN :from AND :to
+            GROUP BY b.delivery_date, b.slot_code
+            """;
+
+    private static final String REMAINING_SQL = """
+            SELECT COALESCE((SELECT c.capacity FROM delivery_slot_capacities c
+                             WHERE c.delivery_date = :deliveryDate AND c.slot_code = :slotCode), s.capacity)
+                   - (SELECT COALESCE(SUM(b.units), 0) FROM delivery_slot_bookings b
+                      WHERE b.delivery_date = :deliveryDate AND b.slot_code = :slotCode AND b.status = 'ACTIVE')
+            FROM delivery_slots s
+            WHERE s.code = :slotCode
+            """;
+
+    private static final String INSERT_BOOKING_SQL = """
+            INSERT INTO delivery_slot_bookings (order_id, delivery_date, slot_code, units, status, created_at)
+            VALUES (:orderId, :deliveryDate, :slotCode, :units, 'ACTIVE', NOW())
+            """;
+
+    // Booking through the counter: many at once, none while a writer bypassing the counter holds the slot
+    private static final String SHARED_SLOT_LOCK_SQL = "SELECT pg_advisory_xact_lock_shared(hashtext(:lockKey))";
+
+    // Redis fallback, counter rebuild, stale marker: waits for the bookings in flight, the next statement sees them
+    private static final String SLOT_LOCK_SQL = "SELECT pg_advisory_xact_lock(hashtext(:lockKey))";
+
+    private static final String FALLBACK_INSERT_BOOKING_SQL = """
+            INSERT INTO delivery_slot_bookings (order_id, delivery_date, slot_code, units, status, created_at)
+            SELECT :orderId, :deliveryDate, :slotCode, :units, 'ACTIVE', NOW()
+            WHERE (%s) >= :units
+            """.formatted(REMAINING_SQL.strip());
+
+    private static final String STALE_SQL = """
+            SELECT EXISTS (SELECT 1 FROM delivery_slot_stale_counters
+                           WHERE delivery_date = :deliveryDate AND slot_code = :slotCode)
+            """;
+
+    private static final String MARK_STALE_SQL = """
+            INSERT INTO delivery_slot_stale_counters (delivery_date, slot_code, marked_at)
+            VALUES (:deliveryDate, :slotCode, NOW())
+            ON CONFLICT (delivery_date, slot_code) DO NOTHING
+            """;
+
+    private static final String STALE_COUNTERS_SQL = """
+            SELECT delivery_date, slot_code
+            FROM delivery_slot_stale_counters
+            ORDER BY marked_at
+            LIMIT :limit
+            """;
+
+    private static final String STALE_IN_RANGE_SQL = """
+            SELECT delivery_date, slot_code
+            FROM delivery_slot_stale_counters
+            WHERE delivery_date BETWEEN :from AND :to
+            """;
+
+    private static final String UNMARK_STALE_SQL = """
+            DELETE FROM delivery_slot_stale_counters
+            WHERE delivery_date = :deliveryDate AND slot_code = :slotCode
+            """;
+
+    private static final String RELEASE_SQL = """
+            UPDATE delivery_slot_bookings
+            SET status = 'RELEASED', released_at = NOW()
+            WHERE order_id = :orderId
+              AND status = 'ACTIVE'
+            RETURNING delivery_date, slot_code, units
+            """;
+
+    private static final String CAPACITY_OF_SQL = """
+            SELECT COALESCE((SELECT c.capacity FROM delivery_slot_capacities c
+                             WHERE c.delivery_date = :deliveryDate AND c.slot_code = :slotCode), s.capacity)
+            FROM delivery_slots s
+            WHERE s.code = :slotCode
+            """;
+
+    private static final String UPSERT_DATE_CAPACITY_SQL = """
+            INSERT INTO delivery_slot_capacities (delivery_date, slot_code, capacity, updated_at, updated_by)
+            VALUES (:deliveryDate, :slotCode, :capacity, NOW(), :actor)
+            ON CONFLICT (delivery_date, slot_code) DO UPDATE
+                SET capacity   = EXCLUDED.capacity,
+                    updated_at = EXCLUDED.updated_at,
+                    updated_by = EXCLUDED.updated_by
+            """;
+
+    private static final String UPDATE_DEFAULT_CAPACITY_SQL = """
+            UPDATE delivery_slots
+            SET capacity = :capacity, updated_at = NOW(), updated_by = :actor
+            WHERE code = :slotCode
+            """;
+
+    private record SlotRow(String code, String label, LocalTime startTime, LocalTime endTime, int capacity,
+                           boolean active) {
+    }
+
+    // ============================================================================
+    // RESERVE / RELEASE
+    // ============================================================================
+
+    @Override
+    @Transactional
+    public void reserve(Long orderId, LocalDate deliveryDate, String slotCode, int units) {
+        if (deliveryDate == null || slotCode == null) {
+            throw new AppException(ErrorCode.DELIVERY_SLOT_UNAVAILABLE);
+        }
+        SlotRow slot = findSlot(slotCode);
+        if (!isBookable(deliveryDate, slot)) {
+            throw new AppException(ErrorCode.DELIVERY_SLOT_UNAVAILABLE);
+        }
+
+        String key = counterKey(deliveryDate, slot.code());
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("orderId", orderId)
+                .addValue("deliveryDate", deliveryDate)
+                .addValue("slotCode", slot.code())
+                .addValue("units", units);
+
+        Long remaining = reserveInRedis(key, params, units);
+        if (remaining == null) {
+            reserveWithoutRedis(key, params);
+            return;
+        }
+
+        // Marker đọc sau khi có lock: fallback nào đã commit trước đó đều thấy được
+        lockSlot(SHARED_SLOT_LOCK_SQL, key);
+        if (isStale(params)) {
+            if (remaining >= 0) {
+                // Counter sai rồi, resync sẽ ghi đè; không đánh dấu lại khi Redis lỗi (đang giữ shared lock)
+                runScript(ADJUST_SCRIPT, key, units);
+            }
+            reserveOverStaleCounter(key, params);
+            return;
+        }
+        if (remaining < 0) {
+            throw new AppException(ErrorCode.DELIVERY_SLOT_FULL);
+        }
+
+        // Checkout rollback -> trả lại số đã trừ trong Redis
+        afterRollback(() -> adjustCounter(deliveryDate, slot.code(), units));
+        jdbcTemplate.update(INSERT_BOOKING_SQL, params);
+    }
+
+    // null = Redis unreachable
+    private Long reserveInRedis(String key, MapSqlParameterSource params, int units) {
+        Long result = runScript(RESERVE_SCRIPT, key, units);
+        if (result == null || result != COUNTER_MISSING) {
+            return result;
+        }
+
+        // Rebuild under the exclusive lock: bookings counted by the previous counter are all committed
+        lockSlot(SLOT_LOCK_SQL, key);
+        Integer initial = jdbcTemplate.queryForObject(REMAINING_SQL, params, Integer.class);
+        try {
+            redisTemplate.opsForValue().setIfAbsent(key, String.valueOf(initial), counterTtl(params));
+        } catch (DataAccessException e) {
+            log.warn("Redis unavailable, delivery slot counter {} not rebuilt: {}", key, e.getMessage());
+            return null;
+        }
+        return runScript(RESERVE_SCRIPT, key, units);
+    }
+
+    // Redis unreachable: no counted booking in flight while this one is checked, the counter misses it afterwards
+    private void reserveWithoutRedis(String key, MapSqlParameterSource params) {
+        lockSlot(SLOT_LOCK_SQL, key);
+        insertCheckedBooking(params);
+        jdbcTemplate.update(MARK_STALE_SQL, params);
+        log.warn("Delivery slot {} booked through the Postgres fallback", key);
+    }
+
+    // Shared lock already held (no counted booking can start): serialize the Postgres bookings among themselves
+    private void reserveOverStaleCounter(String key, MapSqlParameterSource params) {
+        lockSlot(SLOT_LOCK_SQL, key + ":stale");
+        insertCheckedBooking(params);
+    }
+
+    private void insertCheckedBooking(MapSqlParameterSource params) {
+        if (jdbcTemplate.update(FALLBACK_INSERT_BOOKING_SQL, params) == 0) {
+            throw new AppException(ErrorCode.DELIVERY_SLOT_FULL);
+        }
+    }
+
+    @Override
+    @Transactional
+    public void release(Long orderId) {
+        jdbcTemplate.query(RELEASE_SQL, new MapSqlParameterSource("orderId", orderId), rs -> {
+            LocalDate deliveryDate = rs.getDate("delivery_date").toLocalDate();
+            String slotCode = rs.getString("slot_code");
+            int units = rs.getInt("units");
+            afterCommit(() -> adjustCounter(deliveryDate, slotCode, units));
+        });
+    }
+
+    private Long runScript(RedisScript<Long> script, String key, long arg) {
+        try {
+            return redisTemplate.execute(script, List.of(key), String.valueOf(arg));
+        } catch (DataAccessException e) {
+            log.warn("Redis unavailable for delivery slot counter {}: {}", key, e.getMessage());
+            return null;
+        }
+    }
+
+    // Called once the caller's transaction completed (its locks are released)
+    private void adjustCounter(LocalDate deliveryDate, String slotCode, long delta) {
+        String key = counterKey(deliveryDate, slotCode);
+        if (runScript(ADJUST_SCRIPT, key, delta) == null) {
+            MapSqlParameterSource params = new MapSqlParameterSource()
+                    .addValue("deliveryDate", deliveryDate)
+                    .addValue("slotCode", slotCode);
+            requiresNew.executeWithoutResult(status -> {
+                lockSlot(SLOT_LOCK_SQL, key);
+                jdbcTemplate.update(MARK_STALE_SQL, params);
+            });
+        }
+        gridCache.invalidateAll();
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${app.delivery-slot.resync-interval-ms:5000}")
+    public int resyncStaleCounters() {
+        List<MapSqlParameterSource> stale = jdbcTemplate.query(STALE_COUNTERS_SQL,
+                new MapSqlParameterSource("limit", RESYNC_BATCH), (rs, rowNum) -> new MapSqlParameterSource()
+                        .addValue("deliveryDate", rs.getDate("delivery_date").toLocalDate())
+                        .addValue("slotCode", rs.getString("slot_code")));
+
+        int rebuilt = 0;
+        for (MapSqlParameterSource params : stale) {
+            if (Boolean.TRUE.equals(requiresNew.execute(status -> rebuildStaleCounter(params, status)))) {
+                rebuilt++;
+            }
+        }
+        if (rebuilt > 0) {
+            gridCache.invalidateAll();
+            log.info("Rebuilt {} stale delivery slot counter(s) from bookings", rebuilt);
+        }
+        return rebuilt;
+    }
+
+    // Exclusive lock: no booking in flight, REMAINING_SQL sees every booking the counter missed
+    private boolean rebuildStaleCounter(MapSqlParameterSource params, TransactionStatus status) {
+        LocalDate deliveryDate = (LocalDate) params.getValue("deliveryDate");
+        String key = counterKey(deliveryDate, (String) params.getValue("slotCode"));
+        lockSlot(SLOT_LOCK_SQL, key);
+        if (jdbcTemplate.update(UNMARK_STALE_SQL, params) == 0) {
+            // Instance khác đã rebuild
+            return false;
+        }
+
+        Integer remaining = deliveryDate.isBefore(LocalDate.now(zone))
+                ? null
+                : jdbcTemplate.queryForObject(REMAINING_SQL, params, Integer.class);
+        try {
+            if (remaining == null) {
+                redisTemplate.delete(key);
+            } else {
+                redisTemplate.opsForValue().set(key, String.valueOf(remaining), counterTtl(params));
+            }
+            return true;
+        } catch (DataAccessException e) {
+            // Marker giữ lại, thử lại ở lần sau
+            status.setRollbackOnly();
+            return false;
+        }
+    }
+
+    private void lockSlot(String lockSql, String lockKey) {
+        jdbcTemplate.query(lockSql, new MapSqlParameterSource("lockKey", lockKey), rs -> {
+        });
+    }
+
+    private boolean isStale(MapSqlParameterSource params) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(STALE_SQL, params, Boolean.class));
+    }
+
+    // ============================================================================
+    // AVAILABILITY GRID
+    // ============================================================================
+
+    @Override
+    public List<DeliverySlotAvailabilityResponse> getAvailability(int days) {
+        int size = Math.clamp(days, 1, daysAhead);
+        List<DeliverySlotAvailabilityResponse> grid = gridCache.get(LocalDate.now(zone), this::buildGrid);
+        return grid.subList(0, Math.min(size, grid.size()));
+    }
+
+    // 1 query slots + 1 query capacities + 1 query stale markers + 1 MGET; bookings only read for counters
+    // not in Redis or marked stale
+    private List<DeliverySlotAvailabilityResponse> buildGrid(LocalDate today) {
+        LocalDate last = today.plusDays(daysAhead - 1L);
+        MapSqlParameterSource range = new MapSqlParameterSource()
+                .addValue("from", today)
+                .addValue("to", last);
+
+        List<SlotRow> slots = jdbcTemplate.query(ACTIVE_SLOTS_SQL, new MapSqlParameterSource(), this::mapSlot);
+        Map<String, Integer> overrides = new HashMap<>();
+        jdbcTemplate.query(CAPACITY_OVERRIDES_SQL, range, rs -> {
+            overrides.put(counterKey(rs.getDate("delivery_date").toLocalDate(), rs.getString("slot_code")),
+                    rs.getInt("capacity"));
+        });
+
+        List<String> keys = new ArrayList<>();
+        for (LocalDate date = today; !date.isAfter(last); date = date.plusDays(1)) {
+            for (SlotRow slot : slots) {
+                keys.add(counterKey(date, slot.code()));
+            }
+        }
+        List<String> counters = readCounters(keys);
+        Set<String> stale = new HashSet<>();
+        jdbcTemplate.query(STALE_IN_RANGE_SQL, range, rs -> {
+            stale.add(counterKey(rs.getDate("delivery_date").toLocalDate(), rs.getString("slot_code")));
+        });
+
+        Map<String, Integer> booked = null;
+        List<DeliverySlotAvailabilityResponse> grid = new ArrayList<>(daysAhead);
+        int index = 0;
+        for (LocalDate date = today; !date.isAfter(last); date = date.plusDays(1)) {
+            List<DeliverySlotAvailabilityResponse.Slot> daySlots = new ArrayList<>(slots.size());
+            for (SlotRow slot : slots) {
+                String key = keys.get(index);
+                String counter = counters.get(index++);
+                int capacity = overrides.getOrDefault(key, slot.capacity());
+
+                int remaining;
+                if (counter != null && !stale.contains(key)) {
+                    remaining = Integer.parseInt(counter);
+                } else {
+                    if (booked == null) {
+                        booked = loadBookedUnits(range);
+                    }
+                    remaining = capacity - booked.getOrDefault(key, 0);
+                }
+                remaining = Math.max(remaining, 0);
+
+                daySlots.add(DeliverySlotAvailabilityResponse.Slot.builder()
+                        .code(slot.code())
+                        .label(slot.label())
+                        .startTime(slot.startTime())
+                        .endTime(slot.endTime())
+                        .capacity(capacity)
+                        .remaining(remaining)
+                        .available(remaining > 0 && isBookable(date, slot))
+                        .build());
+            }
+            grid.add(DeliverySlotAvailabilityResponse.builder().date(date).slots(daySlots).build());
+        }
+        return grid;
+    }
+
+    private List<String> readCounters(List<String> keys) {
+        if (!keys.isEmpty()) {
+            try {
+                List<String> values = redisTemplate.opsForValue().multiGet(keys);
+                if (values != null) {
+                    return values;
+                }
+            } catch (DataAccessException e) {
+                log.warn("Redis unavailable, delivery slot grid read from bookings: {}", e.getMessage());
+            }
+        }
+        return Collections.nCopies(keys.size(), null);
+    }
+
+    private Map<String, Integer> loadBookedUnits(MapSqlParameterSource range) {
+        Map<String, Integer> booked = new HashMap<>();
+        jdbcTemplate.query(BOOKED_UNITS_SQL, range, rs -> {
+            booked.put(counterKey(rs.getDate("delivery_date").toLocalDate(), rs.getString("slot_code")),
+                    rs.getInt("units"));
+        });
+        return booked;
+    }
+
+    // ============================================================================
+    // CAPACITY
+    // ============================================================================
+
+    @Override
+    @Transactional
+    public void updateCapacity(String slotCode, LocalDate date, int capacity) {
+        SlotRow slot = findSlot(slotCode);
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("slotCode", slot.code())
+                .addValue("capacity", capacity)
+                .addValue("actor", auditorProvider.getCurrentAuditor().orElse(null));
+
+        Map<LocalDate, Long> deltas = new HashMap<>();
+        if (date != null) {
+            params.addValue("deliveryDate", date);
+            Integer previous = jdbcTemplate.queryForObject(CAPACITY_OF_SQL, params, Integer.class);
+            jdbcTemplate.update(UPSERT_DATE_CAPACITY_SQL, params);
+            deltas.put(date, (long) capacity - (previous != null ? previous : 0));
+        } else {
+            // Ngày có capacity riêng không bị ảnh hưởng
+            LocalDate today = LocalDate.now(zone);
+            LocalDate last = today.plusDays(daysAhead - 1L);
+            Set<LocalDate> overridden = new HashSet<>();
+            jdbcTemplate.query(CAPACITY_OVERRIDES_SQL, new MapSqlParameterSource()
+                    .addValue("from", today)
+                    .addValue("to", last), rs -> {
+                if (slot.code().equals(rs.getString("slot_code"))) {
+                    overridden.add(rs.getDate("delivery_date").toLocalDate());
+                }
+            });
+
+            jdbcTemplate.update(UPDATE_DEFAULT_CAPACITY_SQL, params);
+            for (LocalDate day = today; !day.isAfter(last); day = day.plusDays(1)) {
+                if (!overridden.contains(day)) {
+                    deltas.put(day, (long) capacity - slot.capacity());
+                }
+            }
+        }
+
+        afterCommit(() -> deltas.forEach((day, delta) -> {
+            if (delta != 0) {
+                adjustCounter(day, slot.code(), delta);
+            }
+        }));
+        log.info("Delivery slot {} capacity set to {} ({})", slot.code(), capacity, date != null ? date : "default");
+    }
+
+    // ============================================================================
+    // HELPERS
+    // ============================================================================
+
+    private SlotRow findSlot(String slotCode) {
+        List<SlotRow> slots = jdbcTemplate.query(SLOT_SQL, new MapSqlParameterSource("slotCode", slotCode), this::mapSlot);
+        if (slots.isEmpty()) {
+            throw new AppException(ErrorCode.DELIVERY_SLOT_NOT_FOUND);
+        }
+        return slots.getFirst();
+    }
+
+    private SlotRow mapSlot(ResultSet rs, int rowNum) throws SQLException {
+        return new SlotRow(rs.getString("code"), rs.getString("label"),
+                rs.getTime("start_time").toLocalTime(), rs.getTime("end_time").toLocalTime(),
+                rs.getInt("capacity"), rs.getBoolean("active"));
+    }
+
+    // Trong cửa sổ đặt trước, khung giờ hôm nay đã bắt đầu thì không nhận nữa
+    private boolean isBookable(LocalDate date, SlotRow slot) {
+        LocalDate today = LocalDate.now(zone);
+        if (!slot.active() || date.isBefore(today) || date.isAfter(today.plusDays(daysAhead - 1L))) {
+            return false;
+        }
+        return !date.equals(today) || LocalTime.now(zone).isBefore(slot.startTime());
+    }
+
+    private static String counterKey(LocalDate date, String slotCode) {
+        return COUNTER_PREFIX + date + ":" + slotCode;
+    }
+
+    // Counter lives until the day after the delivery date
+    private Duration counterTtl(MapSqlParameterSource params) {
+        LocalDate date = (LocalDate) params.getValue("deliveryDate");
+        return Duration.between(Instant.now(), date.plusDays(2).atStartOfDay(zone).toInstant());
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private static void afterRollback(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    action.run();
+                }
+            }
+        });
+    }
+}
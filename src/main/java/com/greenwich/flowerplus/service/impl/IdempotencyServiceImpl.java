@@ -0,0 +1,254 @@
+package com.greenwich.flowerplus.service.impl;
+
+import com.greenwich.flowerplus.common.enums.IdempotencyStatus;
+import com.greenwich.flowerplus.service.IdempotencyService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Idempotency keys as Redis hashes {@code idempotency:{key}} (state, fingerprint, owner, response).
+ * <p>
+ * 1. Claim = one Lua script: create the hash IN_PROGRESS with a short lock TTL, or return what is stored.
+ *    Two concurrent duplicates cannot both acquire the key
+ * 2. Complete / release check the owner token, so a request whose lock TTL ran out cannot overwrite the
+ *    claim of the request that took over
+ * 3. Redis unreachable: the same protocol on idempotency_keys (INSERT ON CONFLICT, expired rows reclaimed).
+ *    Keys claimed in one store are not seen by the other: a retry that lands after Redis comes back can run
+ *    once more (the order service keeps its own key on orders for that case)
+ */
+@Service
+@Slf4j
+public class IdempotencyServiceImpl implements IdempotencyService {
+
+    private static final String KEY_PREFIX = "idempotency:";
+
+    // ARGV: fingerprint, owner, lockTtlMs -> {'ACQUIRED'} or {state, fingerprint, status, contentType, body}
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> CLAIM_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('EXISTS', KEYS[1]) == 0 then
+                redis.call('HSET', KEYS[1], 'state', 'IN_PROGRESS', 'fingerprint', ARGV[1], 'owner', ARGV[2])
+                redis.call('PEXPIRE', KEYS[1], ARGV[3])
+                return {'ACQUIRED'}
+            end
+            return redis.call('HMGET', KEYS[1], 'state', 'fingerprint', 'status', 'contentType', 'body')
+            """, List.class);
+
+    // ARGV: owner, status, contentType, body (base64), ttlMs -> 1 stored, 0 claim lost
+    private static final RedisScript<Long> COMPLETE_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('HGET', KEYS[1], 'owner') ~= ARGV[1] then
+                return 0
+            end
+            redis.call('HSET', KEYS[1], 'state', 'COMPLETED', 'status', ARGV[2], 'contentType', ARGV[3], 'body', ARGV[4])
+            redis.call('PEXPIRE', KEYS[1], ARGV[5])
+            return 1
+            """, Long.class);
+
+    // ARGV: owner
+    private static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('HGET', KEYS[1], 'owner') ~= ARGV[1] then
+                return 0
+            end
+            return redis.call('DEL', KEYS[1])
+            """, Long.class);
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final StringRedisTemplate redisTemplate;
+    private final Duration lockTtl;
+    private final Duration ttl;
+
+    public IdempotencyServiceImpl(NamedParameterJdbcTemplate jdbcTemplate,
+                                  StringRedisTemplate redisTemplate,
+                                  @Value("${app.idempotency.lock-ttl-seconds:60}") long lockTtlSeconds,
+                                  @Value("${app.idempotency.ttl-hours:24}") long ttlHours) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.redisTemplate = redisTemplate;
+        this.lockTtl = Duration.ofSeconds(lockTtlSeconds);
+        this.ttl = Duration.ofHours(ttlHours);
+    }
+
+    // ============================================================================
+    // SQL (fallback store)
+    // ============================================================================
+
+    // Inserts a new claim or takes over an expired row; no row returned = key held by a live claim
+    private static final String CLAIM_SQL = """
+            INSERT INTO idempotency_keys (idempotency_key, fingerprint, status, owner_token, created_at, expires_at)
+            VALUES (:key, :fingerprint, 'IN_PROGRESS', :owner, NOW(), NOW() + :lockTtlSeconds * INTERVAL '1 second')
+            ON CONFLICT (idempotency_key) DO UPDATE
+            SET fingerprint           = EXCLUDED.fingerprint,
+                status                = EXCLUDED.status,
+                owner_token           = EXCLUDED.owner_token,
+                response_status       = NULL,
+                response_content_type = NULL,
+                response_body         = NULL,
+                created_at            = EXCLUDED.created_at,
+                expires_at            = EXCLUDED.expires_at
+            WHERE idempotency_keys.expires_at < NOW()
+            RETURNING owner_token
+            """;
+
+    private static final String FIND_SQL = """
+            SELECT k.fingerprint, k.status, k.response_status, k.response_content_type, k.response_body
+            FROM idempotency_keys k
+            WHERE k.idempotency_key = :key
+              AND k.expires_at >= NOW()
+            """;
+
+    private static final String COMPLETE_SQL = """
+            UPDATE idempotency_keys
+            SET status                = 'COMPLETED',
+                response_status       = :status,
+                response_content_type = :contentType,
+                response_body         = :body,
+                expires_at            = NOW() + :ttlSeconds * INTERVAL '1 second'
+            WHERE idempotency_key = :key
+              AND owner_token = :owner
+            """;
+
+    private static final String RELEASE_SQL = """
+            DELETE FROM idempotency_keys
+            WHERE idempotency_key = :key
+              AND owner_token = :owner
+            """;
+
+    private static final String PURGE_EXPIRED_SQL = """
+            DELETE FROM idempotency_keys
+            WHERE expires_at < NOW()
+            """;
+
+    // ============================================================================
+    // CLAIM / COMPLETE / RELEASE
+    // ============================================================================
+
+    @Override
+    public Claim claim(String key, String fingerprint) {
+        String owner = UUID.randomUUID().toString();
+        List<?> stored;
+        try {
+            stored = redisTemplate.execute(CLAIM_SCRIPT, List.of(KEY_PREFIX + key),
+                    fingerprint, owner, String.valueOf(lockTtl.toMillis()));
+        } catch (DataAccessException e) {
+            log.warn("Redis unavailable, idempotency key {} claimed in Postgres: {}", key, e.getMessage());
+            return claimInPostgres(key, fingerprint, owner);
+        }
+
+        if (stored == null || stored.isEmpty() || "ACQUIRED".equals(stored.getFirst())) {
+            return new Claim(ClaimResult.ACQUIRED, owner, false, null);
+        }
+        if (stored.getFirst() == null) {
+            // Expired between EXISTS and HMGET
+            return new Claim(ClaimResult.IN_PROGRESS, null, false, null);
+        }
+        String state = (String) stored.get(0);
+        if (!fingerprint.equals(stored.get(1))) {
+            return new Claim(ClaimResult.MISMATCH, null, false, null);
+        }
+        if (!IdempotencyStatus.COMPLETED.name().equals(state)) {
+            return new Claim(ClaimResult.IN_PROGRESS, null, false, null);
+        }
+        StoredResponse response = new StoredResponse(
+                Integer.parseInt((String) stored.get(2)),
+                emptyToNull((String) stored.get(3)),
+                Base64.getDecoder().decode((String) stored.get(4)));
+        return new Claim(ClaimResult.COMPLETED, null, false, response);
+    }
+
+    @Override
+    public void complete(String key, Claim claim, StoredResponse response) {
+        if (claim.fallback()) {
+            MapSqlParameterSource params = new MapSqlParameterSource()
+                    .addValue("key", key)
+                    .addValue("owner", claim.ownerToken())
+                    .addValue("status", response.status())
+                    .addValue("contentType", response.contentType())
+                    .addValue("body", response.body())
+                    .addValue("ttlSeconds", ttl.toSeconds());
+            if (jdbcTemplate.update(COMPLETE_SQL, params) == 0) {
+                log.warn("Idempotency key {} expired before its response was stored", key);
+            }
+            return;
+        }
+
+        try {
+            Long stored = redisTemplate.execute(COMPLETE_SCRIPT, List.of(KEY_PREFIX + key),
+                    claim.ownerToken(),
+                    String.valueOf(response.status()),
+                    response.contentType() == null ? "" : response.contentType(),
+                    Base64.getEncoder().encodeToString(response.body()),
+                    String.valueOf(ttl.toMillis()));
+            if (stored == null || stored == 0) {
+                log.warn("Idempotency key {} expired before its response was stored", key);
+            }
+        } catch (DataAccessException e) {
+            // Claim expires with its lock TTL, a retry after that runs again
+            log.warn("Redis unavailable, response of idempotency key {} not stored: {}", key, e.getMessage());
+        }
+    }
+
+    @Override
+    public void release(String key, Claim claim) {
+        if (claim.fallback()) {
+            jdbcTemplate.update(RELEASE_SQL, new MapSqlParameterSource()
+                    .addValue("key", key)
+                    .addValue("owner", claim.ownerToken()));
+            return;
+        }
+        try {
+            redisTemplate.execute(RELEASE_SCRIPT, List.of(KEY_PREFIX + key), claim.ownerToken());
+        } catch (DataAccessException e) {
+            log.warn("Redis unavailable, idempotency key {} released by its lock TTL: {}", key, e.getMessage());
+        }
+    }
+
+    @Override
+    public int purgeExpired() {
+        return jdbcTemplate.update(PURGE_EXPIRED_SQL, new MapSqlParameterSource());
+    }
+
+    // ============================================================================
+    // HELPERS
+    // ============================================================================
+
+    private Claim claimInPostgres(String key, String fingerprint, String owner) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("key", key)
+                .addValue("fingerprint", fingerprint)
+                .addValue("owner", owner)
+                .addValue("lockTtlSeconds", lockTtl.toSeconds());
+        List<String> acquired = jdbcTemplate.queryForList(CLAIM_SQL, params, String.class);
+        if (!acquired.isEmpty()) {
+            return new Claim(ClaimResult.ACQUIRED, owner, true, null);
+        }
+
+        List<Claim> existing = jdbcTemplate.query(FIND_SQL, params, (rs, rowNum) -> {
+            if (!fingerprint.equals(rs.getString("fingerprint"))) {
+                return new Claim(ClaimResult.MISMATCH, null, true, null);
+            }
+            if (!IdempotencyStatus.COMPLETED.name().equals(rs.getString("status"))) {
+                return new Claim(ClaimResult.IN_PROGRESS, null, true, null);
+            }
+            return new Claim(ClaimResult.COMPLETED, null, true, new StoredResponse(
+                    rs.getInt("response_status"),
+                    rs.getString("response_content_type"),
+                    rs.getBytes("response_body")));
+        });
+        // Expired or released since the INSERT: report in progress, the caller claims again
+        return existing.isEmpty() ? new Claim(ClaimResult.IN_PROGRESS, null, true, null) : existing.getFirst();
+    }
+
+    private static String emptyToNull(String value) {
+        return value == null || value.isEmpty() ? null : value;
+    }
+}
@@ -0,0 +1,298 @@
+package com.greenwich.flowerplus.service.impl;
+
+import com.greenwich.flowerplus.common.enums.ErrorCode;
+import com.greenwich.flowerplus.common.enums.TransactionType;
+import com.greenwich.flowerplus.common.exception.AppException;
+import com.greenwich.flowerplus.dto.request.InventoryMovementRequest;
+import com.greenwich.flowerplus.dto.response.InventoryTransactionResponse;
+import com.greenwich.flowerplus.dto.response.StockBalanceResponse;
+import com.greenwich.flowerplus.service.BuildableQuantityService;
+import com.greenwich.flowerplus.service.InventoryLedgerService;
+import com.greenwich.flowerplus.service.LowStockService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class InventoryLedgerServiceImpl implements InventoryLedgerService {
+
+    private static final Duration MAX_LEDGER_RANGE = Duration.ofDays(366);
+    private static final Duration DEFAULT_LEDGER_RANGE = Duration.ofDays(30);
+    private static final int MAX_LEDGER_PAGE_SIZE = 500;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final AuditorAware<String> auditorProvider;
+    private final InventoryLedgerWriter ledgerWriter;
+    private final BuildableQuantityService buildableQuantityService;
+    private final LowStockService lowStockService;
+
+    // ============================================================================
+    // SQL
+    // ============================================================================
+
+    // First movement of a material creates its stock row (materials are created without stock)
+    private static final String ENSURE_STOCK_SQL = """
+            INSERT INTO material_stocks (id, quantity, reserved_quantity, opening_balance, reorder_level,
+                                         created_at, updated_at, created_by, updated_by)
+            SELECT m.id, 0, 0, 0, 10, NOW(), NOW(), :actor, :actor
+            FROM materials m
+            WHERE m.id IN (:materialIds)
+              AND m.deleted_at IS NULL
+            ON CONFLICT (id) DO NOTHING
+            """;
+
+    private static final String COUNT_STOCK_SQL = "SELECT COUNT(*) FROM material_stocks WHERE id IN (:materialIds)";
+
+    // Stock out can never dig into what is already reserved for orders
+    private static final String APPLY_MOVEMENT_SQL = """
+            UPDATE material_stocks
+            SET quantity = quantity + :delta, updated_at = NOW()
+            WHERE id = :materialId
+              AND quantity + :delta >= reserved_quantity
+            """;
+
+    // Nearest snapshot <= :asOf (or opening balance) + entries in (snapshot, asOf]
+    private static final String BALANCE_AS_OF_SQL = """
+            SELECT s.snapshot_at,
+                   COALESCE(s.balance, ms.opening_balance, 0) AS base_balance,
+                   d.delta,
+                   ms.quantity,
+                   ms.reserved_quantity
+            FROM materials m
+            LEFT JOIN material_stocks ms ON ms.id = m.id
+            LEFT JOIN LATERAL (
+                SELECT i.snapshot_at, i.balance
+                FROM inventory_snapshots i
+                WHERE i.material_id = m.id
+                  AND i.snapshot_at <= :asOf
+                ORDER BY i.snapshot_at DESC
+                LIMIT 1
+            ) s ON TRUE
+            LEFT JOIN LATERAL (
+                SELECT COALESCE(SUM(t.change_amount), 0) AS delta
+                FROM inventory_transactions t
+                WHERE t.material_id = m.id
+                  AND (s.snapshot_at IS NULL OR t.created_at > s.snapshot_at)
+                  AND t.created_at <= :asOf
+            ) d ON TRUE
+            WHERE m.id = :materialId
+            """;
+
+    // %s = optional keyset condition
+    private static final String LEDGER_PAGE_SQL = """
+            SELECT t.id, t.material_id, t.change_amount, t.type, t.reference_code, t.created_at
+            FROM inventory_transactions t
+            WHERE t.material_id = :materialId
+              AND t.created_at >= :from
+              AND t.created_at < :to
+              %s
+            ORDER BY t.created_at DESC, t.id DESC
+            LIMIT :size
+            """;
+
+    private static final String LEDGER_KEYSET_FILTER = """
+            AND (t.created_at, t.id) < (SELECT b.created_at, b.id FROM inventory_transactions b WHERE b.id = :beforeId)
+            """;
+
+    // Roll every material forward from its previous snapshot (or opening balance) to :cutoff
+    private static final String ROLL_SNAPSHOTS_SQL = """
+            INSERT INTO inventory_snapshots (material_id, snapshot_at, balance, created_at)
+            SELECT ms.id, :cutoff, COALESCE(prev.balance, ms.opening_balance) + d.delta, NOW()
+            FROM material_stocks ms
+            LEFT JOIN LATERAL (
+                SELECT i.snapshot_at, i.balance
+                FROM inventory_snapshots i
+                WHERE i.material_id = ms.id
+                  AND i.snapshot_at < :cutoff
+                ORDER BY i.snapshot_at DESC
+                LIMIT 1
+            ) prev ON TRUE
+            LEFT JOIN LATERAL (
+                SELECT COALESCE(SUM(t.change_amount), 0) AS delta
+                FROM inventory_transactions t
+                WHERE t.material_id = ms.id
+                  AND (prev.snapshot_at IS NULL OR t.created_at > prev.snapshot_at)
+                  AND t.created_at <= :cutoff
+            ) d ON TRUE
+            ON CONFLICT (material_id, snapshot_at) DO NOTHING
+            """;
+
+    private static final String BALANCE_DRIFT_SQL = """
+            SELECT COUNT(*)
+            FROM material_stocks ms
+            LEFT JOIN LATERAL (
+                SELECT i.snapshot_at, i.balance
+                FROM inventory_snapshots i
+                WHERE i.material_id = ms.id
+                ORDER BY i.snapshot_at DESC
+                LIMIT 1
+            ) s ON TRUE
+            LEFT JOIN LATERAL (
+                SELECT COALESCE(SUM(t.change_amount), 0) AS delta
+                FROM inventory_transactions t
+                WHERE t.material_id = ms.id
+                  AND (s.snapshot_at IS NULL OR t.created_at > s.snapshot_at)
+            ) d ON TRUE
+            WHERE ms.quantity <> COALESCE(s.balance, ms.opening_balance) + d.delta
+            """;
+
+    // ============================================================================
+    // MOVEMENTS
+    // ============================================================================
+
+    @Override
+    @Transactional
+    public int recordMovements(InventoryMovementRequest request) {
+        List<InventoryLedgerWriter.Entry> entries = new ArrayList<>(request.items().size());
+        SortedMap<Long, Integer> deltas = new TreeMap<>();
+
+        for (InventoryMovementRequest.Item item : request.items()) {
+            int delta = toChangeAmount(item);
+            entries.add(new InventoryLedgerWriter.Entry(item.materialId(), delta, item.type()));
+            deltas.merge(item.materialId(), delta, Integer::sum);
+        }
+
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("materialIds", deltas.keySet())
+                .addValue("actor", auditorProvider.getCurrentAuditor().orElse(null));
+        jdbcTemplate.update(ENSURE_STOCK_SQL, params);
+        Long stockRows = jdbcTemplate.queryForObject(COUNT_STOCK_SQL, params, Long.class);
+        if (stockRows == null || stockRows != deltas.size()) {
+            throw new AppException(ErrorCode.MATERIAL_NOT_FOUND);
+        }
+
+        // Same material order as reservations -> same lock order, no deadlock between the two flows
+        MapSqlParameterSource[] updates = deltas.entrySet().stream()
+                .map(e -> new MapSqlParameterSource()
+                        .addValue("materialId", e.getKey())
+                        .addValue("delta", e.getValue()))
+                .toArray(MapSqlParameterSource[]::new);
+        for (int count : jdbcTemplate.batchUpdate(APPLY_MOVEMENT_SQL, updates)) {
+            if (count == 0) {
+                throw new AppException(ErrorCode.INVENTORY_BELOW_RESERVED);
+            }
+        }
+
+        int written = ledgerWriter.append(request.referenceCode(), entries);
+        buildableQuantityService.onMaterialsChanged(deltas.keySet());
+        lowStockService.onMaterialsChanged(deltas.keySet());
+        log.info("Recorded {} inventory movement(s) for {} material(s), reference {}",
+                written, deltas.size(), request.referenceCode());
+        return written;
+    }
+
+    private static int toChangeAmount(InventoryMovementRequest.Item item) {
+        int quantity = item.quantity();
+        return switch (item.type()) {
+            case IMPORT -> requirePositive(quantity);
+            case DAMAGED -> -requirePositive(quantity);
+            case AUDIT -> {
+                if (quantity == 0) {
+                    throw new AppException(ErrorCode.INVENTORY_INVALID_QUANTITY);
+                }
+                yield quantity;
+            }
+            // USAGE only comes from committed order reservations
+            case USAGE -> throw new AppException(ErrorCode.INVALID_TRANSACTION_TYPE);
+        };
+    }
+
+    private static int requirePositive(int quantity) {
+        if (quantity <= 0) {
+            throw new AppException(ErrorCode.INVENTORY_INVALID_QUANTITY);
+        }
+        return quantity;
+    }
+
+    // ============================================================================
+    // READS
+    // ============================================================================
+
+    @Override
+    public StockBalanceResponse getBalance(Long materialId, Instant asOf) {
+        boolean now = asOf == null;
+        Instant pointInTime = now ? Instant.now() : asOf;
+
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("materialId", materialId)
+                .addValue("asOf", Timestamp.from(pointInTime));
+        try {
+            return jdbcTemplate.queryForObject(BALANCE_AS_OF_SQL, params, (rs, i) -> {
+                Timestamp snapshotAt = rs.getTimestamp("snapshot_at");
+                int base = rs.getInt("base_balance");
+                int delta = rs.getInt("delta");
+                return StockBalanceResponse.builder()
+                        .materialId(materialId)
+                        .asOf(pointInTime)
+                        .balance(base + delta)
+                        .snapshotAt(snapshotAt != null ? snapshotAt.toInstant() : null)
+                        .snapshotBalance(base)
+                        .deltaSinceSnapshot(delta)
+                        .currentQuantity(now ? (Integer) rs.getObject("quantity") : null)
+                        .reservedQuantity(now ? (Integer) rs.getObject("reserved_quantity") : null)
+                        .build();
+            });
+        } catch (EmptyResultDataAccessException e) {
+            throw new AppException(ErrorCode.MATERIAL_NOT_FOUND);
+        }
+    }
+
+    @Override
+    public List<InventoryTransactionResponse> getLedger(Long materialId, Instant from, Instant to, Long beforeId, int size) {
+        Instant end = to != null ? to : Instant.now();
+        Instant start = from != null ? from : end.minus(DEFAULT_LEDGER_RANGE);
+        if (!start.isBefore(end) || Duration.between(start, end).compareTo(MAX_LEDGER_RANGE) > 0) {
+            throw new AppException(ErrorCode.INVENTORY_INVALID_RANGE);
+        }
+
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("materialId", materialId)
+                .addValue("from", Timestamp.from(start))
+                .addValue("to", Timestamp.from(end))
+                .addValue("size", Math.clamp(size, 1, MAX_LEDGER_PAGE_SIZE))
+                .addValue("beforeId", beforeId);
+
+        String sql = LEDGER_PAGE_SQL.formatted(beforeId != null ? LEDGER_KEYSET_FILTER : "");
+        return jdbcTemplate.query(sql, params, (rs, i) -> new InventoryTransactionResponse(
+                rs.getLong("id"),
+                rs.getLong("material_id"),
+                rs.getInt("change_amount"),
+                TransactionType.valueOf(rs.getString("type")),
+                rs.getString("reference_code"),
+                rs.getTimestamp("created_at").toInstant()));
+    }
+
+    // ============================================================================
+    // SNAPSHOTS
+    // ============================================================================
+
+    @Override
+    @Transactional
+    public int rollSnapshots(Instant cutoff) {
+        int created = jdbcTemplate.update(ROLL_SNAPSHOTS_SQL,
+                new MapSqlParameterSource("cutoff", Timestamp.from(cutoff)));
+        log.info("Inventory snapshots at {}: {} material(s)", cutoff, created);
+        return created;
+    }
+
+    @Override
+    public long countBalanceDrift() {
+        Long drift = jdbcTemplate.queryForObject(BALANCE_DRIFT_SQL, new MapSqlParameterSource(), Long.class);
+        return drift != null ? drift : 0;
+    }
+}
@@ -0,0 +1,53 @@
+package com.greenwich.flowerplus.service.impl;
+
+import com.greenwich.flowerplus.common.enums.TransactionType;
+import com.greenwich.flowerplus.common.utils.TsidUtils;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Single write path of the inventory ledger (inventory_transactions).
+ * <p>
+ * Entries are only ever inserted, one multi-row INSERT per call, inside the caller's transaction
+ * so the ledger and material_stocks.quantity always commit together.
+ */
+@Component
+@RequiredArgsConstructor
+class InventoryLedgerWriter {
+
+    /**
+     * @param changeAmount signed: + stock in, - stock out
+     */
+    record Entry(Long materialId, int changeAmount, TransactionType type) {
+    }
+
+    private static final String APPEND_SQL = """
+            INSERT INTO inventory_transactions (id, material_id, change_amount, reference_code, type,
+                                                created_at, updated_at, created_by, updated_by)
+            SELECT e.id, e.material_id, e.change_amount, :referenceCode, e.type, NOW(), NOW(), :actor, :actor
+            FROM (VALUES :entries) AS e(id, material_id, change_amount, type)
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final AuditorAware<String> auditorProvider;
+
+    int append(String referenceCode, List<Entry> entries) {
+        if (entries.isEmpty()) {
+            return 0;
+        }
+
+        List<Object[]> rows = entries.stream()
+                .map(e -> new Object[]{TsidUtils.nextId(), e.materialId(), e.changeAmount(), e.type().name()})
+                .toList();
+
+        return jdbcTemplate.update(APPEND_SQL, new MapSqlParameterSource()
+                .addValue("referenceCode", referenceCode)
+                .addValue("actor", auditorProvider.getCurrentAuditor().orElse(null))
+                .addValue("entries", rows));
+    }
+}
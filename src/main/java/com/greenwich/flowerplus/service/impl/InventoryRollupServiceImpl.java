@@ -0,0 +1,265 @@
+package com.greenwich.flowerplus.service.impl;
+
+import com.greenwich.flowerplus.common.enums.ErrorCode;
+import com.greenwich.flowerplus.common.exception.AppException;
+import com.greenwich.flowerplus.dto.response.MonthlyStockMovementResponse;
+import com.greenwich.flowerplus.service.InventoryRollupService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Monthly partitions of inventory_transactions and their rollups.
+ * <p>
+ * Partition DDL is generated from {@link YearMonth} only (no user input), one partition per UTC month:
+ * inventory_transactions_pYYYYMM. Rollups are absolute per month (recomputed, not incremented), so a
+ * refresh can be repeated at will; the ledger is append-only, an unchanged entry count means nothing to write.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class InventoryRollupServiceImpl implements InventoryRollupService {
+
+    private static final String PARTITION_PREFIX = "inventory_transactions_p";
+    private static final Pattern PARTITION_NAME = Pattern.compile(PARTITION_PREFIX + "(\\d{6})");
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+    private static final String DEFAULT_PARTITION = "inventory_transactions_default";
+    private static final int MAX_REPORT_MONTHS = 36;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    // ============================================================================
+    // SQL
+    // ============================================================================
+
+    private static final String IS_PARTITIONED_SQL = """
+            SELECT EXISTS (SELECT 1 FROM pg_partitioned_table pt
+                           WHERE pt.partrelid = to_regclass('inventory_transactions'))
+            """;
+
+    private static final String LIST_PARTITIONS_SQL = """
+            SELECT c.relname
+            FROM pg_inherits i
+            JOIN pg_class c ON c.oid = i.inhrelid
+            WHERE i.inhparent = to_regclass('inventory_transactions')
+            """;
+
+    private static final String CREATE_PARTITION_DDL =
+            "CREATE TABLE IF NOT EXISTS %s PARTITION OF inventory_transactions FOR VALUES FROM ('%s') TO ('%s')";
+
+    private static final String DETACH_PARTITION_DDL = "ALTER TABLE inventory_transactions DETACH PARTITION %s";
+
+    private static final String DROP_PARTITION_DDL = "DROP TABLE %s";
+
+    private static final String COUNT_DEFAULT_PARTITION_SQL = "SELECT COUNT(*) FROM " + DEFAULT_PARTITION;
+
+    // Range on created_at -> partition pruning + BRIN, only the refreshed months are read
+    private static final String REFRESH_ROLLUPS_SQL = """
+            INSERT INTO inventory_monthly_rollups (material_id, month, type, inbound, outbound, net_change,
+                                                   entry_count, compacted, rolled_at)
+            SELECT t.material_id,
+                   date_trunc('month', t.created_at)::DATE,
+                   t.type,
+                   COALESCE(SUM(t.change_amount) FILTER (WHERE t.change_amount > 0), 0),
+                   COALESCE(-SUM(t.change_amount) FILTER (WHERE t.change_amount < 0), 0),
+                   SUM(t.change_amount),
+                   COUNT(*),
+                   FALSE,
+                   NOW()
+            FROM inventory_transactions t
+            WHERE t.created_at >= :from
+              AND t.created_at < :to
+            GROUP BY t.material_id, date_trunc('month', t.created_at)::DATE, t.type
+            ON CONFLICT (material_id, month, type) DO UPDATE
+                SET inbound     = EXCLUDED.inbound,
+                    outbound    = EXCLUDED.outbound,
+                    net_change  = EXCLUDED.net_change,
+                    entry_count = EXCLUDED.entry_count,
+                    rolled_at   = EXCLUDED.rolled_at
+                WHERE NOT inventory_monthly_rollups.compacted
+                  AND inventory_monthly_rollups.entry_count <> EXCLUDED.entry_count
+            """;
+
+    private static final String MARK_COMPACTED_SQL = """
+            UPDATE inventory_monthly_rollups
+            SET compacted = TRUE
+            WHERE month = :month
+            """;
+
+    // Balances read "latest snapshot + entries after it": never drop entries newer than the latest snapshot
+    private static final String LATEST_SNAPSHOT_SQL = "SELECT MAX(snapshot_at) FROM inventory_snapshots";
+
+    // %s = optional material filter
+    private static final String MONTHLY_MOVEMENTS_SQL = """
+            SELECT r.material_id,
+                   m.name,
+                   r.month,
+                   COALESCE(SUM(r.net_change) FILTER (WHERE r.type = 'IMPORT'), 0)   AS imported,
+                   COALESCE(-SUM(r.net_change) FILTER (WHERE r.type = 'USAGE'), 0)   AS used,
+                   COALESCE(-SUM(r.net_change) FILTER (WHERE r.type = 'DAMAGED'), 0) AS damaged,
+                   COALESCE(SUM(r.net_change) FILTER (WHERE r.type = 'AUDIT'), 0)    AS adjusted,
+                   SUM(r.inbound)     AS inbound,
+                   SUM(r.outbound)    AS outbound,
+                   SUM(r.net_change)  AS net_change,
+                   SUM(r.entry_count) AS entry_count
+            FROM inventory_monthly_rollups r
+            JOIN materials m ON m.id = r.material_id
+            WHERE r.month >= :from
+              AND r.month <= :to
+              %s
+            GROUP BY r.material_id, m.name, r.month
+            ORDER BY r.month, r.material_id
+            """;
+
+    private static final String MATERIAL_FILTER = "AND r.material_id = :materialId";
+
+    // ============================================================================
+    // PARTITIONS
+    // ============================================================================
+
+    @Override
+    public int ensurePartitions(int monthsAhead) {
+        if (!isPartitioned()) {
+            log.debug("inventory_transactions is not partitioned, skipping partition maintenance");
+            return 0;
+        }
+
+        TreeMap<YearMonth, String> existing = listPartitions();
+        YearMonth current = YearMonth.now(ZoneOffset.UTC);
+        int created = 0;
+        for (int i = 0; i <= monthsAhead; i++) {
+            YearMonth month = current.plusMonths(i);
+            if (!existing.containsKey(month)) {
+                jdbcTemplate.getJdbcOperations().execute(CREATE_PARTITION_DDL.formatted(
+                        partitionName(month), month.atDay(1), month.plusMonths(1).atDay(1)));
+                created++;
+            }
+        }
+
+        Long misplaced = jdbcTemplate.queryForObject(COUNT_DEFAULT_PARTITION_SQL, new MapSqlParameterSource(), Long.class);
+        if (misplaced != null && misplaced > 0) {
+            // Rows in the default partition block creating the partition of their month
+            log.warn("{} inventory transaction(s) landed in the default partition", misplaced);
+        }
+        if (created > 0) {
+            log.info("Created {} inventory ledger partition(s) up to {}", created, current.plusMonths(monthsAhead));
+        }
+        return created;
+    }
+
+    private boolean isPartitioned() {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(IS_PARTITIONED_SQL, new MapSqlParameterSource(), Boolean.class));
+    }
+
+    private TreeMap<YearMonth, String> listPartitions() {
+        TreeMap<YearMonth, String> partitions = new TreeMap<>();
+        for (String name : jdbcTemplate.queryForList(LIST_PARTITIONS_SQL, new MapSqlParameterSource(), String.class)) {
+            Matcher matcher = PARTITION_NAME.matcher(name);
+            if (matcher.matches()) {
+                partitions.put(YearMonth.parse(matcher.group(1), PARTITION_SUFFIX), name);
+            }
+        }
+        return partitions;
+    }
+
+    private static String partitionName(YearMonth month) {
+        return PARTITION_PREFIX + month.format(PARTITION_SUFFIX);
+    }
+
+    // ============================================================================
+    // ROLLUPS + COMPACTION
+    // ============================================================================
+
+    @Override
+    public int refreshRollups(YearMonth from, YearMonth to) {
+        long start = System.currentTimeMillis();
+        int written = jdbcTemplate.update(REFRESH_ROLLUPS_SQL, new MapSqlParameterSource()
+                .addValue("from", from.atDay(1).atStartOfDay())
+                .addValue("to", to.plusMonths(1).atDay(1).atStartOfDay()));
+        log.debug("Inventory rollups {}..{}: {} row(s) written in {} ms",
+                from, to, written, System.currentTimeMillis() - start);
+        return written;
+    }
+
+    @Override
+    public int compactBefore(YearMonth cutoff) {
+        if (!isPartitioned()) {
+            return 0;
+        }
+
+        Timestamp latestSnapshot = jdbcTemplate.queryForObject(LATEST_SNAPSHOT_SQL, new MapSqlParameterSource(), Timestamp.class);
+        if (latestSnapshot == null) {
+            log.warn("No inventory snapshot yet, ledger compaction skipped");
+            return 0;
+        }
+        YearMonth snapshotMonth = YearMonth.from(latestSnapshot.toLocalDateTime());
+        YearMonth limit = cutoff.isBefore(snapshotMonth) ? cutoff : snapshotMonth;
+
+        int dropped = 0;
+        for (var partition : listPartitions().headMap(limit).entrySet()) {
+            YearMonth month = partition.getKey();
+            String name = partition.getValue();
+            try {
+                // Final rollup + flag + drop commit together: a month is never lost without its rollup
+                transactionTemplate.executeWithoutResult(status -> {
+                    refreshRollups(month, month);
+                    jdbcTemplate.update(MARK_COMPACTED_SQL, new MapSqlParameterSource("month", month.atDay(1)));
+                    jdbcTemplate.getJdbcOperations().execute(DETACH_PARTITION_DDL.formatted(name));
+                    jdbcTemplate.getJdbcOperations().execute(DROP_PARTITION_DDL.formatted(name));
+                });
+                dropped++;
+                log.info("Compacted inventory ledger partition {} into monthly rollups", name);
+            } catch (Exception e) {
+                log.error("Compaction of {} failed, retried next run: {}", name, e.getMessage());
+            }
+        }
+        return dropped;
+    }
+
+    // ============================================================================
+    // REPORT
+    // ============================================================================
+
+    @Override
+    public List<MonthlyStockMovementResponse> getMonthlyMovements(Long materialId, YearMonth from, YearMonth to) {
+        YearMonth end = to != null ? to : YearMonth.now(ZoneOffset.UTC);
+        YearMonth start = from != null ? from : end.minusMonths(11);
+        if (start.isAfter(end) || ChronoUnit.MONTHS.between(start, end) >= MAX_REPORT_MONTHS) {
+            throw new AppException(ErrorCode.INVENTORY_INVALID_REPORT_RANGE);
+        }
+
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("from", start.atDay(1))
+                .addValue("to", end.atDay(1))
+                .addValue("materialId", materialId);
+        String sql = MONTHLY_MOVEMENTS_SQL.formatted(materialId != null ? MATERIAL_FILTER : "");
+
+        return jdbcTemplate.query(sql, params, (rs, i) -> MonthlyStockMovementResponse.builder()
+                .materialId(rs.getLong("material_id"))
+                .materialName(rs.getString("name"))
+                .month(YearMonth.from(rs.getDate("month").toLocalDate()))
+                .imported(rs.getLong("imported"))
+                .used(rs.getLong("used"))
+                .damaged(rs.getLong("damaged"))
+                .adjusted(rs.getLong("adjusted"))
+                .inbound(rs.getLong("inbound"))
+                .outbound(rs.getLong("outbound"))
+                .netChange(rs.getLong("net_change"))
+                .entryCount(rs.getLong("entry_count"))
+                .build());
+    }
+}
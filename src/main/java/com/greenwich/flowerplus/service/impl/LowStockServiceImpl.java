@@ -0,0 +1,265 @@
+package com.greenwich.flowerplus.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.greenwich.flowerplus.common.enums.LowStockAlertType;
+import com.greenwich.flowerplus.dto.response.LowStockAlertResponse;
+import com.greenwich.flowerplus.dto.response.LowStockResponse;
+import com.greenwich.flowerplus.service.LowStockService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Incremental low-stock alerting.
+ * <p>
+ * 1. Stock writers mark the touched materials after commit (no polling of the whole table)
+ * 2. Every debounce window the marked materials are checked with two conditional UPDATEs on
+ *    material_stocks.low_stock_since: NULL -> NOW() is a LOW crossing, NOT NULL -> NULL is a RECOVERED one.
+ *    Flapping inside the window collapses into the final state, an unchanged state produces no alert.
+ * 3. The flag flip is atomic, so with several instances each crossing is claimed (and alerted) once
+ * <p>
+ * SSE subscribers are kept per instance, so the claiming instance does not push to them directly:
+ * it publishes the alert on a Redis channel and every instance (itself included) forwards it to its
+ * own subscribers. If Redis is unreachable the alert is still pushed to the local subscribers.
+ */
+@Service
+@Slf4j
+public class LowStockServiceImpl implements LowStockService {
+
+    private static final String SSE_EVENT_NAME = "low-stock";
+    private static final int MAX_LIST_SIZE = 500;
+    private static final String ALERT_CHANNEL = "low-stock:alerts";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final long sseTimeoutMs;
+
+    // Materials waiting for the next check (per instance)
+    private final Set<Long> pendingMaterials = ConcurrentHashMap.newKeySet();
+    private final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+
+    public LowStockServiceImpl(NamedParameterJdbcTemplate jdbcTemplate,
+                               StringRedisTemplate redisTemplate,
+                               ObjectMapper objectMapper,
+                               RedisMessageListenerContainer listenerContainer,
+                               @Value("${app.low-stock.sse-timeout-ms:1800000}") long sseTimeoutMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.sseTimeoutMs = sseTimeoutMs;
+        listenerContainer.addMessageListener(this::onAlertMessage, new ChannelTopic(ALERT_CHANNEL));
+    }
+
+    // ============================================================================
+    // SQL
+    // ============================================================================
+
+    // Predicate written exactly like idx_material_stocks_low so the partial index is usable. %s = material filter
+    private static final String MARK_LOW_SQL = """
+            UPDATE material_stocks s
+            SET low_stock_since = NOW()
+            FROM materials m
+            WHERE m.id = s.id
+              AND m.deleted_at IS NULL
+              AND s.low_stock_since IS NULL
+              AND s.quantity - s.reserved_quantity <= s.reorder_level
+              %s
+            RETURNING s.id, m.name, s.quantity - s.reserved_quantity AS available, s.reorder_level
+            """;
+
+    // Uses idx_material_stocks_low_flagged. NULL reorder level = not tracked any more
+    private static final String CLEAR_LOW_SQL = """
+            UPDATE material_stocks s
+            SET low_stock_since = NULL
+            FROM materials m
+            WHERE m.id = s.id
+              AND s.low_stock_since IS NOT NULL
+              AND (s.reorder_level IS NULL
+                   OR s.quantity - s.reserved_quantity > s.reorder_level
+                   OR m.deleted_at IS NOT NULL)
+              %s
+            RETURNING s.id, m.name, s.quantity - s.reserved_quantity AS available, s.reorder_level
+            """;
+
+    private static final String MATERIAL_FILTER = "AND s.id IN (:materialIds)";
+
+    private static final String LIST_LOW_SQL = """
+            SELECT s.id, m.name, m.unit, s.quantity, s.reserved_quantity, s.reorder_level, s.low_stock_since
+            FROM material_stocks s
+            JOIN materials m ON m.id = s.id
+            WHERE s.quantity - s.reserved_quantity <= s.reorder_level
+              AND m.deleted_at IS NULL
+            ORDER BY (s.quantity - s.reserved_quantity) - s.reorder_level, s.id
+            LIMIT :limit
+            """;
+
+    // ============================================================================
+    // DETECTION
+    // ============================================================================
+
+    @Override
+    public void onMaterialsChanged(Collection<Long> materialIds) {
+        if (materialIds == null || materialIds.isEmpty()) {
+            return;
+        }
+        List<Long> snapshot = List.copyOf(materialIds);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // Rolled back mutation must not raise an alert
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    pendingMaterials.addAll(snapshot);
+                }
+            });
+        } else {
+            pendingMaterials.addAll(snapshot);
+        }
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${app.low-stock.debounce-ms:5000}")
+    public int flushPendingChanges() {
+        if (pendingMaterials.isEmpty()) {
+            return 0;
+        }
+
+        Set<Long> materialIds = new TreeSet<>();
+        for (Long id : pendingMaterials) {
+            if (pendingMaterials.remove(id)) {
+                materialIds.add(id);
+            }
+        }
+        if (materialIds.isEmpty()) {
+            return 0;
+        }
+
+        try {
+            return detectAndPublish(MATERIAL_FILTER, new MapSqlParameterSource("materialIds", materialIds));
+        } catch (Exception e) {
+            // Flag flip is idempotent -> safe to check again on the next window
+            log.warn("Low-stock check failed for {} material(s), re-queued: {}", materialIds.size(), e.getMessage());
+            pendingMaterials.addAll(materialIds);
+            return 0;
+        }
+    }
+
+    @Override
+    public int reconcile() {
+        int published = detectAndPublish("", new MapSqlParameterSource());
+        if (published > 0) {
+            log.info("Low-stock reconcile: {} missed crossing(s) published", published);
+        }
+        return published;
+    }
+
+    private int detectAndPublish(String filter, MapSqlParameterSource params) {
+        // Each statement auto-commits: once claimed, the crossing is not claimed again by another instance
+        List<LowStockAlertResponse> alerts = new ArrayList<>();
+        alerts.addAll(jdbcTemplate.query(MARK_LOW_SQL.formatted(filter), params, alertMapper(LowStockAlertType.LOW)));
+        alerts.addAll(jdbcTemplate.query(CLEAR_LOW_SQL.formatted(filter), params, alertMapper(LowStockAlertType.RECOVERED)));
+
+        alerts.forEach(this::publish);
+        return alerts.size();
+    }
+
+    private static RowMapper<LowStockAlertResponse> alertMapper(LowStockAlertType type) {
+        return (rs, i) -> LowStockAlertResponse.builder()
+                .type(type)
+                .materialId(rs.getLong("id"))
+                .materialName(rs.getString("name"))
+                .availableQuantity(rs.getInt("available"))
+                .reorderLevel((Integer) rs.getObject("reorder_level"))
+                .detectedAt(Instant.now())
+                .build();
+    }
+
+    // ============================================================================
+    // QUERY + SSE
+    // ============================================================================
+
+    @Override
+    public List<LowStockResponse> getLowStock(int limit) {
+        int size = Math.clamp(limit, 1, MAX_LIST_SIZE);
+        return jdbcTemplate.query(LIST_LOW_SQL, new MapSqlParameterSource("limit", size), (rs, i) -> {
+            int quantity = rs.getInt("quantity");
+            int reserved = rs.getInt("reserved_quantity");
+            Timestamp lowSince = rs.getTimestamp("low_stock_since");
+            return LowStockResponse.builder()
+                    .materialId(rs.getLong("id"))
+                    .materialName(rs.getString("name"))
+                    .unit(rs.getString("unit"))
+                    .quantity(quantity)
+                    .reservedQuantity(reserved)
+                    .availableQuantity(quantity - reserved)
+                    .reorderLevel((Integer) rs.getObject("reorder_level"))
+                    .lowStockSince(lowSince != null ? lowSince.toInstant() : null)
+                    .build();
+        });
+    }
+
+    @Override
+    public SseEmitter subscribe() {
+        SseEmitter emitter = new SseEmitter(sseTimeoutMs);
+        emitter.onCompletion(() -> emitters.remove(emitter));
+        emitter.onTimeout(() -> emitters.remove(emitter));
+        emitter.onError(e -> emitters.remove(emitter));
+        emitters.add(emitter);
+        return emitter;
+    }
+
+    private void publish(LowStockAlertResponse alert) {
+        log.info("Low-stock {}: material {} ({}) available {} / reorder level {}",
+                alert.type(), alert.materialId(), alert.materialName(), alert.availableQuantity(), alert.reorderLevel());
+
+        try {
+            // Mọi instance (kể cả instance này) nhận lại qua onAlertMessage và đẩy cho SSE của mình
+            redisTemplate.convertAndSend(ALERT_CHANNEL, objectMapper.writeValueAsString(alert));
+        } catch (Exception e) {
+            log.warn("Cannot fan out low-stock alert through Redis, local subscribers only: {}", e.getMessage());
+            sendToLocalSubscribers(alert);
+        }
+    }
+
+    private void onAlertMessage(Message message, byte[] pattern) {
+        try {
+            sendToLocalSubscribers(objectMapper.readValue(message.getBody(), LowStockAlertResponse.class));
+        } catch (IOException e) {
+            log.warn("Ignoring malformed low-stock alert message: {}", e.getMessage());
+        }
+    }
+
+    private void sendToLocalSubscribers(LowStockAlertResponse alert) {
+        for (SseEmitter emitter : emitters) {
+            try {
+                emitter.send(SseEmitter.event().name(SSE_EVENT_NAME).data(alert));
+            } catch (IOException | IllegalStateException e) {
+                // Client gone: drop it, the others still get the alert
+                emitters.remove(emitter);
+            }
+        }
+    }
+}
@@ -6,9 +6,11 @@ import com.greenwich.flowerplus.dto.request.MaterialRequest;
 import com.greenwich.flowerplus.dto.request.MaterialSearchRequest;
 import com.greenwich.flowerplus.dto.response.MaterialResponse;
 import com.greenwich.flowerplus.entity.Material;
+import com.greenwich.flowerplus.mapper.AuditorMapper;
 import com.greenwich.flowerplus.mapper.MaterialMapper;
 import com.greenwich.flowerplus.repository.MaterialRepository;
 import com.greenwich.flowerplus.service.MaterialService;
+import com.greenwich.flowerplus.service.ProductCostService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import jakarta.persistence.criteria.Predicate;
@@ -21,6 +23,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
+import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -31,6 +34,8 @@ public class MaterialServiceImpl implements MaterialService {
 
     private final MaterialRepository materialRepository;
     private final MaterialMapper materialMapper;
+    private final AuditorMapper auditorMapper;
+    private final ProductCostService productCostService;
 
     @Override
     public Page<MaterialResponse> searchMaterials(MaterialSearchRequest request) {
@@ -41,8 +46,9 @@ public class MaterialServiceImpl implements MaterialService {
         );
 
         Specification<Material> spec = buildSpecification(request);
-        return materialRepository.findAll(spec, pageable)
-                .map(materialMapper::toResponse);
+        Page<Material> materialPage = materialRepository.findAll(spec, pageable);
+        auditorMapper.preloadFor(materialPage.getContent());
+        return materialPage.map(materialMapper::toResponse);
     }
 
     private Specification<Material> buildSpecification(MaterialSearchRequest request) {
@@ -66,8 +72,9 @@ public class MaterialServiceImpl implements MaterialService {
 
     @Override
     public List<MaterialResponse> getAllMaterials() {
-        return materialRepository.findAll(Sort.by("name").ascending())
-                .stream()
+        List<Material> materials = materialRepository.findAll(Sort.by("name").ascending());
+        auditorMapper.preloadFor(materials);
+        return materials.stream()
                 .map(materialMapper::toResponse)
                 .toList();
     }
@@ -94,20 +101,26 @@ public class MaterialServiceImpl implements MaterialService {
         Material material = materialRepository.findById(id)
                 .orElseThrow(() -> new AppException(ErrorCode.MATERIAL_NOT_FOUND));
 
+        BigDecimal oldCost = material.getCostPrice();
         materialMapper.updateEntity(material, request);
         material = materialRepository.save(material);
         log.info("Updated material with id: {}", material.getId());
+
+        // Giá vốn thay đổi -> đưa vào outbox, các sản phẩm dùng material này được tính lại ngay sau đó
+        productCostService.onMaterialCostChanged(material.getId(), oldCost, material.getCostPrice());
         return materialMapper.toResponse(material);
     }
 
     @Override
     @Transactional
     public void deleteMaterial(Long id) {
-        if (!materialRepository.existsById(id)) {
-            throw new AppException(ErrorCode.MATERIAL_NOT_FOUND);
-        }
-        materialRepository.deleteById(id);
+        Material material = materialRepository.findById(id)
+                .orElseThrow(() -> new AppException(ErrorCode.MATERIAL_NOT_FOUND));
+        materialRepository.delete(material);
         log.info("Deleted material with id: {}", id);
+
+        // Material đã xóa không còn tính vào giá vốn sản phẩm
+        productCostService.onMaterialCostChanged(id, material.getCostPrice(), BigDecimal.ZERO);
     }
 }
 
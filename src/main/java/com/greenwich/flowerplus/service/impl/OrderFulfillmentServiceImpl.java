@@ -0,0 +1,213 @@
+package com.greenwich.flowerplus.service.impl;
+
+import com.greenwich.flowerplus.common.enums.ErrorCode;
+import com.greenwich.flowerplus.common.enums.OrderStatus;
+import com.greenwich.flowerplus.common.exception.AppException;
+import com.greenwich.flowerplus.dto.response.OrderResponse;
+import com.greenwich.flowerplus.mapper.OrderMapper;
+import com.greenwich.flowerplus.repository.OrderRepository;
+import com.greenwich.flowerplus.service.DeliverySlotService;
+import com.greenwich.flowerplus.service.OrderFulfillmentService;
+import com.greenwich.flowerplus.service.SalesRollupService;
+import com.greenwich.flowerplus.service.StockReservationService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Order lifecycle as optimistic transitions: the current status is read, checked against
+ * {@link #ALLOWED_FROM}, then written with {@code WHERE status = :expected}. A concurrent transition
+ * makes the UPDATE match nothing and the request fails instead of overwriting it.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OrderFulfillmentServiceImpl implements OrderFulfillmentService {
+
+    // Trạng thái đích -> các trạng thái được phép chuyển sang
+    private static final Map<OrderStatus, Set<OrderStatus>> ALLOWED_FROM = Map.of(
+            OrderStatus.CONFIRMED, EnumSet.of(OrderStatus.PENDING),
+            OrderStatus.PROCESSING, EnumSet.of(OrderStatus.CONFIRMED),
+            OrderStatus.SHIPPING, EnumSet.of(OrderStatus.CONFIRMED, OrderStatus.PROCESSING),
+            OrderStatus.COMPLETED, EnumSet.of(OrderStatus.SHIPPING),
+            OrderStatus.CANCELLED, EnumSet.of(OrderStatus.PENDING, OrderStatus.CONFIRMED, OrderStatus.PROCESSING)
+    );
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final AuditorAware<String> auditorProvider;
+    private final StockReservationService stockReservationService;
+    private final SalesRollupService salesRollupService;
+    private final DeliverySlotService deliverySlotService;
+    private final OrderRepository orderRepository;
+    private final OrderMapper orderMapper;
+
+    // ============================================================================
+    // SQL
+    // ============================================================================
+
+    private static final String CURRENT_STATE_SQL = """
+            SELECT o.order_code, o.status
+            FROM orders o
+            WHERE o.id = :orderId
+              AND o.deleted_at IS NULL
+            """;
+
+    // COD: tiền thu lúc giao xong. Hủy đơn đã thanh toán: payment_status giữ PAID (chưa hoàn tiền),
+    // CANCELLED + PAID = đơn cần hoàn tiền, chỉ chuyển REFUNDED khi tiền đã thực sự trả lại
+    private static final String UPDATE_STATUS_SQL = """
+            UPDATE orders
+            SET status         = :target,
+                completed_at   = CASE WHEN :target = 'COMPLETED' THEN :now ELSE completed_at END,
+                cancelled_at   = CASE WHEN :target = 'CANCELLED' THEN :now ELSE cancelled_at END,
+                paid_at        = CASE WHEN :target = 'COMPLETED' AND payment_method = 'COD' AND paid_at IS NULL
+                                      THEN :now ELSE paid_at END,
+                payment_status = CASE
+                                     WHEN :target = 'COMPLETED' AND payment_method = 'COD' AND payment_status = 'UNPAID'
+                                         THEN 'PAID'
+                                     ELSE payment_status END,
+                updated_at     = :now,
+                updated_by     = :actor
+            WHERE id = :orderId
+              AND status = :expected
+              AND deleted_at IS NULL
+            """;
+
+    private static final String PENDING_ORDER_BY_CODE_SQL = """
+            SELECT o.id
+            FROM orders o
+            WHERE o.order_code = :orderCode
+              AND o.status = 'PENDING'
+              AND o.deleted_at IS NULL
+            """;
+
+    private static final String MARK_PAID_SQL = """
+            UPDATE orders
+            SET payment_status = 'PAID',
+                paid_at        = :now,
+                updated_at     = :now,
+                updated_by     = :actor
+            WHERE id = :orderId
+              AND payment_status = 'UNPAID'
+              AND status <> 'CANCELLED'
+              AND deleted_at IS NULL
+            """;
+
+    private record OrderState(String orderCode, OrderStatus status) {
+    }
+
+    // ============================================================================
+    // TRANSITIONS
+    // ============================================================================
+
+    @Override
+    @Transactional
+    public OrderResponse updateStatus(Long orderId, OrderStatus target) {
+        OrderState state = loadState(orderId);
+        if (state.status() == target) {
+            return loadOrder(orderId);
+        }
+        if (!ALLOWED_FROM.getOrDefault(target, Set.of()).contains(state.status())) {
+            throw new AppException(ErrorCode.ORDER_INVALID_STATUS_TRANSITION);
+        }
+
+        int updated = jdbcTemplate.update(UPDATE_STATUS_SQL, baseParams(orderId)
+                .addValue("target", target.name())
+                .addValue("expected", state.status().name()));
+        if (updated == 0) {
+            // Đơn vừa được chuyển trạng thái bởi request khác
+            throw new AppException(ErrorCode.ORDER_INVALID_STATUS_TRANSITION);
+        }
+
+        // Đơn không có dòng giữ hàng nào (đặt trước khi checkout giữ nguyên liệu): không có gì để xuất/trả kho
+        boolean holdsStock = state.status() == OrderStatus.PENDING
+                && (target == OrderStatus.CONFIRMED || target == OrderStatus.CANCELLED)
+                && stockReservationService.hasReservation(state.orderCode());
+
+        switch (target) {
+            // Hàng xuất kho. Giữ hàng đã hết hạn -> INVENTORY_CONFIRM_FAILED, rollback cả chuyển trạng thái
+            case CONFIRMED -> {
+                if (holdsStock) {
+                    stockReservationService.commit(state.orderCode());
+                }
+            }
+            case COMPLETED -> salesRollupService.onOrderRecognized(orderId);
+            case CANCELLED -> {
+                // Sau CONFIRMED nguyên liệu đã dùng, không trả lại kho
+                if (holdsStock) {
+                    stockReservationService.release(state.orderCode());
+                }
+                deliverySlotService.release(orderId);
+                salesRollupService.onOrderCancelled(orderId);
+            }
+            default -> {
+            }
+        }
+
+        log.info("Order {} moved from {} to {}", state.orderCode(), state.status(), target);
+        return loadOrder(orderId);
+    }
+
+    @Override
+    @Transactional
+    public OrderResponse markPaid(Long orderId) {
+        int updated = jdbcTemplate.update(MARK_PAID_SQL, baseParams(orderId));
+        if (updated == 0) {
+            OrderState state = loadState(orderId);
+            throw new AppException(state.status() == OrderStatus.CANCELLED
+                    ? ErrorCode.ORDER_INVALID_STATUS_TRANSITION
+                    : ErrorCode.ORDER_PAID);
+        }
+
+        salesRollupService.onOrderRecognized(orderId);
+        log.info("Order {} marked as paid", orderId);
+        return loadOrder(orderId);
+    }
+
+    @Override
+    @Transactional
+    public boolean cancelExpired(String orderCode) {
+        List<Long> orderIds = jdbcTemplate.queryForList(PENDING_ORDER_BY_CODE_SQL,
+                new MapSqlParameterSource("orderCode", orderCode), Long.class);
+        if (orderIds.isEmpty()) {
+            return false;
+        }
+
+        // Cùng đường hủy với shop: trả hàng + giải phóng khung giờ giao trong 1 transaction
+        updateStatus(orderIds.getFirst(), OrderStatus.CANCELLED);
+        log.info("Order {} cancelled, stock reservation expired before confirmation", orderCode);
+        return true;
+    }
+
+    private OrderState loadState(Long orderId) {
+        List<OrderState> states = jdbcTemplate.query(CURRENT_STATE_SQL, new MapSqlParameterSource("orderId", orderId),
+                (rs, i) -> new OrderState(rs.getString("order_code"), OrderStatus.valueOf(rs.getString("status"))));
+        if (states.isEmpty()) {
+            throw new AppException(ErrorCode.ORDER_NOT_FOUND);
+        }
+        return states.getFirst();
+    }
+
+    private OrderResponse loadOrder(Long orderId) {
+        return orderRepository.findWithItemsById(orderId)
+                .map(orderMapper::toResponse)
+                .orElseThrow(() -> new AppException(ErrorCode.ORDER_NOT_FOUND));
+    }
+
+    private MapSqlParameterSource baseParams(Long orderId) {
+        return new MapSqlParameterSource()
+                .addValue("orderId", orderId)
+                .addValue("now", Timestamp.from(Instant.now()))
+                .addValue("actor", auditorProvider.getCurrentAuditor().orElse(null));
+    }
+}
@@ -0,0 +1,356 @@
+package com.greenwich.flowerplus.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.greenwich.flowerplus.common.enums.ErrorCode;
+import com.greenwich.flowerplus.common.enums.OrderItemType;
+import com.greenwich.flowerplus.common.enums.OrderStatus;
+import com.greenwich.flowerplus.common.enums.PaymentMethod;
+import com.greenwich.flowerplus.common.enums.PaymentStatus;
+import com.greenwich.flowerplus.common.enums.ProductStatus;
+import com.greenwich.flowerplus.common.exception.AppException;
+import com.greenwich.flowerplus.common.utils.OrderCodeGenerator;
+import com.greenwich.flowerplus.common.utils.TsidUtils;
+import com.greenwich.flowerplus.dto.request.PlaceOrderRequest;
+import com.greenwich.flowerplus.dto.response.OrderResponse;
+import com.greenwich.flowerplus.dto.response.OrderSummaryResponse;
+import com.greenwich.flowerplus.entity.Order;
+import com.greenwich.flowerplus.entity.OrderItem;
+import com.greenwich.flowerplus.mapper.OrderMapper;
+import com.greenwich.flowerplus.repository.OrderRepository;
+import com.greenwich.flowerplus.service.DeliverySlotService;
+import com.greenwich.flowerplus.service.OrderService;
+import com.greenwich.flowerplus.service.StockReservationService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Checkout built for peak days (Valentine, 8/3, 20/10).
+ * <p>
+ * Per order: 1 INSERT order (ON CONFLICT on the idempotency key), 1 SELECT products, stock reservation
+ * (1 recipe expansion + 1 INSERT lines + 1 batched conditional UPDATE), 1 multi-row INSERT items.
+ * No row is locked with SELECT ... FOR UPDATE and no query checks order_code uniqueness: the code is
+ * derived from the TSID id, which is unique by construction.
+ */
+@Service
+@Slf4j
+public class OrderServiceImpl implements OrderService {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final AuditorAware<String> auditorProvider;
+    private final StockReservationService stockReservationService;
+    private final DeliverySlotService deliverySlotService;
+    private final OrderRepository orderRepository;
+    private final OrderMapper orderMapper;
+    private final ObjectMapper objectMapper;
+    private final Duration reservationTtl;
+
+    public OrderServiceImpl(NamedParameterJdbcTemplate jdbcTemplate,
+                            AuditorAware<String> auditorProvider,
+                            StockReservationService stockReservationService,
+                            DeliverySlotService deliverySlotService,
+                            OrderRepository orderRepository,
+                            OrderMapper orderMapper,
+                            ObjectMapper objectMapper,
+                            @Value("${app.stock-reservation.order-ttl-minutes:1440}") long reservationTtlMinutes) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.auditorProvider = auditorProvider;
+        this.stockReservationService = stockReservationService;
+        this.deliverySlotService = deliverySlotService;
+        this.orderRepository = orderRepository;
+        this.orderMapper = orderMapper;
+        this.objectMapper = objectMapper;
+        this.reservationTtl = Duration.ofMinutes(reservationTtlMinutes);
+    }
+
+    // ============================================================================
+    // SQL
+    // ============================================================================
+
+    private static final String PRICE_PRODUCTS_SQL = """
+            SELECT p.id, p.name, p.selling_price, p.cost_price, p.status
+            FROM products p
+            WHERE p.id IN (:productIds)
+              AND p.deleted_at IS NULL
+            """;
+
+    // Inserted first: a concurrent retry with the same key waits on the unique index, then inserts nothing
+    private static final String INSERT_ORDER_SQL = """
+            INSERT INTO orders (id, created_at, updated_at, created_by, updated_by, user_id, order_code, idempotency_key,
+                                request_fingerprint, total_amount, discount_amount, status, payment_status, payment_method,
+                                shipping_address, delivery_date, delivery_time_slot, customer_note)
+            VALUES (:id, :now, :now, :actor, :actor, :userId, :orderCode, :idempotencyKey,
+                    :requestFingerprint, :totalAmount, :discountAmount, :status, :paymentStatus, :paymentMethod,
+                    CAST(:shippingAddress AS jsonb), :deliveryDate, :deliveryTimeSlot, :customerNote)
+            ON CONFLICT (user_id, idempotency_key) DO NOTHING
+            """;
+
+    private static final String INSERT_ITEMS_SQL = """
+            INSERT INTO order_items (id, created_at, updated_at, created_by, updated_by, order_id, product_id,
+                                     product_name, item_type, quantity, unit_price, unit_cost, sub_total)
+            SELECT i.id, :now, :now, :actor, :actor, :orderId, i.product_id,
+                   i.product_name, :itemType, i.quantity, i.unit_price, i.unit_cost, i.sub_total
+            FROM (VALUES :items) AS i(id, product_id, product_name, quantity, unit_price, unit_cost, sub_total)
+            """;
+
+    // Index-only backward scan on idx_orders_user_created, LIMIT stops it after one page.
+    // First item + item count from one range of idx_order_items_order_id_id (window counts before LIMIT)
+    private static final String ORDER_HISTORY_SQL = """
+            SELECT o.id, o.order_code, o.status, o.payment_status, o.total_amount, o.created_at,
+                   fi.product_name AS first_item_name,
+                   fi.item_count,
+                   th.url AS first_item_thumbnail
+            FROM orders o
+            LEFT JOIN LATERAL (
+                SELECT i.product_id, i.product_name, COUNT(*) OVER () AS item_count
+                FROM order_items i
+                WHERE i.order_id = o.id
+                ORDER BY i.id
+                LIMIT 1
+            ) fi ON TRUE
+            LEFT JOIN LATERAL (
+                SELECT a.url
+                FROM product_assets a
+                WHERE a.product_id = fi.product_id
+                  AND a.is_thumbnail
+                LIMIT 1
+            ) th ON TRUE
+            WHERE o.user_id = :userId
+              AND o.deleted_at IS NULL
+              %s
+            ORDER BY o.created_at DESC, o.id DESC
+            LIMIT :size
+            """;
+
+    private static final String HISTORY_KEYSET_FILTER = """
+            AND (o.created_at, o.id) < (SELECT b.created_at, b.id FROM orders b WHERE b.id = :beforeId AND b.user_id = :userId)
+            """;
+
+    private static final int MAX_HISTORY_PAGE_SIZE = 50;
+
+    private record PricedProduct(Long id, String name, BigDecimal price, BigDecimal cost, ProductStatus status) {
+    }
+
+    // Canonical form of a checkout request: lines merged and sorted, so the same cart in another order matches
+    private record RequestFingerprint(SortedMap<Long, Integer> quantities, PlaceOrderRequest.ShippingAddress shippingAddress,
+                                      PaymentMethod paymentMethod, LocalDate deliveryDate, String deliveryTimeSlot,
+                                      String customerNote) {
+    }
+
+    // ============================================================================
+    // CHECKOUT
+    // ============================================================================
+
+    @Override
+    @Transactional
+    public OrderResponse placeOrder(Long userId, String idempotencyKey, PlaceOrderRequest request) {
+        // Gộp dòng trùng sản phẩm, sort theo id -> thứ tự lock material ổn định
+        SortedMap<Long, Integer> quantities = new TreeMap<>();
+        for (PlaceOrderRequest.Item item : request.items()) {
+            quantities.merge(item.productId(), item.quantity(), Integer::sum);
+        }
+
+        Map<Long, PricedProduct> products = loadProducts(quantities);
+        Order order = buildOrder(userId, idempotencyKey, request, quantities, products);
+        order.setRequestFingerprint(fingerprint(quantities, request));
+        Instant now = Instant.now();
+        order.setCreatedAt(now);
+        order.setUpdatedAt(now);
+
+        MapSqlParameterSource base = new MapSqlParameterSource()
+                .addValue("now", Timestamp.from(now))
+                .addValue("actor", auditorProvider.getCurrentAuditor().orElse(null));
+
+        int inserted = jdbcTemplate.update(INSERT_ORDER_SQL, orderParams(order, base));
+        if (inserted == 0) {
+            log.info("Order replay for user {} with idempotency key {}", userId, idempotencyKey);
+            Order existing = orderRepository.findWithItemsByUserIdAndIdempotencyKey(userId, idempotencyKey)
+                    .orElseThrow(() -> new AppException(ErrorCode.ORDER_NOT_FOUND));
+            // Đơn cũ chưa có fingerprint (trước V30) -> không kiểm tra được, trả về như trước
+            if (existing.getRequestFingerprint() != null
+                    && !existing.getRequestFingerprint().equals(order.getRequestFingerprint())) {
+                log.info("Idempotency key {} of user {} reused for a different checkout", idempotencyKey, userId);
+                throw new AppException(ErrorCode.ORDER_IDEMPOTENCY_KEY_REUSED);
+            }
+            return orderMapper.toResponse(existing);
+        }
+
+        // Khung giờ giao trước: hết chỗ thì fail trước khi khóa dòng nguyên liệu
+        if (request.deliveryDate() != null || request.deliveryTimeSlot() != null) {
+            int bouquets = quantities.values().stream().mapToInt(Integer::intValue).sum();
+            deliverySlotService.reserve(order.getId(), request.deliveryDate(), request.deliveryTimeSlot(), bouquets);
+        }
+
+        // Thiếu hàng -> AppException -> rollback cả đơn vừa insert.
+        // Hết hạn mà chưa CONFIRMED -> StockReservationExpiryJob hủy đơn (trả hàng + khung giờ)
+        stockReservationService.reserveForProducts(order.getOrderCode(), quantities, reservationTtl);
+
+        jdbcTemplate.update(INSERT_ITEMS_SQL, new MapSqlParameterSource(base.getValues())
+                .addValue("orderId", order.getId())
+                .addValue("itemType", OrderItemType.PRODUCT.name())
+                .addValue("items", order.getItems().stream()
+                        .map(i -> new Object[]{i.getId(), i.getProductId(), i.getProductName(), i.getQuantity(),
+                                i.getUnitPrice(), i.getUnitCost(), i.getSubTotal()})
+                        .toList()));
+
+        log.debug("Order {} placed: {} line(s), total {}", order.getOrderCode(), order.getItems().size(), order.getTotalAmount());
+        return orderMapper.toResponse(order);
+    }
+
+    private Map<Long, PricedProduct> loadProducts(Map<Long, Integer> quantities) {
+        Map<Long, PricedProduct> products = new HashMap<>();
+        jdbcTemplate.query(PRICE_PRODUCTS_SQL, new MapSqlParameterSource("productIds", quantities.keySet()),
+                rs -> {
+                    PricedProduct product = new PricedProduct(rs.getLong("id"), rs.getString("name"),
+                            rs.getBigDecimal("selling_price"), rs.getBigDecimal("cost_price"),
+                            ProductStatus.valueOf(rs.getString("status")));
+                    products.put(product.id(), product);
+                });
+
+        if (products.size() != quantities.size()) {
+            throw new AppException(ErrorCode.PRODUCT_NOT_FOUND);
+        }
+        if (products.values().stream().anyMatch(p -> p.status() != ProductStatus.ACTIVE)) {
+            throw new AppException(ErrorCode.ORDER_PRODUCT_UNAVAILABLE);
+        }
+        return products;
+    }
+
+    private Order buildOrder(Long userId, String idempotencyKey, PlaceOrderRequest request,
+                             Map<Long, Integer> quantities, Map<Long, PricedProduct> products) {
+        Long orderId = TsidUtils.nextId();
+        Order order = Order.builder()
+                .userId(userId)
+                .orderCode(OrderCodeGenerator.encode(orderId))
+                .idempotencyKey(idempotencyKey)
+                .status(OrderStatus.PENDING)
+                .paymentStatus(PaymentStatus.UNPAID)
+                .paymentMethod(request.paymentMethod())
+                .shippingAddress(orderMapper.toSnapshot(request.shippingAddress()))
+                .deliveryDate(request.deliveryDate() != null
+                        ? request.deliveryDate().atStartOfDay(ZoneOffset.UTC).toInstant()
+                        : null)
+                .deliveryTimeSlot(request.deliveryTimeSlot())
+                .customerNote(request.customerNote())
+                .discountAmount(BigDecimal.ZERO)
+                .build();
+        order.setId(orderId);
+
+        List<OrderItem> items = new ArrayList<>(quantities.size());
+        BigDecimal total = BigDecimal.ZERO;
+        for (Map.Entry<Long, Integer> line : quantities.entrySet()) {
+            PricedProduct product = products.get(line.getKey());
+            BigDecimal subTotal = product.price().multiply(BigDecimal.valueOf(line.getValue()));
+            OrderItem item = OrderItem.builder()
+                    .order(order)
+                    .productId(product.id())
+                    .productName(product.name())
+                    .itemType(OrderItemType.PRODUCT)
+                    .quantity(line.getValue())
+                    .unitPrice(product.price())
+                    .unitCost(product.cost())
+                    .subTotal(subTotal)
+                    .build();
+            item.setId(TsidUtils.nextId());
+            items.add(item);
+            total = total.add(subTotal);
+        }
+        order.setItems(items);
+        order.setTotalAmount(total);
+        return order;
+    }
+
+    private MapSqlParameterSource orderParams(Order order, MapSqlParameterSource base) {
+        return new MapSqlParameterSource(base.getValues())
+                .addValue("id", order.getId())
+                .addValue("userId", order.getUserId())
+                .addValue("orderCode", order.getOrderCode())
+                .addValue("idempotencyKey", order.getIdempotencyKey())
+                .addValue("requestFingerprint", order.getRequestFingerprint())
+                .addValue("totalAmount", order.getTotalAmount())
+                .addValue("discountAmount", order.getDiscountAmount())
+                .addValue("status", order.getStatus().name())
+                .addValue("paymentStatus", order.getPaymentStatus().name())
+                .addValue("paymentMethod", order.getPaymentMethod().name())
+                .addValue("shippingAddress", toJson(order.getShippingAddress()))
+                .addValue("deliveryDate", order.getDeliveryDate() != null ? Timestamp.from(order.getDeliveryDate()) : null)
+                .addValue("deliveryTimeSlot", order.getDeliveryTimeSlot())
+                .addValue("customerNote", order.getCustomerNote());
+    }
+
+    private String fingerprint(SortedMap<Long, Integer> quantities, PlaceOrderRequest request) {
+        String canonical = toJson(new RequestFingerprint(quantities, request.shippingAddress(), request.paymentMethod(),
+                request.deliveryDate(), request.deliveryTimeSlot(), request.customerNote()));
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(canonical.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new AppException(ErrorCode.UNCATEGORIZED_EXCEPTION);
+        }
+    }
+
+    // ============================================================================
+    // READS
+    // ============================================================================
+
+    @Override
+    @Transactional(readOnly = true)
+    public OrderResponse getOrder(Long userId, Long orderId) {
+        return orderRepository.findWithItemsByIdAndUserId(orderId, userId)
+                .map(orderMapper::toResponse)
+                .orElseThrow(() -> new AppException(ErrorCode.ORDER_NOT_FOUND));
+    }
+
+    @Override
+    public List<OrderSummaryResponse> getOrderHistory(Long userId, Long beforeId, int size) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("userId", userId)
+                .addValue("beforeId", beforeId)
+                .addValue("size", Math.clamp(size, 1, MAX_HISTORY_PAGE_SIZE));
+
+        String sql = ORDER_HISTORY_SQL.formatted(beforeId != null ? HISTORY_KEYSET_FILTER : "");
+        return jdbcTemplate.query(sql, params, (rs, i) -> OrderSummaryResponse.builder()
+                .id(rs.getLong("id"))
+                .orderCode(rs.getString("order_code"))
+                .status(OrderStatus.valueOf(rs.getString("status")))
+                .paymentStatus(rs.getString("payment_status") != null
+                        ? PaymentStatus.valueOf(rs.getString("payment_status"))
+                        : null)
+                .totalAmount(rs.getBigDecimal("total_amount"))
+                .itemCount(rs.getInt("item_count"))
+                .firstItemName(rs.getString("first_item_name"))
+                .firstItemThumbnail(rs.getString("first_item_thumbnail"))
+                .createdAt(rs.getTimestamp("created_at").toInstant())
+                .build());
+    }
+}
@@ -0,0 +1,366 @@
+package com.greenwich.flowerplus.service.impl;
+
+import com.greenwich.flowerplus.common.enums.ErrorCode;
+import com.greenwich.flowerplus.common.exception.AppException;
+import com.greenwich.flowerplus.common.exception.DomainException;
+import com.greenwich.flowerplus.common.utils.ProductValidationUtils;
+import com.greenwich.flowerplus.common.utils.TsidUtils;
+import com.greenwich.flowerplus.dto.request.BulkProductCategoryRequest;
+import com.greenwich.flowerplus.dto.request.BulkProductPriceRequest;
+import com.greenwich.flowerplus.dto.request.BulkProductStatusRequest;
+import com.greenwich.flowerplus.dto.response.BulkOperationResponse;
+import com.greenwich.flowerplus.dto.response.BulkOperationResponse.ItemResult;
+import com.greenwich.flowerplus.entity.Category;
+import com.greenwich.flowerplus.repository.CategoryRepository;
+import com.greenwich.flowerplus.service.ProductBulkService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Array;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Set-based implementation of {@link ProductBulkService}.
+ * <p>
+ * Flow per chunk of product IDs:
+ * 1. Run the UPDATE / INSERT ... SELECT with the domain rules in the WHERE clause, RETURNING the affected product IDs
+ * 2. For the IDs that were not affected, run one "explain" SELECT that returns the ErrorCode name of the violated rule
+ * <p>
+ * So a chunk costs 1 statement when everything passes and 2 when some products are rejected,
+ * instead of findById + saveAndFlush per product.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class ProductBulkServiceImpl implements ProductBulkService {
+
+    private static final int CHUNK_SIZE = 500;
+    private static final int MAX_PRODUCTS_PER_REQUEST = 5000;
+    private static final int MAX_CATEGORIES_PER_PRODUCT = 5;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final CategoryRepository categoryRepository;
+    private final AuditorAware<String> auditorProvider;
+
+    // ============================================================================
+    // STATUS
+    // ============================================================================
+
+    // Product.activate(): thumbnail, at least one category, positive price
+    private static final String ACTIVATE_SQL = """
+            UPDATE products p
+            SET status = 'ACTIVE', updated_at = NOW(), updated_by = :actor
+            WHERE p.id IN (:ids)
+              AND p.deleted_at IS NULL
+              AND p.thumbnail IS NOT NULL AND BTRIM(p.thumbnail) <> ''
+              AND p.selling_price > 0
+              AND EXISTS (SELECT 1 FROM product_categories pc
+                          WHERE pc.product_id = p.id AND pc.deleted_at IS NULL)
+            RETURNING p.id
+            """;
+
+    private static final String ACTIVATE_EXPLAIN_SQL = """
+            SELECT p.id,
+                   CASE
+                       WHEN p.thumbnail IS NULL OR BTRIM(p.thumbnail) = '' THEN 'PRODUCT_MUST_HAVE_THUMBNAIL'
+                       WHEN NOT EXISTS (SELECT 1 FROM product_categories pc
+                                        WHERE pc.product_id = p.id AND pc.deleted_at IS NULL) THEN 'PRODUCT_MUST_HAVE_CATEGORY'
+                       ELSE 'PRODUCT_INVALID_PRICE'
+                   END AS reason
+            FROM products p
+            WHERE p.id IN (:ids) AND p.deleted_at IS NULL
+            """;
+
+    // Product.toDraft() / deactivate(): no rule, only existence
+    private static final String SET_STATUS_SQL = """
+            UPDATE products p
+            SET status = :status, updated_at = NOW(), updated_by = :actor
+            WHERE p.id IN (:ids) AND p.deleted_at IS NULL
+            RETURNING p.id
+            """;
+
+    @Override
+    @Transactional
+    public BulkOperationResponse updateStatus(BulkProductStatusRequest request) {
+        log.info("Bulk status update: {} products -> {}", request.productIds().size(), request.productStatus());
+
+        MapSqlParameterSource params = baseParams();
+        return switch (request.productStatus()) {
+            case ACTIVE -> execute(request.productIds(), params, ACTIVATE_SQL, ACTIVATE_EXPLAIN_SQL);
+            case DRAFT, INACTIVE -> {
+                params.addValue("status", request.productStatus().name());
+                yield execute(request.productIds(), params, SET_STATUS_SQL, null);
+            }
+            default -> throw new DomainException("Invalid product status");
+        };
+    }
+
+    // ============================================================================
+    // PRICE
+    // ============================================================================
+
+    private static final String PRICE_TARGET_CTE = """
+            WITH target AS (
+                SELECT p.id, ROUND(%s, 2) AS new_price
+                FROM products p
+                WHERE p.id IN (:ids) AND p.deleted_at IS NULL
+            )
+            """;
+
+    // Product.updateBasePrice(): positive, >= cost price; plus validateProductPrice(): <= original price, <= MAX_PRICE
+    private static final String ADJUST_PRICE_SQL = """
+            UPDATE products p
+            SET selling_price = t.new_price, updated_at = NOW(), updated_by = :actor
+            FROM target t
+            WHERE p.id = t.id
+              AND t.new_price > 0
+              AND t.new_price <= :maxPrice
+              AND t.new_price >= p.cost_price
+              AND t.new_price <= p.original_price
+            RETURNING p.id
+            """;
+
+    private static final String ADJUST_PRICE_EXPLAIN_SQL = """
+            SELECT p.id,
+                   CASE
+                       WHEN t.new_price <= 0 OR t.new_price > :maxPrice THEN 'PRODUCT_INVALID_PRICE'
+                       WHEN t.new_price < p.cost_price THEN 'PRODUCT_PRICE_BELOW_COST'
+                       ELSE 'PRODUCT_ORIGINAL_PRICE_LESS_THAN_BASE'
+                   END AS reason
+            FROM products p
+            JOIN target t ON t.id = p.id
+            """;
+
+    @Override
+    @Transactional
+    public BulkOperationResponse adjustPrice(BulkProductPriceRequest request) {
+        log.info("Bulk price adjustment: {} products, {} {}",
+                request.productIds().size(), request.adjustmentType(), request.value());
+
+        // Only these two constant fragments are ever formatted into the SQL, the value itself is bound
+        String newPriceExpression = switch (request.adjustmentType()) {
+            case PERCENTAGE -> "p.selling_price * (100 + :value) / 100";
+            case AMOUNT -> "p.selling_price + :value";
+        };
+        String targetCte = PRICE_TARGET_CTE.formatted(newPriceExpression);
+
+        MapSqlParameterSource params = baseParams()
+                .addValue("value", request.value())
+                .addValue("maxPrice", ProductValidationUtils.MAX_PRICE);
+
+        return execute(request.productIds(), params,
+                targetCte + ADJUST_PRICE_SQL, targetCte + ADJUST_PRICE_EXPLAIN_SQL);
+    }
+
+    // ============================================================================
+    // CATEGORIES
+    // ============================================================================
+
+    // Product.addCategory(): skip already linked, max 5 per product (all-or-nothing per product)
+    private static final String ADD_CATEGORIES_SQL = """
+            WITH missing AS (
+                SELECT p.id AS product_id, c.id AS category_id
+                FROM products p
+                CROSS JOIN categories c
+                WHERE p.id IN (:ids) AND p.deleted_at IS NULL
+                  AND c.id IN (:categoryIds)
+                  AND NOT EXISTS (SELECT 1 FROM product_categories pc
+                                  WHERE pc.product_id = p.id AND pc.category_id = c.id AND pc.deleted_at IS NULL)
+            ),
+            allowed AS (
+                SELECT m.product_id, m.category_id,
+                       ROW_NUMBER() OVER (ORDER BY m.product_id, m.category_id) AS rn
+                FROM missing m
+                WHERE (SELECT COUNT(*) FROM product_categories pc
+                       WHERE pc.product_id = m.product_id AND pc.deleted_at IS NULL)
+                    + (SELECT COUNT(*) FROM missing m2 WHERE m2.product_id = m.product_id) <= :maxCategories
+            )
+            INSERT INTO product_categories (id, product_id, category_id, created_at, updated_at, created_by, updated_by)
+            SELECT (CAST(:newIds AS BIGINT[]))[a.rn], a.product_id, a.category_id, NOW(), NOW(), :actor, :actor
+            FROM allowed a
+            RETURNING product_id
+            """;
+
+    // Nothing inserted: either every category was already linked (idempotent -> success) or the limit was hit
+    private static final String ADD_CATEGORIES_EXPLAIN_SQL = """
+            SELECT p.id,
+                   CASE
+                       WHEN (SELECT COUNT(DISTINCT pc.category_id) FROM product_categories pc
+                             WHERE pc.product_id = p.id AND pc.deleted_at IS NULL
+                               AND pc.category_id IN (:categoryIds)) = :categoryCount THEN NULL
+                       ELSE 'PRODUCT_CATEGORY_LIMIT_EXCEEDED'
+                   END AS reason
+            FROM products p
+            WHERE p.id IN (:ids) AND p.deleted_at IS NULL
+            """;
+
+    // Product.removeCategory(): soft delete, product must keep at least one other category
+    private static final String REMOVE_CATEGORIES_SQL = """
+            UPDATE product_categories pc
+            SET deleted_at = NOW(), updated_at = NOW(), updated_by = :actor
+            WHERE pc.product_id IN (:ids)
+              AND pc.category_id IN (:categoryIds)
+              AND pc.deleted_at IS NULL
+              AND EXISTS (SELECT 1 FROM products p WHERE p.id = pc.product_id AND p.deleted_at IS NULL)
+              AND EXISTS (SELECT 1 FROM product_categories keep
+                          WHERE keep.product_id = pc.product_id AND keep.deleted_at IS NULL
+                            AND keep.category_id NOT IN (:categoryIds))
+            RETURNING pc.product_id
+            """;
+
+    private static final String REMOVE_CATEGORIES_EXPLAIN_SQL = """
+            SELECT p.id,
+                   CASE
+                       WHEN NOT EXISTS (SELECT 1 FROM product_categories pc
+                                        WHERE pc.product_id = p.id AND pc.deleted_at IS NULL
+                                          AND pc.category_id IN (:categoryIds)) THEN 'PRODUCT_CATEGORY_NOT_FOUND'
+                       ELSE 'PRODUCT_MUST_HAVE_CATEGORY'
+                   END AS reason
+            FROM products p
+            WHERE p.id IN (:ids) AND p.deleted_at IS NULL
+            """;
+
+    @Override
+    @Transactional
+    public BulkOperationResponse updateCategories(BulkProductCategoryRequest request) {
+        log.info("Bulk category {}: {} products, categories {}",
+                request.operation(), request.productIds().size(), request.categoryIds());
+
+        List<Long> categoryIds = request.categoryIds().stream().filter(Objects::nonNull).distinct().toList();
+        if (categoryIds.isEmpty()) {
+            throw new AppException(ErrorCode.INVALID_REQUEST, "Category IDs cannot be empty");
+        }
+
+        MapSqlParameterSource params = baseParams().addValue("categoryIds", categoryIds);
+
+        return switch (request.operation()) {
+            case ADD -> {
+                validateCategoriesForAdd(categoryIds);
+                params.addValue("categoryCount", categoryIds.size())
+                        .addValue("maxCategories", MAX_CATEGORIES_PER_PRODUCT);
+                // TSIDs are generated here, the INSERT ... SELECT picks them by row number
+                yield execute(request.productIds(), params, ADD_CATEGORIES_SQL, ADD_CATEGORIES_EXPLAIN_SQL,
+                        chunkParams -> chunkParams.addValue("newIds",
+                                newTsidArray(chunkSize(chunkParams) * categoryIds.size())));
+            }
+            case REMOVE -> execute(request.productIds(), params, REMOVE_CATEGORIES_SQL, REMOVE_CATEGORIES_EXPLAIN_SQL);
+        };
+    }
+
+    private void validateCategoriesForAdd(List<Long> categoryIds) {
+        if (categoryIds.size() > MAX_CATEGORIES_PER_PRODUCT) {
+            throw new AppException(ErrorCode.PRODUCT_CATEGORY_LIMIT_EXCEEDED);
+        }
+
+        List<Category> categories = categoryRepository.findAllById(categoryIds);
+        if (categories.size() != categoryIds.size()) {
+            throw new AppException(ErrorCode.CATEGORY_NOT_FOUND);
+        }
+        if (categories.stream().anyMatch(c -> !Boolean.TRUE.equals(c.getIsActive()))) {
+            throw new AppException(ErrorCode.CATEGORY_INACTIVE);
+        }
+    }
+
+    private Array newTsidArray(int size) {
+        Long[] ids = new Long[size];
+        for (int i = 0; i < size; i++) {
+            ids[i] = TsidUtils.nextId();
+        }
+        // Same transactional connection as the statement that will use it
+        return jdbcTemplate.getJdbcTemplate().execute(
+                (ConnectionCallback<Array>) connection -> connection.createArrayOf("bigint", ids));
+    }
+
+    // ============================================================================
+    // CHUNKED EXECUTION + REPORT
+    // ============================================================================
+
+    private BulkOperationResponse execute(List<Long> productIds, MapSqlParameterSource params,
+                                          String applySql, String explainSql) {
+        return execute(productIds, params, applySql, explainSql, chunkParams -> { });
+    }
+
+    /**
+     * @param applySql   statement with the rules as predicates, RETURNING the affected product IDs
+     * @param explainSql SELECT id, reason (ErrorCode name, NULL = nothing to change) for the unaffected IDs;
+     *                   null when the only possible failure is "not found"
+     */
+    private BulkOperationResponse execute(List<Long> productIds, MapSqlParameterSource params,
+                                          String applySql, String explainSql,
+                                          Consumer<MapSqlParameterSource> chunkCustomizer) {
+        List<Long> ids = normalizeIds(productIds);
+        List<ItemResult> results = new ArrayList<>(ids.size());
+
+        for (int from = 0; from < ids.size(); from += CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + CHUNK_SIZE, ids.size()));
+
+            MapSqlParameterSource chunkParams = copyOf(params).addValue("ids", chunk);
+            chunkCustomizer.accept(chunkParams);
+            Set<Long> applied = new HashSet<>(jdbcTemplate.queryForList(applySql, chunkParams, Long.class));
+
+            List<Long> rejected = chunk.stream().filter(id -> !applied.contains(id)).toList();
+            Map<Long, String> reasons = rejected.isEmpty() || explainSql == null
+                    ? Map.of()
+                    : explain(explainSql, copyOf(params).addValue("ids", rejected));
+
+            for (Long id : chunk) {
+                if (applied.contains(id)) {
+                    results.add(ItemResult.ok(id));
+                } else if (!reasons.containsKey(id)) {
+                    results.add(fail(id, ErrorCode.PRODUCT_NOT_FOUND));
+                } else if (reasons.get(id) == null) {
+                    results.add(ItemResult.ok(id)); // already in the requested state
+                } else {
+                    results.add(fail(id, ErrorCode.valueOf(reasons.get(id))));
+                }
+            }
+        }
+
+        BulkOperationResponse response = BulkOperationResponse.of(results);
+        log.info("Bulk operation done: {} requested, {} succeeded, {} failed",
+                response.requested(), response.succeeded(), response.failed());
+        return response;
+    }
+
+    private Map<Long, String> explain(String explainSql, MapSqlParameterSource params) {
+        Map<Long, String> reasons = new HashMap<>();
+        jdbcTemplate.query(explainSql, params,
+                rs -> { reasons.put(rs.getLong("id"), rs.getString("reason")); });
+        return reasons;
+    }
+
+    private List<Long> normalizeIds(List<Long> productIds) {
+        List<Long> ids = productIds.stream().filter(Objects::nonNull).distinct().toList();
+        if (ids.isEmpty()) {
+            throw new AppException(ErrorCode.INVALID_REQUEST, "Product IDs cannot be empty");
+        }
+        if (ids.size() > MAX_PRODUCTS_PER_REQUEST) {
+            throw new AppException(ErrorCode.INVALID_REQUEST,
+                    "Maximum " + MAX_PRODUCTS_PER_REQUEST + " products per bulk request");
+        }
+        return ids;
+    }
+
+    private MapSqlParameterSource baseParams() {
+        return new MapSqlParameterSource("actor", auditorProvider.getCurrentAuditor().orElse(null));
+    }
+
+    private static MapSqlParameterSource copyOf(MapSqlParameterSource params) {
+        return new MapSqlParameterSource(new HashMap<>(params.getValues()));
+    }
+
+    private static int chunkSize(MapSqlParameterSource chunkParams) {
+        return ((List<?>) chunkParams.getValue("ids")).size();
+    }
+
+    private static ItemResult fail(Long id, ErrorCode errorCode) {
+        return ItemResult.fail(id, errorCode.getCode(), errorCode.getMessage());
+    }
+}
@@ -0,0 +1,259 @@
+package com.greenwich.flowerplus.service.impl;
+
+import com.greenwich.flowerplus.dto.response.CostRecomputeResponse;
+import com.greenwich.flowerplus.service.ProductCostService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Cost price propagation through a durable outbox.
+ * <p>
+ * Hot path (material edited):
+ * 1. In the SAME transaction as the edit, the material is queued in product_cost_outbox (one row per material,
+ *    repeated edits only bump change_seq)
+ * 2. Every flush interval the queued materials are claimed, their products found through
+ *    idx_product_recipes_material and recomputed from the recipe with ONE set-based UPDATE
+ * 3. Large fan-out (a common material like ribbon used by most products) is split into product id
+ *    chunks recomputed in parallel on a small ForkJoinPool, one transaction per chunk
+ * 4. The outbox rows are deleted only when every chunk succeeded and no newer change arrived meanwhile
+ * <p>
+ * Products are always recomputed to an absolute value (never shifted by a delta), so a crash, a failed
+ * chunk, two instances flushing the same rows or a concurrent {@link #recomputeAll} cannot skew the cost:
+ * the worst case is the same product recomputed twice.
+ */
+@Service
+@Slf4j
+public class ProductCostServiceImpl implements ProductCostService {
+
+    // Materials claimed per flush, the rest waits for the next one
+    private static final int CLAIM_LIMIT = 1000;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int parallelThreshold;
+    private final int chunkSize;
+    private final ForkJoinPool propagationPool;
+
+    public ProductCostServiceImpl(NamedParameterJdbcTemplate jdbcTemplate,
+                                  TransactionTemplate transactionTemplate,
+                                  @Value("${app.cost-propagation.parallel-threshold:20000}") int parallelThreshold,
+                                  @Value("${app.cost-propagation.chunk-size:5000}") int chunkSize,
+                                  @Value("${app.cost-propagation.parallelism:4}") int parallelism) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.parallelThreshold = parallelThreshold;
+        this.chunkSize = chunkSize;
+        // Kept small on purpose: every worker holds a pooled DB connection
+        this.propagationPool = new ForkJoinPool(parallelism);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        propagationPool.shutdown();
+    }
+
+    // ============================================================================
+    // OUTBOX PROPAGATION
+    // ============================================================================
+
+    private static final String ENQUEUE_SQL = """
+            INSERT INTO product_cost_outbox (material_id, change_seq, queued_at)
+            VALUES (:materialId, 1, NOW())
+            ON CONFLICT (material_id) DO UPDATE
+            SET change_seq = product_cost_outbox.change_seq + 1,
+                queued_at = EXCLUDED.queued_at
+            """;
+
+    private static final String CLAIM_SQL = """
+            SELECT material_id, change_seq
+            FROM product_cost_outbox
+            ORDER BY queued_at
+            LIMIT :limit
+            """;
+
+    // A change queued while the products were recomputed has a new change_seq -> row kept for the next flush
+    private static final String DELETE_CLAIMED_SQL = """
+            DELETE FROM product_cost_outbox o
+            USING (VALUES :claimed) AS c(material_id, change_seq)
+            WHERE o.material_id = c.material_id
+              AND o.change_seq = c.change_seq
+            """;
+
+    private static final String FIND_AFFECTED_PRODUCTS_SQL = """
+            SELECT DISTINCT r.product_id
+            FROM product_recipes r
+            WHERE r.material_id IN (:materialIds)
+            """;
+
+    @Override
+    public void onMaterialCostChanged(Long materialId, BigDecimal oldCost, BigDecimal newCost) {
+        if (materialId == null || nullToZero(newCost).compareTo(nullToZero(oldCost)) == 0) {
+            return;
+        }
+        // Cùng transaction với thao tác sửa material: rollback thì không có gì trong outbox
+        jdbcTemplate.update(ENQUEUE_SQL, new MapSqlParameterSource("materialId", materialId));
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${app.cost-propagation.flush-interval-ms:2000}")
+    public int flushPendingChanges() {
+        List<Object[]> claimed = jdbcTemplate.query(CLAIM_SQL, new MapSqlParameterSource("limit", CLAIM_LIMIT),
+                (rs, i) -> new Object[]{rs.getLong("material_id"), rs.getLong("change_seq")});
+        if (claimed.isEmpty()) {
+            return 0;
+        }
+
+        List<Long> materialIds = claimed.stream().map(row -> (Long) row[0]).toList();
+        List<Long> productIds = jdbcTemplate.queryForList(FIND_AFFECTED_PRODUCTS_SQL,
+                new MapSqlParameterSource("materialIds", materialIds), Long.class);
+
+        long start = System.currentTimeMillis();
+        Propagation result = productIds.size() <= parallelThreshold
+                ? recomputeChunk(productIds)
+                : recomputeInParallel(productIds);
+
+        if (result.failedChunks() > 0) {
+            // Outbox giữ nguyên, lần flush sau tính lại (giá trị tuyệt đối nên chạy lại an toàn)
+            log.warn("Cost propagation: {} chunk(s) failed, {} material(s) left in the outbox",
+                    result.failedChunks(), materialIds.size());
+            return result.updated();
+        }
+
+        jdbcTemplate.update(DELETE_CLAIMED_SQL, new MapSqlParameterSource("claimed", claimed));
+        log.info("Cost propagation: {} material(s) -> {} product(s) checked, {} updated in {} ms",
+                materialIds.size(), productIds.size(), result.updated(), System.currentTimeMillis() - start);
+        return result.updated();
+    }
+
+    private record Propagation(int updated, int failedChunks) {
+
+        Propagation plus(Propagation other) {
+            return new Propagation(updated + other.updated, failedChunks + other.failedChunks);
+        }
+    }
+
+    private Propagation recomputeInParallel(List<Long> productIds) {
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int i = 0; i < productIds.size(); i += chunkSize) {
+            chunks.add(productIds.subList(i, Math.min(i + chunkSize, productIds.size())));
+        }
+
+        // parallelStream inside submit() runs on propagationPool, not the common pool
+        return propagationPool.submit(() -> chunks.parallelStream()
+                        .map(this::recomputeChunk)
+                        .reduce(new Propagation(0, 0), Propagation::plus))
+                .join();
+    }
+
+    private Propagation recomputeChunk(List<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return new Propagation(0, 0);
+        }
+        try {
+            Integer updated = transactionTemplate.execute(status ->
+                    jdbcTemplate.update(RECOMPUTE_SQL.formatted(RECOMPUTE_CHUNK_FILTER),
+                            new MapSqlParameterSource("productIds", productIds)));
+            return new Propagation(updated != null ? updated : 0, 0);
+        } catch (Exception e) {
+            log.warn("Cost recompute failed for {} product(s), retried on the next flush: {}",
+                    productIds.size(), e.getMessage());
+            return new Propagation(0, 1);
+        }
+    }
+
+    // ============================================================================
+    // FULL RECOMPUTE + VERIFICATION
+    // ============================================================================
+
+    // Deleted materials no longer count in the cost
+    private static final String COMPUTED_COST_CTE = """
+            WITH computed AS (
+                SELECT p.id, COALESCE(SUM(COALESCE(m.cost_price, 0) * r.quantity_needed), 0) AS cost
+                FROM products p
+                LEFT JOIN product_recipes r ON r.product_id = p.id
+                LEFT JOIN materials m ON m.id = r.material_id AND m.deleted_at IS NULL
+                %s
+                GROUP BY p.id
+            )
+            """;
+
+    private static final String VERIFY_SQL = COMPUTED_COST_CTE.formatted("") + """
+            SELECT COUNT(*) AS checked,
+                   COUNT(*) FILTER (WHERE p.cost_price <> c.cost) AS drifted,
+                   COALESCE(MAX(ABS(p.cost_price - c.cost)), 0) AS max_drift
+            FROM products p
+            JOIN computed c ON c.id = p.id
+            """;
+
+    // %s = optional product filter inside the CTE
+    private static final String RECOMPUTE_SQL = COMPUTED_COST_CTE + """
+            UPDATE products p
+            SET cost_price = c.cost,
+                updated_at = NOW()
+            FROM computed c
+            WHERE c.id = p.id
+              AND p.cost_price <> c.cost
+            """;
+
+    private static final String RECOMPUTE_CHUNK_FILTER = "WHERE p.id IN (:productIds)";
+
+    private record Verification(long checked, long drifted, BigDecimal maxDrift) {
+    }
+
+    @Override
+    public CostRecomputeResponse recomputeAll(boolean dryRun) {
+        Verification before = verify();
+        if (dryRun || before.drifted() == 0) {
+            log.info("Cost recompute ({}): {} product(s) checked, {} drifted (max {})",
+                    dryRun ? "dry run" : "no drift", before.checked(), before.drifted(), before.maxDrift());
+            return CostRecomputeResponse.builder()
+                    .dryRun(dryRun)
+                    .checkedProducts(before.checked())
+                    .driftedProducts(before.drifted())
+                    .maxDrift(before.maxDrift())
+                    .fixedProducts(0)
+                    .remainingDrift(before.drifted())
+                    .build();
+        }
+
+        Integer fixed = transactionTemplate.execute(status ->
+                jdbcTemplate.update(RECOMPUTE_SQL.formatted(""), new MapSqlParameterSource()));
+        Verification after = verify();
+
+        if (after.drifted() > 0) {
+            // Only possible when materials/recipes changed while recomputing
+            log.warn("Cost recompute: {} product(s) still drifted after fix", after.drifted());
+        }
+        log.info("Cost recompute: {} product(s) checked, {} drifted (max {}), {} fixed",
+                before.checked(), before.drifted(), before.maxDrift(), fixed);
+
+        return CostRecomputeResponse.builder()
+                .dryRun(false)
+                .checkedProducts(before.checked())
+                .driftedProducts(before.drifted())
+                .maxDrift(before.maxDrift())
+                .fixedProducts(fixed != null ? fixed : 0)
+                .remainingDrift(after.drifted())
+                .build();
+    }
+
+    private Verification verify() {
+        return jdbcTemplate.queryForObject(VERIFY_SQL, new MapSqlParameterSource(),
+                (rs, i) -> new Verification(rs.getLong("checked"), rs.getLong("drifted"), rs.getBigDecimal("max_drift")));
+    }
+
+    private static BigDecimal nullToZero(BigDecimal value) {
+        return value != null ? value : BigDecimal.ZERO;
+    }
+}
@@ -0,0 +1,396 @@
+package com.greenwich.flowerplus.service.impl;
+
+import com.greenwich.flowerplus.common.constant.CommonConfig;
+import com.greenwich.flowerplus.common.enums.ErrorCode;
+import com.greenwich.flowerplus.common.enums.ImportJobStatus;
+import com.greenwich.flowerplus.common.exception.AppException;
+import com.greenwich.flowerplus.common.utils.ProductValidationUtils;
+import com.greenwich.flowerplus.common.utils.SlugUtils;
+import com.greenwich.flowerplus.common.utils.TsidUtils;
+import com.greenwich.flowerplus.entity.Category;
+import com.greenwich.flowerplus.entity.ProductImportJob;
+import com.greenwich.flowerplus.repository.CategoryRepository;
+import com.greenwich.flowerplus.repository.ProductImportJobRepository;
+import com.greenwich.flowerplus.service.impl.ProductImportRowReader.Row;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Runs a bulk product import job in the background.
+ * <p>
+ * Pipeline per batch of rows:
+ * 1. Parse: the file is read row by row (ProductImportRowReader), never fully in memory
+ * 2. Validate: in parallel, pure CPU (ProductValidationUtils + SlugUtils + category map loaded once per run),
+ *    TSIDs are pre-assigned here
+ * 3. Load: valid rows go into product_import_staging with one batched INSERT
+ * 4. Merge: one INSERT ... SELECT into products (ON CONFLICT slug DO NOTHING) + product_categories,
+ *    staged rows that were not inserted become "slug exists" errors
+ * 5. Checkpoint: counters + last row number are updated in the SAME transaction as the merge,
+ *    so a resumed job skips exactly the rows that are already committed
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class ProductImportProcessor {
+
+    private static final int MAX_ERROR_MESSAGE_LENGTH = 1000;
+
+    private final ProductImportJobRepository jobRepository;
+    private final CategoryRepository categoryRepository;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.product-import.batch-size:1000}")
+    private int batchSize;
+
+    // Jobs running in this instance, guards against double start / resume while running
+    private final Set<Long> runningJobs = ConcurrentHashMap.newKeySet();
+
+    private record CategoryRef(Long id, boolean active) {
+    }
+
+    private record StagedProduct(long rowNumber, Long productId, Long productCategoryId, Long categoryId,
+                                 String name, String slug, String description, String careInstruction,
+                                 BigDecimal basePrice, BigDecimal originalPrice) {
+    }
+
+    private record RowError(long rowNumber, String errorCode, String message) {
+    }
+
+    /**
+     * Validation outcome of one row: exactly one of product/error is set.
+     */
+    private record RowResult(StagedProduct product, RowError error) {
+    }
+
+    public boolean isRunning(Long jobId) {
+        return runningJobs.contains(jobId);
+    }
+
+    @Async
+    public void run(Long jobId, Path file) {
+        if (!runningJobs.add(jobId)) {
+            log.warn("Import job {} is already running, ignoring", jobId);
+            return;
+        }
+
+        try {
+            ProductImportJob job = markRunning(jobId);
+            long checkpoint = job.getCheckpointRow();
+            String actor = job.getCreatedBy(); // async thread has no SecurityContext
+            Map<String, CategoryRef> categories = loadCategories();
+
+            log.info("Import job {} started from row {} ({})", jobId, checkpoint + 1, file);
+
+            try (InputStream in = Files.newInputStream(file);
+                 ProductImportRowReader reader = ProductImportRowReader.open(job.getFormat(), in)) {
+
+                List<Row> batch = new ArrayList<>(batchSize);
+                Row row;
+                while ((row = reader.next()) != null) {
+                    if (row.rowNumber() <= checkpoint) {
+                        continue; // already committed before the resume
+                    }
+                    batch.add(row);
+                    if (batch.size() == batchSize) {
+                        processBatch(jobId, batch, categories, actor);
+                        batch.clear();
+                    }
+                }
+                if (!batch.isEmpty()) {
+                    processBatch(jobId, batch, categories, actor);
+                }
+            }
+
+            markFinished(jobId, ImportJobStatus.COMPLETED, null);
+            deleteQuietly(file);
+            log.info("Import job {} completed", jobId);
+        } catch (Exception e) {
+            log.error("Import job {} failed, can be resumed from its checkpoint: {}", jobId, e.getMessage(), e);
+            markFinished(jobId, ImportJobStatus.FAILED, e.getMessage());
+        } finally {
+            runningJobs.remove(jobId);
+        }
+    }
+
+    // ============================================================================
+    // BATCH: VALIDATE -> STAGE -> MERGE -> CHECKPOINT
+    // ============================================================================
+
+    private static final String STAGE_SQL = """
+            INSERT INTO product_import_staging (job_id, row_number, product_id, product_category_id, category_id,
+                                                name, slug, description, care_instruction, selling_price, original_price)
+            VALUES (:jobId, :rowNumber, :productId, :productCategoryId, :categoryId,
+                    :name, :slug, :description, :careInstruction, :basePrice, :originalPrice)
+            """;
+
+    // Same defaults as createGeneralInfoProduct: DRAFT, cost 0, no shipping info, no rating
+    private static final String MERGE_SQL = """
+            WITH inserted AS (
+                INSERT INTO products (id, name, slug, description, care_instruction,
+                                      selling_price, cost_price, original_price, status,
+                                      prepared_quantity, is_make_to_order, average_rating, review_count,
+                                      weight_g, length_cm, width_cm, height_cm,
+                                      created_at, updated_at, created_by, updated_by)
+                SELECT s.product_id, s.name, s.slug, s.description, s.care_instruction,
+                       s.selling_price, 0, s.original_price, 'DRAFT',
+                       0, FALSE, 0, 0,
+                       0, 0, 0, 0,
+                       NOW(), NOW(), :actor, :actor
+                FROM product_import_staging s
+                WHERE s.job_id = :jobId
+                ORDER BY s.row_number
+                ON CONFLICT (slug) DO NOTHING
+                RETURNING id
+            ),
+            linked AS (
+                INSERT INTO product_categories (id, product_id, category_id, created_at, updated_at, created_by, updated_by)
+                SELECT s.product_category_id, s.product_id, s.category_id, NOW(), NOW(), :actor, :actor
+                FROM product_import_staging s
+                JOIN inserted i ON i.id = s.product_id
+                WHERE s.job_id = :jobId
+                RETURNING product_id
+            )
+            SELECT COUNT(*) FROM linked
+            """;
+
+    // Staged but not inserted = slug already taken (by an existing product or an earlier row of the file)
+    private static final String SLUG_CONFLICT_ERRORS_SQL = """
+            INSERT INTO product_import_errors (job_id, row_number, error_code, message)
+            SELECT s.job_id, s.row_number, :errorCode, 'Slug ''' || s.slug || ''' already exists'
+            FROM product_import_staging s
+            WHERE s.job_id = :jobId
+              AND NOT EXISTS (SELECT 1 FROM products p WHERE p.id = s.product_id)
+            """;
+
+    private static final String CLEAR_STAGING_SQL = "DELETE FROM product_import_staging WHERE job_id = :jobId";
+
+    private static final String INSERT_ERROR_SQL = """
+            INSERT INTO product_import_errors (job_id, row_number, error_code, message)
+            VALUES (:jobId, :rowNumber, :errorCode, :message)
+            """;
+
+    private void processBatch(Long jobId, List<Row> rows, Map<String, CategoryRef> categories, String actor) {
+        // Validation has no DB access, safe to fan out
+        List<RowResult> results = rows.parallelStream()
+                .map(row -> validate(row, categories))
+                .toList();
+
+        List<StagedProduct> valid = results.stream().map(RowResult::product).filter(Objects::nonNull).toList();
+        List<RowError> errors = results.stream().map(RowResult::error).filter(Objects::nonNull).toList();
+        long checkpointRow = rows.getLast().rowNumber();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            long imported = 0;
+            int conflicts = 0;
+
+            if (!valid.isEmpty()) {
+                jdbcTemplate.batchUpdate(STAGE_SQL, valid.stream()
+                        .map(product -> toStagingParams(jobId, product))
+                        .toArray(SqlParameterSource[]::new));
+
+                MapSqlParameterSource params = new MapSqlParameterSource()
+                        .addValue("jobId", jobId)
+                        .addValue("actor", actor);
+                Long inserted = jdbcTemplate.queryForObject(MERGE_SQL, params, Long.class);
+                imported = inserted != null ? inserted : 0;
+
+                conflicts = jdbcTemplate.update(SLUG_CONFLICT_ERRORS_SQL,
+                        params.addValue("errorCode", ErrorCode.SLUG_EXISTED.getCode()));
+                jdbcTemplate.update(CLEAR_STAGING_SQL, params);
+            }
+
+            if (!errors.isEmpty()) {
+                jdbcTemplate.batchUpdate(INSERT_ERROR_SQL, errors.stream()
+                        .map(error -> new MapSqlParameterSource()
+                                .addValue("jobId", jobId)
+                                .addValue("rowNumber", error.rowNumber())
+                                .addValue("errorCode", error.errorCode())
+                                .addValue("message", truncate(error.message())))
+                        .toArray(SqlParameterSource[]::new));
+            }
+
+            jobRepository.advanceCheckpoint(jobId, checkpointRow, rows.size(),
+                    imported, errors.size() + (long) conflicts, Instant.now());
+        });
+
+        log.debug("Import job {}: rows up to {} committed ({} valid, {} invalid)",
+                jobId, checkpointRow, valid.size(), errors.size());
+    }
+
+    private MapSqlParameterSource toStagingParams(Long jobId, StagedProduct product) {
+        return new MapSqlParameterSource()
+                .addValue("jobId", jobId)
+                .addValue("rowNumber", product.rowNumber())
+                .addValue("productId", product.productId())
+                .addValue("productCategoryId", product.productCategoryId())
+                .addValue("categoryId", product.categoryId())
+                .addValue("name", product.name())
+                .addValue("slug", product.slug())
+                .addValue("description", product.description())
+                .addValue("careInstruction", product.careInstruction())
+                .addValue("basePrice", product.basePrice())
+                .addValue("originalPrice", product.originalPrice());
+    }
+
+    // ============================================================================
+    // ROW VALIDATION (same rules as createGeneralInfoProduct)
+    // ============================================================================
+
+    private RowResult validate(Row row, Map<String, CategoryRef> categories) {
+        if (row.parseError() != null) {
+            return reject(row, ErrorCode.INVALID_REQUEST.getCode(), row.parseError());
+        }
+
+        try {
+            String name = trimToNull(row.get("name"));
+            String description = trimToNull(row.get("description"));
+            String careInstruction = trimToNull(row.get("careinstruction"));
+
+            if (name == null) {
+                return reject(row, ErrorCode.PRODUCT_EMPTY_CONTENT.getCode(), "Product name is required");
+            }
+            if (name.length() > CommonConfig.PRODUCT_NAME_LENGTH) {
+                return reject(row, ErrorCode.PRODUCT_INVALID_NAME_FORMAT.getCode(),
+                        "Product name cannot exceed " + CommonConfig.PRODUCT_NAME_LENGTH + " characters");
+            }
+            if (description == null) {
+                return reject(row, ErrorCode.PRODUCT_EMPTY_CONTENT.getCode(), "Product description is required");
+            }
+            ProductValidationUtils.validateName(name);
+            ProductValidationUtils.validateDescription(description);
+            ProductValidationUtils.validateDescription(careInstruction);
+
+            BigDecimal basePrice = parsePrice(row.get("baseprice"));
+            if (basePrice == null) {
+                return reject(row, ErrorCode.PRODUCT_INVALID_PRICE.getCode(), "Base price is required (number, max 2 decimals)");
+            }
+            BigDecimal originalPrice = row.get("originalprice") == null || row.get("originalprice").isBlank()
+                    ? basePrice
+                    : parsePrice(row.get("originalprice"));
+            if (originalPrice == null) {
+                return reject(row, ErrorCode.PRODUCT_INVALID_PRICE.getCode(), "Original price must be a number (max 2 decimals)");
+            }
+            ProductValidationUtils.validatePrice(basePrice, originalPrice);
+
+            CategoryRef category = resolveCategory(row, categories);
+            if (category == null) {
+                return reject(row, ErrorCode.CATEGORY_NOT_FOUND.getCode(), ErrorCode.CATEGORY_NOT_FOUND.getMessage());
+            }
+            if (!category.active()) {
+                return reject(row, ErrorCode.CATEGORY_INACTIVE.getCode(), ErrorCode.CATEGORY_INACTIVE.getMessage());
+            }
+
+            String slug = SlugUtils.toSlug(name);
+            if (slug.isEmpty() || slug.length() > CommonConfig.SLUG_LENGTH) {
+                return reject(row, ErrorCode.PRODUCT_INVALID_NAME_FORMAT.getCode(), "Cannot generate a slug from the product name");
+            }
+
+            return new RowResult(new StagedProduct(row.rowNumber(), TsidUtils.nextId(), TsidUtils.nextId(),
+                    category.id(), name, slug, description, careInstruction, basePrice, originalPrice), null);
+        } catch (AppException e) {
+            return reject(row, e.getErrorCode(), e.getMessage());
+        }
+    }
+
+    private CategoryRef resolveCategory(Row row, Map<String, CategoryRef> categories) {
+        for (String column : List.of("category", "categoryid", "categoryslug")) {
+            String value = trimToNull(row.get(column));
+            if (value != null) {
+                return categories.get(value.toLowerCase(Locale.ROOT));
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Categories are few: one query per job run, keyed by id, slug and name (lower case).
+     */
+    private Map<String, CategoryRef> loadCategories() {
+        Map<String, CategoryRef> categories = new HashMap<>();
+        for (Category category : categoryRepository.findAll()) {
+            CategoryRef ref = new CategoryRef(category.getId(), Boolean.TRUE.equals(category.getIsActive()));
+            categories.put(String.valueOf(category.getId()), ref);
+            categories.putIfAbsent(category.getSlug().toLowerCase(Locale.ROOT), ref);
+            categories.putIfAbsent(category.getName().toLowerCase(Locale.ROOT), ref);
+        }
+        return Collections.unmodifiableMap(categories);
+    }
+
+    private static BigDecimal parsePrice(String raw) {
+        if (!StringUtils.hasText(raw)) {
+            return null;
+        }
+        try {
+            BigDecimal price = new BigDecimal(raw.trim());
+            return price.scale() > 2 ? null : price;
+        } catch (NumberFormatException _) {
+            return null;
+        }
+    }
+
+    private static RowResult reject(Row row, String errorCode, String message) {
+        return new RowResult(null, new RowError(row.rowNumber(), errorCode, message));
+    }
+
+    private static String trimToNull(String value) {
+        return StringUtils.hasText(value) ? value.trim() : null;
+    }
+
+    private static String truncate(String message) {
+        if (message == null) {
+            return "Unknown error";
+        }
+        return message.length() > MAX_ERROR_MESSAGE_LENGTH ? message.substring(0, MAX_ERROR_MESSAGE_LENGTH) : message;
+    }
+
+    // ============================================================================
+    // JOB STATUS
+    // ============================================================================
+
+    private ProductImportJob markRunning(Long jobId) {
+        ProductImportJob job = jobRepository.findById(jobId)
+                .orElseThrow(() -> new AppException(ErrorCode.IMPORT_JOB_NOT_FOUND));
+        job.setStatus(ImportJobStatus.RUNNING);
+        job.setErrorMessage(null);
+        job.setFinishedAt(null);
+        if (job.getStartedAt() == null) {
+            job.setStartedAt(Instant.now());
+        }
+        return jobRepository.save(job);
+    }
+
+    private void markFinished(Long jobId, ImportJobStatus status, String errorMessage) {
+        jobRepository.findById(jobId).ifPresent(job -> {
+            job.setStatus(status);
+            job.setErrorMessage(errorMessage != null ? truncate(errorMessage) : null);
+            job.setFinishedAt(Instant.now());
+            jobRepository.save(job);
+        });
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete import file {}: {}", file, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package com.greenwich.flowerplus.service.impl;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.greenwich.flowerplus.common.enums.ImportFormat;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Streaming reader for import files: one row in memory at a time.
+ * <p>
+ * Column/field names are normalized (lower case, no '_' / '-' / spaces) so "basePrice",
+ * "base_price" and "Base Price" all map to "baseprice". Same formats as the catalog export,
+ * so an exported file can be edited and imported back.
+ */
+abstract class ProductImportRowReader implements Closeable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    /**
+     * @param rowNumber 1-based data row number (CSV header excluded), used for checkpoints and error reports
+     * @param values    normalized column name -> raw value
+     * @param parseError not null when the row itself could not be parsed
+     */
+    record Row(long rowNumber, Map<String, String> values, String parseError) {
+
+        String get(String column) {
+            return values.get(column);
+        }
+    }
+
+    protected final BufferedReader reader;
+    protected long rowNumber = 0;
+
+    protected ProductImportRowReader(InputStream in) {
+        this.reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), BUFFER_SIZE);
+    }
+
+    static ProductImportRowReader open(ImportFormat format, InputStream in) throws IOException {
+        return switch (format) {
+            case CSV -> new Csv(in);
+            case NDJSON -> new Ndjson(in);
+        };
+    }
+
+    /**
+     * @return next row, or null at end of file
+     */
+    abstract Row next() throws IOException;
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    static String normalize(String column) {
+        return column.replace("\uFEFF", "")
+                .replaceAll("[\\s_-]", "")
+                .toLowerCase(Locale.ROOT);
+    }
+
+    // ============================================================================
+    // CSV (RFC 4180: quoted fields, "" escape, line breaks inside quotes)
+    // ============================================================================
+
+    private static final class Csv extends ProductImportRowReader {
+
+        private final List<String> header;
+
+        private Csv(InputStream in) throws IOException {
+            super(in);
+            List<String> headerFields = readRecord();
+            if (headerFields == null) {
+                this.header = List.of();
+            } else {
+                this.header = headerFields.stream().map(ProductImportRowReader::normalize).toList();
+            }
+        }
+
+        @Override
+        Row next() throws IOException {
+            List<String> fields;
+            do {
+                fields = readRecord();
+                if (fields == null) {
+                    return null;
+                }
+            } while (fields.size() == 1 && fields.getFirst().isEmpty()); // skip blank lines
+
+            rowNumber++;
+            if (fields.size() != header.size()) {
+                return new Row(rowNumber, Map.of(),
+                        "Expected " + header.size() + " columns but found " + fields.size());
+            }
+
+            Map<String, String> values = new HashMap<>(header.size() * 2);
+            for (int i = 0; i < header.size(); i++) {
+                values.put(header.get(i), fields.get(i));
+            }
+            return new Row(rowNumber, values, null);
+        }
+
+        private List<String> readRecord() throws IOException {
+            int ch = reader.read();
+            if (ch == -1) {
+                return null;
+            }
+
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean inQuotes = false;
+
+            while (ch != -1) {
+                char c = (char) ch;
+                if (inQuotes) {
+                    if (c == '"') {
+                        reader.mark(1);
+                        int nextCh = reader.read();
+                        if (nextCh == '"') {
+                            field.append('"'); // escaped quote
+                        } else {
+                            inQuotes = false;
+                            if (nextCh != -1) {
+                                reader.reset();
+                            }
+                        }
+                    } else {
+                        field.append(c);
+                    }
+                } else if (c == '"') {
+                    inQuotes = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '\n') {
+                    break;
+                } else if (c != '\r') {
+                    field.append(c);
+                }
+                ch = reader.read();
+            }
+
+            fields.add(field.toString());
+            return fields;
+        }
+    }
+
+    // ============================================================================
+    // NDJSON (one flat JSON object per line)
+    // ============================================================================
+
+    private static final class Ndjson extends ProductImportRowReader {
+
+        private Ndjson(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        Row next() throws IOException {
+            String line;
+            do {
+                line = reader.readLine();
+                if (line == null) {
+                    return null;
+                }
+            } while (line.isBlank());
+
+            rowNumber++;
+            try (JsonParser parser = JSON_FACTORY.createParser(line)) {
+                if (parser.nextToken() != JsonToken.START_OBJECT) {
+                    return new Row(rowNumber, Map.of(), "Line is not a JSON object");
+                }
+                Map<String, String> values = new HashMap<>();
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String name = normalize(parser.currentName());
+                    JsonToken valueToken = parser.nextToken();
+                    if (valueToken.isStructStart()) {
+                        parser.skipChildren(); // nested values are not supported, ignore them
+                        continue;
+                    }
+                    values.put(name, valueToken == JsonToken.VALUE_NULL ? null : parser.getText());
+                }
+                return new Row(rowNumber, values, null);
+            } catch (JsonProcessingException e) {
+                return new Row(rowNumber, Map.of(), "Invalid JSON: " + e.getOriginalMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.greenwich.flowerplus.service.impl;
+
+import com.greenwich.flowerplus.common.enums.ErrorCode;
+import com.greenwich.flowerplus.common.enums.ImportFormat;
+import com.greenwich.flowerplus.common.enums.ImportJobStatus;
+import com.greenwich.flowerplus.common.exception.AppException;
+import com.greenwich.flowerplus.dto.response.ProductImportErrorResponse;
+import com.greenwich.flowerplus.dto.response.ProductImportJobResponse;
+import com.greenwich.flowerplus.entity.ProductImportJob;
+import com.greenwich.flowerplus.repository.ProductImportJobRepository;
+import com.greenwich.flowerplus.service.ProductImportService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class ProductImportServiceImpl implements ProductImportService {
+
+    // A RUNNING job without checkpoint progress for this long is considered dead (instance restarted)
+    private static final Duration STALE_RUNNING_JOB = Duration.ofMinutes(10);
+    private static final int MAX_ERROR_PAGE_SIZE = 500;
+
+    private final ProductImportJobRepository jobRepository;
+    private final ProductImportProcessor processor;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Value("${app.product-import.work-dir:${java.io.tmpdir}/flowerplus-import}")
+    private String workDir;
+
+    @Override
+    public ProductImportJobResponse startImport(MultipartFile file, ImportFormat format) {
+        if (file == null || file.isEmpty()) {
+            throw new AppException(ErrorCode.INVALID_FILE);
+        }
+        ImportFormat resolvedFormat = format != null ? format : detectFormat(file.getOriginalFilename());
+
+        // Save the job first: its id names the spooled file
+        ProductImportJob job = jobRepository.save(ProductImportJob.builder()
+                .fileName(file.getOriginalFilename())
+                .format(resolvedFormat)
+                .status(ImportJobStatus.PENDING)
+                .build());
+
+        Path target = jobFile(job);
+        try {
+            Files.createDirectories(target.getParent());
+            file.transferTo(target);
+        } catch (IOException e) {
+            log.error("Cannot spool import file for job {}: {}", job.getId(), e.getMessage(), e);
+            job.setStatus(ImportJobStatus.FAILED);
+            job.setErrorMessage("Cannot store uploaded file");
+            jobRepository.save(job);
+            throw new AppException(ErrorCode.FILE_UPLOAD_FAILED);
+        }
+
+        log.info("Import job {} created for file {} ({} bytes, {})",
+                job.getId(), file.getOriginalFilename(), file.getSize(), resolvedFormat);
+        processor.run(job.getId(), target);
+        return toResponse(job);
+    }
+
+    @Override
+    public ProductImportJobResponse resume(Long jobId) {
+        ProductImportJob job = findJob(jobId);
+
+        boolean stalled = job.getStatus() == ImportJobStatus.RUNNING
+                && !processor.isRunning(jobId)
+                && job.getUpdatedAt() != null
+                && job.getUpdatedAt().isBefore(Instant.now().minus(STALE_RUNNING_JOB));
+        if (job.getStatus() != ImportJobStatus.FAILED && !stalled) {
+            throw new AppException(ErrorCode.IMPORT_JOB_NOT_RESUMABLE);
+        }
+
+        Path file = jobFile(job);
+        if (!Files.exists(file)) {
+            throw new AppException(ErrorCode.IMPORT_FILE_MISSING);
+        }
+
+        log.info("Resuming import job {} from row {}", jobId, job.getCheckpointRow() + 1);
+        processor.run(jobId, file);
+        return toResponse(job);
+    }
+
+    @Override
+    public ProductImportJobResponse getJob(Long jobId) {
+        return toResponse(findJob(jobId));
+    }
+
+    @Override
+    public Page<ProductImportErrorResponse> getErrors(Long jobId, int page, int size) {
+        ProductImportJob job = findJob(jobId);
+        int safePage = Math.max(page, 0);
+        int safeSize = Math.clamp(size, 1, MAX_ERROR_PAGE_SIZE);
+
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("jobId", job.getId())
+                .addValue("limit", safeSize)
+                .addValue("offset", (long) safePage * safeSize);
+
+        List<ProductImportErrorResponse> errors = jdbcTemplate.query("""
+                        SELECT row_number, error_code, message
+                        FROM product_import_errors
+                        WHERE job_id = :jobId
+                        ORDER BY row_number
+                        LIMIT :limit OFFSET :offset
+                        """, params,
+                (rs, i) -> new ProductImportErrorResponse(
+                        rs.getLong("row_number"), rs.getString("error_code"), rs.getString("message")));
+
+        Long total = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM product_import_errors WHERE job_id = :jobId", params, Long.class);
+
+        return new PageImpl<>(errors, PageRequest.of(safePage, safeSize), total != null ? total : 0);
+    }
+
+    // ============================================================================
+    // HELPERS
+    // ============================================================================
+
+    private ProductImportJob findJob(Long jobId) {
+        return jobRepository.findById(jobId)
+                .orElseThrow(() -> new AppException(ErrorCode.IMPORT_JOB_NOT_FOUND));
+    }
+
+    private Path jobFile(ProductImportJob job) {
+        return Path.of(workDir).resolve(job.getId() + "." + job.getFormat().getExtension());
+    }
+
+    private ImportFormat detectFormat(String fileName) {
+        String extension = StringUtils.getFilenameExtension(fileName);
+        if (extension == null) {
+            return ImportFormat.CSV;
+        }
+        ImportFormat format = ImportFormat.fromExtension(extension);
+        if (format == null) {
+            throw new AppException(ErrorCode.INVALID_FILE_TYPE);
+        }
+        return format;
+    }
+
+    private ProductImportJobResponse toResponse(ProductImportJob job) {
+        return ProductImportJobResponse.builder()
+                .id(job.getId())
+                .fileName(job.getFileName())
+                .format(job.getFormat())
+                .status(job.getStatus())
+                .checkpointRow(job.getCheckpointRow())
+                .processedRows(job.getProcessedRows())
+                .importedRows(job.getImportedRows())
+                .failedRows(job.getFailedRows())
+                .startedAt(job.getStartedAt())
+                .finishedAt(job.getFinishedAt())
+                .errorMessage(job.getErrorMessage())
+                .build();
+    }
+}
@@ -2,31 +2,43 @@ package com.greenwich.flowerplus.service.impl;
 
 import com.greenwich.flowerplus.common.enums.ErrorCode;
 import com.greenwich.flowerplus.common.exception.AppException;
+import com.greenwich.flowerplus.dto.request.BulkProductRecipeRequest;
 import com.greenwich.flowerplus.dto.request.ProductRecipeRequest;
+import com.greenwich.flowerplus.dto.response.BulkOperationResponse;
+import com.greenwich.flowerplus.dto.response.BulkOperationResponse.ItemResult;
 import com.greenwich.flowerplus.dto.response.ProductRecipeResponse;
 import com.greenwich.flowerplus.entity.Material;
 import com.greenwich.flowerplus.entity.Product;
 import com.greenwich.flowerplus.entity.ProductRecipe;
 import com.greenwich.flowerplus.repository.MaterialRepository;
 import com.greenwich.flowerplus.repository.ProductRepository;
+import com.greenwich.flowerplus.service.BuildableQuantityService;
 import com.greenwich.flowerplus.service.ProductRecipeService;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
+@Slf4j
 @Transactional
 public class ProductRecipeServiceImpl implements ProductRecipeService {
 
     private final ProductRepository productRepository;
     private final MaterialRepository materialRepository;
+    private final BuildableQuantityService buildableQuantityService;
 
     @Override
     @Transactional
@@ -36,25 +48,94 @@ public class ProductRecipeServiceImpl implements ProductRecipeService {
 
         // 1. Chuẩn bị Map từ Request để tra cứu nhanh (O(1))
         // Key: MaterialId, Value: QuantityNeeded
-        Map<Long, Integer> requestMap = requests.stream()
-                .collect(Collectors.toMap(ProductRecipeRequest::materialId, ProductRecipeRequest::quantityNeeded));
+        Map<Long, Integer> requestMap = toRequestMap(requests);
 
-        // 2. Duyệt qua list HIỆN CÓ trong DB
+        // 2. Load TẤT CẢ material trong 1 query, thiếu id nào thì báo lỗi luôn (trước khi sửa gì)
+        Map<Long, Material> materials = loadMaterials(requestMap.keySet());
+        if (materials.size() != requestMap.size()) {
+            throw new AppException(ErrorCode.MATERIAL_NOT_FOUND);
+        }
+
+        // 3. Merge + tính cost. Insert/update/delete được Hibernate gửi theo batch khi flush
+        applyRecipes(product, requestMap, materials);
+        productRepository.save(product);
+        buildableQuantityService.onProductsChanged(List.of(productId));
+    }
+
+    @Override
+    @Transactional
+    public BulkOperationResponse bulkUpdateRecipes(BulkProductRecipeRequest request) {
+        Map<Long, BulkProductRecipeRequest.Item> items = new LinkedHashMap<>();
+        for (BulkProductRecipeRequest.Item item : request.items()) {
+            items.put(item.productId(), item); // Trùng product -> lấy item sau cùng
+        }
+
+        // 1 query cho products + recipes, 1 query cho toàn bộ materials của mọi item
+        Map<Long, Product> products = productRepository.findAllWithRecipesByIdIn(items.keySet()).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        Set<Long> materialIds = new HashSet<>();
+        items.values().forEach(item -> item.recipes().forEach(r -> materialIds.add(r.materialId())));
+        Map<Long, Material> materials = loadMaterials(materialIds);
+
+        List<ItemResult> results = new ArrayList<>(items.size());
+        List<Long> changedProductIds = new ArrayList<>();
+        for (BulkProductRecipeRequest.Item item : items.values()) {
+            Product product = products.get(item.productId());
+            if (product == null) {
+                results.add(fail(item.productId(), ErrorCode.PRODUCT_NOT_FOUND));
+                continue;
+            }
+
+            // Validate hết trước khi sửa -> item lỗi không làm thay đổi gì
+            Map<Long, Integer> requestMap;
+            try {
+                requestMap = toRequestMap(item.recipes());
+            } catch (AppException e) {
+                results.add(ItemResult.fail(item.productId(), e.getErrorCode(), e.getMessage()));
+                continue;
+            }
+            if (!materials.keySet().containsAll(requestMap.keySet())) {
+                results.add(fail(item.productId(), ErrorCode.MATERIAL_NOT_FOUND));
+                continue;
+            }
+
+            applyRecipes(product, requestMap, materials);
+            changedProductIds.add(item.productId());
+            results.add(ItemResult.ok(item.productId()));
+        }
+
+        buildableQuantityService.onProductsChanged(changedProductIds);
+
+        // Dirty checking flush 1 lần lúc commit (jdbc batch_size) cho tất cả sản phẩm
+        BulkOperationResponse response = BulkOperationResponse.of(results);
+        log.info("Bulk recipe update: {} requested, {} succeeded, {} failed",
+                response.requested(), response.succeeded(), response.failed());
+        return response;
+    }
+
+    /**
+     * Merge the requested recipe into the product and recompute its cost price in the same pass.
+     * Every material in {@code requestMap} must be present in {@code materials}.
+     */
+    private void applyRecipes(Product product, Map<Long, Integer> requestMap, Map<Long, Material> materials) {
+        Map<Long, Integer> pending = new LinkedHashMap<>(requestMap);
+        BigDecimal totalCost = BigDecimal.ZERO;
+
+        // Duyệt qua list HIỆN CÓ trong DB
         // Dùng Iterator để có thể xóa phần tử an toàn trong lúc duyệt
         Iterator<ProductRecipe> iterator = product.getProductRecipes().iterator();
         while (iterator.hasNext()) {
             ProductRecipe existingRecipe = iterator.next();
+            // getId() trên proxy không trigger query load material
             Long materialId = existingRecipe.getMaterial().getId();
 
-            if (requestMap.containsKey(materialId)) {
-                // CASE A: Cả 2 đều có -> UPDATE số lượng
-                Integer newQuantity = requestMap.get(materialId);
-                // Chỉ update nếu số lượng khác nhau (đỡ tốn query update thừa)
+            Integer newQuantity = pending.remove(materialId);
+            if (newQuantity != null) {
+                // CASE A: Cả 2 đều có -> UPDATE số lượng (chỉ khi khác nhau, đỡ tốn query update thừa)
                 if (existingRecipe.getQuantityNeeded() != newQuantity) {
                     existingRecipe.setQuantityNeeded(newQuantity);
                 }
-                // Xóa khỏi map để đánh dấu là đã xử lý xong item này
-                requestMap.remove(materialId);
+                totalCost = totalCost.add(lineCost(materials.get(materialId), newQuantity));
             } else {
                 // CASE B: DB có mà Request không có -> DELETE
                 // orphanRemoval = true sẽ tự động xóa record trong DB khi remove khỏi list
@@ -62,34 +143,52 @@ public class ProductRecipeServiceImpl implements ProductRecipeService {
             }
         }
 
-        // 3. Những cái còn sót lại trong Map là cái MỚI -> INSERT
-        for (Map.Entry<Long, Integer> entry : requestMap.entrySet()) {
-            Material material = materialRepository.findById(entry.getKey())
-                    .orElseThrow(() -> new AppException(ErrorCode.MATERIAL_NOT_FOUND));
-
-            ProductRecipe newRecipe = ProductRecipe.builder()
+        // CASE C: Những cái còn sót lại là cái MỚI -> INSERT (material đã có sẵn trong map)
+        for (Map.Entry<Long, Integer> entry : pending.entrySet()) {
+            Material material = materials.get(entry.getKey());
+            product.addRecipe(ProductRecipe.builder()
                     .product(product)
                     .material(material)
                     .quantityNeeded(entry.getValue())
-                    .build();
-
-            // Add vào list, JPA sẽ tự INSERT
-            product.addRecipe(newRecipe);
+                    .build());
+            totalCost = totalCost.add(lineCost(material, entry.getValue()));
         }
 
-        // 4. Tính toán lại Cost Price (Logic không đổi)
-        // Lưu ý: Phải tính dựa trên list `product.getProductRecipes()` hiện tại (đã merge xong)
-        BigDecimal totalCost = BigDecimal.ZERO;
-        for (ProductRecipe r : product.getProductRecipes()) {
-            if (r.getMaterial().getCostPrice() != null) {
-                BigDecimal itemCost = r.getMaterial().getCostPrice()
-                        .multiply(BigDecimal.valueOf(r.getQuantityNeeded()));
-                totalCost = totalCost.add(itemCost);
+        product.setCostPrice(totalCost);
+    }
+
+    private Map<Long, Integer> toRequestMap(List<ProductRecipeRequest> requests) {
+        Map<Long, Integer> requestMap = new LinkedHashMap<>();
+        for (ProductRecipeRequest request : requests) {
+            if (request.materialId() == null) {
+                throw new AppException(ErrorCode.MATERIAL_NOT_FOUND);
+            }
+            if (request.quantityNeeded() <= 0) {
+                throw new AppException(ErrorCode.RECIPE_INVALID_QUANTITY);
+            }
+            if (requestMap.put(request.materialId(), request.quantityNeeded()) != null) {
+                throw new AppException(ErrorCode.RECIPE_DUPLICATE_MATERIAL);
             }
         }
+        return requestMap;
+    }
 
-        product.setCostPrice(totalCost);
-        productRepository.save(product);
+    private Map<Long, Material> loadMaterials(Set<Long> materialIds) {
+        if (materialIds.isEmpty()) {
+            return Map.of();
+        }
+        return materialRepository.findAllById(materialIds).stream()
+                .collect(Collectors.toMap(Material::getId, Function.identity()));
+    }
+
+    private static BigDecimal lineCost(Material material, int quantity) {
+        return material.getCostPrice() != null
+                ? material.getCostPrice().multiply(BigDecimal.valueOf(quantity))
+                : BigDecimal.ZERO;
+    }
+
+    private static ItemResult fail(Long productId, ErrorCode errorCode) {
+        return ItemResult.fail(productId, errorCode.getCode(), errorCode.getMessage());
     }
 
     @Override
@@ -114,4 +213,4 @@ public class ProductRecipeServiceImpl implements ProductRecipeService {
                 })
                 .toList();
     }
-}
\ No newline at end of file
+}
@@ -1,30 +1,40 @@
 package com.greenwich.flowerplus.service.impl;
 
+import com.greenwich.flowerplus.common.enums.ExportFormat;
 import com.greenwich.flowerplus.common.enums.ProductStatus;
 import com.greenwich.flowerplus.dto.request.ProductSearchRequest;
 import com.greenwich.flowerplus.dto.response.ProductListingDto;
 import com.greenwich.flowerplus.dto.response.ProductResponseAdmin;
 import com.greenwich.flowerplus.entity.Product;
+import com.greenwich.flowerplus.mapper.AuditorMapper;
 import com.greenwich.flowerplus.mapper.ProductMapper;
 import com.greenwich.flowerplus.repository.ProductRepository;
 import com.greenwich.flowerplus.service.ProductSearchService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
 import jakarta.persistence.criteria.*;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * ProductSearchServiceImpl - Single Responsibility: Product Search Operations
@@ -48,9 +58,20 @@ public class ProductSearchServiceImpl implements ProductSearchService {
 
     private final ProductRepository productRepository;
     private final ProductMapper productMapper;
+    private final AuditorMapper auditorMapper;
+    private final EntityManager entityManager;
 
     private static final String BASE_PRICE = "basePrice";
 
+    // Rows pulled per round-trip from the server-side cursor
+    private static final int EXPORT_FETCH_SIZE = 1000;
+    private static final int EXPORT_FLUSH_EVERY = 5000;
+
+    // Flat columns only (no categories/assets/auditors) - also covers every sort field, needed by DISTINCT + ORDER BY
+    private static final List<String> EXPORT_COLUMNS = List.of(
+            "id", "name", "slug", "status", BASE_PRICE, "costPrice", "originalPrice", "thumbnail",
+            "preparedQuantity", "isMakeToOrder", "averageRating", "reviewCount", "createdAt", "updatedAt");
+
     // ============================================================================
     // PUBLIC SEARCH (Customer - Storefront)
     // ============================================================================
@@ -95,9 +116,67 @@ public class ProductSearchServiceImpl implements ProductSearchService {
 
         log.debug("Admin search found {} products", productPage.getTotalElements());
 
-        return productPage.isEmpty() 
-                ? Page.empty(buildPageable(req)) 
-                : productPage.map(productMapper::toAdminDto);
+        if (productPage.isEmpty()) {
+            return Page.empty(buildPageable(req));
+        }
+
+        // Resolve createdBy/updatedBy of the whole page in one query, toAdminDto then hits the cache
+        auditorMapper.preloadFor(productPage.getContent());
+
+        return productPage.map(productMapper::toAdminDto);
+    }
+
+    // ============================================================================
+    // ADMIN EXPORT (Backoffice - streaming)
+    // ============================================================================
+
+    /**
+     * Export every product matching the admin filters (page/size are ignored).
+     * <p>
+     * Same Specification + sort as searchAdmin, but projected to scalar columns and read through
+     * a forward-only cursor (fetch size {@value #EXPORT_FETCH_SIZE}): no Product entity, no mapper,
+     * no auditor lookup, nothing collected in a list. Must run inside a transaction, PostgreSQL only
+     * uses a cursor when autocommit is off.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void exportAdmin(ProductSearchRequest req, ExportFormat format, OutputStream out) throws IOException {
+        log.info("Admin export - format: {}, keyword: {}, status: {}", format, req.getKeyword(), req.getStatus());
+
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Product> root = query.from(Product.class);
+
+        Predicate where = buildSpecification(req).toPredicate(root, query, cb);
+        if (where != null) {
+            query.where(where);
+        }
+        query.multiselect(EXPORT_COLUMNS.stream()
+                .<Selection<?>>map(column -> root.get(column).alias(column))
+                .toList());
+        query.orderBy(QueryUtils.toOrders(buildSort(req.getSort() != null ? req.getSort().getValue() : null), root, cb));
+
+        CatalogExportWriter writer = CatalogExportWriter.create(format, out, EXPORT_COLUMNS);
+        writer.writeHeader();
+
+        long rows = 0;
+        try (Stream<Tuple> stream = entityManager.createQuery(query)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, EXPORT_FETCH_SIZE)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream()) {
+
+            Iterator<Tuple> iterator = stream.iterator();
+            while (iterator.hasNext()) {
+                writer.writeRow(iterator.next());
+                // Push bytes to the client regularly instead of holding them in the buffer
+                if (++rows % EXPORT_FLUSH_EVERY == 0) {
+                    writer.flush();
+                }
+            }
+        }
+        writer.flush();
+
+        log.info("Admin export finished - {} rows written as {}", rows, format);
     }
 
     // ============================================================================
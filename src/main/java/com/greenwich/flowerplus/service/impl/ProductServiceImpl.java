@@ -4,6 +4,7 @@ import com.greenwich.flowerplus.common.enums.ErrorCode;
 import com.greenwich.flowerplus.common.enums.ProductStatus;
 import com.greenwich.flowerplus.common.exception.AppException;
 import com.greenwich.flowerplus.common.exception.DomainException;
+import com.greenwich.flowerplus.common.utils.ProductValidationUtils;
 import com.greenwich.flowerplus.common.utils.SlugUtils;
 import com.greenwich.flowerplus.common.utils.TextValidationUtils;
 import com.greenwich.flowerplus.dto.request.*;
@@ -89,9 +90,9 @@ public class ProductServiceImpl implements ProductService {
         log.info("Creating draft product: {}", request.name());
 
         // 0. Validate input
-        validateProductName(request.name());
-        validateProductDescription(request.description());
-        validateProductPrice(request.basePrice(), null);
+        ProductValidationUtils.validateName(request.name());
+        ProductValidationUtils.validateDescription(request.description());
+        ProductValidationUtils.validatePrice(request.basePrice(), null);
 
         // 1. Verify Category
         Category category = categoryRepository.findById(request.categoryId())
@@ -151,10 +152,10 @@ public class ProductServiceImpl implements ProductService {
         log.info("Updating product id: {}", id);
 
         // Validate input
-        validateProductName(request.name());
-        validateProductDescription(request.description());
-        validateProductDescription(request.careInstruction()); // Care instruction also needs validation
-        validateProductPrice(request.basePrice(), request.originalPrice());
+        ProductValidationUtils.validateName(request.name());
+        ProductValidationUtils.validateDescription(request.description());
+        ProductValidationUtils.validateDescription(request.careInstruction()); // Care instruction also needs validation
+        ProductValidationUtils.validatePrice(request.basePrice(), request.originalPrice());
 
         Product product = productRepository.findById(id)
                 .orElseThrow(() -> new AppException(ErrorCode.PRODUCT_NOT_FOUND));
@@ -176,10 +177,11 @@ public class ProductServiceImpl implements ProductService {
     public void removeProduct(Long id) {
         log.info("Removing product id: {}", id);
 
-        Product product = productRepository.findById(id)
-                .orElseThrow(() -> new AppException(ErrorCode.PRODUCT_NOT_FOUND));
-
-        productRepository.delete(product);
+        // Soft delete: product_assets rows stay (order history still shows the thumbnail),
+        // so their files keep the reference and are not released
+        if (productRepository.softDeleteById(id) == 0) {
+            throw new AppException(ErrorCode.PRODUCT_NOT_FOUND);
+        }
     }
 
     @Override
@@ -245,44 +247,13 @@ public class ProductServiceImpl implements ProductService {
     }
 
     private void handleUpdateAssets(Product product, List<AssetRequest> assetRequests) {
-        // Collect new URLs to confirm with Cloudinary (remove "temporary" tag)
-        List<String> newUrlsToConfirm = new ArrayList<>();
-
-        // Clear existing assets (orphanRemoval will delete them)
-        // Or specific logic to merge? Usually full replace is easier for order preservation.
-        product.getAssets().clear();
-
-        for (AssetRequest assetReq : assetRequests) {
-            ProductAsset asset = new ProductAsset();
-            asset.setProduct(product);
-            asset.setUrl(assetReq.url());
-            asset.setPublicId(assetReq.publicId());
-            asset.setType(assetReq.type());
-            asset.setIsThumbnail(assetReq.isThumbnail() != null && assetReq.isThumbnail());
-            asset.setPosition(assetReq.position() != null ? assetReq.position() : 0);
-            asset.setMetaData(assetReq.metaData());
+        // Diff against current assets: unchanged rows are left alone, only new uploads get confirmed
+        AssetChanges changes = syncAssets(product, assetRequests);
 
-            product.getAssets().add(asset);
-
-            // If it's a new upload (logic: maybe no ID in request, or assume all in list valid)
-            // But confirming all is safe as removeTag is idempotent usually.
-            // Better to only confirm check if it looks like a Cloudinary URL or just confirm all.
-            newUrlsToConfirm.add(assetReq.url());
-        }
-
-        // Sync thumbnail string in Product entity
-        String thumbnail = product.getAssets().stream()
-                .filter(a -> Boolean.TRUE.equals(a.getIsThumbnail()))
-                .findFirst()
-                .map(ProductAsset::getUrl)
-                .orElse(product.getAssets().isEmpty() ? null : product.getAssets().getFirst().getUrl());
-        
-        product.setThumbnail(thumbnail);
+        syncThumbnail(product);
 
         // Confirm files asynchronously/storage service
-        if (!newUrlsToConfirm.isEmpty()) {
-            fileStorageService.confirmFiles(newUrlsToConfirm);
-        }
+        applyFileReferences(changes);
     }
 
     // ============================================================================
@@ -358,9 +329,18 @@ public class ProductServiceImpl implements ProductService {
             throw new AppException(ErrorCode.INVALID_REQUEST, "Asset IDs are required for REMOVE operation");
         }
 
-        product.getAssets().removeIf(asset -> idsToRemove.contains(asset.getId()));
+        List<String> urlsToRelease = new ArrayList<>();
+        product.getAssets().removeIf(asset -> {
+            if (!idsToRemove.contains(asset.getId())) {
+                return false;
+            }
+            urlsToRelease.add(asset.getUrl());
+            return true;
+        });
 
         syncThumbnail(product);
+
+        fileStorageService.releaseFiles(urlsToRelease);
     }
 
     private void replaceAssets(Product product, List<ProductAssetRequest.AssetItem> assetItems) {
@@ -372,23 +352,18 @@ public class ProductServiceImpl implements ProductService {
             throw new AppException(ErrorCode.PRODUCT_ASSET_LIMIT_EXCEEDED);
         }
 
-        // Clear existing assets
-        product.getAssets().clear();
-
-        List<String> urlsToConfirm = new ArrayList<>();
-
+        List<AssetRequest> desiredAssets = new ArrayList<>(assetItems.size());
         for (ProductAssetRequest.AssetItem item : assetItems) {
             validateAssetItem(item);
-            ProductAsset asset = createAssetFromItem(product, item);
-            product.getAssets().add(asset);
-            urlsToConfirm.add(item.url());
+            desiredAssets.add(new AssetRequest(item.id(), item.url(), item.publicId(), item.type(),
+                    item.isThumbnail(), item.position(), null));
         }
 
+        AssetChanges changes = syncAssets(product, desiredAssets);
+
         syncThumbnail(product);
 
-        if (!urlsToConfirm.isEmpty()) {
-            fileStorageService.confirmFiles(urlsToConfirm);
-        }
+        applyFileReferences(changes);
     }
 
     private void setThumbnail(Product product, Long assetId) {
@@ -454,6 +429,119 @@ public class ProductServiceImpl implements ProductService {
         product.setThumbnail(thumbnail);
     }
 
+    // ============================================================================
+    // ASSET DIFF (used by updateProduct + REPLACE)
+    // ============================================================================
+
+    /**
+     * Bring product.assets in line with the desired list without clear-and-reinsert.
+     * <p>
+     * Each desired asset is matched against the current ones by id, then publicId, then URL:
+     * - matched: fields are overwritten in place; Hibernate dirty checking only issues an UPDATE when something changed
+     * - not matched: a new ProductAsset is added (INSERT)
+     * - current assets nobody matched: removed from the collection (orphanRemoval -> DELETE)
+     * <p>
+     * Thumbnail is NOT recomputed here, callers run {@link #syncThumbnail} once afterwards.
+     *
+     * @return URLs that are genuinely new for this product (still carry the "temporary" tag) and URLs the
+     *         product no longer uses (removed assets, old URL of a re-uploaded asset)
+     */
+    private AssetChanges syncAssets(Product product, List<AssetRequest> desiredAssets) {
+        List<ProductAsset> currentAssets = product.getAssets();
+
+        Map<Long, ProductAsset> byId = new HashMap<>();
+        Map<String, ProductAsset> byPublicId = new HashMap<>();
+        Map<String, ProductAsset> byUrl = new HashMap<>();
+        for (ProductAsset asset : currentAssets) {
+            if (asset.getId() != null) byId.put(asset.getId(), asset);
+            if (StringUtils.hasText(asset.getPublicId())) byPublicId.putIfAbsent(asset.getPublicId(), asset);
+            if (asset.getUrl() != null) byUrl.putIfAbsent(asset.getUrl(), asset);
+        }
+
+        Set<ProductAsset> kept = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<ProductAsset> added = new ArrayList<>();
+        List<String> urlsToConfirm = new ArrayList<>();
+        List<String> urlsToRelease = new ArrayList<>();
+
+        for (AssetRequest req : desiredAssets) {
+            ProductAsset match = findMatchingAsset(req, byId, byPublicId, byUrl, kept);
+
+            if (match == null) {
+                ProductAsset asset = new ProductAsset();
+                asset.setProduct(product);
+                applyAssetRequest(asset, req);
+                added.add(asset);
+                urlsToConfirm.add(req.url());
+                continue;
+            }
+
+            kept.add(match);
+            // Same asset but a different file (re-upload) -> the new URL still needs confirming
+            if (!Objects.equals(match.getUrl(), req.url())) {
+                urlsToConfirm.add(req.url());
+                urlsToRelease.add(match.getUrl());
+            }
+            applyAssetRequest(match, req);
+        }
+
+        for (ProductAsset asset : currentAssets) {
+            if (!kept.contains(asset)) {
+                urlsToRelease.add(asset.getUrl());
+            }
+        }
+        currentAssets.removeIf(asset -> !kept.contains(asset));
+        currentAssets.addAll(added);
+
+        log.debug("Asset diff for product {}: kept={}, added={}, confirm={}, release={}",
+                product.getId(), kept.size(), added.size(), urlsToConfirm.size(), urlsToRelease.size());
+        return new AssetChanges(urlsToConfirm, urlsToRelease);
+    }
+
+    private record AssetChanges(List<String> urlsToConfirm, List<String> urlsToRelease) {
+    }
+
+    // Storage keeps one reference per asset row: confirm new URLs, release the ones that went away
+    private void applyFileReferences(AssetChanges changes) {
+        if (!changes.urlsToConfirm().isEmpty()) {
+            fileStorageService.confirmFiles(changes.urlsToConfirm());
+        }
+        if (!changes.urlsToRelease().isEmpty()) {
+            fileStorageService.releaseFiles(changes.urlsToRelease());
+        }
+    }
+
+    private ProductAsset findMatchingAsset(AssetRequest req,
+                                           Map<Long, ProductAsset> byId,
+                                           Map<String, ProductAsset> byPublicId,
+                                           Map<String, ProductAsset> byUrl,
+                                           Set<ProductAsset> alreadyMatched) {
+        List<ProductAsset> candidates = new ArrayList<>(3);
+        if (req.id() != null) candidates.add(byId.get(req.id()));
+        if (StringUtils.hasText(req.publicId())) candidates.add(byPublicId.get(req.publicId()));
+        if (req.url() != null) candidates.add(byUrl.get(req.url()));
+
+        // One existing row can only back one desired entry; duplicates become new assets
+        return candidates.stream()
+                .filter(Objects::nonNull)
+                .filter(asset -> !alreadyMatched.contains(asset))
+                .findFirst()
+                .orElse(null);
+    }
+
+    private void applyAssetRequest(ProductAsset asset, AssetRequest req) {
+        asset.setUrl(req.url());
+        if (StringUtils.hasText(req.publicId())) {
+            asset.setPublicId(req.publicId());
+        }
+        asset.setType(req.type());
+        asset.setIsThumbnail(Boolean.TRUE.equals(req.isThumbnail()));
+        asset.setPosition(req.position() != null ? req.position() : 0);
+        // REPLACE items carry no metadata -> keep what is already stored
+        if (req.metaData() != null) {
+            asset.setMetaData(req.metaData());
+        }
+    }
+
     // ============================================================================
     // MANAGE PRODUCT CATEGORIES (Single Responsibility)
     // ============================================================================
@@ -549,72 +637,4 @@ public class ProductServiceImpl implements ProductService {
         // This operation is always invalid per business rule
         throw new AppException(ErrorCode.PRODUCT_MUST_HAVE_CATEGORY);
     }
-
-    // ============================================================================
-    // VALIDATION HELPERS
-    // ============================================================================
-
-    private void validateProductName(String name) {
-        if (!StringUtils.hasText(name)) {
-            return; // Allow null for partial updates
-        }
-
-        if (name.isBlank() || name.contains("''") || name.contains("\"'\"")) {
-            throw new AppException(ErrorCode.PRODUCT_EMPTY_CONTENT);
-        }
-
-        var result = TextValidationUtils.validateName(name);
-        if (!result.isValid()) {
-            if (result.errorMessage().contains("inappropriate")) {
-                throw new AppException(ErrorCode.PRODUCT_NAME_CONTAINS_BAD_WORDS, result.errorMessage());
-            }
-            throw new AppException(ErrorCode.PRODUCT_INVALID_NAME_FORMAT, result.errorMessage());
-        }
-    }
-
-    private void validateProductDescription(String description) {
-        if (!StringUtils.hasText(description)) {
-            return; // Allow null for partial updates
-        }
-
-        if (description.isBlank() || description.contains("''") || description.contains("\"'\"")) {
-            throw new AppException(ErrorCode.PRODUCT_EMPTY_CONTENT);
-        }
-
-        var result = TextValidationUtils.validateDescription(description);
-        if (!result.isValid()) {
-            if (result.errorMessage().contains("inappropriate")) {
-                throw new AppException(ErrorCode.PRODUCT_DESCRIPTION_CONTAINS_BAD_WORDS, result.errorMessage());
-            }
-            throw new AppException(ErrorCode.PRODUCT_INVALID_DESCRIPTION_FORMAT, result.errorMessage());
-        }
-    }
-
-    private static final BigDecimal MAX_PRICE = new BigDecimal("999999999999.99");
-
-    private void validateProductPrice(BigDecimal basePrice, BigDecimal originalPrice) {
-        if (basePrice != null) {
-            if (basePrice.compareTo(BigDecimal.ZERO) <= 0) {
-                throw new AppException(ErrorCode.PRODUCT_INVALID_PRICE);
-            }
-            if (basePrice.compareTo(MAX_PRICE) > 0) {
-                throw new AppException(ErrorCode.INVALID_PRICE); // Using existing general price error
-            }
-        }
-
-        if (originalPrice != null) {
-            if (originalPrice.compareTo(BigDecimal.ZERO) <= 0) {
-                throw new AppException(ErrorCode.PRODUCT_INVALID_PRICE);
-            }
-            if (originalPrice.compareTo(MAX_PRICE) > 0) {
-                throw new AppException(ErrorCode.INVALID_PRICE);
-            }
-        }
-
-        if (originalPrice != null
-                && basePrice != null
-                && originalPrice.compareTo(basePrice) < 0) {
-            throw new AppException(ErrorCode.PRODUCT_ORIGINAL_PRICE_LESS_THAN_BASE);
-        }
-    }
 }
@@ -3,21 +3,23 @@ package com.greenwich.flowerplus.service.impl;
 import com.greenwich.flowerplus.common.enums.ErrorCode;
 import com.greenwich.flowerplus.common.exception.AppException;
 import com.greenwich.flowerplus.dto.request.RoleRequest;
+import com.greenwich.flowerplus.dto.response.AuditorResponse;
 import com.greenwich.flowerplus.dto.response.RoleResponse;
 import com.greenwich.flowerplus.entity.Role;
 import com.greenwich.flowerplus.entity.UserAccount;
-import com.greenwich.flowerplus.entity.UserProfile;
+import com.greenwich.flowerplus.mapper.AuditorMapper;
 import com.greenwich.flowerplus.repository.RoleRepository;
 import com.greenwich.flowerplus.repository.UserAccountRepository;
-import com.greenwich.flowerplus.repository.UserProfileRepository;
 import com.greenwich.flowerplus.service.RoleService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
@@ -27,7 +29,7 @@ public class RoleServiceImpl implements RoleService {
 
     private final RoleRepository roleRepository;
     private final UserAccountRepository userAccountRepository;
-    private final UserProfileRepository userProfileRepository;
+    private final AuditorMapper auditorMapper;
 
     @Override
     @Transactional
@@ -95,10 +97,18 @@ public class RoleServiceImpl implements RoleService {
         roleRepository.deleteById(id);
     }
 
+    /**
+     * Bulk pipeline: load roles, resolve every distinct creator/updater in one batch
+     * (AuditorMapper cache + IN queries), then assemble. Constant query count regardless of role count.
+     */
     @Override
+    @Transactional(readOnly = true)
     public List<RoleResponse> getRoles() {
-        return roleRepository.findAll().stream()
-                .map(this::enrichRoleResponse)
+        List<Role> roles = roleRepository.findAll();
+        Map<String, AuditorResponse> auditors = auditorMapper.preloadFor(roles);
+
+        return roles.stream()
+                .map(role -> toRoleResponse(role, auditors))
                 .toList();
     }
 
@@ -111,47 +121,35 @@ public class RoleServiceImpl implements RoleService {
 
     @Override
     public RoleResponse enrichRoleResponse(Role role) {
-        String createdByName = resolveUserName(role.getCreatedBy());
-        String updatedByName = resolveUserName(role.getUpdatedBy());
+        return toRoleResponse(role, auditorMapper.preloadFor(List.of(role)));
+    }
 
+    private RoleResponse toRoleResponse(Role role, Map<String, AuditorResponse> auditors) {
         return new RoleResponse(
                 role.getId(),
                 role.getName(),
                 role.getDescription(),
-                createdByName != null ? createdByName : role.getCreatedBy(),
-                updatedByName != null ? updatedByName : role.getUpdatedBy()
+                resolveUserName(role.getCreatedBy(), auditors),
+                resolveUserName(role.getUpdatedBy(), auditors)
         );
     }
 
-    private String resolveUserName(String identifier) {
+    /**
+     * Display name of an auditor: profile full name, then username, then the raw identifier.
+     */
+    private String resolveUserName(String identifier, Map<String, AuditorResponse> auditors) {
         if (identifier == null) return null;
 
-        // 1. Try to treat identifier as User ID First (Based on SecurityUserDetails.getUsername returning ID)
-        try {
-            Long userId = Long.valueOf(identifier);
-            Optional<UserProfile> profileOpt = userProfileRepository.findById(userId);
-            if (profileOpt.isPresent()) {
-                return profileOpt.get().getFullName();
-            }
-            // Fallback to username if profile missing
-            Optional<UserAccount> accountOpt = userAccountRepository.findById(userId);
-            if (accountOpt.isPresent()) {
-                return accountOpt.get().getUsername();
-            }
-        } catch (NumberFormatException e) {
-            // Not a numeric ID, continue to fallback
+        AuditorResponse auditor = auditors.get(identifier.trim());
+        if (auditor == null) {
+            return identifier;
         }
-
-        // 2. Fallback to find by username (legacy or fallback)
-        Optional<UserAccount> userOpt = userAccountRepository.findByUsername(identifier);
-        if (userOpt.isPresent()) {
-            Optional<UserProfile> profileOpt = userProfileRepository.findById(userOpt.get().getId());
-            if (profileOpt.isPresent()) {
-                return profileOpt.get().getFullName();
-            }
-            return userOpt.get().getUsername();
+        if (StringUtils.hasText(auditor.fullName())) {
+            return auditor.fullName();
+        }
+        if (StringUtils.hasText(auditor.username())) {
+            return auditor.username();
         }
-
         return identifier;
     }
 }
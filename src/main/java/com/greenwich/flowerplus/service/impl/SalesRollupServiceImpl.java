@@ -0,0 +1,405 @@
+package com.greenwich.flowerplus.service.impl;
+
+import com.greenwich.flowerplus.common.enums.ErrorCode;
+import com.greenwich.flowerplus.common.exception.AppException;
+import com.greenwich.flowerplus.dto.response.CategorySalesResponse;
+import com.greenwich.flowerplus.dto.response.DailySalesResponse;
+import com.greenwich.flowerplus.dto.response.ProductSalesResponse;
+import com.greenwich.flowerplus.service.SalesRollupService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+/**
+ * Sales rollups maintained by deltas, repaired by recomputation.
+ * <p>
+ * 1. Every order event first inserts its marker into sales_rollup_entries (PK order_id + event,
+ *    ON CONFLICT DO NOTHING RETURNING): only the caller that inserted the marker applies the delta,
+ *    so retries and repeated transitions never count an order twice
+ * 2. The delta is a set-based upsert per table, computed from the order's own rows only
+ * 3. {@link #reconcile} recomputes whole days from orders under an exclusive advisory lock; deltas take the
+ *    lock shared, so they never interleave with a recompute of the same days
+ * <p>
+ * orders timestamps are TIMESTAMP WITHOUT TIME ZONE holding the wall time of the application zone (JVM default,
+ * which pgjdbc also uses as the session TimeZone for NOW()); days are shop-local ({@code app.sales-rollup.zone}).
+ */
+@Service
+@Slf4j
+public class SalesRollupServiceImpl implements SalesRollupService {
+
+    // pg advisory lock key: "SALES" in ASCII
+    private static final long ROLLUP_LOCK_KEY = 0x53414C4553L;
+    private static final int MAX_REPORT_DAYS = 366;
+    private static final int DEFAULT_REPORT_DAYS = 30;
+    private static final int MAX_PRODUCT_ROWS = 200;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final ZoneId zone;
+
+    public SalesRollupServiceImpl(NamedParameterJdbcTemplate jdbcTemplate,
+                                  @Value("${app.sales-rollup.zone:Asia/Ho_Chi_Minh}") String zone) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.zone = ZoneId.of(zone);
+    }
+
+    // ============================================================================
+    // SQL
+    // ============================================================================
+
+    private static final String LOCK_SHARED_SQL = "SELECT pg_advisory_xact_lock_shared(:key)";
+    private static final String LOCK_EXCLUSIVE_SQL = "SELECT pg_advisory_xact_lock(:key)";
+
+    // Day the order is counted on: first of paid/completed, session zone (::timestamptz) -> shop time
+    private static final String SALES_DATE = "(LEAST(o.paid_at, o.completed_at)::timestamptz AT TIME ZONE :zone)::DATE";
+    private static final String CANCEL_DATE = "(o.cancelled_at::timestamptz AT TIME ZONE :zone)::DATE";
+
+    private static final String CLAIM_RECOGNIZED_SQL = """
+            INSERT INTO sales_rollup_entries (order_id, event, sales_date, applied_at)
+            SELECT o.id, 'RECOGNIZED', %s, NOW()
+            FROM orders o
+            WHERE o.id = :orderId
+              AND o.cancelled_at IS NULL
+              AND LEAST(o.paid_at, o.completed_at) IS NOT NULL
+            ON CONFLICT (order_id, event) DO NOTHING
+            RETURNING sales_date
+            """.formatted(SALES_DATE);
+
+    // Reversal lands on the day the sale was counted, not on the cancel day
+    private static final String CLAIM_REVERSED_SQL = """
+            INSERT INTO sales_rollup_entries (order_id, event, sales_date, applied_at)
+            SELECT e.order_id, 'REVERSED', e.sales_date, NOW()
+            FROM sales_rollup_entries e
+            WHERE e.order_id = :orderId
+              AND e.event = 'RECOGNIZED'
+            ON CONFLICT (order_id, event) DO NOTHING
+            RETURNING sales_date
+            """;
+
+    private static final String CLAIM_CANCELLED_SQL = """
+            INSERT INTO sales_rollup_entries (order_id, event, sales_date, applied_at)
+            SELECT o.id, 'CANCELLED', %s, NOW()
+            FROM orders o
+            WHERE o.id = :orderId
+              AND o.cancelled_at IS NOT NULL
+            ON CONFLICT (order_id, event) DO NOTHING
+            RETURNING sales_date
+            """.formatted(CANCEL_DATE);
+
+    // :sign = +1 sale, -1 reversal, 0 cancellation only (:cancelled = 1)
+    private static final String UPSERT_DAILY_SQL = """
+            INSERT INTO sales_daily (sales_date, order_count, units_sold, revenue, cancelled_count, updated_at)
+            SELECT :salesDate, :sign, :sign * COALESCE(SUM(i.quantity), 0), :sign * o.total_amount, :cancelled, NOW()
+            FROM orders o
+            LEFT JOIN order_items i ON i.order_id = o.id AND i.deleted_at IS NULL
+            WHERE o.id = :orderId
+            GROUP BY o.id
+            ON CONFLICT (sales_date) DO UPDATE
+                SET order_count     = sales_daily.order_count + EXCLUDED.order_count,
+                    units_sold      = sales_daily.units_sold + EXCLUDED.units_sold,
+                    revenue         = sales_daily.revenue + EXCLUDED.revenue,
+                    cancelled_count = sales_daily.cancelled_count + EXCLUDED.cancelled_count,
+                    updated_at      = EXCLUDED.updated_at
+            """;
+
+    private static final String UPSERT_PRODUCTS_SQL = """
+            INSERT INTO sales_daily_products (sales_date, product_id, order_count, units_sold, revenue, updated_at)
+            SELECT :salesDate, i.product_id, :sign, :sign * SUM(i.quantity), :sign * SUM(i.sub_total), NOW()
+            FROM order_items i
+            WHERE i.order_id = :orderId
+              AND i.deleted_at IS NULL
+              AND i.product_id IS NOT NULL
+            GROUP BY i.product_id
+            ON CONFLICT (sales_date, product_id) DO UPDATE
+                SET order_count = sales_daily_products.order_count + EXCLUDED.order_count,
+                    units_sold  = sales_daily_products.units_sold + EXCLUDED.units_sold,
+                    revenue     = sales_daily_products.revenue + EXCLUDED.revenue,
+                    updated_at  = EXCLUDED.updated_at
+            """;
+
+    private static final String UPSERT_CATEGORIES_SQL = """
+            INSERT INTO sales_daily_categories (sales_date, category_id, order_count, units_sold, revenue, updated_at)
+            SELECT :salesDate, pc.category_id, :sign, :sign * SUM(i.quantity), :sign * SUM(i.sub_total), NOW()
+            FROM order_items i
+            JOIN product_categories pc ON pc.product_id = i.product_id
+            WHERE i.order_id = :orderId
+              AND i.deleted_at IS NULL
+            GROUP BY pc.category_id
+            ON CONFLICT (sales_date, category_id) DO UPDATE
+                SET order_count = sales_daily_categories.order_count + EXCLUDED.order_count,
+                    units_sold  = sales_daily_categories.units_sold + EXCLUDED.units_sold,
+                    revenue     = sales_daily_categories.revenue + EXCLUDED.revenue,
+                    updated_at  = EXCLUDED.updated_at
+            """;
+
+    // --- Reconcile: range on idx_orders_recognized_at / idx_orders_cancelled_at (shop days in column time) ---
+
+    private static final String RECOGNIZED_IN_RANGE = """
+            LEAST(o.paid_at, o.completed_at) >= :fromTs
+              AND LEAST(o.paid_at, o.completed_at) < :toTs""";
+
+    // Markers of orders changed outside the service (manual fix, import) so later events stay consistent
+    private static final String REPAIR_RECOGNIZED_SQL = """
+            INSERT INTO sales_rollup_entries (order_id, event, sales_date, applied_at)
+            SELECT o.id, 'RECOGNIZED', %s, NOW()
+            FROM orders o
+            WHERE %s
+            ON CONFLICT (order_id, event) DO NOTHING
+            """.formatted(SALES_DATE, RECOGNIZED_IN_RANGE);
+
+    private static final String REPAIR_REVERSED_SQL = """
+            INSERT INTO sales_rollup_entries (order_id, event, sales_date, applied_at)
+            SELECT o.id, 'REVERSED', %s, NOW()
+            FROM orders o
+            WHERE %s
+              AND o.cancelled_at IS NOT NULL
+            ON CONFLICT (order_id, event) DO NOTHING
+            """.formatted(SALES_DATE, RECOGNIZED_IN_RANGE);
+
+    private static final String REPAIR_CANCELLED_SQL = """
+            INSERT INTO sales_rollup_entries (order_id, event, sales_date, applied_at)
+            SELECT o.id, 'CANCELLED', %s, NOW()
+            FROM orders o
+            WHERE o.cancelled_at >= :fromTs
+              AND o.cancelled_at < :toTs
+            ON CONFLICT (order_id, event) DO NOTHING
+            """.formatted(CANCEL_DATE);
+
+    private static final String DELETE_DAILY_SQL = "DELETE FROM sales_daily WHERE sales_date BETWEEN :from AND :to";
+    private static final String DELETE_PRODUCTS_SQL = "DELETE FROM sales_daily_products WHERE sales_date BETWEEN :from AND :to";
+    private static final String DELETE_CATEGORIES_SQL = "DELETE FROM sales_daily_categories WHERE sales_date BETWEEN :from AND :to";
+
+    private static final String RECOMPUTE_DAILY_SQL = """
+            INSERT INTO sales_daily (sales_date, order_count, units_sold, revenue, cancelled_count, updated_at)
+            SELECT d.sales_date, SUM(d.order_count), SUM(d.units_sold), SUM(d.revenue), SUM(d.cancelled_count), NOW()
+            FROM (SELECT %s AS sales_date,
+                         1 AS order_count,
+                         (SELECT COALESCE(SUM(i.quantity), 0) FROM order_items i
+                          WHERE i.order_id = o.id AND i.deleted_at IS NULL) AS units_sold,
+                         o.total_amount AS revenue,
+                         0 AS cancelled_count
+                  FROM orders o
+                  WHERE %s
+                    AND o.cancelled_at IS NULL
+                  UNION ALL
+                  SELECT %s, 0, 0, 0, 1
+                  FROM orders o
+                  WHERE o.cancelled_at >= :fromTs
+                    AND o.cancelled_at < :toTs) d
+            GROUP BY d.sales_date
+            """.formatted(SALES_DATE, RECOGNIZED_IN_RANGE, CANCEL_DATE);
+
+    private static final String RECOMPUTE_PRODUCTS_SQL = """
+            INSERT INTO sales_daily_products (sales_date, product_id, order_count, units_sold, revenue, updated_at)
+            SELECT %s, i.product_id, COUNT(DISTINCT o.id), SUM(i.quantity), SUM(i.sub_total), NOW()
+            FROM orders o
+            JOIN order_items i ON i.order_id = o.id AND i.deleted_at IS NULL AND i.product_id IS NOT NULL
+            WHERE %s
+              AND o.cancelled_at IS NULL
+            GROUP BY 1, 2
+            """.formatted(SALES_DATE, RECOGNIZED_IN_RANGE);
+
+    private static final String RECOMPUTE_CATEGORIES_SQL = """
+            INSERT INTO sales_daily_categories (sales_date, category_id, order_count, units_sold, revenue, updated_at)
+            SELECT %s, pc.category_id, COUNT(DISTINCT o.id), SUM(i.quantity), SUM(i.sub_total), NOW()
+            FROM orders o
+            JOIN order_items i ON i.order_id = o.id AND i.deleted_at IS NULL
+            JOIN product_categories pc ON pc.product_id = i.product_id
+            WHERE %s
+              AND o.cancelled_at IS NULL
+            GROUP BY 1, 2
+            """.formatted(SALES_DATE, RECOGNIZED_IN_RANGE);
+
+    // --- Dashboard: range scans on the rollup primary keys (sales_date first) ---
+
+    private static final String DAILY_SALES_SQL = """
+            SELECT s.sales_date, s.order_count, s.units_sold, s.revenue, s.cancelled_count
+            FROM sales_daily s
+            WHERE s.sales_date BETWEEN :from AND :to
+            ORDER BY s.sales_date
+            """;
+
+    private static final String PRODUCT_SALES_SQL = """
+            SELECT s.product_id, p.name,
+                   SUM(s.order_count) AS order_count,
+                   SUM(s.units_sold)  AS units_sold,
+                   SUM(s.revenue)     AS revenue
+            FROM sales_daily_products s
+            LEFT JOIN products p ON p.id = s.product_id
+            WHERE s.sales_date BETWEEN :from AND :to
+            GROUP BY s.product_id, p.name
+            HAVING SUM(s.order_count) > 0
+            ORDER BY revenue DESC, s.product_id
+            LIMIT :limit
+            """;
+
+    private static final String CATEGORY_SALES_SQL = """
+            SELECT s.category_id, c.name,
+                   SUM(s.order_count) AS order_count,
+                   SUM(s.units_sold)  AS units_sold,
+                   SUM(s.revenue)     AS revenue
+            FROM sales_daily_categories s
+            LEFT JOIN categories c ON c.id = s.category_id
+            WHERE s.sales_date BETWEEN :from AND :to
+            GROUP BY s.category_id, c.name
+            HAVING SUM(s.order_count) > 0
+            ORDER BY revenue DESC, s.category_id
+            """;
+
+    // ============================================================================
+    // DELTAS
+    // ============================================================================
+
+    @Override
+    @Transactional
+    public void onOrderRecognized(Long orderId) {
+        lock(LOCK_SHARED_SQL);
+        LocalDate salesDate = claim(CLAIM_RECOGNIZED_SQL, orderId);
+        if (salesDate != null) {
+            applySale(orderId, salesDate, 1);
+            log.debug("Sales rollup: order {} counted on {}", orderId, salesDate);
+        }
+    }
+
+    @Override
+    @Transactional
+    public void onOrderCancelled(Long orderId) {
+        lock(LOCK_SHARED_SQL);
+        LocalDate cancelDate = claim(CLAIM_CANCELLED_SQL, orderId);
+        if (cancelDate != null) {
+            jdbcTemplate.update(UPSERT_DAILY_SQL, deltaParams(orderId, cancelDate, 0).addValue("cancelled", 1));
+        }
+
+        LocalDate salesDate = claim(CLAIM_REVERSED_SQL, orderId);
+        if (salesDate != null) {
+            applySale(orderId, salesDate, -1);
+            log.debug("Sales rollup: order {} reversed on {}", orderId, salesDate);
+        }
+    }
+
+    private LocalDate claim(String sql, Long orderId) {
+        List<LocalDate> dates = jdbcTemplate.query(sql,
+                new MapSqlParameterSource("orderId", orderId).addValue("zone", zone.getId()),
+                (rs, i) -> rs.getDate("sales_date").toLocalDate());
+        return dates.isEmpty() ? null : dates.getFirst();
+    }
+
+    private void applySale(Long orderId, LocalDate salesDate, int sign) {
+        MapSqlParameterSource params = deltaParams(orderId, salesDate, sign);
+        jdbcTemplate.update(UPSERT_DAILY_SQL, params.addValue("cancelled", 0));
+        jdbcTemplate.update(UPSERT_PRODUCTS_SQL, params);
+        jdbcTemplate.update(UPSERT_CATEGORIES_SQL, params);
+    }
+
+    private static MapSqlParameterSource deltaParams(Long orderId, LocalDate salesDate, int sign) {
+        return new MapSqlParameterSource()
+                .addValue("orderId", orderId)
+                .addValue("salesDate", salesDate)
+                .addValue("sign", sign);
+    }
+
+    private void lock(String sql) {
+        jdbcTemplate.query(sql, new MapSqlParameterSource("key", ROLLUP_LOCK_KEY), rs -> {
+        });
+    }
+
+    // ============================================================================
+    // RECONCILE
+    // ============================================================================
+
+    @Override
+    @Transactional
+    public int reconcile(LocalDate from, LocalDate to) {
+        long start = System.currentTimeMillis();
+        lock(LOCK_EXCLUSIVE_SQL);
+
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("from", from)
+                .addValue("to", to)
+                .addValue("fromTs", toColumnTime(from))
+                .addValue("toTs", toColumnTime(to.plusDays(1)))
+                .addValue("zone", zone.getId());
+
+        int repaired = jdbcTemplate.update(REPAIR_RECOGNIZED_SQL, params)
+                + jdbcTemplate.update(REPAIR_REVERSED_SQL, params)
+                + jdbcTemplate.update(REPAIR_CANCELLED_SQL, params);
+        if (repaired > 0) {
+            log.warn("Sales rollup: {} order event(s) between {} and {} were never applied", repaired, from, to);
+        }
+
+        jdbcTemplate.update(DELETE_DAILY_SQL, params);
+        jdbcTemplate.update(DELETE_PRODUCTS_SQL, params);
+        jdbcTemplate.update(DELETE_CATEGORIES_SQL, params);
+
+        int written = jdbcTemplate.update(RECOMPUTE_DAILY_SQL, params)
+                + jdbcTemplate.update(RECOMPUTE_PRODUCTS_SQL, params)
+                + jdbcTemplate.update(RECOMPUTE_CATEGORIES_SQL, params);
+
+        log.info("Sales rollup reconcile {}..{}: {} row(s) written in {} ms",
+                from, to, written, System.currentTimeMillis() - start);
+        return written;
+    }
+
+    // Start of the shop-local day as the wall time stored in orders columns (application zone)
+    private LocalDateTime toColumnTime(LocalDate date) {
+        return LocalDateTime.ofInstant(date.atStartOfDay(zone).toInstant(), ZoneId.systemDefault());
+    }
+
+    // ============================================================================
+    // DASHBOARD
+    // ============================================================================
+
+    @Override
+    public List<DailySalesResponse> getDailySales(LocalDate from, LocalDate to) {
+        return jdbcTemplate.query(DAILY_SALES_SQL, rangeParams(from, to), (rs, i) -> DailySalesResponse.builder()
+                .date(rs.getDate("sales_date").toLocalDate())
+                .orderCount(rs.getLong("order_count"))
+                .unitsSold(rs.getLong("units_sold"))
+                .revenue(rs.getBigDecimal("revenue"))
+                .cancelledCount(rs.getLong("cancelled_count"))
+                .build());
+    }
+
+    @Override
+    public List<ProductSalesResponse> getProductSales(LocalDate from, LocalDate to, int limit) {
+        MapSqlParameterSource params = rangeParams(from, to).addValue("limit", Math.clamp(limit, 1, MAX_PRODUCT_ROWS));
+        return jdbcTemplate.query(PRODUCT_SALES_SQL, params, (rs, i) -> ProductSalesResponse.builder()
+                .productId(rs.getLong("product_id"))
+                .productName(rs.getString("name"))
+                .orderCount(rs.getLong("order_count"))
+                .unitsSold(rs.getLong("units_sold"))
+                .revenue(rs.getBigDecimal("revenue"))
+                .build());
+    }
+
+    @Override
+    public List<CategorySalesResponse> getCategorySales(LocalDate from, LocalDate to) {
+        return jdbcTemplate.query(CATEGORY_SALES_SQL, rangeParams(from, to), (rs, i) -> CategorySalesResponse.builder()
+                .categoryId(rs.getLong("category_id"))
+                .categoryName(rs.getString("name"))
+                .orderCount(rs.getLong("order_count"))
+                .unitsSold(rs.getLong("units_sold"))
+                .revenue(rs.getBigDecimal("revenue"))
+                .build());
+    }
+
+    // Default: last 30 shop days including today
+    private MapSqlParameterSource rangeParams(LocalDate from, LocalDate to) {
+        LocalDate end = to != null ? to : LocalDate.now(zone);
+        LocalDate start = from != null ? from : end.minusDays(DEFAULT_REPORT_DAYS - 1);
+        if (start.isAfter(end) || ChronoUnit.DAYS.between(start, end) >= MAX_REPORT_DAYS) {
+            throw new AppException(ErrorCode.SALES_INVALID_REPORT_RANGE);
+        }
+        return new MapSqlParameterSource()
+                .addValue("from", start)
+                .addValue("to", end);
+    }
+}
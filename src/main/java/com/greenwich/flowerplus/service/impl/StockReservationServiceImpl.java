@@ -0,0 +1,504 @@
+package com.greenwich.flowerplus.service.impl;
+
+import com.greenwich.flowerplus.common.enums.ErrorCode;
+import com.greenwich.flowerplus.common.enums.ReservationStatus;
+import com.greenwich.flowerplus.common.enums.TransactionType;
+import com.greenwich.flowerplus.common.exception.AppException;
+import com.greenwich.flowerplus.common.utils.TsidUtils;
+import com.greenwich.flowerplus.service.BuildableQuantityService;
+import com.greenwich.flowerplus.service.LowStockService;
+import com.greenwich.flowerplus.service.StockReservationService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Lock-free (no SELECT ... FOR UPDATE, no lock across requests) stock reservation.
+ * <p>
+ * The availability check and the increment are the same statement:
+ * {@code UPDATE material_stocks SET reserved_quantity = reserved_quantity + x WHERE id = ? AND quantity - reserved_quantity >= x}.
+ * Postgres re-evaluates the WHERE on the latest row version when two reservations race, so the loser
+ * updates 0 rows instead of overselling. One statement per material is sent as one JDBC batch, ordered by
+ * material id so two orders sharing materials always lock rows in the same order (no deadlock).
+ * Any material with 0 updated rows rolls the whole transaction back: all-or-nothing.
+ * <p>
+ * Products without recipe are ready-made: they are taken from products.prepared_quantity with the same
+ * conditional UPDATE, one prepared_stock_reservations line per product so release can give them back.
+ */
+@Service
+@Slf4j
+public class StockReservationServiceImpl implements StockReservationService {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final AuditorAware<String> auditorProvider;
+    private final InventoryLedgerWriter ledgerWriter;
+    private final BuildableQuantityService buildableQuantityService;
+    private final LowStockService lowStockService;
+    private final Duration reservationTtl;
+
+    public StockReservationServiceImpl(NamedParameterJdbcTemplate jdbcTemplate,
+                                       AuditorAware<String> auditorProvider,
+                                       InventoryLedgerWriter ledgerWriter,
+                                       BuildableQuantityService buildableQuantityService,
+                                       LowStockService lowStockService,
+                                       @Value("${app.stock-reservation.ttl-minutes:30}") long ttlMinutes) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.auditorProvider = auditorProvider;
+        this.ledgerWriter = ledgerWriter;
+        this.buildableQuantityService = buildableQuantityService;
+        this.lowStockService = lowStockService;
+        this.reservationTtl = Duration.ofMinutes(ttlMinutes);
+    }
+
+    // ============================================================================
+    // SQL
+    // ============================================================================
+
+    // Unique (reference_code, material_id): a replayed reserve inserts nothing
+    private static final String INSERT_LINES_SQL = """
+            INSERT INTO stock_reservations (id, reference_code, material_id, quantity, status, expires_at,
+                                            created_at, updated_at, created_by, updated_by)
+            SELECT l.id, :referenceCode, l.material_id, l.quantity, 'RESERVED', :expiresAt,
+                   NOW(), NOW(), :actor, :actor
+            FROM (VALUES :lines) AS l(id, material_id, quantity)
+            ON CONFLICT (reference_code, material_id) DO NOTHING
+            """;
+
+    private static final String RESERVE_SQL = """
+            UPDATE material_stocks
+            SET reserved_quantity = reserved_quantity + :quantity, updated_at = NOW()
+            WHERE id = :materialId
+              AND quantity - reserved_quantity >= :quantity
+            """;
+
+    // Status switch is the idempotency guard: a second commit/release finds no RESERVED line
+    private static final String CLOSE_LINES_SQL = """
+            UPDATE stock_reservations
+            SET status = :newStatus, updated_at = NOW(), updated_by = :actor
+            WHERE reference_code = :referenceCode
+              AND status = 'RESERVED'
+            RETURNING material_id, quantity
+            """;
+
+    private static final String COMMIT_STOCK_SQL = """
+            UPDATE material_stocks
+            SET quantity = quantity - :quantity,
+                reserved_quantity = reserved_quantity - :quantity,
+                updated_at = NOW()
+            WHERE id = :materialId
+              AND reserved_quantity >= :quantity
+            """;
+
+    private static final String RELEASE_STOCK_SQL = """
+            UPDATE material_stocks
+            SET reserved_quantity = reserved_quantity - :quantity, updated_at = NOW()
+            WHERE id = :materialId
+              AND reserved_quantity >= :quantity
+            """;
+
+    private static final String INSERT_PREPARED_LINES_SQL = """
+            INSERT INTO prepared_stock_reservations (id, reference_code, product_id, quantity, status, expires_at,
+                                                     created_at, updated_at, created_by, updated_by)
+            SELECT l.id, :referenceCode, l.product_id, l.quantity, 'RESERVED', :expiresAt,
+                   NOW(), NOW(), :actor, :actor
+            FROM (VALUES :lines) AS l(id, product_id, quantity)
+            ON CONFLICT (reference_code, product_id) DO NOTHING
+            """;
+
+    private static final String RESERVE_PREPARED_SQL = """
+            UPDATE products
+            SET prepared_quantity = prepared_quantity - :quantity, updated_at = NOW()
+            WHERE id = :productId
+              AND prepared_quantity >= :quantity
+            """;
+
+    private static final String CLOSE_PREPARED_LINES_SQL = """
+            UPDATE prepared_stock_reservations
+            SET status = :newStatus, updated_at = NOW(), updated_by = :actor
+            WHERE reference_code = :referenceCode
+              AND status = 'RESERVED'
+            RETURNING product_id, quantity
+            """;
+
+    // Committed ready-made stock already left prepared_quantity at reserve time, only release writes back
+    private static final String RELEASE_PREPARED_SQL = """
+            UPDATE products
+            SET prepared_quantity = COALESCE(prepared_quantity, 0) + :quantity, updated_at = NOW()
+            WHERE id = :productId
+            """;
+
+    private static final String REFERENCE_EXISTS_SQL = """
+            SELECT EXISTS (SELECT 1 FROM stock_reservations WHERE reference_code = :referenceCode)
+                OR EXISTS (SELECT 1 FROM prepared_stock_reservations WHERE reference_code = :referenceCode)
+            """;
+
+    private static final String REFERENCE_LINES_SQL = """
+            SELECT material_id, quantity, status FROM stock_reservations WHERE reference_code = :referenceCode
+            """;
+
+    private static final String PREPARED_REFERENCE_LINES_SQL = """
+            SELECT product_id, quantity, status FROM prepared_stock_reservations WHERE reference_code = :referenceCode
+            """;
+
+    private static final String REFERENCE_STATUS_SQL = """
+            SELECT status FROM stock_reservations WHERE reference_code = :referenceCode
+            UNION
+            SELECT status FROM prepared_stock_reservations WHERE reference_code = :referenceCode
+            """;
+
+    // One row per recipe line (not grouped) so products without any recipe line can be detected
+    private static final String RECIPE_MATERIALS_SQL = """
+            SELECT r.product_id, r.material_id, r.quantity_needed * p.quantity AS quantity
+            FROM product_recipes r
+            JOIN (VALUES :products) AS p(product_id, quantity) ON p.product_id = r.product_id
+            """;
+
+    private static final String EXPIRED_REFERENCES_SQL = """
+            SELECT reference_code
+            FROM stock_reservations
+            WHERE status = 'RESERVED'
+              AND expires_at < NOW()
+            UNION
+            SELECT reference_code
+            FROM prepared_stock_reservations
+            WHERE status = 'RESERVED'
+              AND expires_at < NOW()
+            LIMIT :limit
+            """;
+
+    // ============================================================================
+    // RESERVE
+    // ============================================================================
+
+    @Override
+    @Transactional
+    public void reserve(String referenceCode, Map<Long, Integer> materialQuantities) {
+        reserve(referenceCode, materialQuantities, reservationTtl);
+    }
+
+    private void reserve(String referenceCode, Map<Long, Integer> materialQuantities, Duration ttl) {
+        requireReference(referenceCode);
+        SortedMap<Long, Integer> quantities = validateQuantities(materialQuantities);
+        if (quantities.isEmpty()) {
+            return;
+        }
+
+        List<Object[]> lines = new ArrayList<>(quantities.size());
+        quantities.forEach((materialId, quantity) -> lines.add(new Object[]{TsidUtils.nextId(), materialId, quantity}));
+
+        int inserted = jdbcTemplate.update(INSERT_LINES_SQL, baseParams(referenceCode)
+                .addValue("expiresAt", Timestamp.from(Instant.now().plus(ttl)))
+                .addValue("lines", lines));
+        if (inserted == 0) {
+            ensureReplay(referenceCode, quantities);
+            return;
+        }
+        if (inserted != quantities.size()) {
+            // Same reference reused with a different material list
+            throw new AppException(ErrorCode.INVENTORY_RESERVE_FAILED);
+        }
+
+        // Sorted by material id -> consistent lock order across concurrent reservations
+        MapSqlParameterSource[] updates = quantities.entrySet().stream()
+                .map(e -> new MapSqlParameterSource()
+                        .addValue("materialId", e.getKey())
+                        .addValue("quantity", e.getValue()))
+                .toArray(MapSqlParameterSource[]::new);
+        int[] counts = jdbcTemplate.batchUpdate(RESERVE_SQL, updates);
+
+        List<Long> shortMaterials = new ArrayList<>();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 0) {
+                shortMaterials.add((Long) updates[i].getValue("materialId"));
+            }
+        }
+        if (!shortMaterials.isEmpty()) {
+            // Rollback: stock increments of the other materials + reservation lines are discarded
+            log.info("Reservation {} rejected, insufficient stock for materials {}", referenceCode, shortMaterials);
+            throw new AppException(ErrorCode.INVENTORY_INSUFFICIENT_STOCK);
+        }
+
+        onStockChanged(quantities.keySet());
+        log.debug("Reserved {} material(s) for {}", quantities.size(), referenceCode);
+    }
+
+    @Override
+    @Transactional
+    public void reserveForProducts(String referenceCode, Map<Long, Integer> productQuantities, Duration ttl) {
+        SortedMap<Long, Integer> products = validateQuantities(productQuantities);
+        if (products.isEmpty()) {
+            return;
+        }
+
+        List<Object[]> productRows = new ArrayList<>(products.size());
+        products.forEach((productId, quantity) -> productRows.add(new Object[]{productId, quantity}));
+
+        Map<Long, Integer> materials = new TreeMap<>();
+        Set<Long> withRecipe = new HashSet<>();
+        jdbcTemplate.query(RECIPE_MATERIALS_SQL, new MapSqlParameterSource("products", productRows),
+                rs -> {
+                    withRecipe.add(rs.getLong("product_id"));
+                    materials.merge(rs.getLong("material_id"), rs.getInt("quantity"), Integer::sum);
+                });
+
+        // Không có công thức = hàng làm sẵn: giữ từ prepared_quantity thay vì nguyên liệu
+        SortedMap<Long, Integer> prepared = new TreeMap<>(products);
+        prepared.keySet().removeAll(withRecipe);
+
+        // Materials first, then products: the same lock order for every reservation
+        reserve(referenceCode, materials, ttl);
+        reservePrepared(referenceCode, prepared, ttl);
+    }
+
+    private void reservePrepared(String referenceCode, SortedMap<Long, Integer> quantities, Duration ttl) {
+        if (quantities.isEmpty()) {
+            return;
+        }
+
+        List<Object[]> lines = new ArrayList<>(quantities.size());
+        quantities.forEach((productId, quantity) -> lines.add(new Object[]{TsidUtils.nextId(), productId, quantity}));
+
+        int inserted = jdbcTemplate.update(INSERT_PREPARED_LINES_SQL, baseParams(referenceCode)
+                .addValue("expiresAt", Timestamp.from(Instant.now().plus(ttl)))
+                .addValue("lines", lines));
+        if (inserted == 0) {
+            ensurePreparedReplay(referenceCode, quantities);
+            return;
+        }
+        if (inserted != quantities.size()) {
+            throw new AppException(ErrorCode.INVENTORY_RESERVE_FAILED);
+        }
+
+        MapSqlParameterSource[] updates = quantities.entrySet().stream()
+                .map(e -> new MapSqlParameterSource()
+                        .addValue("productId", e.getKey())
+                        .addValue("quantity", e.getValue()))
+                .toArray(MapSqlParameterSource[]::new);
+        int[] counts = jdbcTemplate.batchUpdate(RESERVE_PREPARED_SQL, updates);
+
+        List<Long> shortProducts = new ArrayList<>();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 0) {
+                shortProducts.add((Long) updates[i].getValue("productId"));
+            }
+        }
+        if (!shortProducts.isEmpty()) {
+            log.info("Reservation {} rejected, insufficient prepared stock for products {}", referenceCode, shortProducts);
+            throw new AppException(ErrorCode.INVENTORY_INSUFFICIENT_STOCK);
+        }
+        log.debug("Reserved prepared stock of {} product(s) for {}", quantities.size(), referenceCode);
+    }
+
+    // ============================================================================
+    // COMMIT / RELEASE
+    // ============================================================================
+
+    @Override
+    @Transactional
+    public void commit(String referenceCode) {
+        requireReference(referenceCode);
+        SortedMap<Long, Integer> lines = closeLines(referenceCode, ReservationStatus.COMMITTED);
+        SortedMap<Long, Integer> preparedLines = closePreparedLines(referenceCode, ReservationStatus.COMMITTED);
+        if (lines.isEmpty() && preparedLines.isEmpty()) {
+            ensureAlready(referenceCode, ReservationStatus.COMMITTED, ErrorCode.INVENTORY_CONFIRM_FAILED);
+            return;
+        }
+        if (lines.isEmpty()) {
+            log.debug("Committed prepared stock of {} ({} product(s))", referenceCode, preparedLines.size());
+            return;
+        }
+
+        applyStock(COMMIT_STOCK_SQL, lines, ErrorCode.INVENTORY_CONFIRM_FAILED);
+
+        List<InventoryLedgerWriter.Entry> usages = new ArrayList<>(lines.size());
+        lines.forEach((materialId, quantity) ->
+                usages.add(new InventoryLedgerWriter.Entry(materialId, -quantity, TransactionType.USAGE)));
+        ledgerWriter.append(referenceCode, usages);
+        onStockChanged(lines.keySet());
+
+        log.debug("Committed reservation {} ({} material(s))", referenceCode, lines.size());
+    }
+
+    @Override
+    @Transactional
+    public void release(String referenceCode) {
+        requireReference(referenceCode);
+        SortedMap<Long, Integer> lines = closeLines(referenceCode, ReservationStatus.RELEASED);
+        SortedMap<Long, Integer> preparedLines = closePreparedLines(referenceCode, ReservationStatus.RELEASED);
+        if (lines.isEmpty() && preparedLines.isEmpty()) {
+            ensureAlready(referenceCode, ReservationStatus.RELEASED, ErrorCode.INVENTORY_RELEASE_FAILED);
+            return;
+        }
+
+        if (!lines.isEmpty()) {
+            applyStock(RELEASE_STOCK_SQL, lines, ErrorCode.INVENTORY_RELEASE_FAILED);
+            onStockChanged(lines.keySet());
+        }
+        if (!preparedLines.isEmpty()) {
+            applyPrepared(preparedLines, ErrorCode.INVENTORY_RELEASE_FAILED);
+        }
+        log.debug("Released reservation {} ({} material(s), {} prepared product(s))",
+                referenceCode, lines.size(), preparedLines.size());
+    }
+
+    @Override
+    public boolean hasReservation(String referenceCode) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(REFERENCE_EXISTS_SQL,
+                new MapSqlParameterSource("referenceCode", referenceCode), Boolean.class));
+    }
+
+    @Override
+    public List<String> findExpiredReferences(int limit) {
+        return jdbcTemplate.queryForList(EXPIRED_REFERENCES_SQL,
+                new MapSqlParameterSource("limit", limit), String.class);
+    }
+
+    /**
+     * Nothing inserted: OK only for a replay of a reservation that still holds exactly this stock.
+     * Lines already released (expired, cancelled) or committed hold nothing, reusing their reference is an error.
+     */
+    private void ensureReplay(String referenceCode, SortedMap<Long, Integer> quantities) {
+        SortedMap<Long, Integer> held = new TreeMap<>();
+        Set<String> statuses = new HashSet<>();
+        jdbcTemplate.query(REFERENCE_LINES_SQL, new MapSqlParameterSource("referenceCode", referenceCode),
+                rs -> {
+                    held.put(rs.getLong("material_id"), rs.getInt("quantity"));
+                    statuses.add(rs.getString("status"));
+                });
+
+        if (!statuses.equals(Set.of(ReservationStatus.RESERVED.name())) || !held.equals(quantities)) {
+            log.info("Reservation {} rejected, reference already used with statuses {}", referenceCode, statuses);
+            throw new AppException(ErrorCode.INVENTORY_RESERVE_FAILED);
+        }
+        log.info("Reservation {} already held, skipping", referenceCode);
+    }
+
+    private void ensurePreparedReplay(String referenceCode, SortedMap<Long, Integer> quantities) {
+        SortedMap<Long, Integer> held = new TreeMap<>();
+        Set<String> statuses = new HashSet<>();
+        jdbcTemplate.query(PREPARED_REFERENCE_LINES_SQL, new MapSqlParameterSource("referenceCode", referenceCode),
+                rs -> {
+                    held.put(rs.getLong("product_id"), rs.getInt("quantity"));
+                    statuses.add(rs.getString("status"));
+                });
+
+        if (!statuses.equals(Set.of(ReservationStatus.RESERVED.name())) || !held.equals(quantities)) {
+            log.info("Reservation {} rejected, prepared reference already used with statuses {}", referenceCode, statuses);
+            throw new AppException(ErrorCode.INVENTORY_RESERVE_FAILED);
+        }
+    }
+
+    // Available stock changed -> refresh buildable quantity + check reorder level (both after commit)
+    private void onStockChanged(Set<Long> materialIds) {
+        buildableQuantityService.onMaterialsChanged(materialIds);
+        lowStockService.onMaterialsChanged(materialIds);
+    }
+
+    private SortedMap<Long, Integer> closeLines(String referenceCode, ReservationStatus newStatus) {
+        SortedMap<Long, Integer> lines = new TreeMap<>();
+        jdbcTemplate.query(CLOSE_LINES_SQL, baseParams(referenceCode).addValue("newStatus", newStatus.name()),
+                rs -> {
+                    lines.put(rs.getLong("material_id"), rs.getInt("quantity"));
+                });
+        return lines;
+    }
+
+    private SortedMap<Long, Integer> closePreparedLines(String referenceCode, ReservationStatus newStatus) {
+        SortedMap<Long, Integer> lines = new TreeMap<>();
+        jdbcTemplate.query(CLOSE_PREPARED_LINES_SQL, baseParams(referenceCode).addValue("newStatus", newStatus.name()),
+                rs -> {
+                    lines.put(rs.getLong("product_id"), rs.getInt("quantity"));
+                });
+        return lines;
+    }
+
+    private void applyPrepared(SortedMap<Long, Integer> lines, ErrorCode errorCode) {
+        MapSqlParameterSource[] updates = lines.entrySet().stream()
+                .map(e -> new MapSqlParameterSource()
+                        .addValue("productId", e.getKey())
+                        .addValue("quantity", e.getValue()))
+                .toArray(MapSqlParameterSource[]::new);
+
+        for (int count : jdbcTemplate.batchUpdate(RELEASE_PREPARED_SQL, updates)) {
+            if (count == 0) {
+                throw new AppException(errorCode);
+            }
+        }
+    }
+
+    private void applyStock(String sql, SortedMap<Long, Integer> lines, ErrorCode errorCode) {
+        MapSqlParameterSource[] updates = lines.entrySet().stream()
+                .map(e -> new MapSqlParameterSource()
+                        .addValue("materialId", e.getKey())
+                        .addValue("quantity", e.getValue()))
+                .toArray(MapSqlParameterSource[]::new);
+
+        for (int count : jdbcTemplate.batchUpdate(sql, updates)) {
+            if (count == 0) {
+                // reserved_quantity lower than a RESERVED line: stock was edited outside the reservation flow
+                throw new AppException(errorCode);
+            }
+        }
+    }
+
+    /**
+     * Nothing left to close: fine if the reference is already in the target state (replay),
+     * an error if it does not exist or is in the opposite final state.
+     */
+    private void ensureAlready(String referenceCode, ReservationStatus target, ErrorCode errorCode) {
+        List<String> statuses = jdbcTemplate.queryForList(REFERENCE_STATUS_SQL,
+                new MapSqlParameterSource("referenceCode", referenceCode), String.class);
+        if (statuses.isEmpty()) {
+            throw new AppException(ErrorCode.INVENTORY_NOT_FOUND);
+        }
+        if (!statuses.equals(List.of(target.name()))) {
+            throw new AppException(errorCode);
+        }
+    }
+
+    // ============================================================================
+    // HELPERS
+    // ============================================================================
+
+    private MapSqlParameterSource baseParams(String referenceCode) {
+        return new MapSqlParameterSource()
+                .addValue("referenceCode", referenceCode)
+                .addValue("actor", auditorProvider.getCurrentAuditor().orElse(null));
+    }
+
+    private static void requireReference(String referenceCode) {
+        if (!StringUtils.hasText(referenceCode) || referenceCode.length() > 50) {
+            throw new AppException(ErrorCode.INVALID_REQUEST);
+        }
+    }
+
+    private static SortedMap<Long, Integer> validateQuantities(Map<Long, Integer> quantities) {
+        SortedMap<Long, Integer> sorted = new TreeMap<>();
+        if (quantities == null) {
+            return sorted;
+        }
+        quantities.forEach((id, quantity) -> {
+            if (id == null || quantity == null || quantity <= 0) {
+                throw new AppException(ErrorCode.INVENTORY_INVALID_QUANTITY);
+            }
+            sorted.put(id, quantity);
+        });
+        return sorted;
+    }
+}
@@ -0,0 +1,5 @@
+-- product_assets / contact_addresses: id is now a TSID assigned by the application (same as the other tables).
+-- Dropping IDENTITY lets Hibernate batch the INSERTs instead of one round-trip per row to read back the key.
+-- Existing small identity values stay valid, TSIDs are far above them so there is no collision.
+ALTER TABLE product_assets ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE contact_addresses ALTER COLUMN id DROP IDENTITY IF EXISTS;
@@ -0,0 +1,50 @@
+-- Bulk product import: job tracking (progress + resumable checkpoint), per-row errors and a staging table
+
+CREATE TABLE product_import_jobs
+(
+    id             BIGINT       NOT NULL,
+    created_at     TIMESTAMP WITHOUT TIME ZONE,
+    updated_at     TIMESTAMP WITHOUT TIME ZONE,
+    created_by     VARCHAR(255),
+    updated_by     VARCHAR(255),
+    file_name      VARCHAR(255),
+    format         VARCHAR(20)  NOT NULL,
+    status         VARCHAR(20)  NOT NULL,
+    -- last source row number whose batch is committed; resume restarts after it
+    checkpoint_row BIGINT       NOT NULL DEFAULT 0,
+    processed_rows BIGINT       NOT NULL DEFAULT 0,
+    imported_rows  BIGINT       NOT NULL DEFAULT 0,
+    failed_rows    BIGINT       NOT NULL DEFAULT 0,
+    started_at     TIMESTAMP WITHOUT TIME ZONE,
+    finished_at    TIMESTAMP WITHOUT TIME ZONE,
+    error_message  TEXT,
+    CONSTRAINT pk_product_import_jobs PRIMARY KEY (id)
+);
+
+CREATE TABLE product_import_errors
+(
+    job_id     BIGINT       NOT NULL,
+    row_number BIGINT       NOT NULL,
+    error_code VARCHAR(50),
+    message    VARCHAR(1000) NOT NULL,
+    CONSTRAINT pk_product_import_errors PRIMARY KEY (job_id, row_number),
+    CONSTRAINT fk_import_error_on_job FOREIGN KEY (job_id) REFERENCES product_import_jobs (id) ON DELETE CASCADE
+);
+
+-- Holds one validated batch at a time, merged into products/product_categories in the same transaction.
+-- UNLOGGED: content is transient and rebuilt from the source file on resume, no need for WAL.
+CREATE UNLOGGED TABLE product_import_staging
+(
+    job_id              BIGINT         NOT NULL,
+    row_number          BIGINT         NOT NULL,
+    product_id          BIGINT         NOT NULL,
+    product_category_id BIGINT         NOT NULL,
+    category_id         BIGINT         NOT NULL,
+    name                VARCHAR(200)   NOT NULL,
+    slug                VARCHAR(250)   NOT NULL,
+    description         TEXT,
+    care_instruction    TEXT,
+    selling_price       DECIMAL(15, 2) NOT NULL,
+    original_price      DECIMAL(15, 2) NOT NULL,
+    CONSTRAINT pk_product_import_staging PRIMARY KEY (job_id, row_number)
+);
@@ -0,0 +1,4 @@
+-- Material cost change -> find every product using that material without scanning product_recipes.
+-- INCLUDE makes the propagation lookup an index-only scan (product_id + quantity_needed).
+CREATE INDEX IF NOT EXISTS idx_product_recipes_material
+    ON product_recipes (material_id) INCLUDE (product_id, quantity_needed);
@@ -0,0 +1,27 @@
+-- Material stock reservations: one line per (reference, material).
+-- material_stocks.reserved_quantity is the sum of RESERVED lines; lines make reserve/commit/release idempotent.
+
+CREATE TABLE stock_reservations
+(
+    id             BIGINT      NOT NULL,
+    created_at     TIMESTAMP WITHOUT TIME ZONE,
+    updated_at     TIMESTAMP WITHOUT TIME ZONE,
+    created_by     VARCHAR(255),
+    updated_by     VARCHAR(255),
+    reference_code VARCHAR(50) NOT NULL,
+    material_id    BIGINT      NOT NULL,
+    quantity       INTEGER     NOT NULL,
+    status         VARCHAR(20) NOT NULL,
+    expires_at     TIMESTAMP WITHOUT TIME ZONE,
+    CONSTRAINT pk_stock_reservations PRIMARY KEY (id),
+    CONSTRAINT uq_stock_reservation_reference_material UNIQUE (reference_code, material_id),
+    CONSTRAINT fk_stock_reservations_on_material FOREIGN KEY (material_id) REFERENCES materials (id),
+    CONSTRAINT chk_stock_reservation_quantity CHECK (quantity > 0)
+);
+
+-- Expiry job only looks at open reservations
+CREATE INDEX idx_stock_reservation_expiry ON stock_reservations (expires_at) WHERE status = 'RESERVED';
+
+-- Last line of defence against oversell if a code path ever bypasses the conditional UPDATE
+ALTER TABLE material_stocks
+    ADD CONSTRAINT chk_material_stock_reserved CHECK (reserved_quantity >= 0 AND reserved_quantity <= quantity);
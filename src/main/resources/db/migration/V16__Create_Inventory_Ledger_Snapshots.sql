@@ -0,0 +1,28 @@
+-- Inventory ledger: inventory_transactions is append-only, balances are snapshotted daily.
+-- balance(t) = nearest snapshot <= t + SUM(change_amount) after that snapshot up to t
+
+-- Per-material range reads (ledger page, delta since snapshot) are index-only range scans
+CREATE INDEX IF NOT EXISTS idx_inventory_tx_material_created
+    ON inventory_transactions (material_id, created_at, id) INCLUDE (change_amount, type, reference_code);
+
+CREATE TABLE inventory_snapshots
+(
+    material_id BIGINT  NOT NULL,
+    snapshot_at TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    balance     INTEGER NOT NULL,
+    created_at  TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    CONSTRAINT pk_inventory_snapshots PRIMARY KEY (material_id, snapshot_at),
+    CONSTRAINT fk_inventory_snapshots_on_material FOREIGN KEY (material_id) REFERENCES materials (id)
+);
+
+-- Corrections are new entries (AUDIT), never edits
+CREATE OR REPLACE FUNCTION forbid_inventory_ledger_mutation() RETURNS trigger AS
+$$
+BEGIN
+    RAISE EXCEPTION 'inventory_transactions is append-only (% not allowed)', TG_OP;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_inventory_transactions_append_only
+    BEFORE UPDATE OR DELETE ON inventory_transactions
+    FOR EACH ROW EXECUTE FUNCTION forbid_inventory_ledger_mutation();
@@ -0,0 +1,12 @@
+-- How many bouquets can be made right now from material stock: MIN((quantity - reserved) / quantity_needed)
+-- over the product's recipe. Maintained incrementally by BuildableQuantityService, NULL = no recipe.
+ALTER TABLE products
+    ADD buildable_quantity INTEGER;
+
+UPDATE products p
+SET buildable_quantity = (
+    SELECT MIN(GREATEST(COALESCE(ms.quantity - ms.reserved_quantity, 0), 0) / r.quantity_needed)
+    FROM product_recipes r
+    LEFT JOIN material_stocks ms ON ms.id = r.material_id
+    WHERE r.product_id = p.id
+);
@@ -0,0 +1,18 @@
+-- Low-stock detection: low_stock_since is flipped by conditional UPDATEs, so a threshold crossing
+-- is claimed exactly once (one alert) even with several instances.
+ALTER TABLE material_stocks
+    ADD low_stock_since TIMESTAMP WITHOUT TIME ZONE;
+
+-- Only rows at or below reorder level are indexed: listing/reconcile never scan the whole stock table.
+-- Queries must repeat the predicate literally for the planner to use it.
+CREATE INDEX idx_material_stocks_low ON material_stocks (id)
+    INCLUDE (quantity, reserved_quantity, reorder_level)
+    WHERE quantity - reserved_quantity <= reorder_level;
+
+-- Recovery check only looks at rows currently flagged
+CREATE INDEX idx_material_stocks_low_flagged ON material_stocks (id)
+    WHERE low_stock_since IS NOT NULL;
+
+UPDATE material_stocks
+SET low_stock_since = NOW()
+WHERE quantity - reserved_quantity <= reorder_level;
@@ -0,0 +1,101 @@
+-- Inventory ledger partitioned by month on created_at (UTC months).
+-- Old months are rolled up into inventory_monthly_rollups and their partition dropped
+-- (InventoryRollupJob): the ledger is never DELETEd row by row, balances keep working from snapshots.
+
+-- 1. Move the current table aside (PK index name is schema wide, rename it too)
+ALTER TABLE inventory_transactions RENAME TO inventory_transactions_old;
+ALTER TABLE inventory_transactions_old RENAME CONSTRAINT pk_inventory_transactions TO pk_inventory_transactions_old;
+DROP TRIGGER IF EXISTS trg_inventory_transactions_append_only ON inventory_transactions_old;
+DROP INDEX IF EXISTS idx_inventory_tx_material_created;
+
+-- 2. Partitioned ledger: the partition key has to be part of the primary key
+CREATE TABLE inventory_transactions
+(
+    id             BIGINT      NOT NULL,
+    created_at     TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    updated_at     TIMESTAMP WITHOUT TIME ZONE,
+    created_by     VARCHAR(255),
+    updated_by     VARCHAR(255),
+    material_id    BIGINT      NOT NULL,
+    change_amount  INTEGER     NOT NULL,
+    reference_code VARCHAR(255),
+    type           VARCHAR(20) NOT NULL,
+    CONSTRAINT pk_inventory_transactions PRIMARY KEY (id, created_at),
+    CONSTRAINT fk_inventory_transactions_on_material FOREIGN KEY (material_id) REFERENCES materials (id)
+) PARTITION BY RANGE (created_at);
+
+-- One partition per month from the oldest entry up to 3 months ahead (the job keeps creating ahead)
+DO
+$$
+DECLARE
+    month_start DATE := date_trunc('month',
+            COALESCE((SELECT MIN(COALESCE(created_at, updated_at)) FROM inventory_transactions_old), NOW()))::DATE;
+    last_month  DATE := (date_trunc('month', NOW()) + INTERVAL '3 months')::DATE;
+BEGIN
+    WHILE month_start <= last_month
+        LOOP
+            EXECUTE format('CREATE TABLE %I PARTITION OF inventory_transactions FOR VALUES FROM (%L) TO (%L)',
+                           'inventory_transactions_p' || to_char(month_start, 'YYYYMM'),
+                           month_start, (month_start + INTERVAL '1 month')::DATE);
+            month_start := (month_start + INTERVAL '1 month')::DATE;
+        END LOOP;
+END
+$$;
+
+-- Safety net if partition maintenance is late; the job warns when it is not empty
+CREATE TABLE inventory_transactions_default PARTITION OF inventory_transactions DEFAULT;
+
+-- 3. Indexes are created on every partition.
+-- Per-material range reads (ledger page, delta since snapshot) stay index-only range scans
+CREATE INDEX idx_inventory_tx_material_created
+    ON inventory_transactions (material_id, created_at, id) INCLUDE (change_amount, type, reference_code);
+
+-- Rows are appended in created_at order: a BRIN index is tiny and enough for time range scans (rollups)
+CREATE INDEX idx_inventory_tx_created_brin
+    ON inventory_transactions USING BRIN (created_at);
+
+-- 4. Copy the history and drop the old table
+INSERT INTO inventory_transactions (id, created_at, updated_at, created_by, updated_by,
+                                    material_id, change_amount, reference_code, type)
+SELECT id, COALESCE(created_at, updated_at, NOW()), updated_at, created_by, updated_by,
+       material_id, change_amount, reference_code, type
+FROM inventory_transactions_old;
+
+DROP TABLE inventory_transactions_old;
+
+-- Append-only stays enforced on every partition (DROP/DETACH PARTITION does not fire row triggers)
+CREATE TRIGGER trg_inventory_transactions_append_only
+    BEFORE UPDATE OR DELETE ON inventory_transactions
+    FOR EACH ROW EXECUTE FUNCTION forbid_inventory_ledger_mutation();
+
+-- 5. Per material, per month, per movement type net change
+CREATE TABLE inventory_monthly_rollups
+(
+    material_id BIGINT      NOT NULL,
+    month       DATE        NOT NULL,
+    type        VARCHAR(20) NOT NULL,
+    inbound     BIGINT      NOT NULL,
+    outbound    BIGINT      NOT NULL,
+    net_change  BIGINT      NOT NULL,
+    entry_count BIGINT      NOT NULL,
+    -- TRUE once the month's partition was dropped: the rollup is the only record left, never recomputed
+    compacted   BOOLEAN     NOT NULL DEFAULT FALSE,
+    rolled_at   TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    CONSTRAINT pk_inventory_monthly_rollups PRIMARY KEY (material_id, month, type),
+    CONSTRAINT fk_inventory_monthly_rollups_on_material FOREIGN KEY (material_id) REFERENCES materials (id)
+);
+
+-- Reports over all materials for a month range
+CREATE INDEX idx_inventory_rollups_month ON inventory_monthly_rollups (month);
+
+INSERT INTO inventory_monthly_rollups (material_id, month, type, inbound, outbound, net_change, entry_count, rolled_at)
+SELECT t.material_id,
+       date_trunc('month', t.created_at)::DATE,
+       t.type,
+       COALESCE(SUM(t.change_amount) FILTER (WHERE t.change_amount > 0), 0),
+       COALESCE(-SUM(t.change_amount) FILTER (WHERE t.change_amount < 0), 0),
+       SUM(t.change_amount),
+       COUNT(*),
+       NOW()
+FROM inventory_transactions t
+GROUP BY t.material_id, date_trunc('month', t.created_at)::DATE, t.type;
@@ -0,0 +1,23 @@
+-- Checkout writes orders/order_items (V5) for the first time.
+
+-- Audit columns hold the username like every other table (BaseAuditEntity.createdBy is a String)
+ALTER TABLE orders
+    ALTER COLUMN created_by TYPE VARCHAR(255),
+    ALTER COLUMN updated_by TYPE VARCHAR(255),
+    ALTER COLUMN deleted_by TYPE VARCHAR(255);
+
+ALTER TABLE order_items
+    ALTER COLUMN created_by TYPE VARCHAR(255),
+    ALTER COLUMN updated_by TYPE VARCHAR(255),
+    ALTER COLUMN deleted_by TYPE VARCHAR(255);
+
+-- Client retries with the same key get the order created by the first attempt
+ALTER TABLE orders
+    ADD idempotency_key VARCHAR(64);
+
+ALTER TABLE orders
+    ADD CONSTRAINT uq_orders_user_idempotency_key UNIQUE (user_id, idempotency_key);
+
+-- Product name at order time: order history does not follow later renames
+ALTER TABLE order_items
+    ADD product_name VARCHAR(255);
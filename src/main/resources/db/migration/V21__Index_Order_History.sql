@@ -0,0 +1,16 @@
+-- "My orders": keyset pages on (user_id, created_at, id) read newest first by a backward index scan,
+-- summary columns are in the index so a page is an index-only scan (no sort, no heap for orders)
+CREATE INDEX idx_orders_user_created
+    ON orders (user_id, created_at, id) INCLUDE (order_code, status, payment_status, total_amount)
+    WHERE deleted_at IS NULL;
+
+-- Same leading column, no longer needed
+DROP INDEX IF EXISTS idx_order_user_id;
+
+-- First item + item count of an order in one index range
+CREATE INDEX idx_order_items_order_id_id ON order_items (order_id, id) INCLUDE (product_id, product_name);
+
+DROP INDEX IF EXISTS idx_order_item_order_id;
+
+-- Thumbnail of a product without scanning its other assets
+CREATE INDEX idx_product_assets_thumbnail ON product_assets (product_id) INCLUDE (url) WHERE is_thumbnail;
@@ -0,0 +1,113 @@
+-- Sales rollups for the admin dashboard: the dashboard reads these tables only, never orders/order_items.
+-- An order is counted once, on the shop-local day it was first paid or completed (LEAST(paid_at, completed_at)),
+-- and taken back out of that same day if it is cancelled afterwards.
+-- Deltas are applied in the transaction that changes the order (SalesRollupService), a nightly job
+-- recomputes the last days from orders (SalesRollupReconcileJob).
+
+CREATE TABLE sales_daily
+(
+    sales_date      DATE           NOT NULL,
+    order_count     BIGINT         NOT NULL DEFAULT 0,
+    units_sold      BIGINT         NOT NULL DEFAULT 0,
+    -- orders.total_amount (after discount)
+    revenue         NUMERIC(17, 2) NOT NULL DEFAULT 0,
+    -- Orders cancelled that day (by cancelled_at), whether they were paid or not
+    cancelled_count BIGINT         NOT NULL DEFAULT 0,
+    updated_at      TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    CONSTRAINT pk_sales_daily PRIMARY KEY (sales_date)
+);
+
+CREATE TABLE sales_daily_products
+(
+    sales_date  DATE           NOT NULL,
+    product_id  BIGINT         NOT NULL,
+    order_count BIGINT         NOT NULL DEFAULT 0,
+    units_sold  BIGINT         NOT NULL DEFAULT 0,
+    -- order_items.sub_total (before order-level discount)
+    revenue     NUMERIC(17, 2) NOT NULL DEFAULT 0,
+    updated_at  TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    CONSTRAINT pk_sales_daily_products PRIMARY KEY (sales_date, product_id)
+);
+
+-- A product in several categories counts in each of them: category rows do not add up to the daily total
+CREATE TABLE sales_daily_categories
+(
+    sales_date  DATE           NOT NULL,
+    category_id BIGINT         NOT NULL,
+    order_count BIGINT         NOT NULL DEFAULT 0,
+    units_sold  BIGINT         NOT NULL DEFAULT 0,
+    revenue     NUMERIC(17, 2) NOT NULL DEFAULT 0,
+    updated_at  TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    CONSTRAINT pk_sales_daily_categories PRIMARY KEY (sales_date, category_id)
+);
+
+-- One row per (order, event) already applied: a repeated event (retry, double click) inserts nothing
+-- and therefore adds nothing. sales_date = day the delta was applied to.
+CREATE TABLE sales_rollup_entries
+(
+    order_id   BIGINT      NOT NULL,
+    event      VARCHAR(20) NOT NULL,
+    sales_date DATE        NOT NULL,
+    applied_at TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    CONSTRAINT pk_sales_rollup_entries PRIMARY KEY (order_id, event)
+);
+
+-- Reconciliation reads orders by the day they were counted / cancelled
+CREATE INDEX idx_orders_recognized_at ON orders (LEAST(paid_at, completed_at));
+CREATE INDEX idx_orders_cancelled_at ON orders (cancelled_at) WHERE cancelled_at IS NOT NULL;
+
+-- Backfill from existing orders. Timestamps hold the application's wall time, which is also the session
+-- TimeZone (pgjdbc sets it from the JVM zone): ::timestamptz reads them in that zone, days are shop-local
+INSERT INTO sales_rollup_entries (order_id, event, sales_date, applied_at)
+SELECT o.id, 'RECOGNIZED', (LEAST(o.paid_at, o.completed_at)::timestamptz AT TIME ZONE 'Asia/Ho_Chi_Minh')::DATE, NOW()
+FROM orders o
+WHERE LEAST(o.paid_at, o.completed_at) IS NOT NULL;
+
+INSERT INTO sales_rollup_entries (order_id, event, sales_date, applied_at)
+SELECT e.order_id, 'REVERSED', e.sales_date, NOW()
+FROM sales_rollup_entries e
+JOIN orders o ON o.id = e.order_id
+WHERE e.event = 'RECOGNIZED'
+  AND o.cancelled_at IS NOT NULL;
+
+INSERT INTO sales_rollup_entries (order_id, event, sales_date, applied_at)
+SELECT o.id, 'CANCELLED', (o.cancelled_at::timestamptz AT TIME ZONE 'Asia/Ho_Chi_Minh')::DATE, NOW()
+FROM orders o
+WHERE o.cancelled_at IS NOT NULL;
+
+INSERT INTO sales_daily (sales_date, order_count, units_sold, revenue, cancelled_count, updated_at)
+SELECT d.sales_date, SUM(d.order_count), SUM(d.units_sold), SUM(d.revenue), SUM(d.cancelled_count), NOW()
+FROM (SELECT e.sales_date,
+             1 AS order_count,
+             (SELECT COALESCE(SUM(i.quantity), 0) FROM order_items i
+              WHERE i.order_id = o.id AND i.deleted_at IS NULL) AS units_sold,
+             o.total_amount AS revenue,
+             0 AS cancelled_count
+      FROM sales_rollup_entries e
+      JOIN orders o ON o.id = e.order_id
+      WHERE e.event = 'RECOGNIZED'
+        AND o.cancelled_at IS NULL
+      UNION ALL
+      SELECT e.sales_date, 0, 0, 0, 1
+      FROM sales_rollup_entries e
+      WHERE e.event = 'CANCELLED') d
+GROUP BY d.sales_date;
+
+INSERT INTO sales_daily_products (sales_date, product_id, order_count, units_sold, revenue, updated_at)
+SELECT e.sales_date, i.product_id, COUNT(DISTINCT o.id), SUM(i.quantity), SUM(i.sub_total), NOW()
+FROM sales_rollup_entries e
+JOIN orders o ON o.id = e.order_id
+JOIN order_items i ON i.order_id = o.id AND i.deleted_at IS NULL AND i.product_id IS NOT NULL
+WHERE e.event = 'RECOGNIZED'
+  AND o.cancelled_at IS NULL
+GROUP BY e.sales_date, i.product_id;
+
+INSERT INTO sales_daily_categories (sales_date, category_id, order_count, units_sold, revenue, updated_at)
+SELECT e.sales_date, pc.category_id, COUNT(DISTINCT o.id), SUM(i.quantity), SUM(i.sub_total), NOW()
+FROM sales_rollup_entries e
+JOIN orders o ON o.id = e.order_id
+JOIN order_items i ON i.order_id = o.id AND i.deleted_at IS NULL
+JOIN product_categories pc ON pc.product_id = i.product_id
+WHERE e.event = 'RECOGNIZED'
+  AND o.cancelled_at IS NULL
+GROUP BY e.sales_date, pc.category_id;
@@ -0,0 +1,62 @@
+-- Delivery slot capacity: how many bouquets the florists can deliver per slot and day.
+-- Remaining capacity is counted in Redis (DeliverySlotService); the bookings below are the source of truth
+-- the counters are (re)built from, and the Postgres fallback when Redis is unreachable.
+
+CREATE TABLE delivery_slots
+(
+    id         BIGINT      NOT NULL,
+    created_at TIMESTAMP WITHOUT TIME ZONE,
+    updated_at TIMESTAMP WITHOUT TIME ZONE,
+    created_by VARCHAR(255),
+    updated_by VARCHAR(255),
+    -- Stored as orders.delivery_time_slot
+    code       VARCHAR(20) NOT NULL,
+    label      VARCHAR(50) NOT NULL,
+    start_time TIME        NOT NULL,
+    end_time   TIME        NOT NULL,
+    -- Bouquets per day unless overridden in delivery_slot_capacities
+    capacity   INTEGER     NOT NULL,
+    active     BOOLEAN     NOT NULL DEFAULT TRUE,
+    sort_order INTEGER     NOT NULL DEFAULT 0,
+    CONSTRAINT pk_delivery_slots PRIMARY KEY (id),
+    CONSTRAINT uq_delivery_slots_code UNIQUE (code),
+    CONSTRAINT ck_delivery_slots_capacity CHECK (capacity >= 0)
+);
+
+-- Capacity of one slot on one date (peak days: 14/2, 8/3, 20/10 get more florists)
+CREATE TABLE delivery_slot_capacities
+(
+    delivery_date DATE        NOT NULL,
+    slot_code     VARCHAR(20) NOT NULL,
+    capacity      INTEGER     NOT NULL,
+    updated_at    TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    updated_by    VARCHAR(255),
+    CONSTRAINT pk_delivery_slot_capacities PRIMARY KEY (delivery_date, slot_code),
+    CONSTRAINT ck_delivery_slot_capacities_capacity CHECK (capacity >= 0)
+);
+
+-- One row per order: inserted by checkout, RELEASED when the order is cancelled (never deleted)
+CREATE TABLE delivery_slot_bookings
+(
+    order_id      BIGINT      NOT NULL,
+    delivery_date DATE        NOT NULL,
+    slot_code     VARCHAR(20) NOT NULL,
+    units         INTEGER     NOT NULL,
+    status        VARCHAR(20) NOT NULL,
+    created_at    TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    released_at   TIMESTAMP WITHOUT TIME ZONE,
+    CONSTRAINT pk_delivery_slot_bookings PRIMARY KEY (order_id),
+    CONSTRAINT fk_delivery_slot_bookings_on_order FOREIGN KEY (order_id) REFERENCES orders (id),
+    CONSTRAINT ck_delivery_slot_bookings_units CHECK (units > 0)
+);
+
+-- Booked units of a slot/date (counter rebuild, fallback check) read from the index only
+CREATE INDEX idx_delivery_slot_bookings_active
+    ON delivery_slot_bookings (delivery_date, slot_code) INCLUDE (units)
+    WHERE status = 'ACTIVE';
+
+INSERT INTO delivery_slots (id, created_at, updated_at, created_by, updated_by, code, label, start_time, end_time,
+                            capacity, active, sort_order)
+VALUES (1, NOW(), NOW(), 'SYSTEM', 'SYSTEM', 'MORNING', '08:00 - 12:00', '08:00', '12:00', 30, TRUE, 1),
+       (2, NOW(), NOW(), 'SYSTEM', 'SYSTEM', 'AFTERNOON', '12:00 - 17:00', '12:00', '17:00', 30, TRUE, 2),
+       (3, NOW(), NOW(), 'SYSTEM', 'SYSTEM', 'EVENING', '17:00 - 21:00', '17:00', '21:00', 20, TRUE, 3);
@@ -0,0 +1,22 @@
+-- Idempotency-Key fallback store: used by IdempotencyService only while Redis is unreachable.
+-- One row per (caller, key): the first request claims it IN_PROGRESS, its response is stored on completion
+-- and replayed to retries until expires_at. Expired rows are reclaimed on conflict and purged nightly.
+
+CREATE TABLE idempotency_keys
+(
+    -- "u:{userId}:{key}" or "anon:{key}"
+    idempotency_key       VARCHAR(200) NOT NULL,
+    -- SHA-256 (hex) of method, path, query and body
+    fingerprint           VARCHAR(64)  NOT NULL,
+    status                VARCHAR(20)  NOT NULL,
+    -- Random token of the request holding the claim: only it may complete or release the key
+    owner_token           VARCHAR(36)  NOT NULL,
+    response_status       INTEGER,
+    response_content_type VARCHAR(255),
+    response_body         BYTEA,
+    created_at            TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    expires_at            TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    CONSTRAINT pk_idempotency_keys PRIMARY KEY (idempotency_key)
+);
+
+CREATE INDEX idx_idempotency_keys_expires_at ON idempotency_keys (expires_at);
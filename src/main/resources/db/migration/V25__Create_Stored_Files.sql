@@ -0,0 +1,27 @@
+-- Upload dedup: one row per file content (SHA-256) and storage provider.
+-- An upload whose hash is already stored and confirmed gets the existing URL back instead of a new asset.
+-- ref_count = product_assets rows pointing at the URL (confirm +1, release -1); rows at 0 are deleted
+-- together with the file by StoredFileCleanupJob once they have not been used for the grace period.
+-- Files uploaded before this table existed are not tracked and never deleted automatically.
+
+CREATE TABLE stored_files
+(
+    -- cloudinary | local (app.storage.provider)
+    provider     VARCHAR(20)  NOT NULL,
+    -- SHA-256 (hex) of the file content
+    content_hash VARCHAR(64)  NOT NULL,
+    url          VARCHAR(500) NOT NULL,
+    size_bytes   BIGINT       NOT NULL,
+    ref_count    INTEGER      NOT NULL DEFAULT 0,
+    created_at   TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    -- NULL = uploaded but never referenced: the provider may still purge it as temporary, not reused
+    confirmed_at TIMESTAMP WITHOUT TIME ZONE,
+    -- Last upload hit, confirm or release: the grace period of unreferenced files starts here
+    last_used_at TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    CONSTRAINT pk_stored_files PRIMARY KEY (provider, content_hash),
+    CONSTRAINT uq_stored_files_url UNIQUE (url),
+    CONSTRAINT ck_stored_files_ref_count CHECK (ref_count >= 0)
+);
+
+-- Cleanup scans unreferenced files only
+CREATE INDEX idx_stored_files_unreferenced ON stored_files (last_used_at) WHERE ref_count = 0;
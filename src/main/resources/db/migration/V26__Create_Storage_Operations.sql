@@ -0,0 +1,21 @@
+-- Pending storage provider calls (Cloudinary tag removal / deletion), written in the caller's transaction.
+-- CloudinaryOperationBatcher sends them in batches and deletes the rows once the provider accepted them;
+-- failed rows are retried at next_attempt_at (exponential backoff), rows of a crashed instance after their lease.
+
+CREATE TABLE storage_operations
+(
+    id              BIGINT       NOT NULL,
+    -- CONFIRM | DELETE
+    operation       VARCHAR(20)  NOT NULL,
+    public_id       VARCHAR(500) NOT NULL,
+    attempts        INTEGER      NOT NULL DEFAULT 0,
+    -- Not picked up before this: lease of the instance holding it in memory, or retry backoff
+    next_attempt_at TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    last_error      VARCHAR(500),
+    created_at      TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    CONSTRAINT pk_storage_operations PRIMARY KEY (id)
+);
+
+CREATE INDEX idx_storage_operations_next_attempt_at ON storage_operations (next_attempt_at);
+-- Cleanup job skips temporary files whose confirmation is still pending
+CREATE INDEX idx_storage_operations_public_id ON storage_operations (public_id);
@@ -0,0 +1,18 @@
+-- Materials whose cost changed and whose products still have to be recomputed.
+-- Written in the same transaction as the material edit and deleted once the products are recomputed
+-- from their recipes, so a crash or a failed chunk only delays the refresh instead of losing a delta.
+
+CREATE TABLE product_cost_outbox
+(
+    material_id BIGINT                      NOT NULL,
+    -- Bumped by every new change: the row is only deleted if no change arrived while it was being processed
+    change_seq  BIGINT                      NOT NULL DEFAULT 1,
+    queued_at   TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    CONSTRAINT pk_product_cost_outbox PRIMARY KEY (material_id)
+);
+
+CREATE INDEX idx_product_cost_outbox_queued_at ON product_cost_outbox (queued_at);
+
+-- Optimistic locking: two concurrent edits of the same material no longer overwrite each other silently
+ALTER TABLE materials
+    ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,16 @@
+-- Materials (stock changed) and products (recipe changed) whose buildable_quantity must be refreshed.
+-- Written in the same transaction as the stock/recipe change and deleted once the products are refreshed,
+-- so nothing is lost when an instance restarts between the change and the next flush.
+
+CREATE TABLE buildable_quantity_outbox
+(
+    -- MATERIAL | PRODUCT
+    target_type VARCHAR(10)                 NOT NULL,
+    target_id   BIGINT                      NOT NULL,
+    -- Bumped by every new change: the row is only deleted if no change arrived while it was being processed
+    change_seq  BIGINT                      NOT NULL DEFAULT 1,
+    queued_at   TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    CONSTRAINT pk_buildable_quantity_outbox PRIMARY KEY (target_type, target_id)
+);
+
+CREATE INDEX idx_buildable_quantity_outbox_queued_at ON buildable_quantity_outbox (queued_at);
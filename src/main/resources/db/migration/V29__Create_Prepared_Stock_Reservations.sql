@@ -0,0 +1,24 @@
+-- Ready-made products (no recipe) are sold from products.prepared_quantity instead of materials.
+-- One line per (reference, product): the count taken at reserve time is given back on release,
+-- like stock_reservations does for material_stocks.reserved_quantity.
+
+CREATE TABLE prepared_stock_reservations
+(
+    id             BIGINT      NOT NULL,
+    created_at     TIMESTAMP WITHOUT TIME ZONE,
+    updated_at     TIMESTAMP WITHOUT TIME ZONE,
+    created_by     VARCHAR(255),
+    updated_by     VARCHAR(255),
+    reference_code VARCHAR(50) NOT NULL,
+    product_id     BIGINT      NOT NULL,
+    quantity       INTEGER     NOT NULL,
+    status         VARCHAR(20) NOT NULL,
+    expires_at     TIMESTAMP WITHOUT TIME ZONE,
+    CONSTRAINT pk_prepared_stock_reservations PRIMARY KEY (id),
+    CONSTRAINT uq_prepared_stock_reservation_reference_product UNIQUE (reference_code, product_id),
+    CONSTRAINT fk_prepared_stock_reservations_on_product FOREIGN KEY (product_id) REFERENCES products (id),
+    CONSTRAINT chk_prepared_stock_reservation_quantity CHECK (quantity > 0)
+);
+
+-- Expiry job only looks at open reservations
+CREATE INDEX idx_prepared_stock_reservation_expiry ON prepared_stock_reservations (expires_at) WHERE status = 'RESERVED';
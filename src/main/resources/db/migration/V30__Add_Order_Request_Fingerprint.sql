@@ -0,0 +1,5 @@
+-- SHA-256 of the checkout request that created the order: a retry with the same idempotency key but a
+-- different cart, address or payment is rejected instead of silently returning the first order.
+-- NULL for orders placed before this column existed (replays of those are not checked).
+ALTER TABLE orders
+    ADD request_fingerprint VARCHAR(64);
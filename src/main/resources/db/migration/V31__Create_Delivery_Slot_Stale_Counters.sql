@@ -0,0 +1,10 @@
+-- Redis counters of a slot/date that miss bookings or releases (Postgres fallback, Redis down on release).
+-- Shared by every instance: while a row exists checkout skips the counter and checks delivery_slot_bookings,
+-- DeliverySlotService.resyncStaleCounters rebuilds the counter and deletes the row.
+CREATE TABLE delivery_slot_stale_counters
+(
+    delivery_date DATE        NOT NULL,
+    slot_code     VARCHAR(20) NOT NULL,
+    marked_at     TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    CONSTRAINT pk_delivery_slot_stale_counters PRIMARY KEY (delivery_date, slot_code)
+);
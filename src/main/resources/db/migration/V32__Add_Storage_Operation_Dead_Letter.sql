@@ -0,0 +1,8 @@
+-- Dead letter of the storage outbox: a row that failed app.storage.batch.max-attempts times gets dead_at and is
+-- never claimed again (kept with its last_error for inspection; a dead CONFIRM still protects its file from
+-- CloudinaryCleanupJob). Reset dead_at / attempts by hand to retry it.
+ALTER TABLE storage_operations ADD COLUMN dead_at TIMESTAMP WITHOUT TIME ZONE;
+
+-- Claim only scans live rows
+DROP INDEX idx_storage_operations_next_attempt_at;
+CREATE INDEX idx_storage_operations_next_attempt_at ON storage_operations (next_attempt_at) WHERE dead_at IS NULL;
@@ -0,0 +1,270 @@
+package com.greenwich.flowerplus.infrastructure.idempotency;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.greenwich.flowerplus.common.enums.ErrorCode;
+import com.greenwich.flowerplus.controller.CartController;
+import com.greenwich.flowerplus.service.CartService;
+import com.greenwich.flowerplus.service.IdempotencyService;
+import com.greenwich.flowerplus.service.IdempotencyService.Claim;
+import com.greenwich.flowerplus.service.IdempotencyService.ClaimResult;
+import com.greenwich.flowerplus.service.IdempotencyService.StoredResponse;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Filter protocol against a mocked IdempotencyService: what reaches the controller, what is stored,
+ * what is replayed or released.
+ */
+class IdempotencyFilterTest {
+
+    private static final String GUEST_CART_ID = "7f0c2f7e-3a51-4d0e-9a55-2f4c1c1d9b10";
+    private static final String KEY = "g:" + GUEST_CART_ID + ":order-1";
+    private static final String BODY = "{\"items\":[{\"productId\":\"1\",\"quantity\":2}]}";
+    private static final Claim ACQUIRED = new Claim(ClaimResult.ACQUIRED, "owner-1", false, null);
+    private static final Claim IN_PROGRESS = new Claim(ClaimResult.IN_PROGRESS, null, false, null);
+
+    private IdempotencyService idempotencyService;
+    private IdempotencyFilter filter;
+    private AtomicInteger executions;
+
+    @BeforeEach
+    void setUp() {
+        idempotencyService = mock(IdempotencyService.class);
+        CartService cartService = mock(CartService.class);
+        when(cartService.isValidGuestCartId(anyString()))
+                .thenAnswer(invocation -> invocation.getArgument(0, String.class).length() == 36);
+        filter = new IdempotencyFilter(idempotencyService, cartService, new ObjectMapper(), 300, 1024);
+        executions = new AtomicInteger();
+    }
+
+    @Test
+    @DisplayName("First request runs once and its response is stored")
+    void firstRequest_RunsAndStoresResponse() throws Exception {
+        when(idempotencyService.claim(eq(KEY), anyString())).thenReturn(ACQUIRED);
+
+        MockHttpServletResponse response = send(request(BODY), chainAnswering(201, "{\"id\":\"42\"}"));
+
+        assertThat(executions).hasValue(1);
+        assertThat(response.getStatus()).isEqualTo(201);
+        assertThat(response.getContentAsString()).isEqualTo("{\"id\":\"42\"}");
+
+        ArgumentCaptor<StoredResponse> stored = ArgumentCaptor.forClass(StoredResponse.class);
+        verify(idempotencyService).complete(eq(KEY), eq(ACQUIRED), stored.capture());
+        assertThat(stored.getValue().status()).isEqualTo(201);
+        assertThat(new String(stored.getValue().body(), StandardCharsets.UTF_8)).isEqualTo("{\"id\":\"42\"}");
+        verify(idempotencyService, never()).release(anyString(), any());
+    }
+
+    @Test
+    @DisplayName("Repeat with a completed key is replayed without reaching the controller")
+    void completedKey_Replayed() throws Exception {
+        StoredResponse stored = new StoredResponse(201, MediaType.APPLICATION_JSON_VALUE,
+                "{\"id\":\"42\"}".getBytes(StandardCharsets.UTF_8));
+        when(idempotencyService.claim(eq(KEY), anyString()))
+                .thenReturn(new Claim(ClaimResult.COMPLETED, null, false, stored));
+
+        MockHttpServletResponse response = send(request(BODY), chainAnswering(500, "must not run"));
+
+        assertThat(executions).hasValue(0);
+        assertThat(response.getStatus()).isEqualTo(201);
+        assertThat(response.getHeader(IdempotencyFilter.REPLAYED_HEADER)).isEqualTo("true");
+        assertThat(response.getContentAsString()).isEqualTo("{\"id\":\"42\"}");
+    }
+
+    @Test
+    @DisplayName("Same key with a different request: 422, nothing runs")
+    void differentRequest_Rejected() throws Exception {
+        when(idempotencyService.claim(eq(KEY), anyString()))
+                .thenReturn(new Claim(ClaimResult.MISMATCH, null, false, null));
+
+        MockHttpServletResponse response = send(request(BODY), chainAnswering(201, "{}"));
+
+        assertThat(executions).hasValue(0);
+        assertThat(response.getStatus()).isEqualTo(ErrorCode.IDEMPOTENCY_KEY_REUSED.getHttpStatus().value());
+        assertThat(response.getContentAsString()).contains(ErrorCode.IDEMPOTENCY_KEY_REUSED.getCode());
+    }
+
+    @Test
+    @DisplayName("Fingerprint covers the body: same body same fingerprint, other body other fingerprint")
+    void fingerprint_DependsOnBody() throws Exception {
+        when(idempotencyService.claim(eq(KEY), anyString())).thenReturn(ACQUIRED);
+
+        send(request(BODY), chainAnswering(201, "{}"));
+        send(request(BODY), chainAnswering(201, "{}"));
+        send(request(BODY.replace("2", "3")), chainAnswering(201, "{}"));
+
+        ArgumentCaptor<String> fingerprints = ArgumentCaptor.forClass(String.class);
+        verify(idempotencyService, times(3)).claim(eq(KEY), fingerprints.capture());
+        assertThat(fingerprints.getAllValues().get(0)).isEqualTo(fingerprints.getAllValues().get(1));
+        assertThat(fingerprints.getAllValues().get(2)).isNotEqualTo(fingerprints.getAllValues().get(0));
+    }
+
+    @Test
+    @DisplayName("Concurrent duplicate waits for the first execution, then gets its response")
+    void inProgress_WaitsThenReplays() throws Exception {
+        StoredResponse stored = new StoredResponse(201, MediaType.APPLICATION_JSON_VALUE,
+                "{\"id\":\"42\"}".getBytes(StandardCharsets.UTF_8));
+        when(idempotencyService.claim(eq(KEY), anyString()))
+                .thenReturn(IN_PROGRESS, IN_PROGRESS, new Claim(ClaimResult.COMPLETED, null, false, stored));
+
+        MockHttpServletResponse response = send(request(BODY), chainAnswering(201, "must not run"));
+
+        assertThat(executions).hasValue(0);
+        assertThat(response.getStatus()).isEqualTo(201);
+        assertThat(response.getContentAsString()).isEqualTo("{\"id\":\"42\"}");
+        verify(idempotencyService, times(3)).claim(eq(KEY), anyString());
+    }
+
+    @Test
+    @DisplayName("First execution still running after the wait timeout: 409, nothing runs")
+    void inProgress_TimesOut() throws Exception {
+        when(idempotencyService.claim(eq(KEY), anyString())).thenReturn(IN_PROGRESS);
+
+        long start = System.nanoTime();
+        MockHttpServletResponse response = send(request(BODY), chainAnswering(201, "{}"));
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        assertThat(executions).hasValue(0);
+        assertThat(response.getStatus()).isEqualTo(ErrorCode.IDEMPOTENCY_REQUEST_IN_PROGRESS.getHttpStatus().value());
+        assertThat(elapsedMs).isGreaterThanOrEqualTo(300);
+    }
+
+    @Test
+    @DisplayName("5xx and 429 are not stored: the key is released so the client can retry")
+    void serverErrorOrTooManyRequests_Released() throws Exception {
+        when(idempotencyService.claim(eq(KEY), anyString())).thenReturn(ACQUIRED);
+
+        MockHttpServletResponse failed = send(request(BODY), chainAnswering(503, "{}"));
+        MockHttpServletResponse throttled = send(request(BODY), chainAnswering(429, "{}"));
+
+        assertThat(failed.getStatus()).isEqualTo(503);
+        assertThat(throttled.getStatus()).isEqualTo(429);
+        verify(idempotencyService, times(2)).release(KEY, ACQUIRED);
+        verify(idempotencyService, never()).complete(anyString(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Exception from the controller releases the key and is rethrown")
+    void exception_ReleasedAndRethrown() {
+        when(idempotencyService.claim(eq(KEY), anyString())).thenReturn(ACQUIRED);
+        FilterChain failing = (req, res) -> {
+            executions.incrementAndGet();
+            throw new IllegalStateException("boom");
+        };
+
+        assertThatThrownBy(() -> send(request(BODY), failing)).isInstanceOf(IllegalStateException.class);
+
+        assertThat(executions).hasValue(1);
+        verify(idempotencyService).release(KEY, ACQUIRED);
+        verify(idempotencyService, never()).complete(anyString(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Response larger than max-stored-bytes is sent but not stored")
+    void largeResponse_Released() throws Exception {
+        when(idempotencyService.claim(eq(KEY), anyString())).thenReturn(ACQUIRED);
+
+        MockHttpServletResponse response = send(request(BODY), chainAnswering(200, "x".repeat(2048)));
+
+        assertThat(response.getContentAsString()).hasSize(2048);
+        verify(idempotencyService).release(KEY, ACQUIRED);
+    }
+
+    @Test
+    @DisplayName("GET or missing header bypasses the filter")
+    void notMutatingOrNoHeader_Bypassed() throws Exception {
+        MockHttpServletRequest get = request(null);
+        get.setMethod("GET");
+        MockHttpServletRequest noHeader = request(BODY);
+        noHeader.removeHeader(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER);
+
+        send(get, chainAnswering(200, "{}"));
+        send(noHeader, chainAnswering(201, "{}"));
+
+        assertThat(executions).hasValue(2);
+        verifyNoInteractions(idempotencyService);
+    }
+
+    @Test
+    @DisplayName("Guests are scoped by their cart cookie: the same key from another guest is another key")
+    void guests_ScopedByCartCookie() throws Exception {
+        String otherCartId = "0b6f4c8e-91d2-4f6a-8a3e-5c7d2e1f4a90";
+        when(idempotencyService.claim(anyString(), anyString())).thenReturn(ACQUIRED);
+        MockHttpServletRequest other = request(BODY);
+        other.setCookies(new Cookie(CartController.GUEST_CART_COOKIE_NAME, otherCartId));
+
+        send(request(BODY), chainAnswering(201, "{}"));
+        send(other, chainAnswering(201, "{}"));
+
+        assertThat(executions).hasValue(2);
+        verify(idempotencyService).claim(eq(KEY), anyString());
+        verify(idempotencyService).claim(eq("g:" + otherCartId + ":order-1"), anyString());
+    }
+
+    @Test
+    @DisplayName("Anonymous caller without a valid cart cookie is not deduplicated: every request runs")
+    void anonymousWithoutCart_Bypassed() throws Exception {
+        MockHttpServletRequest noCookie = request(BODY);
+        noCookie.setCookies();
+        MockHttpServletRequest invalidCookie = request(BODY);
+        invalidCookie.setCookies(new Cookie(CartController.GUEST_CART_COOKIE_NAME, "not-a-cart"));
+
+        send(noCookie, chainAnswering(201, "{}"));
+        send(invalidCookie, chainAnswering(201, "{}"));
+
+        assertThat(executions).hasValue(2);
+        verifyNoInteractions(idempotencyService);
+    }
+
+    // ============================================================================
+    // HELPERS
+    // ============================================================================
+
+    private MockHttpServletResponse send(MockHttpServletRequest request, FilterChain chain)
+            throws ServletException, IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+
+    private FilterChain chainAnswering(int status, String body) {
+        return (req, res) -> {
+            executions.incrementAndGet();
+            HttpServletResponse http = (HttpServletResponse) res;
+            http.setStatus(status);
+            http.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            http.getOutputStream().write(body.getBytes(StandardCharsets.UTF_8));
+        };
+    }
+
+    private static MockHttpServletRequest request(String body) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/v1/orders");
+        request.addHeader(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, "order-1");
+        request.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        request.setCookies(new Cookie(CartController.GUEST_CART_COOKIE_NAME, GUEST_CART_ID));
+        if (body != null) {
+            request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        }
+        return request;
+    }
+}
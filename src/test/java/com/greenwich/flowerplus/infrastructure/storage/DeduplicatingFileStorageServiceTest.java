@@ -0,0 +1,227 @@
+package com.greenwich.flowerplus.infrastructure.storage;
+
+import com.greenwich.flowerplus.common.enums.ErrorCode;
+import com.greenwich.flowerplus.common.utils.TsidUtils;
+import com.greenwich.flowerplus.dto.response.FileUploadResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+/**
+ * Dedup bookkeeping against the real stored_files table, with a mocked storage provider underneath.
+ * Each test uses its own provider name, so its rows never meet the rows of another test.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class DeduplicatingFileStorageServiceTest {
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private FileStorageService storageProvider;
+    private DeduplicatingFileStorageService service;
+    private String provider;
+
+    @BeforeEach
+    void setUp() {
+        storageProvider = mock(FileStorageService.class);
+        provider = "t" + Long.toString(TsidUtils.nextId(), 36);
+        service = new DeduplicatingFileStorageService(storageProvider, namedJdbcTemplate, provider, 24);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM stored_files WHERE provider = ?", provider);
+    }
+
+    @Test
+    @DisplayName("Same content is reused only once a product confirmed it")
+    void upload_ReusedOnlyWhenConfirmed() {
+        when(storageProvider.uploadFile(any(MultipartFile.class))).thenReturn(url("a"));
+
+        String first = service.uploadFile(image("rose"));
+        service.confirmFiles(List.of(first));
+        String second = service.uploadFile(image("rose"));
+
+        assertThat(second).isEqualTo(first);
+        verify(storageProvider, times(1)).uploadFile(any(MultipartFile.class));
+        assertThat(refCount(first)).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Unconfirmed file is not reused, it may be purged as temporary")
+    void upload_UnconfirmedNotReused() {
+        when(storageProvider.uploadFile(any(MultipartFile.class))).thenReturn(url("a"), url("b"));
+        service.uploadFile(image("rose"));
+        // Older than the concurrent-upload window: the provider may have purged it
+        jdbcTemplate.update("UPDATE stored_files SET created_at = NOW() - INTERVAL '2 hours' WHERE provider = ?", provider);
+
+        String second = service.uploadFile(image("rose"));
+
+        assertThat(second).isEqualTo(url("b"));
+        verify(storageProvider, times(2)).uploadFile(any(MultipartFile.class));
+        verify(storageProvider, never()).deleteFile(anyString());
+    }
+
+    @Test
+    @DisplayName("Two uploads of the same new content: the second gets the first URL, its own copy is deleted")
+    void upload_ConcurrentSameContent_FirstUrlKeptAndTracked() {
+        when(storageProvider.uploadFile(any(MultipartFile.class))).thenReturn(url("a"), url("b"));
+
+        String first = service.uploadFile(image("rose"));
+        String second = service.uploadFile(image("rose"));
+        service.confirmFiles(List.of(first, second));
+
+        assertThat(second).isEqualTo(first);
+        verify(storageProvider).deleteFile(url("b"));
+        // Both product assets are counted on the one tracked URL
+        assertThat(refCount(first)).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Same content twice in one request shares one provider upload")
+    void uploadFiles_DuplicateInRequest_SharesOneUpload() {
+        when(storageProvider.uploadFiles(anyList())).thenAnswer(invocation -> {
+            List<MultipartFile> uploads = invocation.getArgument(0);
+            assertThat(uploads).hasSize(2);
+            return List.of(ok(0, url("rose")), ok(1, url("tulip")));
+        });
+
+        List<FileUploadResponse> results = service.uploadFiles(
+                List.of(image("rose"), image("tulip"), image("rose")));
+
+        assertThat(results).extracting(FileUploadResponse::index).containsExactly(0, 1, 2);
+        assertThat(results).extracting(FileUploadResponse::url)
+                .containsExactly(url("rose"), url("tulip"), url("rose"));
+    }
+
+    @Test
+    @DisplayName("Failures stay at their request index: unreadable file, provider failure, reused file")
+    void uploadFiles_Failures_MappedToRequestIndex() throws IOException {
+        when(storageProvider.uploadFile(any(MultipartFile.class))).thenReturn(url("lily"));
+        service.confirmFiles(List.of(service.uploadFile(image("lily"))));
+
+        MultipartFile unreadable = mock(MultipartFile.class);
+        when(unreadable.isEmpty()).thenReturn(false);
+        when(unreadable.getOriginalFilename()).thenReturn("broken.png");
+        when(unreadable.getInputStream()).thenThrow(new IOException("disk error"));
+        when(storageProvider.uploadFiles(anyList())).thenReturn(List.of(
+                ok(0, url("rose")),
+                FileUploadResponse.builder().index(1).fileName("tulip.png").success(false)
+                        .errorCode(ErrorCode.FILE_UPLOAD_FAILED.getCode()).message("provider down").build()));
+
+        List<FileUploadResponse> results = service.uploadFiles(
+                List.of(unreadable, image("rose"), image("lily"), image("tulip")));
+
+        assertThat(results).extracting(FileUploadResponse::index).containsExactly(0, 1, 2, 3);
+        assertThat(results.get(0).success()).isFalse();
+        assertThat(results.get(0).errorCode()).isEqualTo(ErrorCode.INVALID_FILE.getCode());
+        assertThat(results.get(1).url()).isEqualTo(url("rose"));
+        assertThat(results.get(2).url()).isEqualTo(url("lily"));
+        assertThat(results.get(3).success()).isFalse();
+        assertThat(results.get(3).errorCode()).isEqualTo(ErrorCode.FILE_UPLOAD_FAILED.getCode());
+        assertThat(results.get(3).fileName()).isEqualTo("tulip.png");
+    }
+
+    @Test
+    @DisplayName("deleteFile keeps a file products still reference, deletes it once released")
+    void deleteFile_RefusedWhileReferenced() {
+        when(storageProvider.uploadFile(any(MultipartFile.class))).thenReturn(url("a"));
+        String fileUrl = service.uploadFile(image("rose"));
+        service.confirmFiles(List.of(fileUrl));
+
+        service.deleteFile(fileUrl);
+        verify(storageProvider, never()).deleteFile(anyString());
+        assertThat(refCount(fileUrl)).isEqualTo(1);
+
+        service.releaseFiles(List.of(fileUrl));
+        service.deleteFile(fileUrl);
+        verify(storageProvider).deleteFile(fileUrl);
+        assertThat(rows()).isZero();
+    }
+
+    @Test
+    @DisplayName("purgeUnreferenced deletes files unused for the grace period")
+    void purgeUnreferenced_DeletesExpired() {
+        when(storageProvider.uploadFile(any(MultipartFile.class))).thenReturn(url("a"), url("b"));
+        String expired = service.uploadFile(image("rose"));
+        String recent = service.uploadFile(image("tulip"));
+        jdbcTemplate.update("UPDATE stored_files SET last_used_at = NOW() - INTERVAL '2 days' WHERE url = ?", expired);
+
+        assertThat(service.purgeUnreferenced()).isEqualTo(1);
+
+        verify(storageProvider).deleteFile(expired);
+        verify(storageProvider, never()).deleteFile(recent);
+    }
+
+    @Test
+    @DisplayName("purgeUnreferenced re-checks under the DELETE: a confirm after the scan keeps the file")
+    void purgeUnreferenced_ConfirmedAfterScan_Kept() {
+        when(storageProvider.uploadFile(any(MultipartFile.class))).thenReturn(url("a"));
+        String fileUrl = service.uploadFile(image("rose"));
+        jdbcTemplate.update("UPDATE stored_files SET last_used_at = NOW() - INTERVAL '2 days' WHERE url = ?", fileUrl);
+
+        // A product saves the file right after the candidates were selected
+        NamedParameterJdbcTemplate racing = spy(namedJdbcTemplate);
+        DeduplicatingFileStorageService racingService =
+                new DeduplicatingFileStorageService(storageProvider, racing, provider, 24);
+        doAnswer(invocation -> {
+            Object candidates = invocation.callRealMethod();
+            service.confirmFiles(List.of(fileUrl));
+            return candidates;
+        }).when(racing).queryForList(argThat((String sql) -> sql.contains("LIMIT :limit")), any(SqlParameterSource.class));
+
+        assertThat(racingService.purgeUnreferenced()).isZero();
+
+        verify(storageProvider, never()).deleteFile(anyString());
+        assertThat(refCount(fileUrl)).isEqualTo(1);
+    }
+
+    // ============================================================================
+    // HELPERS
+    // ============================================================================
+
+    private String url(String name) {
+        return "https://files.test/" + provider + "/" + name + ".png";
+    }
+
+    private static MockMultipartFile image(String name) {
+        return new MockMultipartFile("files", name + ".png", "image/png",
+                ("png:" + name).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static FileUploadResponse ok(int index, String url) {
+        return FileUploadResponse.builder().index(index).success(true).url(url).build();
+    }
+
+    private int refCount(String url) {
+        return jdbcTemplate.queryForObject("SELECT ref_count FROM stored_files WHERE url = ?", Integer.class, url);
+    }
+
+    private int rows() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM stored_files WHERE provider = ?", Integer.class, provider);
+    }
+}
@@ -0,0 +1,269 @@
+package com.greenwich.flowerplus.infrastructure.storage.cloudinary;
+
+import com.cloudinary.api.ApiResponse;
+import com.greenwich.flowerplus.common.enums.ErrorCode;
+import com.greenwich.flowerplus.common.exception.AppException;
+import com.greenwich.flowerplus.dto.response.FileUploadResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Multi-file upload against a stubbed Cloudinary that answers after a fixed latency: 1 permit behaves
+ * like the old one-by-one loop, more permits overlap the waits. No Spring context, no network, no operation
+ * batcher (confirm/delete are not exercised here).
+ */
+@Slf4j
+class CloudinaryMultiUploadBenchmarkTest {
+
+    private static final int FILES = 10;
+    private static final long LATENCY_MS = 200;
+    private static final byte[] PNG_SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+
+    @Test
+    @DisplayName("Concurrent multi-upload: results keep request order, wall time ~ latency x files / permits")
+    void uploadFiles_Concurrently_Throughput() {
+        List<MultipartFile> files = images(FILES);
+
+        long sequentialMs = timeUpload(new StubCloudinaryClient(LATENCY_MS, -1), 1, files);
+        long concurrentMs = timeUpload(new StubCloudinaryClient(LATENCY_MS, -1), 5, files);
+        long unboundedMs = timeUpload(new StubCloudinaryClient(LATENCY_MS, -1), FILES, files);
+
+        log.info("Multi-upload benchmark: {} files x {} ms -> 1 permit {} ms, 5 permits {} ms, {} permits {} ms",
+                FILES, LATENCY_MS, sequentialMs, concurrentMs, FILES, unboundedMs);
+
+        assertThat(sequentialMs).isGreaterThanOrEqualTo(FILES * LATENCY_MS);
+        // 2 waves of 5
+        assertThat(concurrentMs).isLessThan(sequentialMs / 3);
+        assertThat(unboundedMs).isLessThan(concurrentMs);
+    }
+
+    @Test
+    @DisplayName("Concurrency cap holds: never more uploads in flight than permits")
+    void uploadFiles_NeverExceedsPermits() {
+        StubCloudinaryClient client = new StubCloudinaryClient(50, -1);
+        CloudinaryStorageServiceImpl service = new CloudinaryStorageServiceImpl(client, null, 3, 10);
+
+        service.uploadFiles(images(12));
+
+        assertThat(client.maxInFlight.get()).isLessThanOrEqualTo(3);
+        service.shutdown();
+    }
+
+    @Test
+    @DisplayName("Concurrency cap holds after timeouts: a timed-out upload keeps its permit until it ends")
+    void uploadFiles_TimedOutUploadsStillCount() {
+        // 1.5 s uploads, 1 s timeout: the first wave times out while still running
+        StubCloudinaryClient client = new StubCloudinaryClient(1500, -1);
+        CloudinaryStorageServiceImpl service = new CloudinaryStorageServiceImpl(client, null, 2, 1);
+
+        List<FileUploadResponse> results = service.uploadFiles(images(4));
+
+        assertThat(results).noneMatch(FileUploadResponse::success);
+        assertThat(client.maxInFlight.get()).isLessThanOrEqualTo(2);
+        service.shutdown();
+    }
+
+    @Test
+    @DisplayName("Partial failure: failed file reported at its index, the other files are kept")
+    void uploadFiles_OneFails_OthersSucceed() {
+        StubCloudinaryClient client = new StubCloudinaryClient(20, 3);
+        CloudinaryStorageServiceImpl service = new CloudinaryStorageServiceImpl(client, null, 4, 10);
+
+        List<FileUploadResponse> results = service.uploadFiles(images(6));
+
+        assertThat(results).extracting(FileUploadResponse::index).containsExactly(0, 1, 2, 3, 4, 5);
+        assertThat(results.get(3).success()).isFalse();
+        assertThat(results.get(3).errorCode()).isEqualTo(ErrorCode.INTERNAL_ERROR.getCode());
+        assertThat(results).filteredOn(FileUploadResponse::success).hasSize(5);
+        assertThat(client.deleted).isEmpty();
+        service.shutdown();
+    }
+
+    @Test
+    @DisplayName("All-or-nothing upload: one failure deletes the files already uploaded")
+    void uploadMultipleFiles_OneFails_UploadedFilesDeleted() throws InterruptedException {
+        StubCloudinaryClient client = new StubCloudinaryClient(20, 3);
+        CloudinaryStorageServiceImpl service = new CloudinaryStorageServiceImpl(client, null, 4, 10);
+
+        assertThatThrownBy(() -> service.uploadMultipleFiles(images(6))).isInstanceOf(AppException.class);
+        // Uploads still running when the request gave up delete themselves once they finish
+        TimeUnit.MILLISECONDS.sleep(200);
+
+        assertThat(client.deleted).containsOnlyKeys(client.uploaded.keySet());
+        service.shutdown();
+    }
+
+    @Test
+    @DisplayName("Multipart parts are only read on the request thread, upload threads get a copy")
+    void uploadFiles_PartsReadOnRequestThread() {
+        StubCloudinaryClient client = new StubCloudinaryClient(20, -1);
+        CloudinaryStorageServiceImpl service = new CloudinaryStorageServiceImpl(client, null, 4, 10);
+        Thread requestThread = Thread.currentThread();
+        List<MultipartFile> files = images(4).stream()
+                .<MultipartFile>map(file -> new RequestBoundFile(file, requestThread))
+                .toList();
+
+        List<FileUploadResponse> results = service.uploadFiles(files);
+
+        assertThat(results).allMatch(FileUploadResponse::success);
+        assertThat(service.uploadFile(new RequestBoundFile(images(1).getFirst(), requestThread))).isNotBlank();
+        service.shutdown();
+    }
+
+    private long timeUpload(StubCloudinaryClient client, int permits, List<MultipartFile> files) {
+        CloudinaryStorageServiceImpl service = new CloudinaryStorageServiceImpl(client, null, permits, 10);
+        long begin = System.nanoTime();
+        List<FileUploadResponse> results = service.uploadFiles(files);
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin);
+        service.shutdown();
+
+        assertThat(results).allMatch(FileUploadResponse::success);
+        for (int i = 0; i < files.size(); i++) {
+            assertThat(results.get(i).url()).endsWith("/" + files.get(i).getOriginalFilename());
+        }
+        return elapsedMs;
+    }
+
+    private static List<MultipartFile> images(int count) {
+        List<MultipartFile> files = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            byte[] name = ("png-" + i).getBytes(StandardCharsets.UTF_8);
+            byte[] content = Arrays.copyOf(PNG_SIGNATURE, PNG_SIGNATURE.length + name.length);
+            System.arraycopy(name, 0, content, PNG_SIGNATURE.length, name.length);
+            files.add(new MockMultipartFile("files", "photo-" + i + ".png", "image/png", content));
+        }
+        return files;
+    }
+
+    /**
+     * Part that is gone once its request ends, like a servlet part: reading it from another thread fails
+     */
+    private static final class RequestBoundFile extends MockMultipartFile {
+
+        private final Thread requestThread;
+
+        private RequestBoundFile(MultipartFile file, Thread requestThread) {
+            super(file.getName(), file.getOriginalFilename(), file.getContentType(), bytesOf(file));
+            this.requestThread = requestThread;
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            requireRequestThread();
+            return super.getInputStream();
+        }
+
+        @Override
+        public void transferTo(File dest) throws IOException {
+            requireRequestThread();
+            super.transferTo(dest);
+        }
+
+        private void requireRequestThread() throws IOException {
+            if (Thread.currentThread() != requestThread) {
+                throw new IOException("Part read outside its request thread");
+            }
+        }
+
+        private static byte[] bytesOf(MultipartFile file) {
+            try {
+                return file.getBytes();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Sleeps {@code latencyMs} per upload; the upload whose content ends with "-{failAt}" fails.
+     * The service streams from temp files, so only the File variant is expected to be called.
+     */
+    private static final class StubCloudinaryClient implements CloudinaryClient {
+
+        private final long latencyMs;
+        private final int failAt;
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicInteger maxInFlight = new AtomicInteger();
+        private final Map<String, Boolean> uploaded = new ConcurrentHashMap<>();
+        private final Map<String, Boolean> deleted = new ConcurrentHashMap<>();
+
+        private StubCloudinaryClient(long latencyMs, int failAt) {
+            this.latencyMs = latencyMs;
+            this.failAt = failAt;
+        }
+
+        @Override
+        public Map<String, Object> upload(byte[] bytes, Map<String, Object> options) {
+            throw new AssertionError("Uploads must stream from disk");
+        }
+
+        @Override
+        public Map<String, Object> upload(File file, Map<String, Object> options) {
+            byte[] bytes;
+            try {
+                bytes = Files.readAllBytes(file.toPath());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            bytes = Arrays.copyOfRange(bytes, PNG_SIGNATURE.length, bytes.length);
+            int current = inFlight.incrementAndGet();
+            maxInFlight.accumulateAndGet(current, Math::max);
+            try {
+                TimeUnit.MILLISECONDS.sleep(latencyMs);
+                String content = new String(bytes, StandardCharsets.UTF_8);
+                if (content.endsWith("-" + failAt)) {
+                    throw new AppException(ErrorCode.INTERNAL_ERROR, "stub failure");
+                }
+                String name = content.replace("png-", "photo-");
+                String publicId = options.get("folder") + "/" + name;
+                uploaded.put(publicId, true);
+                return Map.of("secure_url", "https://res.cloudinary.test/" + publicId + "/" + name + ".png",
+                        "public_id", publicId);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        }
+
+        @Override
+        public void delete(String publicId) {
+            deleted.put(publicId, true);
+        }
+
+        @Override
+        public void deleteResources(List<String> publicIds) {
+            publicIds.forEach(this::delete);
+        }
+
+        @Override
+        public ApiResponse searchByTag(String tag) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void removeTag(String tag, List<String> publicIds) {
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.greenwich.flowerplus.infrastructure.storage.cloudinary;
+
+import com.greenwich.flowerplus.common.enums.ErrorCode;
+import com.greenwich.flowerplus.common.exception.AppException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Batcher against a mocked Cloudinary client and JDBC template (no transaction: operations are queued
+ * right away). Operations are queued before the worker starts, so the batches are deterministic.
+ */
+class CloudinaryOperationBatcherTest {
+
+    private CloudinaryClient client;
+    private NamedParameterJdbcTemplate jdbcTemplate;
+    private CloudinaryOperationBatcher batcher;
+
+    @BeforeEach
+    void setUp() {
+        client = mock(CloudinaryClient.class);
+        jdbcTemplate = mock(NamedParameterJdbcTemplate.class);
+        when(jdbcTemplate.queryForMap(anyString(), any(MapSqlParameterSource.class)))
+                .thenReturn(Map.of("pending", 0L, "retrying", 0L, "dead", 0L));
+        batcher = new CloudinaryOperationBatcher(client, jdbcTemplate, 10_000, 200, 5, 3600, 12);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        batcher.stop();
+    }
+
+    @Test
+    @DisplayName("Operations from many callers are merged into calls of at most the Cloudinary limit")
+    void confirmAndDelete_MergedIntoProviderBatches() {
+        for (int i = 0; i < 25; i++) {
+            // 25 product saves confirming 100 files each
+            batcher.confirm(publicIds("img-" + i + "-", 100));
+        }
+        batcher.delete(publicIds("old-", 250));
+
+        batcher.start();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<String>> confirmed = ArgumentCaptor.forClass(List.class);
+        verify(client, timeout(2000).times(3)).removeTag(eq("temporary"), confirmed.capture());
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<String>> deleted = ArgumentCaptor.forClass(List.class);
+        verify(client, timeout(2000).times(3)).deleteResources(deleted.capture());
+
+        assertThat(confirmed.getAllValues()).extracting(List::size).containsExactly(1000, 1000, 500);
+        assertThat(deleted.getAllValues()).extracting(List::size).containsExactly(100, 100, 50);
+    }
+
+    @Test
+    @DisplayName("Same file confirmed by several transactions is sent once")
+    void confirm_SameFileTwice_SentOnce() {
+        batcher.confirm(List.of("img-1", "img-2"));
+        batcher.confirm(List.of("img-2"));
+
+        batcher.start();
+
+        verify(client, timeout(2000)).removeTag("temporary", List.of("img-1", "img-2"));
+        verify(client, never()).deleteResources(anyList());
+    }
+
+    @Test
+    @DisplayName("Failed call: rows rescheduled with a capped backoff and dead-lettered at max attempts, not deleted")
+    void confirm_ProviderFails_Rescheduled() {
+        doThrow(new AppException(ErrorCode.INTERNAL_ERROR, "Remove tag failed"))
+                .when(client).removeTag(eq("temporary"), anyList());
+        batcher.confirm(List.of("img-1"));
+
+        batcher.start();
+
+        ArgumentCaptor<MapSqlParameterSource> params = ArgumentCaptor.forClass(MapSqlParameterSource.class);
+        verify(jdbcTemplate, timeout(2000)).queryForList(argThat((String sql) -> sql.contains("attempts + 1")),
+                params.capture(), eq(String.class));
+        assertThat(params.getValue().getValue("maxAttempts")).isEqualTo(12);
+        assertThat(params.getValue().getValue("maxExponent")).isEqualTo(20);
+        verify(jdbcTemplate, never()).update(argThat((String sql) -> sql.contains("DELETE FROM storage_operations")),
+                any(MapSqlParameterSource.class));
+        assertThat(batcher.stats().failedBatches()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Dead-lettered rows are counted apart from the pending ones")
+    void stats_CountsDeadOperations() {
+        when(jdbcTemplate.queryForMap(anyString(), any(MapSqlParameterSource.class)))
+                .thenReturn(Map.of("pending", 3L, "retrying", 1L, "dead", 2L));
+        batcher.start();
+
+        assertThat(batcher.stats()).satisfies(stats -> {
+            assertThat(stats.pendingOperations()).isEqualTo(3);
+            assertThat(stats.retryingOperations()).isEqualTo(1);
+            assertThat(stats.deadOperations()).isEqualTo(2);
+        });
+    }
+
+    private static List<String> publicIds(String prefix, int count) {
+        return IntStream.range(0, count).mapToObj(i -> prefix + i).toList();
+    }
+}
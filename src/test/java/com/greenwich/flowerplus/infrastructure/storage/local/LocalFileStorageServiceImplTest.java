@@ -0,0 +1,141 @@
+package com.greenwich.flowerplus.infrastructure.storage.local;
+
+import com.greenwich.flowerplus.common.exception.AppException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Local storage on a temp directory: content addressing, the temporary/confirm lifecycle and cleanup.
+ */
+class LocalFileStorageServiceImplTest {
+
+    private static final String BASE_URL = "http://localhost:8080/api/v1/files/content";
+    private static final byte[] PNG_SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+
+    @TempDir
+    Path root;
+
+    private LocalFileStorageServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        service = new LocalFileStorageServiceImpl(root.toString(), BASE_URL, 24);
+    }
+
+    @Test
+    @DisplayName("Same content uploaded twice: one object, same URL, stored under its SHA-256")
+    void uploadFile_SameContent_Deduplicated() throws IOException {
+        String first = service.uploadFile(image("rose", "a.png"));
+        String second = service.uploadFile(image("rose", "b.png"));
+
+        assertThat(second).isEqualTo(first);
+        assertThat(first).startsWith(BASE_URL + "/").matches(".*/[0-9a-f]{64}\\.png");
+        assertThat(objects()).hasSize(1);
+        assertThat(Files.list(root.resolve("staging"))).isEmpty();
+
+        String name = first.substring(first.lastIndexOf('/') + 1);
+        assertThat(service.find(name)).get()
+                .satisfies(stored -> assertThat(stored.contentType()).isEqualTo("image/png"));
+    }
+
+    @Test
+    @DisplayName("Not an image: rejected, nothing stored")
+    void uploadFile_NotImage_Rejected() throws IOException {
+        MultipartFile text = new MockMultipartFile("file", "a.png", "image/png",
+                "hello".getBytes(StandardCharsets.UTF_8));
+
+        assertThatThrownBy(() -> service.uploadFile(text)).isInstanceOf(AppException.class);
+        assertThat(objects()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Cleanup deletes expired temporary uploads and keeps confirmed ones")
+    void purgeTemporary_KeepsConfirmed() throws IOException {
+        String confirmed = service.uploadFile(image("tulip", "a.png"));
+        String orphan = service.uploadFile(image("lily", "b.png"));
+        service.confirmFiles(List.of(confirmed));
+        ageMarkers(Duration.ofHours(25));
+
+        assertThat(service.purgeTemporary()).isEqualTo(1);
+        assertThat(service.find(nameOf(confirmed))).isPresent();
+        assertThat(service.find(nameOf(orphan))).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Re-uploading a confirmed image does not make it temporary again")
+    void uploadFile_AlreadyConfirmed_StaysConfirmed() throws IOException {
+        String url = service.uploadFile(image("orchid", "a.png"));
+        service.confirmFiles(List.of(url));
+
+        service.uploadFile(image("orchid", "again.png"));
+        ageMarkers(Duration.ofHours(25));
+
+        assertThat(service.purgeTemporary()).isZero();
+        assertThat(service.find(nameOf(url))).isPresent();
+    }
+
+    @Test
+    @DisplayName("Failed batch upload: stored files are left temporary for cleanup, not deleted under another upload")
+    void uploadMultipleFiles_OneFails_LeftForCleanup() throws IOException {
+        String existing = service.uploadFile(image("daisy", "a.png"));
+        service.confirmFiles(List.of(existing));
+        MultipartFile invalid = new MockMultipartFile("files", "c.png", "image/png", new byte[]{1, 2, 3});
+
+        assertThatThrownBy(() -> service.uploadMultipleFiles(
+                List.of(image("daisy", "a.png"), image("peony", "b.png"), invalid)))
+                .isInstanceOf(AppException.class);
+
+        // Same content as a concurrent upload would get the same URL: still served until retention ends
+        String peony = service.uploadFile(image("peony", "d.png"));
+        assertThat(objects()).hasSize(2);
+        assertThat(service.find(nameOf(peony))).isPresent();
+
+        ageMarkers(Duration.ofHours(25));
+        assertThat(service.purgeTemporary()).isEqualTo(1);
+        assertThat(service.find(nameOf(peony))).isEmpty();
+        assertThat(service.find(nameOf(existing))).isPresent();
+    }
+
+    private List<Path> objects() throws IOException {
+        try (Stream<Path> files = Files.walk(root.resolve("objects"))) {
+            return files.filter(Files::isRegularFile).toList();
+        }
+    }
+
+    private void ageMarkers(Duration age) throws IOException {
+        try (Stream<Path> markers = Files.list(root.resolve("temporary"))) {
+            for (Path marker : markers.toList()) {
+                Files.setLastModifiedTime(marker, FileTime.from(Instant.now().minus(age)));
+            }
+        }
+    }
+
+    private static String nameOf(String url) {
+        return url.substring(url.lastIndexOf('/') + 1);
+    }
+
+    private static MultipartFile image(String content, String fileName) {
+        byte[] body = content.getBytes(StandardCharsets.UTF_8);
+        byte[] bytes = Arrays.copyOf(PNG_SIGNATURE, PNG_SIGNATURE.length + body.length);
+        System.arraycopy(body, 0, bytes, PNG_SIGNATURE.length, body.length);
+        return new MockMultipartFile("file", fileName, "image/png", bytes);
+    }
+}
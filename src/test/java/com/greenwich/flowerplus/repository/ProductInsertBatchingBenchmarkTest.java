@@ -0,0 +1,128 @@
+package com.greenwich.flowerplus.repository;
+
+import com.greenwich.flowerplus.common.enums.AssetType;
+import com.greenwich.flowerplus.common.enums.CategoryType;
+import com.greenwich.flowerplus.common.enums.ProductStatus;
+import com.greenwich.flowerplus.common.utils.TsidUtils;
+import com.greenwich.flowerplus.entity.Category;
+import com.greenwich.flowerplus.entity.Product;
+import com.greenwich.flowerplus.entity.ProductAsset;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Statement-count benchmark for creating a product with 10 assets and 5 categories.
+ * <p>
+ * "Before" is simulated by forcing a JDBC batch size of 1 on the session, which is what
+ * IDENTITY ids forced on product_assets (one INSERT + key read-back per row).
+ * "After" uses the app-wide batch settings with TSID ids on every table in the graph.
+ */
+@Slf4j
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+@Transactional
+class ProductInsertBatchingBenchmarkTest {
+
+    private static final int ASSET_COUNT = 10;
+    private static final int CATEGORY_COUNT = 5;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    @DisplayName("Product + 10 assets + 5 categories should be inserted in a handful of batched statements")
+    void createProduct_WithAssetsAndCategories_IsBatched() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        List<Category> categories = persistCategories();
+
+        long unbatched = measureStatements(statistics, categories, 1);
+        long batched = measureStatements(statistics, categories, null);
+
+        log.info("Create product with {} assets and {} categories: {} statements without batching, {} with batching",
+                ASSET_COUNT, CATEGORY_COUNT, unbatched, batched);
+
+        // 1 product + 10 assets + 5 product_categories
+        assertThat(unbatched).isGreaterThanOrEqualTo(1 + ASSET_COUNT + CATEGORY_COUNT);
+        // one statement per table
+        assertThat(batched).isLessThanOrEqualTo(3);
+    }
+
+    private long measureStatements(Statistics statistics, List<Category> categories, Integer jdbcBatchSize) {
+        Session session = entityManager.unwrap(Session.class);
+        session.setJdbcBatchSize(jdbcBatchSize);
+        statistics.clear();
+
+        try {
+            entityManager.persist(buildProduct(categories));
+            entityManager.flush();
+
+            assertThat(statistics.getEntityInsertCount()).isEqualTo(1 + ASSET_COUNT + CATEGORY_COUNT);
+            return statistics.getPrepareStatementCount();
+        } finally {
+            entityManager.clear();
+            session.setJdbcBatchSize(null);
+        }
+    }
+
+    private List<Category> persistCategories() {
+        List<Category> categories = new ArrayList<>();
+        for (int i = 0; i < CATEGORY_COUNT; i++) {
+            String suffix = String.valueOf(TsidUtils.nextId());
+            Category category = Category.builder()
+                    .name("Bench category " + suffix)
+                    .slug("bench-category-" + suffix)
+                    .type(CategoryType.OCCASION)
+                    .build();
+            entityManager.persist(category);
+            categories.add(category);
+        }
+        entityManager.flush();
+        entityManager.clear();
+        return categories;
+    }
+
+    private Product buildProduct(List<Category> categories) {
+        String suffix = String.valueOf(TsidUtils.nextId());
+        Product product = Product.builder()
+                .name("Bench product " + suffix)
+                .slug("bench-product-" + suffix)
+                .basePrice(new BigDecimal("100000"))
+                .costPrice(new BigDecimal("50000"))
+                .originalPrice(new BigDecimal("120000"))
+                .status(ProductStatus.DRAFT)
+                .build();
+
+        for (int i = 0; i < ASSET_COUNT; i++) {
+            ProductAsset asset = new ProductAsset();
+            asset.setProduct(product);
+            asset.setUrl("https://cdn.example.com/bench/" + suffix + "-" + i + ".jpg");
+            asset.setType(AssetType.IMAGE);
+            asset.setIsThumbnail(i == 0);
+            asset.setPosition(i);
+            product.getAssets().add(asset);
+        }
+
+        categories.forEach(product::addCategory);
+        return product;
+    }
+}
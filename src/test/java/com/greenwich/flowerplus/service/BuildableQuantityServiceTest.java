@@ -0,0 +1,194 @@
+package com.greenwich.flowerplus.service;
+
+import com.greenwich.flowerplus.common.enums.ProductStatus;
+import com.greenwich.flowerplus.common.utils.TsidUtils;
+import com.greenwich.flowerplus.entity.Product;
+import com.greenwich.flowerplus.repository.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Buildable quantity refresh against the local Postgres: material -> product reverse lookup,
+ * MIN(available / quantity_needed) over the recipe, and the outbox written in the caller's transaction.
+ * Not transactional on purpose, the outbox must be committed to be flushed.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class BuildableQuantityServiceTest {
+
+    @Autowired
+    private BuildableQuantityService buildableQuantityService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final List<Long> materialIds = new ArrayList<>();
+    private final List<Long> productIds = new ArrayList<>();
+    private String suffix;
+    private Long roseId;
+    private Long ribbonId;
+    private Long bouquetId;
+    private Long vaseId;
+
+    @BeforeEach
+    void setUp() {
+        suffix = String.valueOf(TsidUtils.nextId());
+        roseId = insertMaterial("Buildable rose", 100, 10);  // 90 available
+        ribbonId = insertMaterial("Buildable ribbon", 20, 0); // 20 available
+
+        // bouquet = 5 roses + 1 ribbon -> MIN(90 / 5, 20 / 1) = 18
+        bouquetId = insertProduct("bouquet");
+        insertRecipe(bouquetId, roseId, 5);
+        insertRecipe(bouquetId, ribbonId, 1);
+        // vase has no recipe -> NULL (not limited by stock)
+        vaseId = insertProduct("vase");
+    }
+
+    @AfterEach
+    void tearDown() {
+        for (Long productId : productIds) {
+            jdbcTemplate.update("DELETE FROM product_recipes WHERE product_id = ?", productId);
+            jdbcTemplate.update("DELETE FROM buildable_quantity_outbox WHERE target_type = 'PRODUCT' AND target_id = ?", productId);
+            jdbcTemplate.update("DELETE FROM products WHERE id = ?", productId);
+        }
+        for (Long materialId : materialIds) {
+            jdbcTemplate.update("DELETE FROM buildable_quantity_outbox WHERE target_type = 'MATERIAL' AND target_id = ?", materialId);
+            jdbcTemplate.update("DELETE FROM material_stocks WHERE id = ?", materialId);
+            jdbcTemplate.update("DELETE FROM materials WHERE id = ?", materialId);
+        }
+    }
+
+    @Test
+    @DisplayName("Product change refreshes from the recipe, a product without recipe stays NULL")
+    void productChanged_RefreshedFromRecipe() {
+        transactionTemplate.executeWithoutResult(status ->
+                buildableQuantityService.onProductsChanged(List.of(bouquetId, vaseId)));
+
+        buildableQuantityService.flushPendingChanges();
+
+        assertThat(buildable(bouquetId)).isEqualTo(18);
+        assertThat(buildable(vaseId)).isNull();
+        assertThat(outboxRows("PRODUCT", bouquetId)).isZero();
+    }
+
+    @Test
+    @DisplayName("Material change refreshes every product using it, reserved stock is not available")
+    void materialChanged_RefreshesProductsUsingIt() {
+        refreshNow(bouquetId);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update("UPDATE material_stocks SET reserved_quantity = 17 WHERE id = ?", ribbonId);
+            buildableQuantityService.onMaterialsChanged(List.of(ribbonId, ribbonId));
+        });
+        buildableQuantityService.flushPendingChanges();
+
+        assertThat(buildable(bouquetId)).isEqualTo(3);
+        assertThat(outboxRows("MATERIAL", ribbonId)).isZero();
+    }
+
+    @Test
+    @DisplayName("A missing stock row counts as 0 available and over-reserved stock never goes negative")
+    void missingOrOverReservedStock_IsZero() {
+        jdbcTemplate.update("DELETE FROM material_stocks WHERE id = ?", ribbonId);
+        Long pinId = insertMaterial("Buildable pin", 2, 5);
+        insertRecipe(vaseId, pinId, 1);
+
+        transactionTemplate.executeWithoutResult(status ->
+                buildableQuantityService.onProductsChanged(List.of(bouquetId, vaseId)));
+        buildableQuantityService.flushPendingChanges();
+
+        assertThat(buildable(bouquetId)).isZero();
+        assertThat(buildable(vaseId)).isZero();
+    }
+
+    @Test
+    @DisplayName("A rolled back stock change queues nothing")
+    void rolledBackChange_QueuesNothing() {
+        transactionTemplate.executeWithoutResult(status -> {
+            buildableQuantityService.onMaterialsChanged(List.of(roseId));
+            status.setRollbackOnly();
+        });
+
+        assertThat(outboxRows("MATERIAL", roseId)).isZero();
+    }
+
+    @Test
+    @DisplayName("Rebuild repairs a value changed behind the service's back")
+    void rebuildAll_RepairsDrift() {
+        jdbcTemplate.update("UPDATE products SET buildable_quantity = 999 WHERE id = ?", bouquetId);
+
+        buildableQuantityService.rebuildAll();
+
+        assertThat(buildable(bouquetId)).isEqualTo(18);
+    }
+
+    private void refreshNow(Long productId) {
+        transactionTemplate.executeWithoutResult(status ->
+                buildableQuantityService.onProductsChanged(List.of(productId)));
+        buildableQuantityService.flushPendingChanges();
+    }
+
+    private Long insertMaterial(String name, int quantity, int reserved) {
+        Long id = TsidUtils.nextId();
+        jdbcTemplate.update("""
+                INSERT INTO materials (id, name, unit, created_at, updated_at)
+                VALUES (?, ?, 'stem', NOW(), NOW())
+                """, id, name + " " + suffix);
+        jdbcTemplate.update("""
+                INSERT INTO material_stocks (id, quantity, reserved_quantity, opening_balance, reorder_level, created_at, updated_at)
+                VALUES (?, ?, ?, ?, 0, NOW(), NOW())
+                """, id, quantity, reserved, quantity);
+        materialIds.add(id);
+        return id;
+    }
+
+    private Long insertProduct(String name) {
+        Long id = productRepository.save(Product.builder()
+                .name("Buildable " + name + " " + suffix)
+                .slug("buildable-" + name + "-" + suffix)
+                .basePrice(new BigDecimal("350000"))
+                .costPrice(new BigDecimal("120000"))
+                .originalPrice(new BigDecimal("400000"))
+                .status(ProductStatus.DRAFT)
+                .build()).getId();
+        productIds.add(id);
+        return id;
+    }
+
+    private void insertRecipe(Long productId, Long materialId, int quantityNeeded) {
+        jdbcTemplate.update("""
+                INSERT INTO product_recipes (id, product_id, material_id, quantity_needed, created_at, updated_at)
+                VALUES (?, ?, ?, ?, NOW(), NOW())
+                """, TsidUtils.nextId(), productId, materialId, quantityNeeded);
+    }
+
+    private Integer buildable(Long productId) {
+        return jdbcTemplate.queryForObject("SELECT buildable_quantity FROM products WHERE id = ?", Integer.class, productId);
+    }
+
+    private int outboxRows(String targetType, Long targetId) {
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM buildable_quantity_outbox WHERE target_type = ? AND target_id = ?",
+                Integer.class, targetType, targetId);
+        return count == null ? 0 : count;
+    }
+}
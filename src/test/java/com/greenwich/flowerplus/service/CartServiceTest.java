@@ -0,0 +1,216 @@
+package com.greenwich.flowerplus.service;
+
+import com.greenwich.flowerplus.common.enums.ErrorCode;
+import com.greenwich.flowerplus.common.enums.ProductStatus;
+import com.greenwich.flowerplus.common.exception.AppException;
+import com.greenwich.flowerplus.common.utils.TsidUtils;
+import com.greenwich.flowerplus.dto.response.CartResponse;
+import com.greenwich.flowerplus.entity.Product;
+import com.greenwich.flowerplus.repository.ProductRepository;
+import com.greenwich.flowerplus.service.CartService.CartOwner;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.entry;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * Cart Lua scripts against the local Redis: add (increment, quantity cap, line limit), update and the
+ * guest cart merge done on login. Line limit lowered to 2 so it is reached with a couple of products.
+ */
+@SpringBootTest(properties = "app.cart.max-lines=2")
+@ActiveProfiles("test")
+class CartServiceTest {
+
+    private static final int MAX_QUANTITY = 100;
+    private static final Duration GUEST_TTL = Duration.ofDays(7);
+    private static final Duration USER_TTL = Duration.ofDays(30);
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final List<Long> productIds = new ArrayList<>();
+    private String suffix;
+    private Long roseId;
+    private Long tulipId;
+    private Long lilyId;
+    private Long userId;
+    private CartOwner guest;
+    private CartOwner user;
+
+    @BeforeEach
+    void setUp() {
+        suffix = String.valueOf(TsidUtils.nextId());
+        roseId = insertProduct("rose");
+        tulipId = insertProduct("tulip");
+        lilyId = insertProduct("lily");
+        userId = TsidUtils.nextId();
+        guest = CartOwner.guest(cartService.newGuestCartId());
+        user = CartOwner.user(userId);
+    }
+
+    @AfterEach
+    void tearDown() {
+        redisTemplate.delete(List.of(guestKey(), userKey()));
+        for (Long productId : productIds) {
+            jdbcTemplate.update("DELETE FROM products WHERE id = ?", productId);
+        }
+    }
+
+    @Test
+    @DisplayName("Adding a product twice adds up, is capped at the per-line maximum and refreshes the TTL")
+    void addItem_IncrementsAndCaps() {
+        cartService.addItem(guest, roseId, 3);
+        CartResponse cart = cartService.addItem(guest, roseId, 4);
+
+        assertThat(cart.items()).singleElement().satisfies(item -> {
+            assertThat(item.productId()).isEqualTo(roseId);
+            assertThat(item.quantity()).isEqualTo(7);
+            assertThat(item.available()).isTrue();
+        });
+        assertThat(cart.subTotal()).isEqualByComparingTo("2450000");
+        assertThat(redisTemplate.getExpire(guestKey())).isPositive().isLessThanOrEqualTo(GUEST_TTL.toSeconds());
+
+        assertThat(cartService.addItem(guest, roseId, 500).items().getFirst().quantity()).isEqualTo(MAX_QUANTITY);
+    }
+
+    @Test
+    @DisplayName("Concurrent adds of the same product are all counted")
+    void addItem_Concurrent_NoLostIncrement() throws Exception {
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            CompletableFuture.allOf(IntStream.range(0, 40)
+                    .mapToObj(i -> CompletableFuture.runAsync(() -> cartService.addItem(guest, roseId, 1), executor))
+                    .toArray(CompletableFuture[]::new)).get();
+        }
+
+        assertThat(cartLines(guestKey())).containsOnly(entry(roseId.toString(), "40"));
+    }
+
+    @Test
+    @DisplayName("A new product beyond the line limit is refused, products already in the cart can still grow")
+    void addItem_LineLimit() {
+        cartService.addItem(guest, roseId, 1);
+        cartService.addItem(guest, tulipId, 1);
+
+        assertThatThrownBy(() -> cartService.addItem(guest, lilyId, 1))
+                .isInstanceOf(AppException.class)
+                .extracting(e -> ((AppException) e).getErrorCode())
+                .isEqualTo(ErrorCode.CART_LINE_LIMIT_EXCEEDED.getCode());
+
+        cartService.addItem(guest, tulipId, 2);
+        assertThat(cartLines(guestKey()))
+                .containsOnly(entry(roseId.toString(), "1"), entry(tulipId.toString(), "3"));
+    }
+
+    @Test
+    @DisplayName("Update replaces the quantity, 0 removes the line and a product not in the cart is refused")
+    void updateItem_ReplacesOrRemoves() {
+        cartService.addItem(user, roseId, 5);
+        cartService.addItem(user, tulipId, 1);
+
+        cartService.updateItem(user, roseId, 2);
+        cartService.updateItem(user, tulipId, 0);
+
+        assertThat(cartLines(userKey())).containsOnly(entry(roseId.toString(), "2"));
+        assertThatThrownBy(() -> cartService.updateItem(user, lilyId, 1))
+                .isInstanceOf(AppException.class)
+                .extracting(e -> ((AppException) e).getErrorCode())
+                .isEqualTo(ErrorCode.CART_ITEM_NOT_FOUND.getCode());
+        assertThat(cartLines(userKey())).doesNotContainKey(lilyId.toString());
+
+        cartService.updateItem(user, roseId, 1000);
+        assertThat(cartLines(userKey())).containsEntry(roseId.toString(), String.valueOf(MAX_QUANTITY));
+    }
+
+    @Test
+    @DisplayName("Login merge adds the guest quantities to the user cart, keeps the line limit and drops the guest cart")
+    void mergeGuestCart_OnLogin() {
+        cartService.addItem(guest, roseId, 2);
+        cartService.addItem(guest, lilyId, 1);
+        cartService.addItem(user, roseId, 99);
+        cartService.addItem(user, tulipId, 1);
+
+        // rose merged (capped), lily dropped: the user cart already has 2 lines
+        assertThat(cartService.mergeGuestCart(guest.guestCartId(), userId)).isEqualTo(1);
+
+        assertThat(cartLines(userKey()))
+                .containsOnly(entry(roseId.toString(), String.valueOf(MAX_QUANTITY)), entry(tulipId.toString(), "1"));
+        assertThat(redisTemplate.hasKey(guestKey())).isFalse();
+        assertThat(redisTemplate.getExpire(userKey())).isGreaterThan(GUEST_TTL.toSeconds())
+                .isLessThanOrEqualTo(USER_TTL.toSeconds());
+
+        // Logging in again with the same cookie: nothing left to merge
+        assertThat(cartService.mergeGuestCart(guest.guestCartId(), userId)).isZero();
+    }
+
+    @Test
+    @DisplayName("Login merge into an empty account moves the whole guest cart, an invalid cookie merges nothing")
+    void mergeGuestCart_IntoEmptyCart() {
+        cartService.addItem(guest, roseId, 2);
+        cartService.addItem(guest, tulipId, 3);
+
+        assertThat(cartService.mergeGuestCart("not-a-cart-id", userId)).isZero();
+        assertThat(cartService.mergeGuestCart(guest.guestCartId(), userId)).isEqualTo(2);
+
+        assertThat(cartService.getCart(user).items())
+                .extracting(CartResponse.Item::productId, CartResponse.Item::quantity)
+                .containsExactlyInAnyOrder(
+                        tuple(roseId, 2),
+                        tuple(tulipId, 3));
+        assertThat(cartService.getCart(guest).items()).isEmpty();
+    }
+
+    private Map<Object, Object> cartLines(String key) {
+        return redisTemplate.opsForHash().entries(key);
+    }
+
+    private String guestKey() {
+        return "cart:guest:" + guest.guestCartId();
+    }
+
+    private String userKey() {
+        return "cart:user:" + userId;
+    }
+
+    private Long insertProduct(String name) {
+        Long id = productRepository.save(Product.builder()
+                .name("Cart " + name + " " + suffix)
+                .slug("cart-" + name + "-" + suffix)
+                .basePrice(new BigDecimal("350000"))
+                .costPrice(new BigDecimal("120000"))
+                .originalPrice(new BigDecimal("400000"))
+                .preparedQuantity(10)
+                .status(ProductStatus.ACTIVE)
+                .build()).getId();
+        productIds.add(id);
+        return id;
+    }
+}
@@ -0,0 +1,232 @@
+package com.greenwich.flowerplus.service;
+
+import com.greenwich.flowerplus.common.enums.ErrorCode;
+import com.greenwich.flowerplus.common.exception.AppException;
+import com.greenwich.flowerplus.common.utils.TsidUtils;
+import com.greenwich.flowerplus.service.impl.DeliverySlotServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Delivery slot capacity against the local Postgres and Redis: the Lua guard on the counter, and the
+ * Postgres fallback of an instance that cannot reach Redis (a second service wired to a closed port).
+ * Not transactional on purpose, bookings and stale markers must be committed to be seen by the other path.
+ * The scheduled resync is pushed out so the tests decide when counters are rebuilt.
+ */
+@SpringBootTest(properties = "app.delivery-slot.resync-interval-ms=3600000")
+@ActiveProfiles("test")
+class DeliverySlotServiceTest {
+
+    private static final String ZONE = "Asia/Ho_Chi_Minh";
+    private static final int CAPACITY = 3;
+
+    @Autowired
+    private DeliverySlotService deliverySlotService;
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    @Autowired
+    private AuditorAware<String> auditorProvider;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final List<Long> orderIds = new ArrayList<>();
+    private final LocalDate deliveryDate = LocalDate.now(ZoneId.of(ZONE)).plusDays(1);
+    private LettuceConnectionFactory offlineFactory;
+    private DeliverySlotService offlineService;
+    private String slotCode;
+
+    @BeforeEach
+    void setUp() {
+        long suffix = TsidUtils.nextId();
+        slotCode = "SLOT" + suffix % 1_000_000_000L;
+        jdbcTemplate.update("""
+                INSERT INTO delivery_slots (id, created_at, updated_at, code, label, start_time, end_time, capacity,
+                                            active, sort_order)
+                VALUES (?, NOW(), NOW(), ?, 'Test slot', '08:00', '12:00', ?, TRUE, 99)
+                """, suffix, slotCode, CAPACITY);
+        for (int i = 0; i < 4; i++) {
+            orderIds.add(insertOrder());
+        }
+
+        // Nothing listens on port 1: every Redis call fails fast like an unreachable server
+        offlineFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration("localhost", 1),
+                LettuceClientConfiguration.builder().commandTimeout(Duration.ofMillis(500)).build());
+        offlineFactory.afterPropertiesSet();
+        offlineFactory.start();
+        offlineService = new DeliverySlotServiceImpl(namedJdbcTemplate, new StringRedisTemplate(offlineFactory),
+                auditorProvider, transactionManager, ZONE, 14, 0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        offlineFactory.destroy();
+        redisTemplate.delete(counterKey());
+        jdbcTemplate.update("DELETE FROM delivery_slot_stale_counters WHERE slot_code = ?", slotCode);
+        for (Long orderId : orderIds) {
+            jdbcTemplate.update("DELETE FROM delivery_slot_bookings WHERE order_id = ?", orderId);
+            jdbcTemplate.update("DELETE FROM orders WHERE id = ?", orderId);
+        }
+        jdbcTemplate.update("DELETE FROM delivery_slots WHERE code = ?", slotCode);
+    }
+
+    @Test
+    @DisplayName("A missing counter is rebuilt from bookings, the Lua guard decrements it and refuses a full slot")
+    void reserve_LuaGuardOnCounter() {
+        insertBooking(orderIds.get(0), 1);
+
+        deliverySlotService.reserve(orderIds.get(1), deliveryDate, slotCode, 2);
+
+        assertThat(counter()).isEqualTo("0");
+        assertFull(() -> deliverySlotService.reserve(orderIds.get(2), deliveryDate, slotCode, 1));
+        assertThat(counter()).isEqualTo("0");
+        assertThat(activeUnits()).isEqualTo(3);
+
+        deliverySlotService.release(orderIds.get(1));
+        assertThat(counter()).isEqualTo("2");
+    }
+
+    @Test
+    @DisplayName("A rolled back checkout gives its units back to the counter")
+    void reserve_RolledBack_UnitsGivenBack() {
+        transactionTemplate.executeWithoutResult(status -> {
+            deliverySlotService.reserve(orderIds.get(0), deliveryDate, slotCode, 2);
+            assertThat(counter()).isEqualTo("1");
+            status.setRollbackOnly();
+        });
+
+        assertThat(counter()).isEqualTo(String.valueOf(CAPACITY));
+        assertThat(activeUnits()).isZero();
+    }
+
+    @Test
+    @DisplayName("Redis unreachable: capacity is checked in Postgres and the counter is skipped until rebuilt")
+    void reserve_Fallback_CounterSkippedUntilRebuilt() {
+        deliverySlotService.reserve(orderIds.get(0), deliveryDate, slotCode, 1);
+        assertThat(counter()).isEqualTo("2");
+
+        // Booked by an instance without Redis: the counter still says 2, Postgres says 0
+        transactionTemplate.executeWithoutResult(status ->
+                offlineService.reserve(orderIds.get(1), deliveryDate, slotCode, 2));
+        assertThat(isStale()).isTrue();
+        assertFull(() -> transactionTemplate.executeWithoutResult(status ->
+                offlineService.reserve(orderIds.get(2), deliveryDate, slotCode, 1)));
+
+        // Counter would accept it, the stale marker sends it to Postgres and the units go back
+        assertFull(() -> deliverySlotService.reserve(orderIds.get(3), deliveryDate, slotCode, 1));
+        assertThat(counter()).isEqualTo("2");
+        assertThat(activeUnits()).isEqualTo(CAPACITY);
+        assertThat(deliverySlotService.getAvailability(2)).last()
+                .satisfies(day -> assertThat(day.slots()).anySatisfy(slot -> {
+                    assertThat(slot.code()).isEqualTo(slotCode);
+                    assertThat(slot.remaining()).isZero();
+                }));
+
+        assertThat(deliverySlotService.resyncStaleCounters()).isPositive();
+        assertThat(counter()).isEqualTo("0");
+        assertThat(isStale()).isFalse();
+
+        // Back on the counter
+        deliverySlotService.release(orderIds.get(1));
+        assertThat(counter()).isEqualTo("2");
+        deliverySlotService.reserve(orderIds.get(3), deliveryDate, slotCode, 2);
+        assertThat(counter()).isEqualTo("0");
+    }
+
+    @Test
+    @DisplayName("A release that cannot reach Redis marks the counter stale instead of leaving it short")
+    void release_RedisDown_MarkedStale() {
+        deliverySlotService.reserve(orderIds.get(0), deliveryDate, slotCode, 2);
+
+        transactionTemplate.executeWithoutResult(status -> offlineService.release(orderIds.get(0)));
+
+        assertThat(isStale()).isTrue();
+        assertThat(counter()).isEqualTo("1");
+        deliverySlotService.reserve(orderIds.get(1), deliveryDate, slotCode, 3);
+        assertThat(activeUnits()).isEqualTo(3);
+
+        deliverySlotService.resyncStaleCounters();
+        assertThat(counter()).isEqualTo("0");
+    }
+
+    private void assertFull(Runnable reservation) {
+        assertThatThrownBy(reservation::run)
+                .isInstanceOf(AppException.class)
+                .extracting(e -> ((AppException) e).getErrorCode())
+                .isEqualTo(ErrorCode.DELIVERY_SLOT_FULL.getCode());
+    }
+
+    private Long insertOrder() {
+        Long id = TsidUtils.nextId();
+        jdbcTemplate.update("""
+                INSERT INTO orders (id, created_at, updated_at, user_id, order_code, total_amount, discount_amount,
+                                    status, payment_status, payment_method, shipping_address)
+                VALUES (?, NOW(), NOW(), ?, ?, 350000, 0, 'PENDING', 'UNPAID', 'COD', CAST('{}' AS jsonb))
+                """, id, TsidUtils.nextId(), "ORD-SL" + id % 1_000_000_000_000L);
+        return id;
+    }
+
+    private void insertBooking(Long orderId, int units) {
+        jdbcTemplate.update("""
+                INSERT INTO delivery_slot_bookings (order_id, delivery_date, slot_code, units, status, created_at)
+                VALUES (?, ?, ?, ?, 'ACTIVE', NOW())
+                """, orderId, Date.valueOf(deliveryDate), slotCode, units);
+    }
+
+    private int activeUnits() {
+        Integer units = jdbcTemplate.queryForObject("""
+                SELECT COALESCE(SUM(units), 0) FROM delivery_slot_bookings
+                WHERE delivery_date = ? AND slot_code = ? AND status = 'ACTIVE'
+                """, Integer.class, Date.valueOf(deliveryDate), slotCode);
+        return units == null ? 0 : units;
+    }
+
+    private boolean isStale() {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject("""
+                SELECT EXISTS (SELECT 1 FROM delivery_slot_stale_counters WHERE delivery_date = ? AND slot_code = ?)
+                """, Boolean.class, Date.valueOf(deliveryDate), slotCode));
+    }
+
+    private String counter() {
+        return redisTemplate.opsForValue().get(counterKey());
+    }
+
+    private String counterKey() {
+        return "delivery-slot:remaining:" + deliveryDate + ":" + slotCode;
+    }
+}
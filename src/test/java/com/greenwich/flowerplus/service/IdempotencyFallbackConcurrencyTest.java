@@ -0,0 +1,130 @@
+package com.greenwich.flowerplus.service;
+
+import com.greenwich.flowerplus.common.utils.TsidUtils;
+import com.greenwich.flowerplus.service.IdempotencyService.Claim;
+import com.greenwich.flowerplus.service.IdempotencyService.ClaimResult;
+import com.greenwich.flowerplus.service.IdempotencyService.StoredResponse;
+import com.greenwich.flowerplus.service.impl.IdempotencyServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Postgres fallback of the idempotency store (Redis down): concurrent duplicates against the real
+ * idempotency_keys table. Not transactional on purpose, every claim commits on its own connection.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class IdempotencyFallbackConcurrencyTest {
+
+    private static final int CONCURRENT_CLAIMS = 50;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private IdempotencyService idempotencyService;
+    private String key;
+
+    @BeforeEach
+    void setUp() {
+        // Every Redis call fails -> every claim goes to Postgres
+        StringRedisTemplate redisDown = mock(StringRedisTemplate.class, invocation -> {
+            throw new RedisConnectionFailureException("Redis down");
+        });
+        idempotencyService = new IdempotencyServiceImpl(namedJdbcTemplate, redisDown, 60, 24);
+        key = "u:" + TsidUtils.nextId() + ":checkout";
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM idempotency_keys WHERE idempotency_key = ?", key);
+    }
+
+    @Test
+    @DisplayName("Concurrent duplicates: exactly one claim acquires the key, the others see it in progress")
+    void claim_Concurrently_OnlyOneAcquires() throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Claim> claims;
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<Claim>> futures = new ArrayList<>(CONCURRENT_CLAIMS);
+            for (int i = 0; i < CONCURRENT_CLAIMS; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return idempotencyService.claim(key, "fingerprint");
+                }));
+            }
+            start.countDown();
+            claims = new ArrayList<>(CONCURRENT_CLAIMS);
+            for (Future<Claim> future : futures) {
+                claims.add(future.get(1, TimeUnit.MINUTES));
+            }
+        }
+
+        assertThat(claims).allMatch(Claim::fallback);
+        assertThat(claims).filteredOn(c -> c.result() == ClaimResult.ACQUIRED).hasSize(1);
+        assertThat(claims).filteredOn(c -> c.result() == ClaimResult.IN_PROGRESS).hasSize(CONCURRENT_CLAIMS - 1);
+    }
+
+    @Test
+    @DisplayName("Completed key is replayed, a different request with the same key is a mismatch")
+    void complete_ThenReplayOrMismatch() {
+        Claim first = idempotencyService.claim(key, "fingerprint");
+        idempotencyService.complete(key, first,
+                new StoredResponse(201, "application/json", "{\"id\":\"42\"}".getBytes(StandardCharsets.UTF_8)));
+
+        Claim replay = idempotencyService.claim(key, "fingerprint");
+        Claim other = idempotencyService.claim(key, "other-fingerprint");
+
+        assertThat(replay.result()).isEqualTo(ClaimResult.COMPLETED);
+        assertThat(replay.storedResponse().status()).isEqualTo(201);
+        assertThat(new String(replay.storedResponse().body(), StandardCharsets.UTF_8)).isEqualTo("{\"id\":\"42\"}");
+        assertThat(other.result()).isEqualTo(ClaimResult.MISMATCH);
+    }
+
+    @Test
+    @DisplayName("Expired claim is taken over, the previous owner can no longer complete or release it")
+    void expiredClaim_TakenOver() {
+        Claim stale = idempotencyService.claim(key, "fingerprint");
+        jdbcTemplate.update("UPDATE idempotency_keys SET expires_at = NOW() - INTERVAL '1 second' WHERE idempotency_key = ?", key);
+
+        Claim takeover = idempotencyService.claim(key, "fingerprint");
+        idempotencyService.complete(key, stale, new StoredResponse(500, null, new byte[0]));
+        idempotencyService.release(key, stale);
+
+        assertThat(takeover.result()).isEqualTo(ClaimResult.ACQUIRED);
+        assertThat(takeover.ownerToken()).isNotEqualTo(stale.ownerToken());
+        assertThat(idempotencyService.claim(key, "fingerprint").result()).isEqualTo(ClaimResult.IN_PROGRESS);
+    }
+
+    @Test
+    @DisplayName("Released key can be claimed again")
+    void release_ThenClaimAgain() {
+        Claim first = idempotencyService.claim(key, "fingerprint");
+        idempotencyService.release(key, first);
+
+        assertThat(idempotencyService.claim(key, "fingerprint").result()).isEqualTo(ClaimResult.ACQUIRED);
+    }
+}
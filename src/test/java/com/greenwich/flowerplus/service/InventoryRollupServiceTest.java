@@ -0,0 +1,175 @@
+package com.greenwich.flowerplus.service;
+
+import com.greenwich.flowerplus.common.utils.TsidUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Ledger partitions and monthly rollups against the local Postgres. The test schema comes from Hibernate,
+ * so setup swaps inventory_transactions for a partitioned copy laid out like V19 (one partition per month
+ * plus the default one) and puts the plain table back afterwards.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class InventoryRollupServiceTest {
+
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+
+    @Autowired
+    private InventoryRollupService inventoryRollupService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final YearMonth current = YearMonth.now(ZoneOffset.UTC);
+    private final YearMonth lastMonth = current.minusMonths(1);
+    private final YearMonth twoMonthsAgo = current.minusMonths(2);
+    private Long materialId;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.execute("ALTER TABLE inventory_transactions RENAME TO inventory_transactions_plain");
+        jdbcTemplate.execute("""
+                CREATE TABLE inventory_transactions (LIKE inventory_transactions_plain INCLUDING DEFAULTS)
+                PARTITION BY RANGE (created_at)
+                """);
+        for (YearMonth month : new YearMonth[]{twoMonthsAgo, lastMonth, current}) {
+            jdbcTemplate.execute("CREATE TABLE %s PARTITION OF inventory_transactions FOR VALUES FROM ('%s') TO ('%s')"
+                    .formatted(partitionName(month), month.atDay(1), month.plusMonths(1).atDay(1)));
+        }
+        jdbcTemplate.execute("CREATE TABLE inventory_transactions_default PARTITION OF inventory_transactions DEFAULT");
+
+        materialId = TsidUtils.nextId();
+        jdbcTemplate.update("""
+                INSERT INTO materials (id, name, unit, created_at, updated_at)
+                VALUES (?, ?, 'stem', NOW(), NOW())
+                """, materialId, "Rollup rose " + materialId);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("DROP TABLE inventory_transactions");
+        jdbcTemplate.execute("ALTER TABLE inventory_transactions_plain RENAME TO inventory_transactions");
+        jdbcTemplate.update("DELETE FROM inventory_monthly_rollups WHERE material_id = ?", materialId);
+        jdbcTemplate.update("DELETE FROM inventory_snapshots WHERE material_id = ?", materialId);
+        jdbcTemplate.update("DELETE FROM materials WHERE id = ?", materialId);
+    }
+
+    @Test
+    @DisplayName("Entries land in the partition of their month and the rollup sums them per type")
+    void refreshRollups_AggregatesPerMonthAndType() {
+        insertEntry(lastMonth.atDay(3).atTime(9, 0), 100, "IMPORT");
+        insertEntry(lastMonth.atDay(10).atTime(14, 30), -30, "USAGE");
+        insertEntry(lastMonth.atDay(20).atTime(8, 0), -5, "USAGE");
+        insertEntry(current.atDay(1).atStartOfDay(), 40, "IMPORT");
+
+        assertThat(partitionOf(lastMonth.atDay(3).atTime(9, 0))).isEqualTo(partitionName(lastMonth));
+        assertThat(partitionOf(current.atDay(1).atStartOfDay())).isEqualTo(partitionName(current));
+
+        assertThat(inventoryRollupService.refreshRollups(lastMonth, current)).isEqualTo(3);
+
+        Map<String, Object> usage = rollup(lastMonth, "USAGE");
+        assertThat(usage).containsEntry("inbound", 0L)
+                .containsEntry("outbound", 35L)
+                .containsEntry("net_change", -35L)
+                .containsEntry("entry_count", 2L)
+                .containsEntry("compacted", false);
+        assertThat(rollup(lastMonth, "IMPORT")).containsEntry("inbound", 100L).containsEntry("entry_count", 1L);
+        assertThat(rollup(current, "IMPORT")).containsEntry("net_change", 40L);
+
+        // Nothing appended since: same entry counts, nothing rewritten
+        assertThat(inventoryRollupService.refreshRollups(lastMonth, current)).isZero();
+
+        insertEntry(lastMonth.atDay(25).atTime(16, 0), -1, "USAGE");
+        assertThat(inventoryRollupService.refreshRollups(lastMonth, lastMonth)).isEqualTo(1);
+        assertThat(rollup(lastMonth, "USAGE")).containsEntry("outbound", 36L).containsEntry("entry_count", 3L);
+    }
+
+    @Test
+    @DisplayName("Compaction rolls up, flags, detaches and drops the months before the latest snapshot only")
+    void compactBefore_DropsOldPartitionsAfterFinalRollup() {
+        insertEntry(twoMonthsAgo.atDay(5).atTime(10, 0), 50, "IMPORT");
+        insertEntry(lastMonth.atDay(5).atTime(10, 0), -20, "DAMAGED");
+        insertEntry(current.atDay(1).atTime(0, 30), 10, "AUDIT");
+        jdbcTemplate.update("""
+                INSERT INTO inventory_snapshots (material_id, snapshot_at, balance, created_at)
+                VALUES (?, ?, 30, NOW())
+                """, materialId, Timestamp.valueOf(current.atDay(1).atStartOfDay()));
+
+        // Cutoff past the current month: still limited to the month of the latest snapshot
+        assertThat(inventoryRollupService.compactBefore(current.plusMonths(1))).isEqualTo(2);
+
+        assertThat(tableExists(partitionName(twoMonthsAgo))).isFalse();
+        assertThat(tableExists(partitionName(lastMonth))).isFalse();
+        assertThat(tableExists(partitionName(current))).isTrue();
+        assertThat(rollup(twoMonthsAgo, "IMPORT")).containsEntry("net_change", 50L).containsEntry("compacted", true);
+        assertThat(rollup(lastMonth, "DAMAGED")).containsEntry("outbound", 20L).containsEntry("compacted", true);
+        assertThat(count("SELECT COUNT(*) FROM inventory_transactions WHERE material_id = ?", materialId)).isEqualTo(1);
+
+        // A compacted month is the only record left: a later refresh must not touch it
+        assertThat(inventoryRollupService.refreshRollups(twoMonthsAgo, lastMonth)).isZero();
+        assertThat(rollup(twoMonthsAgo, "IMPORT")).containsEntry("entry_count", 1L);
+        assertThat(inventoryRollupService.compactBefore(current.plusMonths(1))).isZero();
+    }
+
+    @Test
+    @DisplayName("Missing partitions are created ahead, existing ones are kept")
+    void ensurePartitions_CreatesMissingMonthsAhead() {
+        assertThat(inventoryRollupService.ensurePartitions(2)).isEqualTo(2);
+
+        assertThat(tableExists(partitionName(current.plusMonths(1)))).isTrue();
+        assertThat(tableExists(partitionName(current.plusMonths(2)))).isTrue();
+        assertThat(inventoryRollupService.ensurePartitions(2)).isZero();
+    }
+
+    private void insertEntry(LocalDateTime createdAt, int changeAmount, String type) {
+        jdbcTemplate.update("""
+                INSERT INTO inventory_transactions (id, created_at, updated_at, material_id, change_amount, reference_code, type)
+                VALUES (?, ?, ?, ?, ?, 'TEST', ?)
+                """, TsidUtils.nextId(), Timestamp.valueOf(createdAt), Timestamp.valueOf(createdAt),
+                materialId, changeAmount, type);
+    }
+
+    private String partitionOf(LocalDateTime createdAt) {
+        return jdbcTemplate.queryForObject("""
+                SELECT tableoid::regclass::text FROM inventory_transactions WHERE material_id = ? AND created_at = ?
+                """, String.class, materialId, Timestamp.valueOf(createdAt));
+    }
+
+    private Map<String, Object> rollup(YearMonth month, String type) {
+        return jdbcTemplate.queryForMap("""
+                SELECT inbound, outbound, net_change, entry_count, compacted
+                FROM inventory_monthly_rollups
+                WHERE material_id = ? AND month = ? AND type = ?
+                """, materialId, Date.valueOf(month.atDay(1)), type);
+    }
+
+    private boolean tableExists(String name) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, name));
+    }
+
+    private int count(String sql, Object... args) {
+        Integer value = jdbcTemplate.queryForObject(sql, Integer.class, args);
+        return value == null ? 0 : value;
+    }
+
+    private static String partitionName(YearMonth month) {
+        return "inventory_transactions_p" + month.format(PARTITION_SUFFIX);
+    }
+}
@@ -0,0 +1,194 @@
+package com.greenwich.flowerplus.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.greenwich.flowerplus.common.enums.LowStockAlertType;
+import com.greenwich.flowerplus.common.utils.TsidUtils;
+import com.greenwich.flowerplus.dto.response.LowStockAlertResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Low-stock detection against the local Postgres and Redis: the conditional UPDATE ... RETURNING
+ * statements claim each crossing once, and alerts go through the Redis channel every instance listens to.
+ * Not transactional on purpose, the stock change must be committed before the check.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class LowStockServiceTest {
+
+    private static final String ALERT_CHANNEL = "low-stock:alerts";
+    private static final String PROBE = "probe";
+    private static final Duration ALERT_TIMEOUT = Duration.ofSeconds(10);
+
+    @Autowired
+    private LowStockService lowStockService;
+
+    @Autowired
+    private RedisMessageListenerContainer listenerContainer;
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final BlockingQueue<LowStockAlertResponse> alerts = new LinkedBlockingQueue<>();
+    private MessageListener listener;
+    private Long materialId;
+
+    @BeforeEach
+    void setUp() throws InterruptedException {
+        materialId = TsidUtils.nextId();
+        jdbcTemplate.update("""
+                INSERT INTO materials (id, name, unit, created_at, updated_at)
+                VALUES (?, ?, 'stem', NOW(), NOW())
+                """, materialId, "Low stock rose " + materialId);
+        jdbcTemplate.update("""
+                INSERT INTO material_stocks (id, quantity, reserved_quantity, opening_balance, reorder_level, created_at, updated_at)
+                VALUES (?, 10, 0, 10, 5, NOW(), NOW())
+                """, materialId);
+
+        // Plays the role of another instance: only sees the alert through the Redis channel
+        CountDownLatch subscribed = new CountDownLatch(1);
+        listener = (message, pattern) -> {
+            if (PROBE.equals(new String(message.getBody()))) {
+                subscribed.countDown();
+                return;
+            }
+            try {
+                LowStockAlertResponse alert = objectMapper.readValue(message.getBody(), LowStockAlertResponse.class);
+                if (materialId.equals(alert.materialId())) {
+                    alerts.add(alert);
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        };
+        listenerContainer.addMessageListener(listener, new ChannelTopic(ALERT_CHANNEL));
+
+        // Subscription is asynchronous: wait until it receives messages before producing alerts
+        Instant deadline = Instant.now().plus(ALERT_TIMEOUT);
+        do {
+            redisTemplate.convertAndSend(ALERT_CHANNEL, PROBE);
+        } while (!subscribed.await(100, TimeUnit.MILLISECONDS) && Instant.now().isBefore(deadline));
+        assertThat(subscribed.getCount()).as("subscribed to %s", ALERT_CHANNEL).isZero();
+    }
+
+    @AfterEach
+    void tearDown() {
+        listenerContainer.removeMessageListener(listener);
+        jdbcTemplate.update("DELETE FROM material_stocks WHERE id = ?", materialId);
+        jdbcTemplate.update("DELETE FROM materials WHERE id = ?", materialId);
+    }
+
+    @Test
+    @DisplayName("Crossing the reorder level flags the material once and fans the alert out through Redis")
+    void crossing_FlaggedOnceAndPublished() throws Exception {
+        changeStock("UPDATE material_stocks SET reserved_quantity = 6 WHERE id = ?");
+
+        LowStockAlertResponse low = nextAlert();
+        assertThat(low.type()).isEqualTo(LowStockAlertType.LOW);
+        assertThat(low.availableQuantity()).isEqualTo(4);
+        assertThat(low.reorderLevel()).isEqualTo(5);
+        Timestamp flaggedAt = lowStockSince();
+        assertThat(flaggedAt).isNotNull();
+
+        // Still low: the partial-index predicate (low_stock_since IS NULL) no longer matches, nothing re-alerted
+        changeStock("UPDATE material_stocks SET quantity = 9 WHERE id = ?");
+        assertThat(alerts.poll(1, TimeUnit.SECONDS)).isNull();
+        assertThat(lowStockSince()).isEqualTo(flaggedAt);
+    }
+
+    @Test
+    @DisplayName("Going back above the reorder level clears the flag and publishes RECOVERED")
+    void recovery_ClearsFlag() throws Exception {
+        changeStock("UPDATE material_stocks SET quantity = 5 WHERE id = ?");
+        assertThat(nextAlert().type()).isEqualTo(LowStockAlertType.LOW);
+
+        changeStock("UPDATE material_stocks SET quantity = 50 WHERE id = ?");
+
+        LowStockAlertResponse recovered = nextAlert();
+        assertThat(recovered.type()).isEqualTo(LowStockAlertType.RECOVERED);
+        assertThat(recovered.availableQuantity()).isEqualTo(50);
+        assertThat(lowStockSince()).isNull();
+    }
+
+    @Test
+    @DisplayName("A deleted or untracked material is cleared and not flagged again")
+    void deletedMaterial_Cleared() throws Exception {
+        changeStock("UPDATE material_stocks SET quantity = 1 WHERE id = ?");
+        assertThat(nextAlert().type()).isEqualTo(LowStockAlertType.LOW);
+
+        changeStock("UPDATE materials SET deleted_at = NOW() WHERE id = ?");
+
+        assertThat(nextAlert().type()).isEqualTo(LowStockAlertType.RECOVERED);
+        assertThat(lowStockSince()).isNull();
+
+        changeStock("UPDATE material_stocks SET quantity = 0 WHERE id = ?");
+        assertThat(alerts.poll(1, TimeUnit.SECONDS)).isNull();
+        assertThat(lowStockSince()).isNull();
+    }
+
+    @Test
+    @DisplayName("Low-stock list reads the current state from the database")
+    void getLowStock_ListsFlaggedMaterial() throws Exception {
+        changeStock("UPDATE material_stocks SET quantity = 2 WHERE id = ?");
+        nextAlert();
+
+        assertThat(lowStockService.getLowStock(500))
+                .anySatisfy(row -> {
+                    assertThat(row.materialId()).isEqualTo(materialId);
+                    assertThat(row.availableQuantity()).isEqualTo(2);
+                    assertThat(row.lowStockSince()).isNotNull();
+                });
+    }
+
+    private void changeStock(String sql) {
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update(sql, materialId);
+            lowStockService.onMaterialsChanged(List.of(materialId));
+        });
+        // The scheduled flush may already have taken it, both paths publish the same way
+        lowStockService.flushPendingChanges();
+    }
+
+    private LowStockAlertResponse nextAlert() throws InterruptedException {
+        LowStockAlertResponse alert = alerts.poll(ALERT_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+        assertThat(alert).as("low-stock alert for material %s", materialId).isNotNull();
+        return alert;
+    }
+
+    private Timestamp lowStockSince() {
+        return jdbcTemplate.queryForObject(
+                "SELECT low_stock_since FROM material_stocks WHERE id = ?", Timestamp.class, materialId);
+    }
+}
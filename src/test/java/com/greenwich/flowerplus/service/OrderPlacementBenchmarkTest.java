@@ -0,0 +1,323 @@
+package com.greenwich.flowerplus.service;
+
+import com.greenwich.flowerplus.common.enums.ErrorCode;
+import com.greenwich.flowerplus.common.enums.OrderStatus;
+import com.greenwich.flowerplus.common.enums.PaymentMethod;
+import com.greenwich.flowerplus.common.enums.ProductStatus;
+import com.greenwich.flowerplus.common.exception.AppException;
+import com.greenwich.flowerplus.common.utils.TsidUtils;
+import com.greenwich.flowerplus.dto.request.PlaceOrderRequest;
+import com.greenwich.flowerplus.dto.response.OrderResponse;
+import com.greenwich.flowerplus.entity.Product;
+import com.greenwich.flowerplus.entity.UserAccount;
+import com.greenwich.flowerplus.repository.ProductRepository;
+import com.greenwich.flowerplus.repository.UserAccountRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Checkout throughput against the local Postgres: orders placed concurrently by a small pool
+ * (close to the Hikari pool size), each order = 3 products, every product = 1 shared ribbon + 3 own stems.
+ * Not transactional on purpose, every order commits on its own connection.
+ */
+@Slf4j
+@SpringBootTest
+@ActiveProfiles("test")
+class OrderPlacementBenchmarkTest {
+
+    private static final int ORDERS = 2000;
+    private static final int WORKERS = 16;
+    private static final int PRODUCTS = 20;
+    private static final int LINES_PER_ORDER = 3;
+    private static final int STOCK = 1_000_000;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderFulfillmentService orderFulfillmentService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserAccountRepository userAccountRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long userId;
+    private Long ribbonId;
+    private final List<Long> materialIds = new ArrayList<>();
+    private final List<Long> productIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        String suffix = String.valueOf(TsidUtils.nextId());
+        userId = userAccountRepository.save(UserAccount.builder()
+                .username("bench-" + suffix)
+                .email("bench-" + suffix + "@example.com")
+                .password("{noop}bench")
+                .build()).getId();
+
+        ribbonId = insertMaterial("Bench ribbon " + suffix);
+        for (int i = 0; i < PRODUCTS; i++) {
+            Long stemId = insertMaterial("Bench stem " + i + " " + suffix);
+            Long productId = productRepository.save(Product.builder()
+                    .name("Bench bouquet " + i + " " + suffix)
+                    .slug("bench-bouquet-" + i + "-" + suffix)
+                    .basePrice(new BigDecimal("350000"))
+                    .costPrice(new BigDecimal("120000"))
+                    .originalPrice(new BigDecimal("400000"))
+                    .status(ProductStatus.ACTIVE)
+                    .build()).getId();
+            insertRecipe(productId, ribbonId, 1);
+            insertRecipe(productId, stemId, 3);
+            productIds.add(productId);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM sales_rollup_entries WHERE order_id IN (SELECT id FROM orders WHERE user_id = ?)", userId);
+        jdbcTemplate.update("DELETE FROM order_items WHERE order_id IN (SELECT id FROM orders WHERE user_id = ?)", userId);
+        jdbcTemplate.update("DELETE FROM orders WHERE user_id = ?", userId);
+        for (Long materialId : materialIds) {
+            jdbcTemplate.update("DELETE FROM stock_reservations WHERE material_id = ?", materialId);
+        }
+        for (Long productId : productIds) {
+            jdbcTemplate.update("DELETE FROM prepared_stock_reservations WHERE product_id = ?", productId);
+            jdbcTemplate.update("DELETE FROM product_recipes WHERE product_id = ?", productId);
+            jdbcTemplate.update("DELETE FROM products WHERE id = ?", productId);
+        }
+        for (Long materialId : materialIds) {
+            jdbcTemplate.update("DELETE FROM material_stocks WHERE id = ?", materialId);
+            jdbcTemplate.update("DELETE FROM materials WHERE id = ?", materialId);
+        }
+        jdbcTemplate.update("DELETE FROM users WHERE id = ?", userId);
+    }
+
+    @Test
+    @DisplayName("Concurrent checkout: every order placed, stock reserved exactly once per line")
+    void placeOrders_Concurrently_Throughput() throws Exception {
+        List<Throwable> failures = Collections.synchronizedList(new ArrayList<>());
+
+        long begin = System.nanoTime();
+        try (ExecutorService executor = Executors.newFixedThreadPool(WORKERS)) {
+            List<Future<?>> futures = new ArrayList<>(ORDERS);
+            for (int i = 0; i < ORDERS; i++) {
+                int orderNo = i;
+                futures.add(executor.submit(() -> {
+                    try {
+                        orderService.placeOrder(userId, "bench-" + orderNo, request(orderNo));
+                    } catch (Exception e) {
+                        failures.add(e);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(5, TimeUnit.MINUTES);
+            }
+        }
+        long elapsedMs = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin));
+
+        log.info("Checkout benchmark: {} orders ({} lines each) by {} workers in {} ms -> {} orders/s",
+                ORDERS, LINES_PER_ORDER, WORKERS, elapsedMs, ORDERS * 1000L / elapsedMs);
+
+        assertThat(failures).isEmpty();
+        assertThat(count("SELECT COUNT(*) FROM orders WHERE user_id = ?", userId)).isEqualTo(ORDERS);
+        assertThat(count("SELECT COUNT(*) FROM order_items WHERE order_id IN (SELECT id FROM orders WHERE user_id = ?)", userId))
+                .isEqualTo(ORDERS * LINES_PER_ORDER);
+        // 1 ribbon per bouquet, 1 bouquet per line
+        assertThat(count("SELECT reserved_quantity FROM material_stocks WHERE id = ?", ribbonId))
+                .isEqualTo(ORDERS * LINES_PER_ORDER);
+    }
+
+    @Test
+    @DisplayName("Retrying with the same idempotency key returns the first order and reserves nothing more")
+    void placeOrder_SameIdempotencyKey_ReturnsSameOrder() {
+        OrderResponse first = orderService.placeOrder(userId, "retry-key", request(0));
+        OrderResponse retry = orderService.placeOrder(userId, "retry-key", request(0));
+
+        assertThat(retry.id()).isEqualTo(first.id());
+        assertThat(retry.orderCode()).isEqualTo(first.orderCode());
+        assertThat(retry.totalAmount()).isEqualByComparingTo(first.totalAmount());
+        assertThat(count("SELECT COUNT(*) FROM orders WHERE user_id = ?", userId)).isEqualTo(1);
+        assertThat(count("SELECT reserved_quantity FROM material_stocks WHERE id = ?", ribbonId))
+                .isEqualTo(LINES_PER_ORDER);
+    }
+
+    @Test
+    @DisplayName("Reusing an idempotency key for a different cart is rejected, the first order is kept")
+    void placeOrder_SameKeyDifferentRequest_Conflict() {
+        OrderResponse first = orderService.placeOrder(userId, "reused-key", request(0));
+
+        assertThatThrownBy(() -> orderService.placeOrder(userId, "reused-key", request(1)))
+                .isInstanceOf(AppException.class)
+                .extracting(e -> ((AppException) e).getErrorCode())
+                .isEqualTo(ErrorCode.ORDER_IDEMPOTENCY_KEY_REUSED.getCode());
+        assertThat(count("SELECT COUNT(*) FROM orders WHERE user_id = ?", userId)).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject("SELECT request_fingerprint FROM orders WHERE id = ?", String.class, first.id()))
+                .hasSize(64);
+        assertThat(count("SELECT reserved_quantity FROM material_stocks WHERE id = ?", ribbonId))
+                .isEqualTo(LINES_PER_ORDER);
+    }
+
+    @Test
+    @DisplayName("Product without recipe is sold from prepared stock and gets it back when the order is cancelled")
+    void placeOrder_ProductWithoutRecipe_ReservesPreparedStock() {
+        Long readyMadeId = insertReadyMade(3);
+        PlaceOrderRequest request = withLines(
+                new PlaceOrderRequest.Item(productIds.getFirst(), 1), new PlaceOrderRequest.Item(readyMadeId, 2));
+
+        OrderResponse order = orderService.placeOrder(userId, "ready-made", request);
+
+        assertThat(count("SELECT prepared_quantity FROM products WHERE id = ?", readyMadeId)).isEqualTo(1);
+        assertThat(count("SELECT reserved_quantity FROM material_stocks WHERE id = ?", ribbonId)).isEqualTo(1);
+
+        orderFulfillmentService.updateStatus(order.id(), OrderStatus.CANCELLED);
+
+        assertThat(count("SELECT prepared_quantity FROM products WHERE id = ?", readyMadeId)).isEqualTo(3);
+        assertThat(count("SELECT reserved_quantity FROM material_stocks WHERE id = ?", ribbonId)).isZero();
+    }
+
+    @Test
+    @DisplayName("Product without recipe: more than the prepared stock rejects the whole order")
+    void placeOrder_PreparedStockShort_Rejected() {
+        Long readyMadeId = insertReadyMade(3);
+        PlaceOrderRequest request = withLines(
+                new PlaceOrderRequest.Item(productIds.getFirst(), 1), new PlaceOrderRequest.Item(readyMadeId, 5));
+
+        assertThatThrownBy(() -> orderService.placeOrder(userId, "ready-made-short", request))
+                .isInstanceOf(AppException.class)
+                .extracting(e -> ((AppException) e).getErrorCode())
+                .isEqualTo(ErrorCode.INVENTORY_INSUFFICIENT_STOCK.getCode());
+        assertThat(count("SELECT COUNT(*) FROM orders WHERE user_id = ?", userId)).isZero();
+        assertThat(count("SELECT prepared_quantity FROM products WHERE id = ?", readyMadeId)).isEqualTo(3);
+        assertThat(count("SELECT reserved_quantity FROM material_stocks WHERE id = ?", ribbonId)).isZero();
+    }
+
+    @Test
+    @DisplayName("Confirming an order of a product without recipe keeps the prepared stock taken")
+    void confirm_ProductWithoutRecipe_PreparedStockTaken() {
+        Long readyMadeId = insertReadyMade(3);
+        OrderResponse order = orderService.placeOrder(userId, "ready-made-confirm",
+                withLines(new PlaceOrderRequest.Item(readyMadeId, 2)));
+
+        orderFulfillmentService.updateStatus(order.id(), OrderStatus.CONFIRMED);
+
+        assertThat(count("SELECT prepared_quantity FROM products WHERE id = ?", readyMadeId)).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject("SELECT status FROM prepared_stock_reservations WHERE reference_code = ?",
+                String.class, order.orderCode())).isEqualTo("COMMITTED");
+    }
+
+    @Test
+    @DisplayName("Expired reservation of a PENDING order cancels the order and returns its stock")
+    void cancelExpired_PendingOrder_CancelledAndReleased() {
+        OrderResponse order = orderService.placeOrder(userId, "expired", request(0));
+
+        assertThat(orderFulfillmentService.cancelExpired(order.orderCode())).isTrue();
+        assertThat(orderFulfillmentService.cancelExpired(order.orderCode())).isFalse(); // no longer PENDING
+
+        assertThat(jdbcTemplate.queryForObject("SELECT status FROM orders WHERE id = ?", String.class, order.id()))
+                .isEqualTo(OrderStatus.CANCELLED.name());
+        assertThat(count("SELECT reserved_quantity FROM material_stocks WHERE id = ?", ribbonId)).isZero();
+    }
+
+    @Test
+    @DisplayName("Order without reservation lines (placed before checkout reserved stock) can still be confirmed or cancelled")
+    void updateStatus_OrderWithoutReservation_NoStockChange() {
+        OrderResponse toConfirm = orderService.placeOrder(userId, "legacy-1", request(0));
+        OrderResponse toCancel = orderService.placeOrder(userId, "legacy-2", request(1));
+        jdbcTemplate.update("DELETE FROM stock_reservations WHERE reference_code IN (?, ?)",
+                toConfirm.orderCode(), toCancel.orderCode());
+        for (Long materialId : materialIds) {
+            jdbcTemplate.update("UPDATE material_stocks SET reserved_quantity = 0 WHERE id = ?", materialId);
+        }
+
+        assertThat(orderFulfillmentService.updateStatus(toConfirm.id(), OrderStatus.CONFIRMED).status())
+                .isEqualTo(OrderStatus.CONFIRMED);
+        assertThat(orderFulfillmentService.updateStatus(toCancel.id(), OrderStatus.CANCELLED).status())
+                .isEqualTo(OrderStatus.CANCELLED);
+        assertThat(count("SELECT quantity FROM material_stocks WHERE id = ?", ribbonId)).isEqualTo(STOCK);
+    }
+
+    private PlaceOrderRequest request(int orderNo) {
+        List<PlaceOrderRequest.Item> items = new ArrayList<>(LINES_PER_ORDER);
+        for (int line = 0; line < LINES_PER_ORDER; line++) {
+            items.add(new PlaceOrderRequest.Item(productIds.get((orderNo + line) % PRODUCTS), 1));
+        }
+        return new PlaceOrderRequest(
+                items,
+                new PlaceOrderRequest.ShippingAddress("Bench Customer", "0900000000", "79", "Hồ Chí Minh",
+                        "26734", "Phường Bến Nghé", "Quận 1", "1 Lê Duẩn"),
+                PaymentMethod.COD,
+                null,
+                null,
+                null);
+    }
+
+    private PlaceOrderRequest withLines(PlaceOrderRequest.Item... items) {
+        return new PlaceOrderRequest(List.of(items), request(0).shippingAddress(), PaymentMethod.COD, null, null, null);
+    }
+
+    private Long insertReadyMade(int preparedQuantity) {
+        String suffix = String.valueOf(TsidUtils.nextId());
+        Long id = productRepository.save(Product.builder()
+                .name("Bench ready-made " + suffix)
+                .slug("bench-ready-made-" + suffix)
+                .basePrice(new BigDecimal("350000"))
+                .costPrice(new BigDecimal("120000"))
+                .originalPrice(new BigDecimal("400000"))
+                .preparedQuantity(preparedQuantity)
+                .status(ProductStatus.ACTIVE)
+                .build()).getId();
+        productIds.add(id);
+        return id;
+    }
+
+    private Long insertMaterial(String name) {
+        Long id = TsidUtils.nextId();
+        jdbcTemplate.update("""
+                INSERT INTO materials (id, name, unit, created_at, updated_at)
+                VALUES (?, ?, 'stem', NOW(), NOW())
+                """, id, name);
+        jdbcTemplate.update("""
+                INSERT INTO material_stocks (id, quantity, reserved_quantity, opening_balance, reorder_level, created_at, updated_at)
+                VALUES (?, ?, 0, ?, 10, NOW(), NOW())
+                """, id, STOCK, STOCK);
+        materialIds.add(id);
+        return id;
+    }
+
+    private void insertRecipe(Long productId, Long materialId, int quantityNeeded) {
+        jdbcTemplate.update("""
+                INSERT INTO product_recipes (id, product_id, material_id, quantity_needed, created_at, updated_at)
+                VALUES (?, ?, ?, ?, NOW(), NOW())
+                """, TsidUtils.nextId(), productId, materialId, quantityNeeded);
+    }
+
+    private int count(String sql, Object... args) {
+        Integer value = jdbcTemplate.queryForObject(sql, Integer.class, args);
+        return value != null ? value : 0;
+    }
+}
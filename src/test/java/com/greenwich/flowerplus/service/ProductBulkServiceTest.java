@@ -0,0 +1,209 @@
+package com.greenwich.flowerplus.service;
+
+import com.greenwich.flowerplus.common.enums.CategoryType;
+import com.greenwich.flowerplus.common.enums.ErrorCode;
+import com.greenwich.flowerplus.common.enums.ProductStatus;
+import com.greenwich.flowerplus.common.utils.TsidUtils;
+import com.greenwich.flowerplus.dto.request.BulkProductCategoryRequest;
+import com.greenwich.flowerplus.dto.request.BulkProductCategoryRequest.BulkCategoryOperation;
+import com.greenwich.flowerplus.dto.request.BulkProductPriceRequest;
+import com.greenwich.flowerplus.dto.request.BulkProductPriceRequest.PriceAdjustmentType;
+import com.greenwich.flowerplus.dto.request.BulkProductStatusRequest;
+import com.greenwich.flowerplus.dto.response.BulkOperationResponse;
+import com.greenwich.flowerplus.dto.response.BulkOperationResponse.ItemResult;
+import com.greenwich.flowerplus.entity.Category;
+import com.greenwich.flowerplus.entity.Product;
+import com.greenwich.flowerplus.repository.CategoryRepository;
+import com.greenwich.flowerplus.repository.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the set-based bulk statements against the local Postgres: rules expressed as SQL
+ * predicates must accept/reject exactly like the aggregate methods, with one reason per product.
+ * Not transactional on purpose, every bulk call commits on its own.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class ProductBulkServiceTest {
+
+    @Autowired
+    private ProductBulkService productBulkService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final List<Long> productIds = new ArrayList<>();
+    private final List<Long> categoryIds = new ArrayList<>();
+    private String suffix;
+
+    @BeforeEach
+    void setUp() {
+        suffix = String.valueOf(TsidUtils.nextId());
+    }
+
+    @AfterEach
+    void tearDown() {
+        for (Long productId : productIds) {
+            jdbcTemplate.update("DELETE FROM product_categories WHERE product_id = ?", productId);
+            jdbcTemplate.update("DELETE FROM products WHERE id = ?", productId);
+        }
+        for (Long categoryId : categoryIds) {
+            jdbcTemplate.update("DELETE FROM categories WHERE id = ?", categoryId);
+        }
+    }
+
+    @Test
+    @DisplayName("Activate applies Product.activate() rules per product and reports the violated one")
+    void updateStatus_Activate_ReportsReasonPerProduct() {
+        Long category = insertCategory("occasion");
+        Long ready = insertProduct("ready", "thumb.jpg", "300000", "100000", "350000");
+        Long noThumbnail = insertProduct("no-thumb", null, "300000", "100000", "350000");
+        Long noCategory = insertProduct("no-category", "thumb.jpg", "300000", "100000", "350000");
+        link(ready, category);
+        link(noThumbnail, category);
+        Long unknown = TsidUtils.nextId();
+
+        BulkOperationResponse response = productBulkService.updateStatus(new BulkProductStatusRequest(
+                List.of(ready, noThumbnail, noCategory, unknown), ProductStatus.ACTIVE));
+
+        Map<Long, ItemResult> results = byProduct(response);
+        assertThat(response.requested()).isEqualTo(4);
+        assertThat(response.succeeded()).isEqualTo(1);
+        assertThat(results.get(ready).success()).isTrue();
+        assertThat(results.get(noThumbnail).errorCode()).isEqualTo(ErrorCode.PRODUCT_MUST_HAVE_THUMBNAIL.getCode());
+        assertThat(results.get(noCategory).errorCode()).isEqualTo(ErrorCode.PRODUCT_MUST_HAVE_CATEGORY.getCode());
+        assertThat(results.get(unknown).errorCode()).isEqualTo(ErrorCode.PRODUCT_NOT_FOUND.getCode());
+
+        assertThat(status(ready)).isEqualTo("ACTIVE");
+        assertThat(status(noThumbnail)).isEqualTo("DRAFT");
+    }
+
+    @Test
+    @DisplayName("Price adjustment never goes below cost or above the original price")
+    void adjustPrice_RespectsCostAndOriginalPrice() {
+        Long cheap = insertProduct("cheap", "thumb.jpg", "200000", "100000", "400000");
+        Long nearCost = insertProduct("near-cost", "thumb.jpg", "110000", "100000", "400000");
+        Long nearOriginal = insertProduct("near-original", "thumb.jpg", "390000", "100000", "400000");
+
+        BulkOperationResponse down = productBulkService.adjustPrice(new BulkProductPriceRequest(
+                List.of(cheap, nearCost), PriceAdjustmentType.PERCENTAGE, new BigDecimal("-20")));
+        BulkOperationResponse up = productBulkService.adjustPrice(new BulkProductPriceRequest(
+                List.of(nearOriginal), PriceAdjustmentType.AMOUNT, new BigDecimal("50000")));
+
+        assertThat(byProduct(down).get(cheap).success()).isTrue();
+        assertThat(byProduct(down).get(nearCost).errorCode()).isEqualTo(ErrorCode.PRODUCT_PRICE_BELOW_COST.getCode());
+        assertThat(byProduct(up).get(nearOriginal).errorCode())
+                .isEqualTo(ErrorCode.PRODUCT_ORIGINAL_PRICE_LESS_THAN_BASE.getCode());
+
+        assertThat(sellingPrice(cheap)).isEqualByComparingTo("160000");
+        assertThat(sellingPrice(nearCost)).isEqualByComparingTo("110000");
+        assertThat(sellingPrice(nearOriginal)).isEqualByComparingTo("390000");
+    }
+
+    @Test
+    @DisplayName("Add categories is idempotent and all-or-nothing per product; remove keeps at least one")
+    void updateCategories_AddAndRemove() {
+        List<Long> categories = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            categories.add(insertCategory("c" + i));
+        }
+        Long empty = insertProduct("empty", "thumb.jpg", "300000", "100000", "350000");
+        Long almostFull = insertProduct("almost-full", "thumb.jpg", "300000", "100000", "350000");
+        for (Long category : categories.subList(0, 4)) {
+            link(almostFull, category);
+        }
+        Long extra = insertCategory("extra");
+
+        List<Long> toAdd = List.of(categories.get(4), extra);
+        BulkOperationResponse added = productBulkService.updateCategories(new BulkProductCategoryRequest(
+                List.of(empty, almostFull), BulkCategoryOperation.ADD, toAdd));
+        BulkOperationResponse replay = productBulkService.updateCategories(new BulkProductCategoryRequest(
+                List.of(empty), BulkCategoryOperation.ADD, toAdd));
+
+        assertThat(byProduct(added).get(empty).success()).isTrue();
+        assertThat(byProduct(added).get(almostFull).errorCode())
+                .isEqualTo(ErrorCode.PRODUCT_CATEGORY_LIMIT_EXCEEDED.getCode());
+        assertThat(byProduct(replay).get(empty).success()).isTrue();
+        assertThat(linkCount(empty)).isEqualTo(2);
+        assertThat(linkCount(almostFull)).isEqualTo(4);
+
+        BulkOperationResponse removed = productBulkService.updateCategories(new BulkProductCategoryRequest(
+                List.of(empty), BulkCategoryOperation.REMOVE, toAdd));
+
+        assertThat(byProduct(removed).get(empty).errorCode())
+                .isEqualTo(ErrorCode.PRODUCT_MUST_HAVE_CATEGORY.getCode());
+        assertThat(linkCount(empty)).isEqualTo(2);
+    }
+
+    private Long insertProduct(String name, String thumbnail, String price, String cost, String original) {
+        Long id = productRepository.save(Product.builder()
+                .name("Bulk " + name + " " + suffix)
+                .slug("bulk-" + name + "-" + suffix)
+                .thumbnail(thumbnail)
+                .basePrice(new BigDecimal(price))
+                .costPrice(new BigDecimal(cost))
+                .originalPrice(new BigDecimal(original))
+                .status(ProductStatus.DRAFT)
+                .build()).getId();
+        productIds.add(id);
+        return id;
+    }
+
+    private Long insertCategory(String name) {
+        Long id = categoryRepository.save(Category.builder()
+                .name("Bulk " + name + " " + suffix)
+                .slug("bulk-" + name + "-" + suffix)
+                .type(CategoryType.OCCASION)
+                .build()).getId();
+        categoryIds.add(id);
+        return id;
+    }
+
+    private void link(Long productId, Long categoryId) {
+        jdbcTemplate.update("""
+                INSERT INTO product_categories (id, product_id, category_id, created_at, updated_at)
+                VALUES (?, ?, ?, NOW(), NOW())
+                """, TsidUtils.nextId(), productId, categoryId);
+    }
+
+    private Map<Long, ItemResult> byProduct(BulkOperationResponse response) {
+        return response.results().stream().collect(Collectors.toMap(ItemResult::productId, Function.identity()));
+    }
+
+    private String status(Long productId) {
+        return jdbcTemplate.queryForObject("SELECT status FROM products WHERE id = ?", String.class, productId);
+    }
+
+    private BigDecimal sellingPrice(Long productId) {
+        return jdbcTemplate.queryForObject("SELECT selling_price FROM products WHERE id = ?", BigDecimal.class, productId);
+    }
+
+    private int linkCount(Long productId) {
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM product_categories WHERE product_id = ? AND deleted_at IS NULL",
+                Integer.class, productId);
+        return count == null ? 0 : count;
+    }
+}
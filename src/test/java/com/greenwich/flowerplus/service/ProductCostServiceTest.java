@@ -0,0 +1,180 @@
+package com.greenwich.flowerplus.service;
+
+import com.greenwich.flowerplus.common.enums.ProductStatus;
+import com.greenwich.flowerplus.common.utils.TsidUtils;
+import com.greenwich.flowerplus.entity.Product;
+import com.greenwich.flowerplus.repository.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Cost propagation through the outbox against the local Postgres: queued in the edit's transaction,
+ * products recomputed from the recipe (absolute value, no delta), rows removed once applied.
+ * Not transactional on purpose, the outbox must be visible to the flush.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class ProductCostServiceTest {
+
+    @Autowired
+    private ProductCostService productCostService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final List<Long> materialIds = new ArrayList<>();
+    private final List<Long> productIds = new ArrayList<>();
+    private String suffix;
+    private Long roseId;
+    private Long ribbonId;
+    private Long bouquetId;
+    private Long ribbonBoxId;
+
+    @BeforeEach
+    void setUp() {
+        suffix = String.valueOf(TsidUtils.nextId());
+        roseId = insertMaterial("Cost rose", "10000");
+        ribbonId = insertMaterial("Cost ribbon", "5000");
+
+        // bouquet = 2 roses + 1 ribbon = 25000, ribbon box = 3 ribbons = 15000
+        bouquetId = insertProduct("bouquet", "25000");
+        insertRecipe(bouquetId, roseId, 2);
+        insertRecipe(bouquetId, ribbonId, 1);
+        ribbonBoxId = insertProduct("ribbon-box", "15000");
+        insertRecipe(ribbonBoxId, ribbonId, 3);
+    }
+
+    @AfterEach
+    void tearDown() {
+        for (Long productId : productIds) {
+            jdbcTemplate.update("DELETE FROM product_recipes WHERE product_id = ?", productId);
+            jdbcTemplate.update("DELETE FROM products WHERE id = ?", productId);
+        }
+        for (Long materialId : materialIds) {
+            jdbcTemplate.update("DELETE FROM product_cost_outbox WHERE material_id = ?", materialId);
+            jdbcTemplate.update("DELETE FROM materials WHERE id = ?", materialId);
+        }
+    }
+
+    @Test
+    @DisplayName("A committed cost edit is queued and recomputes only the products using the material")
+    void committedEdit_RecomputesAffectedProducts() {
+        changeCost(roseId, "10000", "12500");
+
+        productCostService.flushPendingChanges();
+
+        assertThat(costPrice(bouquetId)).isEqualByComparingTo("30000");
+        assertThat(costPrice(ribbonBoxId)).isEqualByComparingTo("15000");
+        assertThat(outboxRows(roseId)).isZero();
+    }
+
+    @Test
+    @DisplayName("A rolled back edit queues nothing")
+    void rolledBackEdit_QueuesNothing() {
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update("UPDATE materials SET cost_price = 99999 WHERE id = ?", roseId);
+            productCostService.onMaterialCostChanged(roseId, new BigDecimal("10000"), new BigDecimal("99999"));
+            status.setRollbackOnly();
+        });
+
+        assertThat(outboxRows(roseId)).isZero();
+        productCostService.flushPendingChanges();
+        assertThat(costPrice(bouquetId)).isEqualByComparingTo("25000");
+    }
+
+    @Test
+    @DisplayName("Repeated edits collapse into one row and the product ends at the recipe cost, never clamped")
+    void repeatedEdits_EndAtRecipeCost() {
+        // Drift from an earlier lost update: a delta-based propagation would keep it forever
+        jdbcTemplate.update("UPDATE products SET cost_price = 1000 WHERE id = ?", ribbonBoxId);
+
+        changeCost(ribbonId, "5000", "0");
+        changeCost(ribbonId, "0", "7000");
+
+        assertThat(outboxRows(ribbonId)).isLessThanOrEqualTo(1);
+        productCostService.flushPendingChanges();
+
+        assertThat(costPrice(ribbonBoxId)).isEqualByComparingTo("21000");
+        assertThat(costPrice(bouquetId)).isEqualByComparingTo("27000");
+        assertThat(outboxRows(ribbonId)).isZero();
+    }
+
+    @Test
+    @DisplayName("A deleted material no longer counts in the product cost")
+    void deletedMaterial_RemovedFromCost() {
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update("UPDATE materials SET deleted_at = NOW() WHERE id = ?", roseId);
+            productCostService.onMaterialCostChanged(roseId, new BigDecimal("10000"), BigDecimal.ZERO);
+        });
+
+        productCostService.flushPendingChanges();
+
+        assertThat(costPrice(bouquetId)).isEqualByComparingTo("5000");
+    }
+
+    private void changeCost(Long materialId, String oldCost, String newCost) {
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update("UPDATE materials SET cost_price = ? WHERE id = ?", new BigDecimal(newCost), materialId);
+            productCostService.onMaterialCostChanged(materialId, new BigDecimal(oldCost), new BigDecimal(newCost));
+        });
+    }
+
+    private Long insertMaterial(String name, String costPrice) {
+        Long id = TsidUtils.nextId();
+        jdbcTemplate.update("""
+                INSERT INTO materials (id, name, unit, cost_price, version, created_at, updated_at)
+                VALUES (?, ?, 'stem', ?, 0, NOW(), NOW())
+                """, id, name + " " + suffix, new BigDecimal(costPrice));
+        materialIds.add(id);
+        return id;
+    }
+
+    private Long insertProduct(String name, String costPrice) {
+        Long id = productRepository.save(Product.builder()
+                .name("Cost " + name + " " + suffix)
+                .slug("cost-" + name + "-" + suffix)
+                .basePrice(new BigDecimal("350000"))
+                .costPrice(new BigDecimal(costPrice))
+                .originalPrice(new BigDecimal("400000"))
+                .status(ProductStatus.DRAFT)
+                .build()).getId();
+        productIds.add(id);
+        return id;
+    }
+
+    private void insertRecipe(Long productId, Long materialId, int quantityNeeded) {
+        jdbcTemplate.update("""
+                INSERT INTO product_recipes (id, product_id, material_id, quantity_needed, created_at, updated_at)
+                VALUES (?, ?, ?, ?, NOW(), NOW())
+                """, TsidUtils.nextId(), productId, materialId, quantityNeeded);
+    }
+
+    private BigDecimal costPrice(Long productId) {
+        return jdbcTemplate.queryForObject("SELECT cost_price FROM products WHERE id = ?", BigDecimal.class, productId);
+    }
+
+    private int outboxRows(Long materialId) {
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM product_cost_outbox WHERE material_id = ?", Integer.class, materialId);
+        return count == null ? 0 : count;
+    }
+}
@@ -0,0 +1,202 @@
+package com.greenwich.flowerplus.service;
+
+import com.greenwich.flowerplus.common.enums.CategoryType;
+import com.greenwich.flowerplus.common.enums.ErrorCode;
+import com.greenwich.flowerplus.common.enums.ImportFormat;
+import com.greenwich.flowerplus.common.enums.ImportJobStatus;
+import com.greenwich.flowerplus.common.utils.TsidUtils;
+import com.greenwich.flowerplus.dto.response.ProductImportErrorResponse;
+import com.greenwich.flowerplus.dto.response.ProductImportJobResponse;
+import com.greenwich.flowerplus.entity.Category;
+import com.greenwich.flowerplus.repository.CategoryRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs whole import jobs against the local Postgres: staging + merge SQL, per-row errors,
+ * slug conflicts and the checkpoint used by resume. Jobs run on the async executor,
+ * the test polls their status.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class ProductImportServiceTest {
+
+    private static final Duration JOB_TIMEOUT = Duration.ofSeconds(30);
+
+    @Autowired
+    private ProductImportService productImportService;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${app.product-import.work-dir:${java.io.tmpdir}/flowerplus-import}")
+    private String workDir;
+
+    private final List<Long> jobIds = new ArrayList<>();
+    private String suffix;
+    private String categorySlug;
+    private Long categoryId;
+
+    @BeforeEach
+    void setUp() {
+        suffix = String.valueOf(TsidUtils.nextId());
+        categorySlug = "import-occasion-" + suffix;
+        categoryId = categoryRepository.save(Category.builder()
+                .name("Import occasion " + suffix)
+                .slug(categorySlug)
+                .type(CategoryType.OCCASION)
+                .build()).getId();
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("""
+                DELETE FROM product_categories WHERE product_id IN (SELECT id FROM products WHERE slug LIKE ?)
+                """, "%" + suffix);
+        jdbcTemplate.update("DELETE FROM products WHERE slug LIKE ?", "%" + suffix);
+        jdbcTemplate.update("DELETE FROM product_categories WHERE category_id = ?", categoryId);
+        jdbcTemplate.update("DELETE FROM categories WHERE id = ?", categoryId);
+        for (Long jobId : jobIds) {
+            jdbcTemplate.update("DELETE FROM product_import_errors WHERE job_id = ?", jobId);
+            jdbcTemplate.update("DELETE FROM product_import_staging WHERE job_id = ?", jobId);
+            jdbcTemplate.update("DELETE FROM product_import_jobs WHERE id = ?", jobId);
+        }
+    }
+
+    @Test
+    @DisplayName("CSV import merges valid rows as DRAFT products and reports the rejected ones per row")
+    void importCsv_MergesValidRowsAndReportsErrors() throws Exception {
+        String csv = """
+                name,description,basePrice,originalPrice,category
+                Rose bouquet %1$s,Ten red roses,350000,400000,%2$s
+                Tulip basket %1$s,Pink tulips,abc,,%2$s
+                Lily vase %1$s,White lilies,300000,,unknown-category
+                Rose bouquet %1$s,Same name again,360000,,%2$s
+                Orchid pot %1$s,Purple orchid,500000,,%3$s
+                """.formatted(suffix, categorySlug, categoryId);
+
+        ProductImportJobResponse job = start("catalog.csv", csv, null);
+        ProductImportJobResponse finished = awaitCompleted(job.id());
+
+        assertThat(finished.format()).isEqualTo(ImportFormat.CSV);
+        assertThat(finished.processedRows()).isEqualTo(5);
+        assertThat(finished.importedRows()).isEqualTo(2);
+        assertThat(finished.failedRows()).isEqualTo(3);
+
+        List<ProductImportErrorResponse> errors = productImportService.getErrors(job.id(), 0, 50).getContent();
+        assertThat(errors).extracting(ProductImportErrorResponse::rowNumber).containsExactly(2L, 3L, 4L);
+        assertThat(errors).extracting(ProductImportErrorResponse::errorCode).containsExactly(
+                ErrorCode.PRODUCT_INVALID_PRICE.getCode(),
+                ErrorCode.CATEGORY_NOT_FOUND.getCode(),
+                ErrorCode.SLUG_EXISTED.getCode());
+
+        assertThat(count("SELECT COUNT(*) FROM products WHERE slug LIKE ? AND status = 'DRAFT'", "%" + suffix))
+                .isEqualTo(2);
+        assertThat(count("SELECT COUNT(*) FROM product_categories WHERE category_id = ?", categoryId))
+                .isEqualTo(2);
+        assertThat(count("SELECT COUNT(*) FROM product_import_staging WHERE job_id = ?", job.id())).isZero();
+    }
+
+    @Test
+    @DisplayName("NDJSON is detected from the .jsonl extension")
+    void importNdjson_DetectedFromExtension() throws Exception {
+        String ndjson = """
+                {"name": "Sunflower box %1$s", "description": "Three sunflowers", "base_price": 250000, "category": "%2$s"}
+                not json
+                """.formatted(suffix, categorySlug);
+
+        ProductImportJobResponse finished = awaitCompleted(start("catalog.jsonl", ndjson, null).id());
+
+        assertThat(finished.format()).isEqualTo(ImportFormat.NDJSON);
+        assertThat(finished.importedRows()).isEqualTo(1);
+        assertThat(finished.failedRows()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Resume skips the rows up to the committed checkpoint")
+    void resume_SkipsCheckpointedRows() throws Exception {
+        String csv = """
+                name,description,basePrice,category
+                Peony bouquet %1$s,Soft peonies,420000,%2$s
+                Daisy jar %1$s,Field daisies,150000,%2$s
+                """.formatted(suffix, categorySlug);
+
+        // Simulate a crash after row 1 was committed by an earlier run
+        ProductImportJobResponse crashed = start("catalog.csv", csv, ImportFormat.CSV);
+        awaitCompleted(crashed.id());
+        jdbcTemplate.update("DELETE FROM product_categories WHERE product_id IN (SELECT id FROM products WHERE slug LIKE ?)",
+                "daisy-jar-%" + suffix);
+        jdbcTemplate.update("DELETE FROM products WHERE slug LIKE ?", "daisy-jar-%" + suffix);
+        jdbcTemplate.update("""
+                UPDATE product_import_jobs
+                SET status = 'FAILED', checkpoint_row = 1, processed_rows = 1, imported_rows = 1
+                WHERE id = ?
+                """, crashed.id());
+
+        // The spooled file is deleted on completion, put it back as if the job had failed
+        restoreSpoolFile(crashed.id(), csv);
+        productImportService.resume(crashed.id());
+        ProductImportJobResponse resumed = awaitCompleted(crashed.id());
+
+        assertThat(resumed.processedRows()).isEqualTo(2);
+        assertThat(resumed.importedRows()).isEqualTo(2);
+        assertThat(resumed.failedRows()).isZero(); // row 1 was not re-read, so no slug conflict
+        assertThat(count("SELECT COUNT(*) FROM products WHERE slug LIKE ?", "%" + suffix)).isEqualTo(2);
+    }
+
+    private ProductImportJobResponse start(String fileName, String content, ImportFormat format) {
+        MockMultipartFile file = new MockMultipartFile("file", fileName, "text/plain",
+                content.getBytes(StandardCharsets.UTF_8));
+        ProductImportJobResponse job = productImportService.startImport(file, format);
+        jobIds.add(job.id());
+        return job;
+    }
+
+    /**
+     * Waits for COMPLETED: a resumed job is still FAILED until the async run marks it RUNNING.
+     */
+    private ProductImportJobResponse awaitCompleted(Long jobId) throws InterruptedException {
+        Instant deadline = Instant.now().plus(JOB_TIMEOUT);
+        ProductImportJobResponse job = productImportService.getJob(jobId);
+        while (job.status() != ImportJobStatus.COMPLETED && Instant.now().isBefore(deadline)) {
+            Thread.sleep(100);
+            job = productImportService.getJob(jobId);
+        }
+        assertThat(job.status()).as("import job %s, error: %s", jobId, job.errorMessage())
+                .isEqualTo(ImportJobStatus.COMPLETED);
+        return job;
+    }
+
+    private void restoreSpoolFile(Long jobId, String content) throws IOException {
+        Path dir = Path.of(workDir);
+        Files.createDirectories(dir);
+        Files.writeString(dir.resolve(jobId + "." + ImportFormat.CSV.getExtension()), content);
+    }
+
+    private int count(String sql, Object... args) {
+        Integer value = jdbcTemplate.queryForObject(sql, Integer.class, args);
+        return value == null ? 0 : value;
+    }
+}
@@ -432,6 +432,99 @@ class ProductServiceImplTest {
                     () -> productService.manageProductAssets(productId, request),
                     ErrorCode.PRODUCT_ASSET_NOT_FOUND);
         }
+
+        @Test
+        @DisplayName("REPLACE should keep matched assets, delete missing ones and confirm only new uploads")
+        void manageProductAssets_Replace_DiffsAgainstExistingAssets() {
+            // Arrange
+            Long productId = 1L;
+
+            ProductAsset kept = new ProductAsset();
+            kept.setId(101L);
+            kept.setUrl("http://cdn.com/kept.jpg");
+            kept.setPublicId("p-kept");
+            kept.setType(AssetType.IMAGE);
+            kept.setIsThumbnail(true);
+            kept.setPosition(0);
+
+            ProductAsset dropped = new ProductAsset();
+            dropped.setId(102L);
+            dropped.setUrl("http://cdn.com/dropped.jpg");
+            dropped.setType(AssetType.IMAGE);
+
+            Product product = Product.builder()
+                    .assets(new ArrayList<>(List.of(kept, dropped)))
+                    .build();
+
+            // Existing asset matched by publicId only (no id sent), new one appended
+            ProductAssetRequest.AssetItem keptItem = new ProductAssetRequest.AssetItem(
+                    null, "http://cdn.com/kept.jpg", "p-kept", AssetType.IMAGE, false, 1);
+            ProductAssetRequest.AssetItem newItem = new ProductAssetRequest.AssetItem(
+                    null, "http://cdn.com/new.jpg", "p-new", AssetType.IMAGE, true, 0);
+
+            ProductAssetRequest request = new ProductAssetRequest(
+                    ProductAssetRequest.AssetOperation.REPLACE, List.of(keptItem, newItem), null);
+
+            when(productRepository.findById(productId)).thenReturn(Optional.of(product));
+            when(productRepository.save(any(Product.class))).thenReturn(product);
+            when(productMapper.toAdminDto(any(Product.class))).thenReturn(ProductResponseAdmin.builder().build());
+
+            // Act
+            productService.manageProductAssets(productId, request);
+
+            // Assert - same instance reused (no delete + insert), dropped one removed
+            assertThat(product.getAssets()).hasSize(2);
+            assertThat(product.getAssets()).contains(kept).doesNotContain(dropped);
+            assertThat(kept.getPosition()).isEqualTo(1);
+            assertThat(kept.getIsThumbnail()).isFalse();
+            assertThat(product.getThumbnail()).isEqualTo("http://cdn.com/new.jpg");
+            verify(fileStorageService).confirmFiles(List.of("http://cdn.com/new.jpg"));
+            verify(fileStorageService).releaseFiles(List.of("http://cdn.com/dropped.jpg"));
+        }
+
+        @Test
+        @DisplayName("updateProduct should not re-confirm files when assets are only reordered")
+        void updateProduct_ReorderAssetsOnly_NoStorageCalls() {
+            // Arrange
+            Long productId = 1L;
+
+            ProductAsset asset1 = new ProductAsset();
+            asset1.setId(101L);
+            asset1.setUrl("http://cdn.com/1.jpg");
+            asset1.setType(AssetType.IMAGE);
+            asset1.setPosition(0);
+
+            ProductAsset asset2 = new ProductAsset();
+            asset2.setId(102L);
+            asset2.setUrl("http://cdn.com/2.jpg");
+            asset2.setType(AssetType.IMAGE);
+            asset2.setPosition(1);
+
+            Product product = Product.builder()
+                    .assets(new ArrayList<>(List.of(asset1, asset2)))
+                    .build();
+
+            List<AssetRequest> assets = List.of(
+                    new AssetRequest(102L, "http://cdn.com/2.jpg", null, AssetType.IMAGE, true, 0, null),
+                    new AssetRequest(101L, "http://cdn.com/1.jpg", null, AssetType.IMAGE, false, 1, null));
+            UpdateProductInfoRequest request = new UpdateProductInfoRequest(
+                    null, null, null, null, null, null, assets, null, null, null, null, null);
+
+            when(productRepository.findById(productId)).thenReturn(Optional.of(product));
+            when(productRepository.saveAndFlush(any(Product.class))).thenAnswer(i -> i.getArguments()[0]);
+            when(productMapper.toAdminDto(any(Product.class))).thenReturn(ProductResponseAdmin.builder().build());
+
+            // Act
+            productService.updateProduct(productId, request);
+
+            // Assert
+            assertThat(product.getAssets()).containsExactly(asset1, asset2);
+            assertThat(asset1.getPosition()).isEqualTo(1);
+            assertThat(asset2.getPosition()).isEqualTo(0);
+            assertThat(product.getThumbnail()).isEqualTo("http://cdn.com/2.jpg");
+            verify(fileStorageService, never()).confirmFiles(anyList());
+            verify(fileStorageService, never()).releaseFiles(anyList());
+        }
     }
 
     // ============================================================================
@@ -616,19 +709,19 @@ class ProductServiceImplTest {
     class RemoveProductTests {
 
         @Test
-        @DisplayName("Should remove product successfully")
+        @DisplayName("Should soft delete product and keep its asset files referenced")
         void removeProduct_Success() {
             // Arrange
             Long productId = 1L;
-            Product product = Product.builder().name("Test Product").build();
-
-            when(productRepository.findById(productId)).thenReturn(Optional.of(product));
+            when(productRepository.softDeleteById(productId)).thenReturn(1);
 
             // Act
             productService.removeProduct(productId);
 
             // Assert
-            verify(productRepository).delete(product);
+            verify(productRepository).softDeleteById(productId);
+            verify(productRepository, never()).delete(any(Product.class));
+            verify(fileStorageService, never()).releaseFiles(anyList());
         }
 
         @Test
@@ -636,14 +729,14 @@ class ProductServiceImplTest {
         void removeProduct_NotFound_ThrowsException() {
             // Arrange
             Long productId = 999L;
-            when(productRepository.findById(productId)).thenReturn(Optional.empty());
+            when(productRepository.softDeleteById(productId)).thenReturn(0);
 
             // Act & Assert
             assertAppExceptionWithErrorCode(
                     () -> productService.removeProduct(productId),
                     ErrorCode.PRODUCT_NOT_FOUND);
 
-            verify(productRepository, never()).delete(any(Product.class));
+            verify(fileStorageService, never()).releaseFiles(anyList());
         }
     }
 
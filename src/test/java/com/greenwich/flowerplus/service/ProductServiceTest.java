@@ -0,0 +1,114 @@
+package com.greenwich.flowerplus.service;
+
+import com.greenwich.flowerplus.common.enums.ErrorCode;
+import com.greenwich.flowerplus.common.enums.ProductStatus;
+import com.greenwich.flowerplus.common.exception.AppException;
+import com.greenwich.flowerplus.common.utils.TsidUtils;
+import com.greenwich.flowerplus.entity.Product;
+import com.greenwich.flowerplus.repository.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Product soft delete against the local Postgres: the asset rows stay with the deleted product, so order
+ * history keeps its thumbnail and the stored file keeps its reference.
+ * Not transactional on purpose, the delete must be committed like the admin endpoint does it.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class ProductServiceTest {
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long productId;
+    private Long orderId;
+    private Long userId;
+    private String url;
+
+    @BeforeEach
+    void setUp() {
+        String suffix = String.valueOf(TsidUtils.nextId());
+        productId = productRepository.save(Product.builder()
+                .name("Removed rose " + suffix)
+                .slug("removed-rose-" + suffix)
+                .basePrice(new BigDecimal("350000"))
+                .costPrice(new BigDecimal("120000"))
+                .originalPrice(new BigDecimal("400000"))
+                .status(ProductStatus.ACTIVE)
+                .build()).getId();
+
+        url = "http://localhost:8080/api/v1/files/content/" + suffix + ".png";
+        jdbcTemplate.update("""
+                INSERT INTO product_assets (id, created_at, updated_at, url, type, is_thumbnail, position, product_id)
+                VALUES (?, NOW(), NOW(), ?, 'IMAGE', TRUE, 0, ?)
+                """, TsidUtils.nextId(), url, productId);
+        jdbcTemplate.update("""
+                INSERT INTO stored_files (provider, content_hash, url, size_bytes, ref_count, created_at,
+                                          confirmed_at, last_used_at)
+                VALUES ('local', ?, ?, 42, 1, NOW(), NOW(), NOW())
+                """, suffix, url);
+
+        orderId = TsidUtils.nextId();
+        userId = TsidUtils.nextId();
+        jdbcTemplate.update("""
+                INSERT INTO orders (id, created_at, updated_at, user_id, order_code, total_amount, discount_amount,
+                                    status, payment_status, payment_method, shipping_address)
+                VALUES (?, NOW(), NOW(), ?, ?, 350000, 0, 'COMPLETED', 'PAID', 'COD', CAST('{}' AS jsonb))
+                """, orderId, userId, "ORD-RM" + orderId % 1_000_000_000_000L);
+        jdbcTemplate.update("""
+                INSERT INTO order_items (id, created_at, updated_at, order_id, product_id, product_name, item_type,
+                                         quantity, unit_price, sub_total)
+                VALUES (?, NOW(), NOW(), ?, ?, 'Removed rose', 'PRODUCT', 1, 350000, 350000)
+                """, TsidUtils.nextId(), orderId, productId);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM order_items WHERE order_id = ?", orderId);
+        jdbcTemplate.update("DELETE FROM orders WHERE id = ?", orderId);
+        jdbcTemplate.update("DELETE FROM stored_files WHERE url = ?", url);
+        jdbcTemplate.update("DELETE FROM product_assets WHERE product_id = ?", productId);
+        jdbcTemplate.update("DELETE FROM products WHERE id = ?", productId);
+    }
+
+    @Test
+    @DisplayName("Soft delete keeps the asset rows and the file reference, order history keeps the thumbnail")
+    void removeProduct_KeepsAssetsReferenced() {
+        productService.removeProduct(productId);
+
+        assertThat(productRepository.findById(productId)).isEmpty();
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM product_assets WHERE product_id = ?", Integer.class, productId)).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT ref_count FROM stored_files WHERE url = ?", Integer.class, url)).isEqualTo(1);
+        assertThat(orderService.getOrderHistory(userId, null, 10)).singleElement()
+                .satisfies(order -> assertThat(order.firstItemThumbnail()).isEqualTo(url));
+
+        // Already deleted: not found, nothing released twice
+        assertThatThrownBy(() -> productService.removeProduct(productId))
+                .isInstanceOf(AppException.class)
+                .extracting(e -> ((AppException) e).getErrorCode())
+                .isEqualTo(ErrorCode.PRODUCT_NOT_FOUND.getCode());
+    }
+}
@@ -0,0 +1,141 @@
+package com.greenwich.flowerplus.service;
+
+import com.greenwich.flowerplus.common.utils.TsidUtils;
+import com.greenwich.flowerplus.dto.response.DailySalesResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * Sales rollup SQL against the local Postgres. Order timestamps are bound the way the application writes them
+ * (java.sql.Timestamp, i.e. wall time of the JVM zone), so the shop day must come out the same whatever zone
+ * the tests run in. Days are in 2020 so no other test writes to them.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class SalesRollupServiceTest {
+
+    // Asia/Ho_Chi_Minh = UTC+7: 17:30 UTC on the 10th is 00:30 on the 11th in the shop
+    private static final Instant PAID_AT = Instant.parse("2020-03-10T17:30:00Z");
+    private static final Instant CANCELLED_AT = Instant.parse("2020-03-12T16:59:00Z");
+    private static final LocalDate FROM = LocalDate.of(2020, 3, 9);
+    private static final LocalDate TO = LocalDate.of(2020, 3, 13);
+
+    @Autowired
+    private SalesRollupService salesRollupService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long orderId;
+    private Long productId;
+
+    @BeforeEach
+    void setUp() {
+        orderId = TsidUtils.nextId();
+        productId = TsidUtils.nextId();
+        jdbcTemplate.update("""
+                INSERT INTO orders (id, created_at, updated_at, user_id, order_code, total_amount, discount_amount,
+                                    status, payment_status, payment_method, shipping_address, paid_at)
+                VALUES (?, ?, ?, ?, ?, 500000, 0, 'CONFIRMED', 'PAID', 'BANK_TRANSFER', CAST('{}' AS jsonb), ?)
+                """, orderId, Timestamp.from(PAID_AT), Timestamp.from(PAID_AT), TsidUtils.nextId(),
+                "ORD-TZ" + orderId % 1_000_000, Timestamp.from(PAID_AT));
+        jdbcTemplate.update("""
+                INSERT INTO order_items (id, created_at, updated_at, order_id, product_id, product_name, item_type,
+                                         quantity, unit_price, sub_total)
+                VALUES (?, NOW(), NOW(), ?, ?, 'Midnight bouquet', 'PRODUCT', 2, 250000, 500000)
+                """, TsidUtils.nextId(), orderId, productId);
+        clearRollups();
+    }
+
+    @AfterEach
+    void tearDown() {
+        clearRollups();
+        jdbcTemplate.update("DELETE FROM sales_rollup_entries WHERE order_id = ?", orderId);
+        jdbcTemplate.update("DELETE FROM order_items WHERE order_id = ?", orderId);
+        jdbcTemplate.update("DELETE FROM orders WHERE id = ?", orderId);
+    }
+
+    @Test
+    @DisplayName("A sale paid after shop midnight counts on the next shop day, its cancellation on the cancel day")
+    void deltas_UseShopDayOfStoredWallTime() {
+        salesRollupService.onOrderRecognized(orderId);
+
+        assertThat(dailySales()).singleElement().satisfies(day -> {
+            assertThat(day.date()).isEqualTo(LocalDate.of(2020, 3, 11));
+            assertThat(day.orderCount()).isEqualTo(1);
+            assertThat(day.unitsSold()).isEqualTo(2);
+            assertThat(day.revenue()).isEqualByComparingTo("500000");
+        });
+        assertThat(productRevenue(LocalDate.of(2020, 3, 11))).isEqualByComparingTo("500000");
+
+        cancel();
+        salesRollupService.onOrderCancelled(orderId);
+
+        // Reversed on the day it was counted, cancellation counted on the shop day of cancelled_at (23:59)
+        assertThat(dailySales()).extracting(DailySalesResponse::date, DailySalesResponse::orderCount,
+                        DailySalesResponse::cancelledCount)
+                .containsExactly(
+                        tuple(LocalDate.of(2020, 3, 11), 0L, 0L),
+                        tuple(LocalDate.of(2020, 3, 12), 0L, 1L));
+    }
+
+    @Test
+    @DisplayName("Reconcile reads the same shop-day bounds as the deltas and repairs a drifted day")
+    void reconcile_RecomputesShopDays() {
+        salesRollupService.onOrderRecognized(orderId);
+        jdbcTemplate.update("UPDATE sales_daily SET revenue = 1, order_count = 7 WHERE sales_date = ?",
+                Date.valueOf(LocalDate.of(2020, 3, 11)));
+
+        salesRollupService.reconcile(FROM, TO);
+
+        assertThat(dailySales()).singleElement().satisfies(day -> {
+            assertThat(day.date()).isEqualTo(LocalDate.of(2020, 3, 11));
+            assertThat(day.orderCount()).isEqualTo(1);
+            assertThat(day.revenue()).isEqualByComparingTo("500000");
+        });
+
+        // Marker missing (order changed outside the service): reconcile puts it on the same day
+        jdbcTemplate.update("DELETE FROM sales_rollup_entries WHERE order_id = ?", orderId);
+        salesRollupService.reconcile(FROM, TO);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT sales_date FROM sales_rollup_entries WHERE order_id = ? AND event = 'RECOGNIZED'",
+                LocalDate.class, orderId)).isEqualTo(LocalDate.of(2020, 3, 11));
+    }
+
+    private void cancel() {
+        jdbcTemplate.update("UPDATE orders SET status = 'CANCELLED', cancelled_at = ? WHERE id = ?",
+                Timestamp.from(CANCELLED_AT), orderId);
+    }
+
+    private List<DailySalesResponse> dailySales() {
+        return salesRollupService.getDailySales(FROM, TO);
+    }
+
+    private BigDecimal productRevenue(LocalDate date) {
+        return jdbcTemplate.queryForObject(
+                "SELECT revenue FROM sales_daily_products WHERE sales_date = ? AND product_id = ?",
+                BigDecimal.class, Date.valueOf(date), productId);
+    }
+
+    private void clearRollups() {
+        jdbcTemplate.update("DELETE FROM sales_daily WHERE sales_date BETWEEN ? AND ?", Date.valueOf(FROM), Date.valueOf(TO));
+        jdbcTemplate.update("DELETE FROM sales_daily_products WHERE sales_date BETWEEN ? AND ?", Date.valueOf(FROM), Date.valueOf(TO));
+        jdbcTemplate.update("DELETE FROM sales_daily_categories WHERE sales_date BETWEEN ? AND ?", Date.valueOf(FROM), Date.valueOf(TO));
+    }
+}
@@ -0,0 +1,189 @@
+package com.greenwich.flowerplus.service;
+
+import com.greenwich.flowerplus.common.enums.ErrorCode;
+import com.greenwich.flowerplus.common.exception.AppException;
+import com.greenwich.flowerplus.common.utils.TsidUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Stress test: 1000 concurrent reservations against a stock that can only satisfy half of them.
+ * Not transactional on purpose, every reservation must commit on its own connection.
+ */
+@Slf4j
+@SpringBootTest
+@ActiveProfiles("test")
+class StockReservationConcurrencyTest {
+
+    private static final int CONCURRENT_RESERVATIONS = 1000;
+    private static final int ROSE_STOCK = 500;
+    private static final int RIBBON_STOCK = 2000;
+
+    @Autowired
+    private StockReservationService stockReservationService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long roseId;
+    private Long ribbonId;
+    private String referencePrefix;
+
+    @BeforeEach
+    void setUp() {
+        roseId = insertMaterial("Stress rose", ROSE_STOCK);
+        ribbonId = insertMaterial("Stress ribbon", RIBBON_STOCK);
+        referencePrefix = "STRESS-" + TsidUtils.nextId() + "-";
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM inventory_transactions WHERE material_id IN (?, ?)", roseId, ribbonId);
+        jdbcTemplate.update("DELETE FROM stock_reservations WHERE material_id IN (?, ?)", roseId, ribbonId);
+        jdbcTemplate.update("DELETE FROM material_stocks WHERE id IN (?, ?)", roseId, ribbonId);
+        jdbcTemplate.update("DELETE FROM materials WHERE id IN (?, ?)", roseId, ribbonId);
+    }
+
+    @Test
+    @DisplayName("1000 concurrent reservations never oversell and are all-or-nothing")
+    void reserve_Concurrently_NeverOversells() throws Exception {
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        List<Throwable> unexpected = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch start = new CountDownLatch(1);
+
+        long begin;
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> futures = new ArrayList<>(CONCURRENT_RESERVATIONS);
+            for (int i = 0; i < CONCURRENT_RESERVATIONS; i++) {
+                String reference = referencePrefix + i;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        // 1 rose + 2 ribbons per bouquet: ribbon alone would allow all 1000
+                        stockReservationService.reserve(reference, Map.of(roseId, 1, ribbonId, 2));
+                        succeeded.incrementAndGet();
+                    } catch (AppException e) {
+                        if (ErrorCode.INVENTORY_INSUFFICIENT_STOCK.getCode().equals(e.getErrorCode())) {
+                            rejected.incrementAndGet();
+                        } else {
+                            unexpected.add(e);
+                        }
+                    } catch (Exception e) {
+                        unexpected.add(e);
+                    }
+                    return null;
+                }));
+            }
+
+            begin = System.nanoTime();
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(2, TimeUnit.MINUTES);
+            }
+        }
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin);
+
+        log.info("{} concurrent reservations in {} ms: {} succeeded, {} rejected",
+                CONCURRENT_RESERVATIONS, elapsedMs, succeeded.get(), rejected.get());
+
+        assertThat(unexpected).isEmpty();
+        assertThat(succeeded.get()).isEqualTo(ROSE_STOCK);
+        assertThat(rejected.get()).isEqualTo(CONCURRENT_RESERVATIONS - ROSE_STOCK);
+
+        // No oversell and no partial reservation: ribbon reserved exactly for the successful bouquets
+        assertThat(reserved(roseId)).isEqualTo(ROSE_STOCK);
+        assertThat(reserved(ribbonId)).isEqualTo(2 * succeeded.get());
+        assertThat(countLines(roseId)).isEqualTo(succeeded.get());
+        assertThat(countLines(ribbonId)).isEqualTo(succeeded.get());
+    }
+
+    @Test
+    @DisplayName("Commit consumes stock once, release returns it once, replays are no-ops")
+    void commitAndRelease_AreIdempotent() {
+        stockReservationService.reserve(referencePrefix + "A", Map.of(roseId, 10, ribbonId, 20));
+        stockReservationService.reserve(referencePrefix + "A", Map.of(roseId, 10, ribbonId, 20)); // replay
+        stockReservationService.reserve(referencePrefix + "B", Map.of(roseId, 5));
+
+        stockReservationService.commit(referencePrefix + "A");
+        stockReservationService.commit(referencePrefix + "A"); // replay
+        stockReservationService.release(referencePrefix + "B");
+        stockReservationService.release(referencePrefix + "B"); // replay
+
+        assertThat(quantity(roseId)).isEqualTo(ROSE_STOCK - 10);
+        assertThat(quantity(ribbonId)).isEqualTo(RIBBON_STOCK - 20);
+        assertThat(reserved(roseId)).isZero();
+        assertThat(reserved(ribbonId)).isZero();
+    }
+
+    @Test
+    @DisplayName("Reserving again with a closed or different reference holds nothing and is rejected")
+    void reserve_ReusedReference_Rejected() {
+        stockReservationService.reserve(referencePrefix + "A", Map.of(roseId, 10));
+        stockReservationService.release(referencePrefix + "A");
+        stockReservationService.reserve(referencePrefix + "B", Map.of(roseId, 5));
+        stockReservationService.commit(referencePrefix + "B");
+        stockReservationService.reserve(referencePrefix + "C", Map.of(roseId, 3));
+
+        assertThatThrownBy(() -> stockReservationService.reserve(referencePrefix + "A", Map.of(roseId, 10)))
+                .isInstanceOf(AppException.class)
+                .hasFieldOrPropertyWithValue("errorCode", ErrorCode.INVENTORY_RESERVE_FAILED.getCode());
+        assertThatThrownBy(() -> stockReservationService.reserve(referencePrefix + "B", Map.of(roseId, 5)))
+                .isInstanceOf(AppException.class)
+                .hasFieldOrPropertyWithValue("errorCode", ErrorCode.INVENTORY_RESERVE_FAILED.getCode());
+        assertThatThrownBy(() -> stockReservationService.reserve(referencePrefix + "C", Map.of(roseId, 4)))
+                .isInstanceOf(AppException.class)
+                .hasFieldOrPropertyWithValue("errorCode", ErrorCode.INVENTORY_RESERVE_FAILED.getCode());
+
+        assertThat(reserved(roseId)).isEqualTo(3);
+        assertThat(quantity(roseId)).isEqualTo(ROSE_STOCK - 5);
+    }
+
+    private Long insertMaterial(String name, int quantity) {
+        Long id = TsidUtils.nextId();
+        jdbcTemplate.update("""
+                INSERT INTO materials (id, name, unit, created_at, updated_at)
+                VALUES (?, ?, 'stem', NOW(), NOW())
+                """, id, name + " " + id);
+        jdbcTemplate.update("""
+                INSERT INTO material_stocks (id, quantity, reserved_quantity, opening_balance, reorder_level, created_at, updated_at)
+                VALUES (?, ?, 0, ?, 10, NOW(), NOW())
+                """, id, quantity, quantity);
+        return id;
+    }
+
+    private int reserved(Long materialId) {
+        return jdbcTemplate.queryForObject("SELECT reserved_quantity FROM material_stocks WHERE id = ?", Integer.class, materialId);
+    }
+
+    private int quantity(Long materialId) {
+        return jdbcTemplate.queryForObject("SELECT quantity FROM material_stocks WHERE id = ?", Integer.class, materialId);
+    }
+
+    private int countLines(Long materialId) {
+        return jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM stock_reservations WHERE material_id = ? AND status = 'RESERVED'",
+                Integer.class, materialId);
+    }
+}